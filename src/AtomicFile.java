@@ -0,0 +1,257 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Crash-safe writes of serialized data files under PersistenceConfig.DATA_DIRECTORY.
+ *
+ * write() streams the content into "file.tmp" through a FileChannel, appends a
+ * trailer (magic, content length, CRC32C), forces it to disk, keeps the current
+ * file as "file.bak" and atomically renames the temp file into place. read()
+ * verifies the trailer and checksum and falls back to "file.bak" when the current
+ * file is missing, torn or corrupt.
+ *
+ * When PersistenceConfig has a compression level for the file, the stream is
+ * deflated on the way to disk; the trailer magic records this so read() inflates
+ * only when needed. The checksum covers the bytes on disk.
+ *
+ * Files written before checksums were added (no trailer) are still read as plain
+ * serialization streams.
+ */
+public class AtomicFile {
+
+    public static final String TEMP_SUFFIX = ".tmp";
+    public static final String BACKUP_SUFFIX = ".bak";
+
+    private static final int TRAILER_MAGIC = 0x43524343;            // "CRCC"
+    private static final int COMPRESSED_TRAILER_MAGIC = 0x4352435A; // "CRCZ"
+    private static final int TRAILER_SIZE = 16;          // int magic | long length | int crc32c
+
+    private static final int BUFFER_SIZE = PersistenceConfig.COMPRESSION_BUFFER_SIZE;
+
+    @FunctionalInterface
+    public interface StreamWriter {
+        void write(ObjectOutputStream out) throws IOException;
+    }
+
+    // Lets a caller write through its own ObjectOutputStream subclass (e.g. with replaceObject)
+    @FunctionalInterface
+    public interface StreamOpener {
+        ObjectOutputStream open(OutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface StreamReader<T> {
+        T read(ObjectInputStream in) throws IOException, ClassNotFoundException;
+    }
+
+    private AtomicFile() {}
+
+
+    // ---------- Writing ----------
+
+    public static void writeObject(String filename, Object value) throws IOException {
+        write(filename, out -> out.writeObject(value));
+    }
+
+    public static void write(String filename, StreamWriter writer) throws IOException {
+        write(filename, ObjectOutputStream::new, writer);
+    }
+
+    public static void write(String filename, StreamOpener opener, StreamWriter writer) throws IOException {
+        Path target = path(filename);
+        Path temp = path(filename + TEMP_SUFFIX);
+
+        int level = PersistenceConfig.getCompressionLevel(filename);
+        Deflater deflater = level != PersistenceConfig.NO_COMPRESSION ? new Deflater(level) : null;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32C crc = new CRC32C();
+            CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), crc);
+            DeflaterOutputStream deflated = null;
+            OutputStream content = checked;
+            if (deflater != null) {
+                deflated = new DeflaterOutputStream(checked, deflater, BUFFER_SIZE);
+                // ObjectOutputStream writes small blocks; batch them before they reach the deflater
+                content = new BufferedOutputStream(deflated, BUFFER_SIZE);
+            }
+
+            // ObjectOutputStream.close() would close the channel before the trailer is written
+            ObjectOutputStream out = opener.open(content);
+            writer.write(out);
+            out.flush();
+            if (deflated != null) {
+                deflated.finish();
+                checked.flush();
+            }
+
+            int magic = deflater != null ? COMPRESSED_TRAILER_MAGIC : TRAILER_MAGIC;
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            trailer.putInt(magic).putLong(channel.position()).putInt((int) crc.getValue()).flip();
+            while (trailer.hasRemaining()) {
+                channel.write(trailer);
+            }
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+
+        if (Files.exists(target)) {
+            Files.move(target, path(filename + BACKUP_SUFFIX),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    // Makes the renames durable; not every platform can open a directory, which is fine
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+
+    // ---------- Reading ----------
+
+    public static Object readObject(String filename) throws IOException, ClassNotFoundException {
+        return read(filename, ObjectInputStream::readObject);
+    }
+
+    /**
+     * Reads the current generation, or the previous one if the current file is
+     * missing or fails verification or deserialization. Throws the current file's
+     * error if neither can be read.
+     */
+    public static <T> T read(String filename, StreamReader<T> reader) throws IOException, ClassNotFoundException {
+        Path backup = path(filename + BACKUP_SUFFIX);
+        try {
+            return readGeneration(path(filename), reader);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            if (!Files.exists(backup)) {
+                throw e;
+            }
+            try {
+                return readGeneration(backup, reader);
+            } catch (IOException | ClassNotFoundException | ClassCastException backupFailure) {
+                e.addSuppressed(backupFailure);
+                throw e;
+            }
+        }
+    }
+
+    private static <T> T readGeneration(Path file, StreamReader<T> reader) throws IOException, ClassNotFoundException {
+        ByteBuffer bytes = readFully(file);
+        ByteBuffer content = verifiedContent(bytes, file);
+
+        InputStream raw = new ByteBufferInputStream(content);
+        Inflater inflater = isCompressed(bytes) ? new Inflater() : null;
+        if (inflater != null) {
+            raw = new InflaterInputStream(raw, inflater, BUFFER_SIZE);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(raw, BUFFER_SIZE))) {
+            return reader.read(in);
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    // Read into the heap rather than mapping: a live mapping keeps the file locked on
+    // Windows until it is garbage collected, which blocks the rename to .bak and the delete
+    private static ByteBuffer readFully(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Data file too large to read: " + file);
+            }
+            ByteBuffer bytes = ByteBuffer.allocate((int) size);
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes) < 0) {
+                    throw new EOFException("Data file truncated while reading: " + file);
+                }
+            }
+            return bytes.flip();
+        }
+    }
+
+    private static int trailerMagic(ByteBuffer file) {
+        int size = file.limit();
+        return size < TRAILER_SIZE ? 0 : file.getInt(size - TRAILER_SIZE);
+    }
+
+    private static boolean isCompressed(ByteBuffer file) {
+        return trailerMagic(file) == COMPRESSED_TRAILER_MAGIC;
+    }
+
+    // Returns the content without the trailer, or the whole file for legacy files
+    private static ByteBuffer verifiedContent(ByteBuffer file, Path path) throws IOException {
+        int size = file.limit();
+        int magic = trailerMagic(file);
+        if (magic != TRAILER_MAGIC && magic != COMPRESSED_TRAILER_MAGIC) {
+            return file;
+        }
+        long length = file.getLong(size - TRAILER_SIZE + 4);
+        int expected = file.getInt(size - 4);
+        if (length != size - TRAILER_SIZE) {
+            throw new StreamCorruptedException("Length mismatch in " + path);
+        }
+
+        ByteBuffer content = file.duplicate().limit((int) length);
+        CRC32C crc = new CRC32C();
+        crc.update(content.duplicate());
+        if ((int) crc.getValue() != expected) {
+            throw new StreamCorruptedException("Checksum mismatch in " + path);
+        }
+        return content;
+    }
+
+    private static Path path(String filename) {
+        return Path.of(PersistenceConfig.getDataFilePath(filename));
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
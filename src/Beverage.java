@@ -17,6 +17,7 @@ public class Beverage extends MenuItem {
                     String nationalOrigin, NutritionalInfo nutritionalInfo, Double alcoholPercentage) {
         super(name, description, price, image, nationalOrigin, nutritionalInfo);
         setAlcoholPercentage(alcoholPercentage);
+        Journal.recordMenuItemCreated(this);
     }
 
     public Beverage(String name, String description, double price, String image,
@@ -24,6 +25,7 @@ public class Beverage extends MenuItem {
                     Set<String> allergens, Double alcoholPercentage) {
         super(name, description, price, image, nationalOrigin, nutritionalInfo, allergens);
         setAlcoholPercentage(alcoholPercentage);
+        Journal.recordMenuItemCreated(this);
     }
 
 
@@ -0,0 +1,178 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.UUID;
+
+/**
+ * Compact field encodings used by the hand-written writeObject/readObject of the
+ * high-volume classes (Order, Payment, OrderRequest, ItemQuantity).
+ *
+ * Integers are LEB128 varints (signed values zigzag-encoded), dates are varint
+ * epoch days, times varint nanos of day, enums varint ordinals and canonical UUID
+ * ids two longs. Nullable values are prefixed with a presence flag or use 0 as null.
+ * Object references are still written with writeObject, so the stream's handle
+ * table turns shared objects into back-references.
+ */
+final class BinaryCodec {
+
+    private BinaryCodec() {}
+
+
+    // ---------- Varints ----------
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        long value = readVarLong(in);
+        if (value > 0xFFFFFFFFL) {
+            throw new StreamCorruptedException("Varint out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    static void writeSignedVarLong(DataOutput out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readSignedVarLong(DataInput in) throws IOException {
+        long zigzag = readVarLong(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+
+    // ---------- Strings and ids ----------
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final byte ID_TEXT = 0;
+    private static final byte ID_UUID = 1;
+
+    // Ids are usually UUID strings (16 bytes instead of 38); anything else is written as text
+    static void writeId(DataOutput out, String id) throws IOException {
+        UUID uuid = parseCanonicalUuid(id);
+        if (uuid != null) {
+            out.writeByte(ID_UUID);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            out.writeByte(ID_TEXT);
+            out.writeUTF(id);
+        }
+    }
+
+    static String readId(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        return switch (kind) {
+            case ID_UUID -> new UUID(in.readLong(), in.readLong()).toString();
+            case ID_TEXT -> in.readUTF();
+            default -> throw new StreamCorruptedException("Unknown id encoding: " + kind);
+        };
+    }
+
+    private static UUID parseCanonicalUuid(String id) {
+        if (id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            // fromString is lenient about case and leading zeros - only take exact round trips
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+
+    // ---------- Enums ----------
+
+    static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+        writeVarInt(out, value == null ? 0 : value.ordinal() + 1);
+    }
+
+    static <E extends Enum<E>> E readEnum(DataInput in, E[] values) throws IOException {
+        int code = readVarInt(in);
+        if (code == 0) {
+            return null;
+        }
+        if (code > values.length) {
+            throw new StreamCorruptedException("Unknown enum ordinal: " + (code - 1));
+        }
+        return values[code - 1];
+    }
+
+
+    // ---------- Dates and times ----------
+
+    static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeBoolean(date != null);
+        if (date != null) {
+            writeSignedVarLong(out, date.toEpochDay());
+        }
+    }
+
+    static LocalDate readDate(DataInput in) throws IOException {
+        return in.readBoolean() ? LocalDate.ofEpochDay(readSignedVarLong(in)) : null;
+    }
+
+    static void writeTime(DataOutput out, LocalTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time != null) {
+            writeVarLong(out, time.toNanoOfDay());
+        }
+    }
+
+    static LocalTime readTime(DataInput in) throws IOException {
+        return in.readBoolean() ? LocalTime.ofNanoOfDay(readVarLong(in)) : null;
+    }
+
+    static void writeDateTime(DataOutput out, LocalDateTime dateTime) throws IOException {
+        out.writeBoolean(dateTime != null);
+        if (dateTime != null) {
+            writeSignedVarLong(out, dateTime.toLocalDate().toEpochDay());
+            writeVarLong(out, dateTime.toLocalTime().toNanoOfDay());
+        }
+    }
+
+    static LocalDateTime readDateTime(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        LocalDate date = LocalDate.ofEpochDay(readSignedVarLong(in));
+        return LocalDateTime.of(date, LocalTime.ofNanoOfDay(readVarLong(in)));
+    }
+}
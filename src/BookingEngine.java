@@ -0,0 +1,116 @@
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Books tables for time slots without double-booking.
+ *
+ * Each table keeps its own schedule of reservations ordered by start time (see
+ * Table.findConflict), so an overlap check is a single logarithmic lookup no matter
+ * how many future reservations the table holds. Booking checks and registers the
+ * reservation while holding the table's lock, so two terminals booking the last free
+ * table for the same slot cannot both succeed.
+ */
+public final class BookingEngine {
+
+    private BookingEngine() {}
+
+    public static boolean isFree(Table table, LocalDateTime start, Duration duration) {
+        if (table == null) {
+            throw new IllegalArgumentException("Table cannot be null");
+        }
+        return table.isFreeDuring(start, end(start, duration));
+    }
+
+    /**
+     * Tables seating the party that are free for [start, start + duration), smallest
+     * fitting table first.
+     */
+    public static List<Table> findFreeTables(int partySize, LocalDateTime start, Duration duration) {
+        return findFreeTables(partySize, start, duration, null);
+    }
+
+    // Same as above, restricted to one section when section is not null
+    public static List<Table> findFreeTables(int partySize, LocalDateTime start, Duration duration, String section) {
+        if (partySize <= 0) {
+            throw new IllegalArgumentException("Party size must be greater than zero");
+        }
+        LocalDateTime end = end(start, duration);
+
+        List<Table> free = new ArrayList<>();
+        for (Table table : Table.getAllTablesFromExtent()) {
+            if (table.getCapacity() < partySize) continue;
+            if (section != null && !section.equals(table.getSection())) continue;
+            if (table.isFreeDuring(start, end)) {
+                free.add(table);
+            }
+        }
+        free.sort(Comparator.comparingInt(Table::getCapacity).thenComparingInt(Table::getNumber));
+        return free;
+    }
+
+    /**
+     * Books the smallest free table that seats the party. Throws IllegalStateException
+     * when every fitting table is taken for the slot.
+     */
+    public static Reservation book(Customer customer, LocalDate date, LocalTime time, int partySize,
+                                   Duration duration) {
+        return book(customer, date, time, partySize, duration, null);
+    }
+
+    public static Reservation book(Customer customer, LocalDate date, LocalTime time, int partySize,
+                                   Duration duration, String section) {
+        if (date == null || time == null) {
+            throw new IllegalArgumentException("Date and time cannot be null");
+        }
+        LocalDateTime start = LocalDateTime.of(date, time);
+        // Candidates may be taken between the query and the lock; try the next one
+        for (Table table : findFreeTables(partySize, start, duration, section)) {
+            synchronized (table) {
+                if (table.isFreeDuring(start, end(start, duration))) {
+                    return new Reservation(date, time, partySize, duration, customer, table);
+                }
+            }
+        }
+        throw new IllegalStateException(String.format(
+            "No free table for %d guests at %s%s", partySize, start,
+            section == null ? "" : " in " + section));
+    }
+
+    // Books the given table; throws IllegalStateException if the slot is taken
+    public static Reservation book(Customer customer, Table table, LocalDate date, LocalTime time,
+                                   int partySize, Duration duration) {
+        if (table == null) {
+            throw new IllegalArgumentException("Table cannot be null");
+        }
+        synchronized (table) {
+            return new Reservation(date, time, partySize, duration, customer, table);
+        }
+    }
+
+    // Frees the reservation's slot on its table
+    public static void cancel(Reservation reservation) {
+        if (reservation == null) {
+            throw new IllegalArgumentException("Reservation cannot be null");
+        }
+        Table table = reservation.getAssignedTable();
+        if (table == null) {
+            reservation.cancelReservation();
+            return;
+        }
+        synchronized (table) {
+            reservation.cancelReservation();
+        }
+    }
+
+    private static LocalDateTime end(LocalDateTime start, Duration duration) {
+        if (start == null || duration == null) {
+            throw new IllegalArgumentException("Start and duration cannot be null");
+        }
+        return start.plus(duration);
+    }
+}
@@ -1,3 +1,7 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serial;
 
 public class Card extends Payment {
@@ -24,6 +28,8 @@ public class Card extends Payment {
         super(amountPayed, order);
         setLastFourDigits(lastFourDigits);
         setCardType(cardType);
+        // Before the status change below, so that replay finds the payment
+        Journal.recordPaymentCreated(this);
 
         // Set to IN_TRANSACTION if amount > 500 PLN
         if (amountPayed > LARGE_TRANSACTION_THRESHOLD) {
@@ -43,6 +49,7 @@ public class Card extends Payment {
         } else {
             this.authorizationCode = null;
         }
+        markChanged();
     }
 
     public void setLastFourDigits(String lastFourDigits) {
@@ -53,6 +60,7 @@ public class Card extends Payment {
             throw new IllegalArgumentException("Last four digits must be exactly 4 digits");
         }
         this.lastFourDigits = lastFourDigits;
+        markChanged();
     }
 
     public void setCardType(String cardType) {
@@ -60,6 +68,26 @@ public class Card extends Payment {
             throw new IllegalArgumentException("Card type cannot be null or empty");
         }
         this.cardType = cardType.trim();
+        markChanged();
+    }
+
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {};
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        BinaryCodec.writeString(out, authorizationCode);
+        BinaryCodec.writeString(out, lastFourDigits);
+        BinaryCodec.writeString(out, cardType);
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        authorizationCode = BinaryCodec.readString(in);
+        lastFourDigits = BinaryCodec.readString(in);
+        cardType = BinaryCodec.readString(in);
     }
 
     @Override
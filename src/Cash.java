@@ -1,3 +1,7 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serial;
 
 public class Cash extends Payment {
@@ -5,8 +9,8 @@ public class Cash extends Payment {
     private static final long serialVersionUID = 1L;
 
 
-    private double amountTendered;
-    private double changeGiven;
+    private long amountTenderedGrosz;
+    private long changeGivenGrosz;
 
 
     /**
@@ -21,36 +25,60 @@ public class Cash extends Payment {
         super(amountPayed, order);
         setAmountTendered(amountTendered);
         calculateChange();
+        Journal.recordPaymentCreated(this);
     }
 
     
-    public double getAmountTendered() { return amountTendered; }
-    public double getChangeGiven() { return changeGiven; }
+    public double getAmountTendered() { return Money.toDouble(amountTenderedGrosz); }
+    public double getChangeGiven() { return Money.toDouble(changeGivenGrosz); }
+    public Money getAmountTenderedAsMoney() { return Money.ofGrosz(amountTenderedGrosz); }
+    public Money getChangeGivenAsMoney() { return Money.ofGrosz(changeGivenGrosz); }
 
     
     public void setAmountTendered(double amountTendered) {
-        if (amountTendered < getAmountPayed()) {
+        long tenderedGrosz = Money.toGrosz(amountTendered);
+        if (tenderedGrosz < amountPayedGrosz()) {
             throw new IllegalArgumentException("Amount tendered must be greater than or equal to amount payed");
         }
-        this.amountTendered = amountTendered;
+        this.amountTenderedGrosz = tenderedGrosz;
         calculateChange();
+        markChanged();
     }
 
     public void setChangeGiven(double changeGiven) {
-        if (changeGiven < 0) {
+        long changeGrosz = Money.toGrosz(changeGiven);
+        if (changeGrosz < 0) {
             throw new IllegalArgumentException("Change given cannot be negative");
         }
-        this.changeGiven = changeGiven;
+        this.changeGivenGrosz = changeGrosz;
+        markChanged();
     }
 
 
     private void calculateChange() {
-        this.changeGiven = amountTendered - getAmountPayed();
+        this.changeGivenGrosz = amountTenderedGrosz - amountPayedGrosz();
+    }
+
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {};
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        BinaryCodec.writeVarLong(out, amountTenderedGrosz);
+        BinaryCodec.writeVarLong(out, changeGivenGrosz);
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        amountTenderedGrosz = BinaryCodec.readVarLong(in);
+        changeGivenGrosz = BinaryCodec.readVarLong(in);
     }
 
     @Override
     public String toString() {
         return String.format("Cash[tendered=%.2f, change=%.2f, %s]",
-            amountTendered, changeGiven, super.toString());
+            getAmountTendered(), getChangeGiven(), super.toString());
     }
 }
@@ -0,0 +1,653 @@
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+/**
+ * Dirty tracking and incremental saves for one class extent.
+ *
+ * The domain class reports created/modified entities with markChanged and removed
+ * ones with markDeleted. saveChanges then appends a delta segment holding only those
+ * entities to "filename.delta" next to the base file written by saveFull, so save
+ * time follows the amount of change rather than the size of the extent. load reads
+ * the base and applies the segments in order. Once the delta file grows past half
+ * the base file it is merged into a new base on a background thread. The base is
+ * written through AtomicFile; each segment carries its own CRC32C and a torn
+ * trailing segment is dropped on load.
+ *
+ * Every domain object in a file gets an id, listed at the end of the base file. A
+ * segment writes each changed entity in full, together with its related objects
+ * (see the constructor); any other object the file already holds - the other orders
+ * in Customer.orders, a payment's customer - is written as its id and resolved to
+ * the loaded object. Objects that are already in the file are updated in place on
+ * load, so the rest of the loaded graph keeps pointing at the same instances.
+ *
+ * Each base file has a random generation number and every segment records the
+ * generation it was appended to. Segments left behind by a crash between writing
+ * a new base and deleting the old delta file are skipped on load.
+ *
+ * Ids are known only for files this tracker has written or loaded; the first
+ * saveChanges to any other file (or after reset) is a full save.
+ */
+public class ChangeTracker<T extends Serializable> {
+
+    public static final String DELTA_SUFFIX = ".delta";
+
+    // Compact when the delta file is larger than base / COMPACTION_RATIO (and at least MIN_COMPACTION_BYTES)
+    private static final int COMPACTION_RATIO = 2;
+    private static final long MIN_COMPACTION_BYTES = 64 * 1024;
+
+    private static final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "extent-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Class<T> type;
+    private final Function<T, String> keyOf;
+    private final Function<T, Collection<?>> relatedOf;
+
+    private final Set<T> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<String> deleted = new HashSet<>();
+    // Related objects unlinked from an entity (or of deleted entities), written with the next segment
+    private final Set<Object> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Object fileLock = new Object();
+
+    // Files written or loaded by this tracker; guarded by fileLock
+    private final Map<String, FileState> files = new HashMap<>();
+
+    public ChangeTracker(Class<T> type, Function<T, String> keyOf) {
+        this(type, keyOf, entity -> List.of());
+    }
+
+    /**
+     * relatedOf lists the objects written in full with a changed or deleted entity: the
+     * parts it owns (an order's DineIn) and the objects on the other side of its
+     * associations, whose reverse links change with it (the order's customer).
+     */
+    public ChangeTracker(Class<T> type, Function<T, String> keyOf, Function<T, Collection<?>> relatedOf) {
+        this.type = type;
+        this.keyOf = keyOf;
+        this.relatedOf = relatedOf;
+    }
+
+
+    // ---------- Tracking ----------
+
+    public synchronized void markChanged(T entity) {
+        if (entity != null) {
+            changed.add(entity);
+        }
+    }
+
+    public synchronized void markDeleted(T entity) {
+        if (entity != null) {
+            changed.remove(entity);
+            touched.addAll(related(entity));
+            markDeleted(keyOf.apply(entity));
+        }
+    }
+
+    /**
+     * Writes an object that is no longer related to a changed entity (e.g. an order's
+     * previous customer) with the next segment, so its reverse links are not stale.
+     */
+    public synchronized void markTouched(Object related) {
+        if (related != null && hasId(related)) {
+            touched.add(related);
+        }
+    }
+
+    public synchronized void markDeleted(String key) {
+        if (key != null) {
+            deleted.add(key);
+        }
+    }
+
+    public synchronized int getPendingChangeCount() {
+        return changed.size() + deleted.size();
+    }
+
+    /**
+     * Drops pending changes and forgets the ids of saved objects. Call when the
+     * extent is cleared or replaced by objects that were not loaded from its file.
+     */
+    public void reset() {
+        clearPending();
+        synchronized (fileLock) {
+            files.clear();
+        }
+    }
+
+    private synchronized void clearPending() {
+        changed.clear();
+        deleted.clear();
+        touched.clear();
+    }
+
+
+    // ---------- Saving ----------
+
+    /**
+     * Writes the whole extent as a new base file and drops any delta segments.
+     */
+    public void saveFull(String filename, Collection<T> extent) throws IOException {
+        synchronized (fileLock) {
+            FileState state = writeBase(filename, new ArrayList<>(extent), null);
+            Files.deleteIfExists(deltaPath(filename));
+            files.put(filename, state);
+        }
+        clearPending();
+    }
+
+    /**
+     * Appends the entities changed since the last save as a delta segment.
+     * Falls back to a full save when there is no base file yet or this tracker has
+     * not written or loaded it.
+     */
+    public void saveChanges(String filename, Collection<T> extent) throws IOException {
+        boolean known;
+        synchronized (fileLock) {
+            known = files.containsKey(filename) && Files.exists(basePath(filename));
+        }
+        if (!known) {
+            saveFull(filename, extent);
+            return;
+        }
+
+        ArrayList<T> upserts = new ArrayList<>();
+        ArrayList<String> deletes;
+        Set<Object> related = Collections.newSetFromMap(new IdentityHashMap<>());
+        synchronized (this) {
+            if (changed.isEmpty() && deleted.isEmpty()) {
+                return;
+            }
+            // Setters mark unconditionally, so skip objects that never made it into the
+            // extent (e.g. a constructor that failed validation half-way)
+            Set<T> live = Collections.newSetFromMap(new IdentityHashMap<>(extent.size()));
+            live.addAll(extent);
+            for (T entity : changed) {
+                if (live.contains(entity)) {
+                    upserts.add(entity);
+                }
+            }
+            deletes = new ArrayList<>(deleted);
+            related.addAll(touched);
+            changed.clear();
+            deleted.clear();
+            touched.clear();
+        }
+        for (T entity : upserts) {
+            related.addAll(related(entity));
+        }
+        related.removeAll(upserts);
+
+        boolean compact;
+        synchronized (fileLock) {
+            FileState state = files.get(filename);
+            if (state == null) {
+                // Reset while the changes were collected: nothing to append to
+                saveFull(filename, extent);
+                return;
+            }
+
+            Map<Object, Long> added = new IdentityHashMap<>();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream body = new DataOutputStream(bytes);
+            body.writeLong(state.generation);
+            body.writeInt(deletes.size());
+            for (String key : deletes) {
+                body.writeUTF(key);
+            }
+            body.writeInt(upserts.size() + related.size());
+            for (T entity : upserts) {
+                writeObjectRecord(body, entity, true, state, added);
+            }
+            for (Object object : related) {
+                writeObjectRecord(body, object, false, state, added);
+            }
+            body.flush();
+
+            CRC32C crc = new CRC32C();
+            crc.update(bytes.toByteArray());
+            try (FileOutputStream file = new FileOutputStream(deltaPath(filename).toFile(), true);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(bytes.size());
+                bytes.writeTo(out);
+                out.writeInt((int) crc.getValue());
+                out.flush();
+                file.getChannel().force(false);
+            }
+            // Only objects that reached the disk may be referred to by id later
+            state.ids.putAll(added);
+
+            long deltaSize = Files.size(deltaPath(filename));
+            compact = deltaSize >= MIN_COMPACTION_BYTES
+                && deltaSize * COMPACTION_RATIO > Files.size(basePath(filename));
+        }
+
+        if (compact) {
+            compactAsync(filename);
+        }
+    }
+
+    /**
+     * One object written in full: int length | serialized (long id | boolean inFile |
+     * boolean extentMember | object | long[] ids | Object[] objects). The trailing table
+     * lists the new objects written in full inside it, which get ids from here on.
+     */
+    private void writeObjectRecord(DataOutputStream body, Object object, boolean extentMember,
+                                   FileState state, Map<Object, Long> added) throws IOException {
+        Long known = state.idOf(object, added);
+        long id = known != null ? known : state.assign(object, added);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (RecordOutputStream out = new RecordOutputStream(bytes, object, known == null, state, added)) {
+            out.writeLong(id);
+            out.writeBoolean(known != null);
+            out.writeBoolean(extentMember);
+            if (known != null) {
+                // Unshared, so references back to the object from inside it go through replaceObject
+                out.writeUnshared(object);
+            } else {
+                out.writeObject(object);
+            }
+            out.writeTable();
+        }
+        body.writeInt(bytes.size());
+        bytes.writeTo(body);
+    }
+
+    private List<Object> related(T entity) {
+        List<Object> related = new ArrayList<>();
+        for (Object object : relatedOf.apply(entity)) {
+            if (object != null && hasId(object)) {
+                related.add(object);
+            }
+        }
+        return related;
+    }
+
+
+    // ---------- Loading / compaction ----------
+
+    /**
+     * Reads the base file and applies every delta segment on top of it.
+     */
+    public List<T> load(String filename) throws IOException, ClassNotFoundException {
+        Merged<T> merged;
+        synchronized (fileLock) {
+            merged = readMerged(filename);
+            if (merged.generation != 0) {
+                files.put(filename, FileState.of(merged.generation, merged.objects));
+            } else {
+                files.remove(filename);
+            }
+        }
+        clearPending();
+        return merged.extent;
+    }
+
+    /**
+     * Merges the delta segments into a new base file.
+     */
+    public void compact(String filename) throws IOException, ClassNotFoundException {
+        synchronized (fileLock) {
+            Path delta = deltaPath(filename);
+            if (!Files.exists(delta)) {
+                return;
+            }
+            Merged<T> merged = readMerged(filename);
+            FileState written = writeBase(filename, new ArrayList<>(merged.extent), merged.objects);
+            Files.delete(delta);
+            // Ids are carried over, so only the generation of a known file changes
+            FileState state = files.get(filename);
+            if (state != null) {
+                state.generation = written.generation;
+            }
+        }
+    }
+
+    public Future<?> compactAsync(String filename) {
+        return compactor.submit(() -> {
+            compact(filename);
+            return null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Merged<T> readMerged(String filename) throws IOException, ClassNotFoundException {
+        Merged<T> base = AtomicFile.read(filename, in -> {
+            Object first = in.readObject();
+            if (first instanceof List<?> legacy) {
+                // Written before ids and generations; no segment can belong to it
+                return new Merged<>((List<T>) legacy, 0L, new HashMap<>());
+            }
+            BaseHeader header = (BaseHeader) first;
+            List<T> extent = (List<T>) in.readObject();
+            long[] ids = (long[]) in.readObject();
+            Object[] objects = (Object[]) in.readObject();
+            Map<Long, Object> byId = new HashMap<>(ids.length * 2);
+            for (int i = 0; i < ids.length; i++) {
+                byId.put(ids[i], objects[i]);
+            }
+            return new Merged<>(extent, header.generation(), byId);
+        });
+
+        Map<String, T> byKey = new LinkedHashMap<>();
+        for (T entity : base.extent) {
+            String key = keyOf.apply(entity);
+            // A missing or repeated key would silently drop entities from the merged extent
+            if (key == null || byKey.putIfAbsent(key, entity) != null) {
+                throw new InvalidObjectException(type.getSimpleName() + " in " + filename
+                    + " has a missing or duplicate key: " + key);
+            }
+        }
+
+        Path delta = deltaPath(filename);
+        if (Files.exists(delta)) {
+            long validLength = 0;
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(delta.toFile())))) {
+                byte[] segment;
+                while ((segment = readSegment(in)) != null) {
+                    validLength += segment.length + 8;
+                    applySegment(segment, base, byKey);
+                }
+            }
+            // Cut off a torn segment so that later appends are not hidden behind it
+            if (validLength < Files.size(delta)) {
+                try (FileChannel channel = FileChannel.open(delta, StandardOpenOption.WRITE)) {
+                    channel.truncate(validLength);
+                }
+            }
+        }
+        return new Merged<>(new ArrayList<>(byKey.values()), base.generation, base.objects);
+    }
+
+    private void applySegment(byte[] segment, Merged<T> base, Map<String, T> byKey)
+            throws IOException, ClassNotFoundException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(segment));
+        if (base.generation == 0 || in.readLong() != base.generation) {
+            return; // appended to an older base
+        }
+        int deleteCount = in.readInt();
+        for (int i = 0; i < deleteCount; i++) {
+            byKey.remove(in.readUTF());
+        }
+        int recordCount = in.readInt();
+        for (int i = 0; i < recordCount; i++) {
+            byte[] record = new byte[in.readInt()];
+            in.readFully(record);
+            readObjectRecord(record, base.objects, byKey);
+        }
+    }
+
+    private void readObjectRecord(byte[] record, Map<Long, Object> objects, Map<String, T> byKey)
+            throws IOException, ClassNotFoundException {
+        try (RecordInputStream in = new RecordInputStream(new ByteArrayInputStream(record), objects)) {
+            long id = in.readLong();
+            boolean inFile = in.readBoolean();
+            boolean extentMember = in.readBoolean();
+            Object object = in.readObject();
+            long[] ids = (long[]) in.readObject();
+            Object[] written = (Object[]) in.readObject();
+            for (int i = 0; i < ids.length; i++) {
+                objects.put(ids[i], written[i]);
+            }
+
+            Object current = inFile ? objects.get(id) : null;
+            if (current != null && current.getClass() == object.getClass()) {
+                copyState(object, current);
+                object = current;
+            } else {
+                objects.put(id, object);
+            }
+            if (extentMember) {
+                T entity = type.cast(object);
+                byKey.put(keyOf.apply(entity), entity);
+            }
+        }
+    }
+
+    // Returns null at end of file or at a torn/corrupt trailing segment (crash mid-append)
+    private static byte[] readSegment(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length <= 0) {
+                return null;
+            }
+            byte[] segment = new byte[length];
+            in.readFully(segment);
+            int expected = in.readInt();
+
+            CRC32C crc = new CRC32C();
+            crc.update(segment);
+            return (int) crc.getValue() == expected ? segment : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a new base: header, extent, then the id table. known carries the ids over
+     * from a merged file (compaction); otherwise every object gets a fresh id.
+     */
+    private FileState writeBase(String filename, ArrayList<T> extent, Map<Long, Object> known) throws IOException {
+        long generation = newGeneration();
+        FileState state = new FileState(generation);
+        Map<Object, Long> knownIds = new IdentityHashMap<>();
+        if (known != null) {
+            for (Map.Entry<Long, Object> entry : known.entrySet()) {
+                knownIds.put(entry.getValue(), entry.getKey());
+                state.nextId = Math.max(state.nextId, entry.getKey() + 1);
+            }
+        }
+
+        AtomicFile.write(filename, RecordingOutputStream::new, out -> {
+            out.writeObject(new BaseHeader(generation));
+            out.writeObject(extent);
+
+            List<Object> objects = new ArrayList<>(((RecordingOutputStream) out).entities);
+            if (known != null) {
+                // Keep unreachable objects too: segments appended later may still refer to them
+                Set<Object> reached = Collections.newSetFromMap(new IdentityHashMap<>());
+                reached.addAll(objects);
+                for (Object object : known.values()) {
+                    if (!reached.contains(object)) {
+                        objects.add(object);
+                    }
+                }
+            }
+            long[] ids = new long[objects.size()];
+            for (int i = 0; i < ids.length; i++) {
+                Long id = knownIds.get(objects.get(i));
+                ids[i] = id != null ? id : state.assign(objects.get(i), state.ids);
+            }
+            out.writeObject(ids);
+            out.writeObject(objects.toArray());
+        });
+        return state;
+    }
+
+    private static long newGeneration() {
+        long generation;
+        do {
+            generation = ThreadLocalRandom.current().nextLong();
+        } while (generation == 0);
+        return generation;
+    }
+
+    private static Path basePath(String filename) {
+        return Path.of(PersistenceConfig.getDataFilePath(filename));
+    }
+
+    private static Path deltaPath(String filename) {
+        return Path.of(PersistenceConfig.getDataFilePath(filename + DELTA_SUFFIX));
+    }
+
+
+    // ---------- Object ids ----------
+
+    // Application objects get ids; JDK types, enums, records and arrays are plain values
+    private static boolean hasId(Object obj) {
+        Class<?> cls = obj.getClass();
+        return !cls.getModule().isNamed() && !cls.isArray() && !cls.isRecord() && !(obj instanceof Enum);
+    }
+
+    // Overwrites every instance field of target with the one read from the segment
+    private static void copyState(Object source, Object target) throws InvalidObjectException {
+        try {
+            for (Class<?> cls = target.getClass(); cls != null && !cls.getModule().isNamed();
+                    cls = cls.getSuperclass()) {
+                for (Field field : cls.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    field.set(target, field.get(source));
+                }
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            InvalidObjectException failure = new InvalidObjectException(
+                "Cannot apply delta to " + target.getClass().getName());
+            failure.initCause(e);
+            throw failure;
+        }
+    }
+
+    private record BaseHeader(long generation) implements Serializable {}
+
+    private record EntityRef(long id) implements Serializable {}
+
+    private record Merged<T>(List<T> extent, long generation, Map<Long, Object> objects) {}
+
+    // What the writer knows about one file: its generation and the id of every object in it
+    private static final class FileState {
+        long generation;
+        final Map<Object, Long> ids = new IdentityHashMap<>();
+        long nextId = 1;
+
+        FileState(long generation) {
+            this.generation = generation;
+        }
+
+        static FileState of(long generation, Map<Long, Object> objects) {
+            FileState state = new FileState(generation);
+            for (Map.Entry<Long, Object> entry : objects.entrySet()) {
+                state.ids.put(entry.getValue(), entry.getKey());
+                state.nextId = Math.max(state.nextId, entry.getKey() + 1);
+            }
+            return state;
+        }
+
+        Long idOf(Object obj, Map<Object, Long> added) {
+            Long id = ids.get(obj);
+            return id != null ? id : added.get(obj);
+        }
+
+        long assign(Object obj, Map<Object, Long> into) {
+            long id = nextId++;
+            into.put(obj, id);
+            return id;
+        }
+    }
+
+    private static final class RecordingOutputStream extends ObjectOutputStream {
+        private final List<Object> entities = new ArrayList<>();
+
+        RecordingOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (hasId(obj)) {
+                entities.add(obj);
+            }
+            return obj;
+        }
+    }
+
+    private static final class RecordOutputStream extends ObjectOutputStream {
+        private final Object entity;
+        private final FileState state;
+        private final Map<Object, Long> added;
+        private final List<Object> table = new ArrayList<>();
+        private final List<Long> tableIds = new ArrayList<>();
+        private boolean entityWritten;
+
+        RecordOutputStream(OutputStream out, Object entity, boolean entityIsNew,
+                           FileState state, Map<Object, Long> added) throws IOException {
+            super(out);
+            this.entity = entity;
+            this.state = state;
+            this.added = added;
+            if (entityIsNew) {
+                table.add(entity);
+                tableIds.add(added.get(entity));
+            }
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj == entity && !entityWritten) {
+                entityWritten = true;
+                return obj;
+            }
+            if (!hasId(obj)) {
+                return obj;
+            }
+            Long id = state.idOf(obj, added);
+            if (id != null) {
+                return new EntityRef(id);
+            }
+            table.add(obj);
+            tableIds.add(state.assign(obj, added));
+            return obj;
+        }
+
+        void writeTable() throws IOException {
+            long[] ids = new long[tableIds.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = tableIds.get(i);
+            }
+            writeObject(ids);
+            writeObject(table.toArray());
+        }
+    }
+
+    private static final class RecordInputStream extends ObjectInputStream {
+        private final Map<Long, Object> objects;
+
+        RecordInputStream(InputStream in, Map<Long, Object> objects) throws IOException {
+            super(in);
+            this.objects = objects;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) throws IOException {
+            if (obj instanceof EntityRef ref) {
+                Object target = objects.get(ref.id());
+                if (target == null) {
+                    throw new InvalidObjectException("Delta segment references unknown object: " + ref.id());
+                }
+                return target;
+            }
+            return obj;
+        }
+    }
+}
@@ -5,15 +5,25 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Customer implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    private static List<Customer> allCustomers = new ArrayList<>();
+    private static final Extent<Customer> allCustomers = new Extent<>();
 
+    // Unique indexes over the registered customers, keyed by normalized email and phone
+    private static final Map<String, Customer> customersByEmail = new ConcurrentHashMap<>();
+    private static final Map<String, Customer> customersByPhone = new ConcurrentHashMap<>();
+
+    private String customerId = UUID.randomUUID().toString();
     private String name;
     private String surname;
     private String email;
@@ -24,6 +34,10 @@ public class Customer implements Serializable {
     // Basic Association
     private Set<Order> orders = new HashSet<>();
 
+    // Same orders as above, kept sorted newest first for history views. Null after loading
+    // a file written before it existed; orderHistory() rebuilds it from orders then
+    private NavigableSet<Order> orderHistory = new TreeSet<>(Order.HISTORY_ORDER);
+
     private Map<LocalDateTime, Reservation> reservations = new HashMap<>();
 
     public Customer() {
@@ -38,6 +52,21 @@ public class Customer implements Serializable {
         setPhone(phone);
         setRegistrationDate(registrationDate);
         addCustomerToExtent(this);
+        Journal.recordCustomerCreated(this);
+    }
+
+    // Package-private: journal replay recreates a customer under its recorded id
+    static Customer createJournaled(String customerId, String name, String surname, String email,
+                                    String phone, LocalDateTime registrationDate) {
+        Customer customer = new Customer();
+        customer.customerId = customerId;
+        customer.setName(name);
+        customer.setSurname(surname);
+        customer.setEmail(email);
+        customer.setPhone(phone);
+        customer.setRegistrationDate(registrationDate);
+        addCustomerToExtent(customer);
+        return customer;
     }
 
     public Set<Order> getOrders() {
@@ -56,6 +85,7 @@ public class Customer implements Serializable {
 
         // Add order to collection
         orders.add(order);
+        orderHistory().add(order);
 
         // Establish reverse connection
         if (order.getCustomer() != this) {
@@ -69,10 +99,36 @@ public class Customer implements Serializable {
         }
         if (orders.contains(order)) {
             orders.remove(order);
+            orderHistory().remove(order);
             order.removeCustomer();
         }
     }
 
+    public NavigableSet<Order> getOrderHistory() {
+        return Collections.unmodifiableNavigableSet(orderHistory());
+    }
+
+    // The orders may still be half-read while readObject runs, so the sort waits for first use
+    private NavigableSet<Order> orderHistory() {
+        if (orderHistory == null) {
+            NavigableSet<Order> rebuilt = new TreeSet<>(Order.HISTORY_ORDER);
+            rebuilt.addAll(orders);
+            orderHistory = rebuilt;
+        }
+        return orderHistory;
+    }
+
+    // Package-private: Order re-keys itself here while its date or time changes
+    void removeFromOrderHistory(Order order) {
+        orderHistory().remove(order);
+    }
+
+    void addToOrderHistory(Order order) {
+        if (orders.contains(order)) {
+            orderHistory().add(order);
+        }
+    }
+
 
     public Map<LocalDateTime, Reservation> getReservations() {
         return Collections.unmodifiableMap(reservations);
@@ -163,6 +219,7 @@ public class Customer implements Serializable {
         }
     }
 
+    public String getCustomerId() { return customerId; }
     public String getName() { return name; }
     public String getSurname() { return surname; }
     public String getEmail() { return email; }
@@ -194,6 +251,9 @@ public class Customer implements Serializable {
         if (!email.contains("@")) {
             throw new IllegalArgumentException("Email must contain @ symbol");
         }
+        if (isRegistered()) {
+            rekey(customersByEmail, normalizeEmail(this.email), normalizeEmail(email), "email", email);
+        }
         this.email = email.trim();
     }
 
@@ -201,6 +261,12 @@ public class Customer implements Serializable {
         if (phone == null || phone.trim().isEmpty()) {
             throw new IllegalArgumentException("Phone cannot be null or empty");
         }
+        if (normalizePhone(phone).isEmpty()) {
+            throw new IllegalArgumentException("Phone must contain digits");
+        }
+        if (isRegistered()) {
+            rekey(customersByPhone, normalizePhone(this.phone), normalizePhone(phone), "phone", phone);
+        }
         this.phone = phone.trim();
     }
 
@@ -218,41 +284,126 @@ public class Customer implements Serializable {
         if (customer == null) {
             throw new IllegalArgumentException("Customer cannot be null");
         }
+        String emailKey = normalizeEmail(customer.email);
+        String phoneKey = normalizePhone(customer.phone);
+        claim(customersByEmail, emailKey, customer, "email", customer.email);
+        try {
+            claim(customersByPhone, phoneKey, customer, "phone", customer.phone);
+        } catch (IllegalStateException e) {
+            customersByEmail.remove(emailKey, customer);
+            throw e;
+        }
         allCustomers.add(customer);
     }
 
+
+    // ---------- Email / phone lookup ----------
+
+    public static Customer findByEmail(String email) {
+        return email == null ? null : customersByEmail.get(normalizeEmail(email));
+    }
+
+    public static Customer findByPhone(String phone) {
+        return phone == null ? null : customersByPhone.get(normalizePhone(phone));
+    }
+
+    // Emails compare case-insensitively
+    static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Phones compare by digits only, keeping a leading + for international numbers
+    static String normalizePhone(String phone) {
+        String trimmed = phone.trim();
+        StringBuilder normalized = new StringBuilder(trimmed.length());
+        if (trimmed.startsWith("+")) {
+            normalized.append('+');
+        }
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c >= '0' && c <= '9') {
+                normalized.append(c);
+            }
+        }
+        return normalized.length() == 1 && normalized.charAt(0) == '+' ? "" : normalized.toString();
+    }
+
+    private boolean isRegistered() {
+        return email != null && customersByEmail.get(normalizeEmail(email)) == this;
+    }
+
+    private static void claim(Map<String, Customer> index, String key, Customer customer,
+                              String field, String value) {
+        Customer existing = index.putIfAbsent(key, customer);
+        if (existing != null && existing != customer) {
+            throw new IllegalStateException(
+                String.format("A customer with %s %s is already registered", field, value.trim()));
+        }
+    }
+
+    private void rekey(Map<String, Customer> index, String oldKey, String newKey, String field, String value) {
+        if (oldKey.equals(newKey)) {
+            return;
+        }
+        claim(index, newKey, this, field, value);
+        index.remove(oldKey, this);
+    }
+
+    private static void rebuildIndexes() {
+        customersByEmail.clear();
+        customersByPhone.clear();
+        for (Customer customer : allCustomers) {
+            customersByEmail.putIfAbsent(normalizeEmail(customer.email), customer);
+            customersByPhone.putIfAbsent(normalizePhone(customer.phone), customer);
+        }
+    }
+
     void addFeedback(Feedback feedback) {
         if (feedback == null) throw new IllegalArgumentException("Feedback cannot be null");
         feedbacks.add(feedback);
     }
 
     public static List<Customer> getAllCustomersFromExtent() {
-        return Collections.unmodifiableList(allCustomers);
+        return allCustomers.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<Customer> extent) {
+        allCustomers.replaceWith(extent);
+        rebuildIndexes();
     }
 
     public static void clearExtent() {
         allCustomers.clear();
+        rebuildIndexes();
     }
 
     public static void saveExtent(String filename) throws IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
-            out.writeObject(allCustomers);
-        }
+        AtomicFile.writeObject(filename, new ArrayList<>(allCustomers));
     }
 
     @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filepath))) {
-            allCustomers = (List<Customer>) in.readObject();
+        try {
+            allCustomers.replaceWith((List<Customer>) AtomicFile.readObject(filename));
+            rebuildIndexes();
             return true;
         } catch (IOException | ClassNotFoundException e) {
-            allCustomers.clear();
+            clearExtent();
             return false;
         }
     }
 
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // Files written before customers had an id
+        if (customerId == null) {
+            customerId = UUID.randomUUID().toString();
+        }
+        // Files written before the sorted order history; orderHistory() rebuilds it
+    }
+
     @Override
     public String toString() {
         return String.format("Customer[%s %s, email=%s, phone=%s, registered=%s]",
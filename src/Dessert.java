@@ -18,6 +18,7 @@ public class Dessert extends MenuItem {
                   String nationalOrigin, NutritionalInfo nutritionalInfo, boolean hasNuts) {
         super(name, description, price, image, nationalOrigin, nutritionalInfo);
         setHasNuts(hasNuts);
+        Journal.recordMenuItemCreated(this);
     }
 
     public Dessert(String name, String description, double price, String image,
@@ -25,6 +26,7 @@ public class Dessert extends MenuItem {
                   Set<String> allergens, boolean hasNuts) {
         super(name, description, price, image, nationalOrigin, nutritionalInfo, allergens);
         setHasNuts(hasNuts);
+        Journal.recordMenuItemCreated(this);
     }
 
 
@@ -51,10 +51,12 @@ public class DineIn implements Serializable, IDineIn {
             throw new IllegalArgumentException("Serving start time cannot be null");
         }
         this.servingStartTime = servingStartTime;
+        order.markChanged();
     }
 
     public void setReservation(Reservation reservation) {
         this.reservation = reservation;
+        order.markChanged();
     }
 
     public void addTable(Table table) {
@@ -64,6 +66,7 @@ public class DineIn implements Serializable, IDineIn {
         if (!tables.contains(table)) {
             tables.add(table);
             table.changeStatus(TableStatus.OCCUPIED);
+            order.markChanged();
         }
     }
 
@@ -72,6 +75,7 @@ public class DineIn implements Serializable, IDineIn {
             table.changeStatus(TableStatus.AVAILABLE);
         }
         tables.clear();
+        order.markChanged();
     }
 
     @Override
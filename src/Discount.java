@@ -3,6 +3,10 @@ import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 /**
  * Discount Basis): {complete, overlapping} - COMPOSITION
@@ -12,7 +16,22 @@ public abstract class Discount implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    private static List<Discount> allDiscounts = new ArrayList<>();
+    private static final Extent<Discount> allDiscounts = new Extent<>();
+
+    // Views kept current as discounts are added, deleted or gain a component, so checkout
+    // can probe a category without filtering the whole extent on every bill
+    private static final Category timeBased = new Category(Discount::isTimeBased);
+    private static final Category volumeBased = new Category(Discount::isVolumeBased);
+    private static final Category orderLevel = new Category(Discount::isOrderLevel);
+    private static final Category itemLevel = new Category(Discount::isItemLevel);
+    private static final Category timeAndVolume = new Category(d -> d.isTimeBased() && d.isVolumeBased());
+    private static final List<Category> categories =
+        List.of(timeBased, volumeBased, orderLevel, itemLevel, timeAndVolume);
+
+    private static final Map<String, Discount> discountsByCode = new ConcurrentHashMap<>();
+
+    // Bumped on every change that can affect which discounts apply; DiscountEngine recompiles on change
+    private static final AtomicLong version = new AtomicLong();
 
     private String code;
     protected TimeBasedDiscountComponent timeBasedComponent;
@@ -98,11 +117,47 @@ public abstract class Discount implements Serializable {
         }
     }
 
+    // Discounts change rarely and are read on every bill, so each category is copy-on-write
+    // and hands out the same read-only view every time
+    private static final class Category {
+        private final Predicate<Discount> rule;
+        private final CopyOnWriteArrayList<Discount> members = new CopyOnWriteArrayList<>();
+        private final List<Discount> view = Collections.unmodifiableList(members);
+
+        Category(Predicate<Discount> rule) {
+            this.rule = rule;
+        }
+
+        // Members are compared by identity, like the extent
+        synchronized void update(Discount discount) {
+            boolean member = false;
+            for (Discount d : members) {
+                if (d == discount) {
+                    member = true;
+                    break;
+                }
+            }
+            if (rule.test(discount) && !member) {
+                members.add(discount);
+            } else if (!rule.test(discount) && member) {
+                remove(discount);
+            }
+        }
+
+        synchronized void remove(Discount discount) {
+            members.removeIf(d -> d == discount);
+        }
+
+        void clear() {
+            members.clear();
+        }
+    }
+
     protected Discount() {}
 
+    // Subclass constructors register the discount once their own fields are valid
     protected Discount(String code) {
         setCode(code);
-        addToExtent(this);
     }
 
     public String getCode() {
@@ -113,7 +168,13 @@ public abstract class Discount implements Serializable {
         if (code == null || code.trim().isEmpty()) {
             throw new IllegalArgumentException("Discount code cannot be null or empty");
         }
-        this.code = code.trim();
+        String newCode = code.trim();
+        if (isRegistered() && !newCode.equals(this.code)) {
+            claimCode(newCode, this);
+            discountsByCode.remove(this.code, this);
+        }
+        this.code = newCode;
+        changed();
     }
 
     public boolean isTimeBased() {
@@ -126,10 +187,12 @@ public abstract class Discount implements Serializable {
 
     protected void setTimeBasedComponent(LocalDate date, LocalTime time) {
         this.timeBasedComponent = new TimeBasedDiscountComponent(date, time);
+        recategorize();
     }
 
     protected void setVolumeComponent(double minAmount, int minQuantity) {
         this.volumeComponent = new VolumeDiscountComponent(minAmount, minQuantity);
+        recategorize();
     }
 
     public abstract boolean isOrderLevel();
@@ -147,6 +210,7 @@ public abstract class Discount implements Serializable {
             throw new IllegalStateException("This discount is not time-based");
         }
         timeBasedComponent.setDate(date);
+        changed();
     }
 
     public LocalTime getTime() {
@@ -161,6 +225,7 @@ public abstract class Discount implements Serializable {
             throw new IllegalStateException("This discount is not time-based");
         }
         timeBasedComponent.setTime(time);
+        changed();
     }
 
     public double getMinAmount() {
@@ -175,6 +240,7 @@ public abstract class Discount implements Serializable {
             throw new IllegalStateException("This discount is not volume-based");
         }
         volumeComponent.setMinAmount(minAmount);
+        changed();
     }
 
     public int getMinQuantity() {
@@ -189,6 +255,7 @@ public abstract class Discount implements Serializable {
             throw new IllegalStateException("This discount is not volume-based");
         }
         volumeComponent.setMinQuantity(minQuantity);
+        changed();
     }
 
     public abstract double getDiscountPercentage();
@@ -214,6 +281,9 @@ public abstract class Discount implements Serializable {
             if (orderTotal < getMinAmount()) {
                 return false;
             }
+            if (order.getItemCount() < getMinQuantity()) {
+                return false;
+            }
         }
 
         return true;
@@ -242,67 +312,126 @@ public abstract class Discount implements Serializable {
         return desc.toString();
     }
 
-    private static void addToExtent(Discount discount) {
+    // Package-private: called by the subclass addToExtent after construction succeeded
+    static void addToExtent(Discount discount) {
         if (discount != null) {
+            claimCode(discount.code, discount);
             allDiscounts.add(discount);
+            for (Category category : categories) {
+                category.update(discount);
+            }
+            discount.changed();
+        }
+    }
+
+    // Codes identify discounts (see equals), so a code can be registered only once
+    private static void claimCode(String code, Discount discount) {
+        Discount existing = discountsByCode.putIfAbsent(code, discount);
+        if (existing != null && existing != discount) {
+            throw new IllegalStateException("A discount with code " + code + " already exists");
+        }
+    }
+
+    boolean isRegistered() {
+        return code != null && discountsByCode.get(code) == this;
+    }
+
+    private void recategorize() {
+        if (isRegistered()) {
+            for (Category category : categories) {
+                category.update(this);
+            }
         }
+        changed();
+    }
+
+    // Subclasses call this when their own rule (percentage, applicable items) changes
+    protected void changed() {
+        version.incrementAndGet();
+    }
+
+    static long getVersion() {
+        return version.get();
+    }
+
+    // Removes the discount from the extent; subclasses also drop it from their own extent
+    public void delete() {
+        if (allDiscounts.remove(this)) {
+            discountsByCode.remove(code, this);
+            for (Category category : categories) {
+                category.remove(this);
+            }
+            changed();
+        }
+    }
+
+    public static Discount findByCode(String code) {
+        return code == null ? null : discountsByCode.get(code.trim());
     }
 
     public static List<Discount> getAllDiscounts() {
-        return Collections.unmodifiableList(allDiscounts);
+        return allDiscounts.view();
     }
 
+    // The category getters return live read-only views; they reflect later changes
     public static List<Discount> getTimeBasedDiscounts() {
-        return allDiscounts.stream()
-            .filter(Discount::isTimeBased)
-            .toList();
+        return timeBased.view;
     }
 
     public static List<Discount> getVolumeBasedDiscounts() {
-        return allDiscounts.stream()
-            .filter(Discount::isVolumeBased)
-            .toList();
+        return volumeBased.view;
     }
 
     public static List<Discount> getOrderLevelDiscounts() {
-        return allDiscounts.stream()
-            .filter(Discount::isOrderLevel)
-            .toList();
+        return orderLevel.view;
     }
 
     public static List<Discount> getItemLevelDiscounts() {
-        return allDiscounts.stream()
-            .filter(Discount::isItemLevel)
-            .toList();
+        return itemLevel.view;
     }
 
     public static List<Discount> getTimeAndVolumeDiscounts() {
-        return allDiscounts.stream()
-            .filter(d -> d.isTimeBased() && d.isVolumeBased())
-            .toList();
+        return timeAndVolume.view;
+    }
+
+    private static void rebuildIndexes() {
+        discountsByCode.clear();
+        for (Category category : categories) {
+            category.clear();
+        }
+        for (Discount discount : allDiscounts) {
+            discountsByCode.putIfAbsent(discount.code, discount);
+            for (Category category : categories) {
+                category.update(discount);
+            }
+        }
+        ItemLevelDiscount.rebuildItemIndex(allDiscounts);
+        version.incrementAndGet();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<Discount> extent) {
+        allDiscounts.replaceWith(extent);
+        rebuildIndexes();
     }
 
     public static void clearExtent() {
         allDiscounts.clear();
+        rebuildIndexes();
     }
 
     public static void saveExtent(String filename) throws java.io.IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(
-                new java.io.FileOutputStream(filepath))) {
-            out.writeObject(allDiscounts);
-        }
+        AtomicFile.writeObject(filename, new ArrayList<>(allDiscounts));
     }
 
     @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (java.io.ObjectInputStream in = new java.io.ObjectInputStream(
-                new java.io.FileInputStream(filepath))) {
-            allDiscounts = (List<Discount>) in.readObject();
+        try {
+            allDiscounts.replaceWith((List<Discount>) AtomicFile.readObject(filename));
+            rebuildIndexes();
             return true;
         } catch (java.io.IOException | ClassNotFoundException e) {
-            allDiscounts.clear();
+            clearExtent();
             return false;
         }
     }
@@ -0,0 +1,208 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Picks the discounts that apply to an order without testing every code.
+ *
+ * The registered discounts are compiled into lookup tables, bucketed by the date of
+ * their time-based component (discounts without one go in a bucket that matches every
+ * date). Within a bucket:
+ * order-level discounts are grouped by minimum quantity, and each group maps a
+ * minimum amount to the best percentage available at or below it, so the best
+ * qualifying discount is one floor lookup per distinct quantity threshold.
+ * Item-level discounts are found through ItemLevelDiscount's item name index, one
+ * lookup per order line.
+ *
+ * The tables are rebuilt lazily when any discount changes (see Discount.changed).
+ * Results agree with Discount.validateDiscount.
+ */
+public final class DiscountEngine {
+
+    private static volatile Rules rules;
+
+    private DiscountEngine() {}
+
+    /**
+     * Best combination for the order: the order-level discount with the highest
+     * percentage among those that apply (order-level discounts do not stack), plus
+     * every applicable item-level discount.
+     */
+    public static Selection bestFor(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        Rules current = compiled();
+        long subtotal = order.getSubtotalAsMoney().getGrosz();
+        int itemCount = order.getItemCount();
+
+        OrderLevelDiscount best = null;
+        for (Bucket bucket : current.bucketsFor(order.getDate())) {
+            OrderLevelDiscount candidate = bucket.bestOrderLevel(subtotal, itemCount);
+            if (candidate != null && (best == null
+                    || candidate.getDiscountPercentage() > best.getDiscountPercentage())) {
+                best = candidate;
+            }
+        }
+
+        Set<ItemLevelDiscount> items = new LinkedHashSet<>();
+        for (OrderRequest request : order.getOrderRequests()) {
+            for (ItemQuantity line : request.getItemQuantities()) {
+                for (ItemLevelDiscount discount : ItemLevelDiscount.findByItem(line.getMenuItem())) {
+                    if (applies(discount, order.getDate(), subtotal, itemCount)) {
+                        items.add(discount);
+                    }
+                }
+            }
+        }
+
+        long saving = best == null ? 0L : Money.percentOf(subtotal, best.getDiscountPercentage());
+        return new Selection(best, new ArrayList<>(items), saving);
+    }
+
+    // validateDiscount with the order's date, subtotal and item count worked out once
+    private static boolean applies(Discount discount, LocalDate date, long subtotal, int itemCount) {
+        if (discount.isTimeBased() && !discount.getDate().equals(date)) {
+            return false;
+        }
+        return !discount.isVolumeBased()
+            || (subtotal >= minAmountGrosz(discount) && itemCount >= discount.getMinQuantity());
+    }
+
+    private static Rules compiled() {
+        Rules current = rules;
+        long version = Discount.getVersion();
+        if (current == null || current.version != version) {
+            synchronized (DiscountEngine.class) {
+                current = rules;
+                if (current == null || current.version != version) {
+                    current = Rules.compile(version);
+                    rules = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Smallest grosz amount that is not below minAmount, matching validateDiscount's double compare
+    private static long minAmountGrosz(Discount discount) {
+        return BigDecimal.valueOf(discount.getMinAmount()).movePointRight(2)
+            .setScale(0, RoundingMode.CEILING).longValueExact();
+    }
+
+
+    /**
+     * Outcome of bestFor: the order-level discount to apply (or null), the item-level
+     * discounts that apply, and what the order-level discount takes off the subtotal.
+     */
+    public static final class Selection {
+        private final OrderLevelDiscount orderDiscount;
+        private final List<ItemLevelDiscount> itemDiscounts;
+        private final long savingGrosz;
+
+        private Selection(OrderLevelDiscount orderDiscount, List<ItemLevelDiscount> itemDiscounts, long savingGrosz) {
+            this.orderDiscount = orderDiscount;
+            this.itemDiscounts = Collections.unmodifiableList(itemDiscounts);
+            this.savingGrosz = savingGrosz;
+        }
+
+        public OrderLevelDiscount getOrderDiscount() { return orderDiscount; }
+        public List<ItemLevelDiscount> getItemDiscounts() { return itemDiscounts; }
+        public double getSaving() { return Money.toDouble(savingGrosz); }
+        public Money getSavingAsMoney() { return Money.ofGrosz(savingGrosz); }
+
+        public boolean isEmpty() {
+            return orderDiscount == null && itemDiscounts.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Selection[order=%s, items=%d, saving=%s]",
+                orderDiscount == null ? null : orderDiscount.getCode(), itemDiscounts.size(),
+                Money.ofGrosz(savingGrosz));
+        }
+    }
+
+
+    // Immutable compiled form of the discount extent at one version
+    private static final class Rules {
+        final long version;
+        final Bucket anyDate = new Bucket();
+        final Map<LocalDate, Bucket> byDate = new HashMap<>();
+
+        private Rules(long version) {
+            this.version = version;
+        }
+
+        static Rules compile(long version) {
+            Rules rules = new Rules(version);
+            for (Discount discount : Discount.getAllDiscounts()) {
+                Bucket bucket = discount.isTimeBased()
+                    ? rules.byDate.computeIfAbsent(discount.getDate(), d -> new Bucket())
+                    : rules.anyDate;
+                bucket.add(discount);
+            }
+            rules.anyDate.finish();
+            rules.byDate.values().forEach(Bucket::finish);
+            return rules;
+        }
+
+        List<Bucket> bucketsFor(LocalDate date) {
+            Bucket dated = date == null ? null : byDate.get(date);
+            return dated == null ? List.of(anyDate) : List.of(anyDate, dated);
+        }
+    }
+
+    private static final class Bucket {
+        // min quantity -> (min amount in grosz -> best discount in that group with min amount at or below the key)
+        final TreeMap<Integer, TreeMap<Long, OrderLevelDiscount>> orderLevel = new TreeMap<>();
+
+        void add(Discount discount) {
+            if (discount instanceof OrderLevelDiscount orderDiscount) {
+                int minQuantity = discount.isVolumeBased() ? discount.getMinQuantity() : 0;
+                long minAmount = discount.isVolumeBased() ? minAmountGrosz(discount) : 0L;
+                TreeMap<Long, OrderLevelDiscount> byAmount =
+                    orderLevel.computeIfAbsent(minQuantity, q -> new TreeMap<>());
+                OrderLevelDiscount existing = byAmount.get(minAmount);
+                if (existing == null || orderDiscount.getDiscountPercentage() > existing.getDiscountPercentage()) {
+                    byAmount.put(minAmount, orderDiscount);
+                }
+            }
+        }
+
+        // Turns each amount map into a running maximum, so floorEntry answers "best at or below"
+        void finish() {
+            for (TreeMap<Long, OrderLevelDiscount> byAmount : orderLevel.values()) {
+                OrderLevelDiscount best = null;
+                for (Map.Entry<Long, OrderLevelDiscount> entry : byAmount.entrySet()) {
+                    if (best == null || entry.getValue().getDiscountPercentage() > best.getDiscountPercentage()) {
+                        best = entry.getValue();
+                    }
+                    entry.setValue(best);
+                }
+            }
+        }
+
+        OrderLevelDiscount bestOrderLevel(long subtotal, int itemCount) {
+            OrderLevelDiscount best = null;
+            NavigableMap<Integer, TreeMap<Long, OrderLevelDiscount>> reachable = orderLevel.headMap(itemCount, true);
+            for (TreeMap<Long, OrderLevelDiscount> byAmount : reachable.values()) {
+                Map.Entry<Long, OrderLevelDiscount> entry = byAmount.floorEntry(subtotal);
+                if (entry != null && (best == null
+                        || entry.getValue().getDiscountPercentage() > best.getDiscountPercentage())) {
+                    best = entry.getValue();
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -11,7 +11,7 @@ public class Employee implements Serializable {
         MANAGER, WAITER
     }
 
-    private static List<Employee> allEmployees = new ArrayList<>();
+    private static final Extent<Employee> allEmployees = new Extent<>();
 
     private String name;
     private ContactInfo contactInfo;
@@ -235,7 +235,12 @@ public class Employee implements Serializable {
     }
 
     public static List<Employee> getAllEmployeesFromExtent() {
-        return Collections.unmodifiableList(allEmployees);
+        return allEmployees.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<Employee> extent) {
+        allEmployees.replaceWith(extent);
     }
 
     public static void clearExtent() {
@@ -243,17 +248,13 @@ public class Employee implements Serializable {
     }
 
     public static void saveExtent(String filename) throws IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
-            out.writeObject(allEmployees);
-        }
+        AtomicFile.writeObject(filename, new ArrayList<>(allEmployees));
     }
 
     @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filepath))) {
-            allEmployees = (List<Employee>) in.readObject();
+        try {
+            allEmployees.replaceWith((List<Employee>) AtomicFile.readObject(filename));
             return true;
         } catch (Exception e) {
             allEmployees.clear();
@@ -0,0 +1,206 @@
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe class extent shared by the domain classes.
+ *
+ * Members are compared by identity (like the ArrayList extents this replaces, but
+ * without relying on equals) and kept in insertion order. add/remove/contains are
+ * lock-free: a ConcurrentHashMap maps each member to its insertion sequence number
+ * and a ConcurrentSkipListMap orders the members by that number. Iteration is weakly
+ * consistent - it never throws ConcurrentModificationException and sees members
+ * added or removed while it runs at most once.
+ *
+ * view() is what getAll...FromExtent() hands out: an unmodifiable, weakly
+ * consistent List over the live members, so iterating or counting an extent copies
+ * nothing. Indexed access goes through an array of the members that is rebuilt only
+ * after the extent changed. Callers that need a stable list across later adds/removes
+ * copy it themselves.
+ */
+public final class Extent<T> extends AbstractCollection<T> {
+
+    private final ConcurrentHashMap<Member<T>, Long> sequenceByMember = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, T> membersInOrder = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+    // Bumped by every successful add/remove; tells the view when its index is stale
+    private final AtomicLong modifications = new AtomicLong();
+    private final List<T> view = new View();
+
+    public Extent() {}
+
+    /**
+     * Adds the object unless it is already a member. Returns false for duplicates.
+     */
+    @Override
+    public boolean add(T member) {
+        if (member == null) {
+            throw new IllegalArgumentException("Extent member cannot be null");
+        }
+        // Ordered entry first, so a concurrent remove() always finds the entry it drops
+        long sequence = nextSequence.getAndIncrement();
+        membersInOrder.put(sequence, member);
+        if (sequenceByMember.putIfAbsent(new Member<>(member), sequence) != null) {
+            membersInOrder.remove(sequence);
+            return false;
+        }
+        size.incrementAndGet();
+        modifications.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object member) {
+        if (member == null) {
+            return false;
+        }
+        Long sequence = sequenceByMember.remove(new Member<>((T) member));
+        if (sequence == null) {
+            return false;
+        }
+        membersInOrder.remove(sequence);
+        size.decrementAndGet();
+        modifications.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object member) {
+        return member != null && sequenceByMember.containsKey(new Member<>((T) member));
+    }
+
+    @Override
+    public int size() {
+        return Math.max(0, size.get());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<T> it = membersInOrder.values().iterator();
+        return new Iterator<>() {
+            private T last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public T next() {
+                last = it.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                Extent.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    @Override
+    public void clear() {
+        for (T member : membersInOrder.values()) {
+            remove(member);
+        }
+    }
+
+    /**
+     * Replaces the members with the given ones, e.g. after loading an extent file.
+     * Not atomic with respect to concurrent adds; callers load extents before
+     * terminals start taking orders.
+     */
+    public void replaceWith(Collection<? extends T> members) {
+        // Copy first: members may be this extent's own view()
+        List<T> incoming = new ArrayList<>(members);
+        clear();
+        for (T member : incoming) {
+            add(member);
+        }
+    }
+
+    // Unmodifiable live view in insertion order; allocated once per extent
+    public List<T> view() {
+        return view;
+    }
+
+    // Members as of one modification count, for indexed access
+    private record Indexed(long modifications, Object[] members) {}
+
+    /**
+     * Read-only List over the members. Iteration, contains and size go straight to
+     * the extent. get(i) reads an array of the members that is rebuilt on the first
+     * get after a change, so a get(i) loop over an unchanged extent is O(n) in total.
+     * Serializes as a plain ArrayList of the members present at write time.
+     */
+    private final class View extends AbstractList<T> implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private transient volatile Indexed indexed;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            Indexed current = indexed;
+            long version = modifications.get();
+            if (current == null || current.modifications() != version) {
+                // Counted before copying: a change racing the copy leaves this one stale
+                current = new Indexed(version, membersInOrder.values().toArray());
+                indexed = current;
+            }
+            Objects.checkIndex(index, current.members().length);
+            return (T) current.members()[index];
+        }
+
+        @Override
+        public int size() {
+            return Extent.this.size();
+        }
+
+        @Override
+        public boolean contains(Object member) {
+            return Extent.this.contains(member);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Collections.unmodifiableCollection(membersInOrder.values()).iterator();
+        }
+
+        @Serial
+        private Object writeReplace() {
+            return new ArrayList<>(this);
+        }
+    }
+
+    // Identity wrapper so that members overriding equals (e.g. Discount) are still
+    // told apart by reference
+    private record Member<T>(T value) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Member<?> other && other.value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value);
+        }
+    }
+}
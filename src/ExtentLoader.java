@@ -0,0 +1,214 @@
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+/**
+ * Startup loader that runs the per-class loadExtent calls in parallel.
+ *
+ * Each extent is registered with the extents it must be loaded after. Extents
+ * whose dependencies are done are deserialized concurrently on a ForkJoinPool,
+ * so cold start is bounded by the longest dependency chain instead of the sum
+ * of all extents. Every load is timed and reported in a LoadReport.
+ *
+ * Usage:
+ *   ExtentLoader.LoadReport report = ExtentLoader.standard().loadAll();
+ */
+public class ExtentLoader {
+
+    public record ExtentLoad(String name, String filename, boolean loaded, Duration elapsed) {}
+
+    private record ExtentNode(String name, String filename, Predicate<String> loader, List<String> dependsOn) {}
+
+    private final Map<String, ExtentNode> extents = new LinkedHashMap<>();
+
+
+    /**
+     * Registers an extent. The loader receives the filename and returns whether the
+     * extent was loaded (the signature of the static loadExtent methods).
+     */
+    public ExtentLoader register(String name, String filename, Predicate<String> loader, String... dependsOn) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Extent name cannot be null or empty");
+        }
+        if (filename == null || filename.trim().isEmpty()) {
+            throw new IllegalArgumentException("Filename cannot be null or empty");
+        }
+        if (loader == null) {
+            throw new IllegalArgumentException("Loader cannot be null");
+        }
+        if (extents.containsKey(name)) {
+            throw new IllegalStateException("Extent already registered: " + name);
+        }
+        extents.put(name, new ExtentNode(name, filename, loader, List.of(dependsOn)));
+        return this;
+    }
+
+    /**
+     * All domain extents with their default data files. Each file is a separate object
+     * graph - references between extents are not resolved across files - so nothing
+     * has to wait for anything else and every extent loads side by side.
+     */
+    public static ExtentLoader standard() {
+        return new ExtentLoader()
+            .register("customers", "customers.dat", Customer::loadExtent)
+            .register("employees", "employees.dat", Employee::loadExtent)
+            .register("tables", "tables.dat", Table::loadExtent)
+            .register("ingredients", "ingredients.dat", Ingredient::loadExtent)
+            .register("suppliers", "suppliers.dat", Supplier::loadExtent)
+            .register("menus", "menus.dat", Menu::loadExtent)
+            .register("discounts", "discounts.dat", Discount::loadExtent)
+            .register("orderLevelDiscounts", "order_level_discounts.dat", OrderLevelDiscount::loadExtent)
+            .register("itemLevelDiscounts", "item_level_discounts.dat", ItemLevelDiscount::loadExtent)
+            .register("orderRequests", "order_requests.dat", OrderRequest::loadExtent)
+            .register("menuItems", "menu_items.dat", MenuItem::loadExtent)
+            .register("supplyLogs", "supply_logs.dat", SupplyLog::loadExtent)
+            .register("reservations", "reservations.dat", Reservation::loadExtent)
+            .register("feedback", "feedback.dat", Feedback::loadExtent)
+            .register("orders", "orders.dat", Order::loadExtent)
+            .register("itemQuantities", "item_quantities.dat", ItemQuantity::loadExtent)
+            .register("payments", "payments.dat", Payment::loadExtent)
+            .register("invoices", "invoices.dat", Invoice::loadExtent);
+    }
+
+
+    public LoadReport loadAll() {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1,
+            Math.min(extents.size(), Runtime.getRuntime().availableProcessors())));
+        try {
+            return loadAll(pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Loads every registered extent, each one as soon as all of its dependencies
+     * have finished, and waits for all of them.
+     */
+    public LoadReport loadAll(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        validateGraph();
+
+        long start = System.nanoTime();
+        Map<String, CompletableFuture<ExtentLoad>> scheduled = new LinkedHashMap<>();
+        for (String name : extents.keySet()) {
+            schedule(name, scheduled, pool);
+        }
+
+        List<ExtentLoad> results = new ArrayList<>(scheduled.size());
+        try {
+            for (String name : extents.keySet()) {
+                results.add(scheduled.get(name).join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return new LoadReport(results, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private CompletableFuture<ExtentLoad> schedule(String name, Map<String, CompletableFuture<ExtentLoad>> scheduled,
+                                                   ForkJoinPool pool) {
+        CompletableFuture<ExtentLoad> existing = scheduled.get(name);
+        if (existing != null) {
+            return existing;
+        }
+
+        ExtentNode node = extents.get(name);
+        CompletableFuture<?>[] dependencies = node.dependsOn().stream()
+            .map(dependency -> schedule(dependency, scheduled, pool))
+            .toArray(CompletableFuture[]::new);
+
+        CompletableFuture<ExtentLoad> future = CompletableFuture.allOf(dependencies)
+            .thenApplyAsync(ignored -> load(node), pool);
+        scheduled.put(name, future);
+        return future;
+    }
+
+    private static ExtentLoad load(ExtentNode node) {
+        long start = System.nanoTime();
+        boolean loaded = node.loader().test(node.filename());
+        return new ExtentLoad(node.name(), node.filename(), loaded, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    // Rejects unknown dependencies and cycles before anything is loaded
+    private void validateGraph() {
+        Set<String> done = new HashSet<>();
+        Set<String> inProgress = new HashSet<>();
+        for (String name : extents.keySet()) {
+            visit(name, done, inProgress);
+        }
+    }
+
+    private void visit(String name, Set<String> done, Set<String> inProgress) {
+        if (done.contains(name)) {
+            return;
+        }
+        if (!inProgress.add(name)) {
+            throw new IllegalStateException("Cyclic extent dependency involving: " + name);
+        }
+        for (String dependency : extents.get(name).dependsOn()) {
+            if (!extents.containsKey(dependency)) {
+                throw new IllegalStateException(
+                    String.format("Extent %s depends on unregistered extent %s", name, dependency));
+            }
+            visit(dependency, done, inProgress);
+        }
+        inProgress.remove(name);
+        done.add(name);
+    }
+
+
+    /**
+     * Per-extent results in registration order plus the wall-clock time of the whole load.
+     */
+    public static class LoadReport {
+        private final List<ExtentLoad> results;
+        private final Duration wallTime;
+
+        LoadReport(List<ExtentLoad> results, Duration wallTime) {
+            this.results = List.copyOf(results);
+            this.wallTime = wallTime;
+        }
+
+        public List<ExtentLoad> getResults() { return results; }
+        public Duration getWallTime() { return wallTime; }
+
+        public ExtentLoad get(String name) {
+            for (ExtentLoad result : results) {
+                if (result.name().equals(name)) {
+                    return result;
+                }
+            }
+            return null;
+        }
+
+        public boolean allLoaded() {
+            return results.stream().allMatch(ExtentLoad::loaded);
+        }
+
+        // Sum of the individual load times - what a sequential load would have taken
+        public Duration getTotalLoadTime() {
+            return results.stream().map(ExtentLoad::elapsed).reduce(Duration.ZERO, Duration::plus);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (ExtentLoad result : results) {
+                sb.append(String.format("   %s %-20s %6d ms%n", result.loaded() ? "[OK]  " : "[FAIL]",
+                    result.name(), result.elapsed().toMillis()));
+            }
+            sb.append(String.format("   wall time %d ms (sequential sum %d ms)",
+                wallTime.toMillis(), getTotalLoadTime().toMillis()));
+            return sb.toString();
+        }
+    }
+}
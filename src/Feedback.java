@@ -6,7 +6,7 @@ public class Feedback implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    private static List<Feedback> allFeedback = new ArrayList<>();
+    private static final Extent<Feedback> allFeedback = new Extent<>();
 
     private String title;
     private String description;
@@ -94,7 +94,12 @@ public class Feedback implements Serializable {
     }
 
     public static List<Feedback> getAllFeedback() {
-        return Collections.unmodifiableList(allFeedback);
+        return allFeedback.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<Feedback> extent) {
+        allFeedback.replaceWith(extent);
     }
 
     public static void clearExtent() {
@@ -102,10 +107,7 @@ public class Feedback implements Serializable {
     }
 
     public static void saveExtent(String filename) throws IOException {
-        String path = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(path))) {
-            out.writeObject(allFeedback);
-        }
+        AtomicFile.writeObject(filename, new ArrayList<>(allFeedback));
     }
 
     public void setMenuItem(MenuItem menuItem) {
@@ -118,9 +120,8 @@ public class Feedback implements Serializable {
 
     @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String path = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(path))) {
-            allFeedback = (List<Feedback>) in.readObject();
+        try {
+            allFeedback.replaceWith((List<Feedback>) AtomicFile.readObject(filename));
     
             for (Feedback f : allFeedback) {
                 if (f.getAuthor() != null) {
@@ -1,16 +1,39 @@
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Ingredient implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    private static List<Ingredient> allIngredients = new ArrayList<>();
+    private static final Extent<Ingredient> allIngredients = new Extent<>();
 
+    // Guards stock levels so a batch deduction is applied all at once or not at all; MenuItem
+    // and Recipe also hold it while changing ingredient links and portions, so each item's
+    // count of short ingredients sees every stock change exactly once
+    static final Object STOCK_LOCK = new Object();
+
+    // Tolerance for floating-point leftovers when checking a batch against stock
+    private static final double STOCK_EPSILON = 1e-9;
+
+    // Ingredients below their reorder point, most urgent (largest deficit ratio) first
+    private static final ConcurrentSkipListMap<ReorderKey, Ingredient> reorderQueue = new ConcurrentSkipListMap<>();
+
+    private static final List<ReorderListener> reorderListeners = new CopyOnWriteArrayList<>();
+
+    private static final ChangeTracker<Ingredient> changes =
+        new ChangeTracker<>(Ingredient.class, Ingredient::getIngredientId, ingredient -> ingredient.menuItems);
+
+    // Names can change and are not unique, so incremental saves key on this id
+    private String ingredientId = UUID.randomUUID().toString();
     private String name;
     private String unit;
     private double currentStock;
@@ -22,6 +45,9 @@ public class Ingredient implements Serializable {
     // Basic Association: Ingredient -> MenuItem (1..*)
     private Set<MenuItem> menuItems;
 
+    // This ingredient's entry in reorderQueue, null while it does not need reordering
+    private transient ReorderKey reorderKey;
+
     public Ingredient() {
         this.supplyLogs = new ArrayList<>();
         this.menuItems = new HashSet<>();
@@ -35,9 +61,26 @@ public class Ingredient implements Serializable {
         setCurrentStock(currentStock);
         setReorderPoint(reorderPoint);
         setCostPerUnit(costPerUnit);
+        // Before it is registered, so no stock record for it can precede its creation
+        Journal.recordIngredientCreated(this);
         addIngredient(this);
     }
 
+    // Package-private: journal replay recreates an ingredient under its recorded id
+    static Ingredient createJournaled(String ingredientId, String name, String unit, double currentStock,
+                                      double reorderPoint, double costPerUnit) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.ingredientId = ingredientId;
+        ingredient.setName(name);
+        ingredient.setUnit(unit);
+        ingredient.setCurrentStock(currentStock);
+        ingredient.setReorderPoint(reorderPoint);
+        ingredient.setCostPerUnit(costPerUnit);
+        addIngredient(ingredient);
+        return ingredient;
+    }
+
+    public String getIngredientId() { return ingredientId; }
     public String getName() { return name; }
     public String getUnit() { return unit; }
     public double getCurrentStock() { return currentStock; }
@@ -57,11 +100,16 @@ public class Ingredient implements Serializable {
             throw new IllegalArgumentException("SupplyLog cannot be null");
         }
         supplyLogs.add(supplyLog);
+        changes.markChanged(this);
+        changes.markTouched(supplyLog.getSupplier());
     }
 
     void removeSupplyLog(SupplyLog supplyLog) {
         if (supplyLog != null) {
             supplyLogs.remove(supplyLog);
+            changes.markChanged(this);
+            changes.markTouched(supplyLog);
+            changes.markTouched(supplyLog.getSupplier());
         }
     }
 
@@ -71,15 +119,17 @@ public class Ingredient implements Serializable {
             throw new IllegalArgumentException("MenuItem cannot be null");
         }
 
-        if (menuItems.contains(menuItem)) {
-            return;
-        }
-
-        menuItems.add(menuItem);
+        synchronized (STOCK_LOCK) {
+            if (menuItems.contains(menuItem)) {
+                return;
+            }
 
+            menuItems.add(menuItem);
+            changes.markChanged(this);
 
-        if (!menuItem.getIngredients().contains(this)) {
-            menuItem.addIngredient(this);
+            if (!menuItem.getIngredients().contains(this)) {
+                menuItem.addIngredient(this);
+            }
         }
     }
 
@@ -88,21 +138,23 @@ public class Ingredient implements Serializable {
             throw new IllegalArgumentException("MenuItem cannot be null");
         }
 
+        synchronized (STOCK_LOCK) {
+            if (!menuItems.contains(menuItem)) {
+                throw new IllegalArgumentException("This ingredient is not part of this menu item");
+            }
 
-        if (!menuItems.contains(menuItem)) {
-            throw new IllegalArgumentException("This ingredient is not part of this menu item");
-        }
-
-        // Enforce 1..* multiplicity: cannot remove last menu item
-        if (menuItems.size() <= 1) {
-            throw new IllegalStateException("Cannot remove the last menu item. Ingredient must be used in at least one menu item (1..*)");
-        }
+            // Enforce 1..* multiplicity: cannot remove last menu item
+            if (menuItems.size() <= 1) {
+                throw new IllegalStateException("Cannot remove the last menu item. Ingredient must be used in at least one menu item (1..*)");
+            }
 
-        menuItems.remove(menuItem);
+            menuItems.remove(menuItem);
+            changes.markChanged(this);
+            changes.markTouched(menuItem);
 
-
-        if (menuItem.getIngredients().contains(this)) {
-            menuItem.removeIngredientDirect(this);
+            if (menuItem.getIngredients().contains(this)) {
+                menuItem.removeIngredientDirect(this);
+            }
         }
     }
 
@@ -116,6 +168,7 @@ public class Ingredient implements Serializable {
             throw new IllegalArgumentException("Ingredient name cannot be null or empty");
         }
         this.name = name.trim();
+        changes.markChanged(this);
     }
 
     public void setUnit(String unit) {
@@ -123,20 +176,60 @@ public class Ingredient implements Serializable {
             throw new IllegalArgumentException("Unit cannot be null or empty");
         }
         this.unit = unit.trim();
+        changes.markChanged(this);
     }
 
     public void setCurrentStock(double currentStock) {
         if (currentStock < 0) {
             throw new IllegalArgumentException("Current stock cannot be negative");
         }
+        List<ReorderChange> reorderChanges = new ArrayList<>(1);
+        synchronized (STOCK_LOCK) {
+            // The creation record carries the initial stock of an ingredient still being built
+            if (allIngredients.contains(this)) {
+                Journal.recordStockLevel(this, currentStock);
+            }
+            applyStock(currentStock, reorderChanges);
+        }
+        notifyReorderListeners(reorderChanges);
+    }
+
+    // Package-private: journal replay sets the recorded stock level directly
+    void applyJournaledStock(double currentStock) {
+        List<ReorderChange> reorderChanges = new ArrayList<>(1);
+        synchronized (STOCK_LOCK) {
+            applyStock(currentStock, reorderChanges);
+        }
+        notifyReorderListeners(reorderChanges);
+    }
+
+    // Called under STOCK_LOCK
+    private void applyStock(double currentStock, List<ReorderChange> reorderChanges) {
+        double oldStock = this.currentStock;
         this.currentStock = currentStock;
+        changes.markChanged(this);
+        stockChanged(oldStock);
+        requeue(reorderChanges);
+    }
+
+    // Only the items using this ingredient are told; each flips its availability if needed
+    private void stockChanged(double oldStock) {
+        for (MenuItem menuItem : menuItems) {
+            menuItem.ingredientStockChanged(this, oldStock, currentStock);
+        }
     }
 
     public void setReorderPoint(double reorderPoint) {
         if (reorderPoint < 0) {
             throw new IllegalArgumentException("Reorder point cannot be negative");
         }
-        this.reorderPoint = reorderPoint;
+        List<ReorderChange> reorderChanges = new ArrayList<>(1);
+        synchronized (STOCK_LOCK) {
+            this.reorderPoint = reorderPoint;
+            changes.markChanged(this);
+            requeue(reorderChanges);
+        }
+        notifyReorderListeners(reorderChanges);
     }
 
     public void setCostPerUnit(double costPerUnit) {
@@ -144,10 +237,66 @@ public class Ingredient implements Serializable {
             throw new IllegalArgumentException("Cost per unit must be greater than zero");
         }
         this.costPerUnit = costPerUnit;
+        changes.markChanged(this);
     }
 
     public void updateCurrentStock(double quantity) {
-        setCurrentStock(currentStock + quantity);
+        List<ReorderChange> reorderChanges = new ArrayList<>(1);
+        synchronized (STOCK_LOCK) {
+            double updated = currentStock + quantity;
+            if (updated < 0) {
+                throw new IllegalArgumentException("Current stock cannot be negative");
+            }
+            Journal.recordStockLevel(this, updated);
+            applyStock(updated, reorderChanges);
+        }
+        notifyReorderListeners(reorderChanges);
+    }
+
+    /**
+     * Deducts the merged demand (ingredient -> quantity in its unit) in one step. Every
+     * ingredient is checked first; if any is short, IllegalStateException is thrown and
+     * no stock changes. The batch is journaled as one record, and reorder listeners run
+     * once all of it has been applied.
+     */
+    public static void deductStock(Map<Ingredient, Double> demand) {
+        deductStock(demand, null);
+    }
+
+    // Package-private: a batch that confirms a request checks and confirms it in the same
+    // critical section, and its journal record carries the confirmation
+    static void deductStock(Map<Ingredient, Double> demand, OrderRequest confirming) {
+        if (demand == null) {
+            throw new IllegalArgumentException("Demand cannot be null");
+        }
+        List<ReorderChange> reorderChanges = new ArrayList<>();
+        synchronized (STOCK_LOCK) {
+            if (confirming != null) {
+                confirming.ensurePending();
+            }
+            Map<Ingredient, Double> levels = new LinkedHashMap<>();
+            for (Map.Entry<Ingredient, Double> entry : demand.entrySet()) {
+                Ingredient ingredient = entry.getKey();
+                double quantity = entry.getValue();
+                if (quantity < 0) {
+                    throw new IllegalArgumentException("Quantity to deduct cannot be negative");
+                }
+                if (quantity - ingredient.currentStock > STOCK_EPSILON) {
+                    throw new IllegalStateException(String.format(
+                        "Not enough %s in stock: %.3f %s needed, %.3f available",
+                        ingredient.name, quantity, ingredient.unit, ingredient.currentStock));
+                }
+                levels.put(ingredient, Math.max(0.0, ingredient.currentStock - quantity));
+            }
+            Journal.recordStockLevels(levels, confirming);
+            for (Map.Entry<Ingredient, Double> entry : levels.entrySet()) {
+                entry.getKey().applyStock(entry.getValue(), reorderChanges);
+            }
+            if (confirming != null) {
+                confirming.confirmed();
+            }
+        }
+        notifyReorderListeners(reorderChanges);
     }
 
     public void increaseStock(double quantity) {
@@ -169,40 +318,172 @@ public class Ingredient implements Serializable {
             throw new IllegalArgumentException("Ingredient cannot be null");
         }
         allIngredients.add(ingredient);
+        changes.markChanged(ingredient);
+        List<ReorderChange> reorderChanges = new ArrayList<>(1);
+        synchronized (STOCK_LOCK) {
+            ingredient.requeue(reorderChanges);
+        }
+        notifyReorderListeners(reorderChanges);
+    }
+
+    // ---------- Reorder queue ----------
+
+    // How far stock is below the reorder point, as a fraction of it: 0 at the point, 1 when empty
+    public double getDeficitRatio() {
+        if (reorderPoint <= 0 || currentStock >= reorderPoint) {
+            return 0.0;
+        }
+        return (reorderPoint - currentStock) / reorderPoint;
+    }
+
+    /**
+     * Up to k registered ingredients that need reordering, largest deficit ratio first.
+     * Reads the maintained queue, so the cost depends on k and not on the catalog size.
+     */
+    public static List<Ingredient> topReorderCandidates(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k cannot be negative");
+        }
+        List<Ingredient> top = new ArrayList<>(Math.min(k, 64));
+        for (Ingredient ingredient : reorderQueue.values()) {
+            if (top.size() == k) break;
+            top.add(ingredient);
+        }
+        return top;
+    }
+
+    public static int getReorderCount() {
+        return reorderQueue.size();
+    }
+
+    public static void addReorderListener(ReorderListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        reorderListeners.add(listener);
+    }
+
+    public static void removeReorderListener(ReorderListener listener) {
+        reorderListeners.remove(listener);
+    }
+
+    // Called under STOCK_LOCK after the stock level or reorder point changed; a change of
+    // reorder status is added to reorderChanges, reported once the lock is released
+    private void requeue(List<ReorderChange> reorderChanges) {
+        boolean queuedBefore = reorderKey != null;
+        if (queuedBefore) {
+            reorderQueue.remove(reorderKey, this);
+            reorderKey = null;
+        }
+        if (getNeedsReorder() && allIngredients.contains(this)) {
+            reorderKey = new ReorderKey(getDeficitRatio(), ingredientId);
+            reorderQueue.put(reorderKey, this);
+        }
+        boolean queuedNow = reorderKey != null;
+        if (queuedBefore != queuedNow) {
+            reorderChanges.add(new ReorderChange(this, queuedNow));
+        }
+    }
+
+    // The stock change has already happened, so a failing listener must not surface as a
+    // failed update: every listener runs and failures go to the uncaught exception handler
+    private static void notifyReorderListeners(List<ReorderChange> reorderChanges) {
+        for (ReorderChange change : reorderChanges) {
+            for (ReorderListener listener : reorderListeners) {
+                try {
+                    listener.reorderStatusChanged(change.ingredient(), change.needsReorder());
+                } catch (RuntimeException e) {
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+        }
+    }
+
+    private record ReorderChange(Ingredient ingredient, boolean needsReorder) {}
+
+    private static void rebuildReorderQueue() {
+        synchronized (STOCK_LOCK) {
+            reorderQueue.clear();
+            for (Ingredient ingredient : allIngredients) {
+                ingredient.reorderKey = null;
+                if (ingredient.getNeedsReorder()) {
+                    ingredient.reorderKey = new ReorderKey(ingredient.getDeficitRatio(), ingredient.ingredientId);
+                    reorderQueue.put(ingredient.reorderKey, ingredient);
+                }
+            }
+        }
+    }
+
+    // Largest ratio first; the id keeps entries with equal ratios apart
+    private record ReorderKey(double ratio, String ingredientId) implements Comparable<ReorderKey> {
+        @Override
+        public int compareTo(ReorderKey other) {
+            int byRatio = Double.compare(other.ratio, ratio);
+            return byRatio != 0 ? byRatio : ingredientId.compareTo(other.ingredientId);
+        }
     }
 
     // Package-private method to directly remove without constraint check
     void removeMenuItemDirect(MenuItem menuItem) {
-        menuItems.remove(menuItem);
+        synchronized (STOCK_LOCK) {
+            menuItems.remove(menuItem);
+            changes.markChanged(this);
+            changes.markTouched(menuItem);
+        }
     }
 
     public static List<Ingredient> getAllIngredients() {
-        return Collections.unmodifiableList(allIngredients);
+        return allIngredients.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<Ingredient> extent) {
+        allIngredients.replaceWith(extent);
+        changes.reset();
+        rebuildReorderQueue();
     }
 
     public static void clearExtent() {
         allIngredients.clear();
+        changes.reset();
+        rebuildReorderQueue();
     }
 
     public static void saveExtent(String filename) throws IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
-            out.writeObject(allIngredients);
-        }
+        changes.saveFull(filename, allIngredients);
+    }
+
+    // Appends only the ingredients created or changed since the last save/load
+    public static void saveChanges(String filename) throws IOException {
+        changes.saveChanges(filename, allIngredients);
+    }
+
+    public static int getPendingChangeCount() {
+        return changes.getPendingChangeCount();
     }
 
-    @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filepath))) {
-            allIngredients = (List<Ingredient>) in.readObject();
+        try {
+            allIngredients.replaceWith(changes.load(filename));
+            rebuildReorderQueue();
             return true;
         } catch (IOException | ClassNotFoundException e) {
             allIngredients.clear();
+            rebuildReorderQueue();
             return false;
         }
     }
 
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // Files written before ingredients had an id
+        if (ingredientId == null) {
+            ingredientId = UUID.randomUUID().toString();
+        }
+    }
+
     @Override
     public String toString() {
         return String.format("Ingredient[%s, stock=%.2f %s, reorderPoint=%.2f, needsReorder=%s, cost=%.2f]",
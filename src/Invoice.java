@@ -1,16 +1,18 @@
 import java.io.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
 public class Invoice implements Serializable {
-    @Serial private static final long serialVersionUID = 1L;
+    @Serial private static final long serialVersionUID = 2L;
 
-    private static List<Invoice> allInvoices = new ArrayList<>();
+    private static final Extent<Invoice> allInvoices = new Extent<>();
     private static final Set<String> APPROVED_BILLING_REGIONS = Set.of("PL", "DE", "CZ", "SK");
+    private static final long MAX_INVOICE_AMOUNT_GROSZ = 100_000_00L;
 
 
     // Basic Attribute
@@ -21,10 +23,15 @@ public class Invoice implements Serializable {
     private Address billingAddress;
     // Multi-Value Attribute
     private final List<Payment> payments = new ArrayList<>();
+    // Amount each payment contributed when it was added, same index as payments: a later
+    // Payment.setAmountPayed must not change what removing it takes off paidTotalGrosz
+    private final List<Long> paymentAmountsGrosz = new ArrayList<>();
+    // Running sum of paymentAmountsGrosz
+    private long paidTotalGrosz;
     // Optional Attribute
     private Double lateFeeRate;
-    // Basic Attribute
-    private double baseInvoiceAmount;
+    // Basic Attribute (grosz)
+    private long baseInvoiceAmountGrosz;
 
     // Basic Attribute
     private final LocalDate issueDate;
@@ -48,7 +55,8 @@ public class Invoice implements Serializable {
     public String getInvoiceNumber() { return invoiceNumber; }
     public Order getRelatedOrder() { return relatedOrder; }
     public Address getBillingAddress() { return billingAddress; }
-    public double getBaseInvoiceAmount() { return baseInvoiceAmount; }
+    public double getBaseInvoiceAmount() { return Money.toDouble(baseInvoiceAmountGrosz); }
+    public Money getBaseInvoiceAmountAsMoney() { return Money.ofGrosz(baseInvoiceAmountGrosz); }
     public Double getLateFeeRate() { return lateFeeRate; }
     public boolean isPaid() { return isPaid; }
 
@@ -58,9 +66,29 @@ public class Invoice implements Serializable {
 
     // Derived Attribute
     public double getTotalDueWithFees() {
+        return Money.toDouble(totalDueWithFeesGrosz());
+    }
+
+    public Money getTotalDueWithFeesAsMoney() {
+        return Money.ofGrosz(totalDueWithFeesGrosz());
+    }
+
+    public double getPaidTotal() { return Money.toDouble(paidTotalGrosz); }
+    public Money getPaidTotalAsMoney() { return Money.ofGrosz(paidTotalGrosz); }
+
+    // Derived Attribute
+    public double getOutstandingBalance() {
+        return Money.toDouble(totalDueWithFeesGrosz() - paidTotalGrosz);
+    }
+
+    public Money getOutstandingBalanceAsMoney() {
+        return Money.ofGrosz(totalDueWithFeesGrosz() - paidTotalGrosz);
+    }
+
+    private long totalDueWithFeesGrosz() {
         double feeRate = (lateFeeRate != null) ? lateFeeRate : 0.0;
-        
-        return baseInvoiceAmount * (1.0 + (feeRate / 100.0));
+
+        return baseInvoiceAmountGrosz + Money.percentOf(baseInvoiceAmountGrosz, feeRate);
     }
 
 
@@ -99,14 +127,25 @@ public class Invoice implements Serializable {
 
     // Basic Attribute
     public void setBaseInvoiceAmount(double baseInvoiceAmount) {
-        if (baseInvoiceAmount < 0.0) {
+        setBaseInvoiceAmountGrosz(Money.toGrosz(baseInvoiceAmount));
+    }
+
+    public void setBaseInvoiceAmount(Money baseInvoiceAmount) {
+        if (baseInvoiceAmount == null) {
+            throw new IllegalArgumentException("Base invoice amount cannot be null");
+        }
+        setBaseInvoiceAmountGrosz(baseInvoiceAmount.getGrosz());
+    }
+
+    private void setBaseInvoiceAmountGrosz(long baseInvoiceAmountGrosz) {
+        if (baseInvoiceAmountGrosz < 0) {
             throw new IllegalArgumentException("Base invoice amount cannot be negative");
         }
         
-        if (baseInvoiceAmount > 100000.0) {
+        if (baseInvoiceAmountGrosz > MAX_INVOICE_AMOUNT_GROSZ) {
             throw new IllegalArgumentException("Base invoice amount exceeds maximum allowed transaction value (100000.0)");
         }
-        this.baseInvoiceAmount = baseInvoiceAmount;
+        this.baseInvoiceAmountGrosz = baseInvoiceAmountGrosz;
     }
     
     // Optional Attribute
@@ -125,33 +164,69 @@ public class Invoice implements Serializable {
 
     // Multi-Value Attribute
     public void addPayment(Payment newPayment) {
-        if (newPayment == null || newPayment.getAmountPayed() <= 0.0) {
+        if (newPayment == null || newPayment.amountPayedGrosz() <= 0) {
             throw new IllegalArgumentException("Payment amount must be positive");
         }
 
-        
-        double totalPaid = payments.stream()
-                .mapToDouble(Payment::getAmountPayed)
-                .sum();
+        ensureWithinTotalDue(newPayment.amountPayedGrosz());
 
-        
-        if (totalPaid + newPayment.getAmountPayed() > getTotalDueWithFees() + 0.001) {
-            throw new IllegalStateException(
-                String.format("Total payments (%.2f + %.2f) cannot exceed Total Due (%.2f)",
-                totalPaid, newPayment.getAmountPayed(), getTotalDueWithFees()));
+        this.payments.add(newPayment);
+        this.paymentAmountsGrosz.add(newPayment.amountPayedGrosz());
+        this.paidTotalGrosz += newPayment.amountPayedGrosz();
+        checkAndMarkPaid();
+    }
+
+    /**
+     * Adds a batch of payments (e.g. a split bill). The whole batch is validated
+     * first; if any payment is invalid or the batch would exceed the total due,
+     * none of them is added.
+     */
+    public void addPayments(Collection<Payment> newPayments) {
+        if (newPayments == null) {
+            throw new IllegalArgumentException("Payments cannot be null");
         }
 
-        this.payments.add(newPayment);
+        long batchTotal = 0L;
+        for (Payment payment : newPayments) {
+            if (payment == null || payment.amountPayedGrosz() <= 0) {
+                throw new IllegalArgumentException("Payment amount must be positive");
+            }
+            batchTotal += payment.amountPayedGrosz();
+        }
+        ensureWithinTotalDue(batchTotal);
+
+        for (Payment payment : newPayments) {
+            this.payments.add(payment);
+            this.paymentAmountsGrosz.add(payment.amountPayedGrosz());
+        }
+        this.paidTotalGrosz += batchTotal;
+        checkAndMarkPaid();
+    }
+
+    public void removePayment(Payment payment) {
+        if (payment == null) {
+            throw new IllegalArgumentException("Payment cannot be null");
+        }
+        int index = payments.indexOf(payment);
+        if (index < 0) {
+            throw new IllegalArgumentException("This payment is not part of this invoice");
+        }
+        payments.remove(index);
+        this.paidTotalGrosz -= paymentAmountsGrosz.remove(index);
         checkAndMarkPaid();
     }
 
+    private void ensureWithinTotalDue(long additionalGrosz) {
+        if (paidTotalGrosz + additionalGrosz > totalDueWithFeesGrosz()) {
+            throw new IllegalStateException(
+                String.format("Total payments (%.2f + %.2f) cannot exceed Total Due (%.2f)",
+                getPaidTotal(), Money.toDouble(additionalGrosz), getTotalDueWithFees()));
+        }
+    }
+
     
     public void checkAndMarkPaid() {
-        double totalPaid = payments.stream()
-                .mapToDouble(Payment::getAmountPayed)
-                .sum();
-        
-        this.isPaid = totalPaid >= getTotalDueWithFees() - 0.001;
+        this.isPaid = paidTotalGrosz >= totalDueWithFeesGrosz();
     }
 
 
@@ -164,7 +239,12 @@ public class Invoice implements Serializable {
     }
 
     public static List<Invoice> getAllInvoices() {
-        return Collections.unmodifiableList(allInvoices);
+        return allInvoices.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<Invoice> extent) {
+        allInvoices.replaceWith(extent);
     }
 
     public static void clearExtent() {
@@ -172,17 +252,13 @@ public class Invoice implements Serializable {
     }
 
     public static void saveExtent(String filename) throws IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
-            out.writeObject(allInvoices);
-        }
+        AtomicFile.writeObject(filename, new ArrayList<>(allInvoices));
     }
 
     @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new java.io.ObjectInputStream(new java.io.FileInputStream(filepath))) {
-            allInvoices = (List<Invoice>) in.readObject();
+        try {
+            allInvoices.replaceWith((List<Invoice>) AtomicFile.readObject(filename));
             return true;
         } catch (IOException | ClassNotFoundException e) {
             allInvoices.clear();
@@ -193,6 +269,6 @@ public class Invoice implements Serializable {
     @Override
     public String toString() {
         return String.format("Invoice[number=%s, paid=%s, baseAmount=%.2f, totalDue=%.2f, payments=%d, fee=%.1f%%]",
-            invoiceNumber, isPaid ? "Yes" : "No", baseInvoiceAmount, getTotalDueWithFees(), payments.size(), lateFeeRate != null ? lateFeeRate : 0.0);
+            invoiceNumber, isPaid ? "Yes" : "No", getBaseInvoiceAmount(), getTotalDueWithFees(), payments.size(), lateFeeRate != null ? lateFeeRate : 0.0);
     }
 }
@@ -2,12 +2,17 @@ import java.io.Serial;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 public class ItemLevelDiscount extends Discount {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    private static List<ItemLevelDiscount> allItemLevelDiscounts = new ArrayList<>();
+    private static final Extent<ItemLevelDiscount> allItemLevelDiscounts = new Extent<>();
+
+    // Inverted index over registered discounts: applicable item name -> discounts naming it
+    private static final Map<String, Set<ItemLevelDiscount>> discountsByItem = new ConcurrentHashMap<>();
 
     private final Set<String> applicableItems;
 
@@ -95,22 +100,104 @@ public class ItemLevelDiscount extends Discount {
         if (item == null || item.trim().isEmpty()) {
             throw new IllegalArgumentException("Applicable item cannot be null or empty");
         }
-        applicableItems.add(item.trim());
+        String name = item.trim();
+        if (applicableItems.add(name) && isRegistered()) {
+            index(name, this);
+        }
+        changed();
     }
 
     @Override
     public void removeApplicableItem(String item) {
-        applicableItems.remove(item);
+        if (applicableItems.remove(item) && isRegistered()) {
+            unindex(item, this);
+        }
+        changed();
+    }
+
+    @Override
+    public void delete() {
+        for (String item : applicableItems) {
+            unindex(item, this);
+        }
+        super.delete();
+        allItemLevelDiscounts.remove(this);
+    }
+
+
+    // ---------- Item name index ----------
+
+    // Registered item-level discounts that name the item, in registration order
+    public static Set<ItemLevelDiscount> findByItem(String itemName) {
+        if (itemName == null) {
+            return Collections.emptySet();
+        }
+        Set<ItemLevelDiscount> discounts = discountsByItem.get(itemName.trim());
+        return discounts == null ? Collections.emptySet() : Collections.unmodifiableSet(discounts);
+    }
+
+    public static Set<ItemLevelDiscount> findByItem(MenuItem menuItem) {
+        return menuItem == null ? Collections.emptySet() : findByItem(menuItem.getName());
+    }
+
+    /**
+     * Package-private: MenuItem.setName reports a rename. Discounts follow the item to its
+     * new name unless another menu item still carries the old one.
+     */
+    static void menuItemRenamed(String oldName, String newName) {
+        if (MenuItem.isNameInUse(oldName)) {
+            return;
+        }
+        Set<ItemLevelDiscount> discounts = discountsByItem.get(oldName);
+        if (discounts == null) {
+            return;
+        }
+        for (ItemLevelDiscount discount : discounts) {
+            discount.removeApplicableItem(oldName);
+            discount.addApplicableItem(newName);
+        }
+    }
+
+    private static void index(String item, ItemLevelDiscount discount) {
+        discountsByItem.computeIfAbsent(item, name -> new CopyOnWriteArraySet<>()).add(discount);
+    }
+
+    private static void unindex(String item, ItemLevelDiscount discount) {
+        discountsByItem.computeIfPresent(item, (name, discounts) -> {
+            discounts.remove(discount);
+            return discounts.isEmpty() ? null : discounts;
+        });
+    }
+
+    // Package-private: Discount rebuilds the index whenever its extent is cleared, restored or loaded
+    static void rebuildItemIndex(Iterable<Discount> discounts) {
+        discountsByItem.clear();
+        for (Discount discount : discounts) {
+            if (discount instanceof ItemLevelDiscount itemDiscount) {
+                for (String item : itemDiscount.applicableItems) {
+                    index(item, itemDiscount);
+                }
+            }
+        }
     }
 
     private static void addToExtent(ItemLevelDiscount discount) {
         if (discount != null) {
+            Discount.addToExtent(discount);
             allItemLevelDiscounts.add(discount);
+            for (String item : discount.applicableItems) {
+                index(item, discount);
+            }
         }
     }
 
     public static List<ItemLevelDiscount> getAllItemLevelDiscounts() {
-        return Collections.unmodifiableList(allItemLevelDiscounts);
+        return allItemLevelDiscounts.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreItemLevelExtent(List<ItemLevelDiscount> extent) {
+        allItemLevelDiscounts.replaceWith(extent);
     }
 
     public static void clearExtent() {
@@ -118,19 +205,13 @@ public class ItemLevelDiscount extends Discount {
     }
 
     public static void saveExtent(String filename) throws java.io.IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(
-                new java.io.FileOutputStream(filepath))) {
-            out.writeObject(allItemLevelDiscounts);
-        }
+        AtomicFile.writeObject(filename, new ArrayList<>(allItemLevelDiscounts));
     }
 
     @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (java.io.ObjectInputStream in = new java.io.ObjectInputStream(
-                new java.io.FileInputStream(filepath))) {
-            allItemLevelDiscounts = (List<ItemLevelDiscount>) in.readObject();
+        try {
+            allItemLevelDiscounts.replaceWith((List<ItemLevelDiscount>) AtomicFile.readObject(filename));
             return true;
         } catch (java.io.IOException | ClassNotFoundException e) {
             allItemLevelDiscounts.clear();
@@ -1,8 +1,10 @@
 import java.io.*;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Association Class: ItemQuantity connects OrderRequest to MenuItem
@@ -14,13 +16,22 @@ import java.util.List;
  * Attempting to create a duplicate will throw IllegalStateException.
  */
 public class ItemQuantity implements Serializable {
+    // 2: fields are written by writeObject/readObject, not by default serialization
     @Serial
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
 
-    private static final List<ItemQuantity> allItemQuantities = new ArrayList<>();
+    private static final Extent<ItemQuantity> allItemQuantities = new Extent<>();
 
+    // Index on the (OrderRequest, MenuItem) pair - keeps the duplicate check O(1)
+    private static final Map<PairKey, ItemQuantity> itemQuantitiesByPair = new ConcurrentHashMap<>();
 
+    private static final ChangeTracker<ItemQuantity> changes =
+        new ChangeTracker<>(ItemQuantity.class, ItemQuantity::getItemQuantityId,
+            itemQuantity -> Arrays.asList(itemQuantity.orderRequest, itemQuantity.menuItem));
+
+
+    private String itemQuantityId;
     private OrderRequest orderRequest;
     private MenuItem menuItem;
     private int quantity;
@@ -37,13 +48,18 @@ public class ItemQuantity implements Serializable {
             throw new IllegalArgumentException("MenuItem cannot be null - ItemQuantity must connect to a MenuItem");
         }
 
+        this.itemQuantityId = UUID.randomUUID().toString();
         this.orderRequest = orderRequest;
         this.menuItem = menuItem;
-        setQuantity(quantity);
+        this.quantity = validateQuantity(quantity);
         setSpecialRequests(specialRequests);
         this.servedTimestamp = null;
 
-        addItemQuantityToExtent();
+        // create() checked the pair already; this catches a concurrent create of the same pair
+        if (!addItemQuantityToExtent()) {
+            throw new IllegalStateException("ItemQuantity already exists for this OrderRequest and MenuItem combination");
+        }
+        changes.markChanged(this);
     }
 
 
@@ -57,13 +73,11 @@ public class ItemQuantity implements Serializable {
         }
 
         // Check for existing connection
-        for (ItemQuantity existing : allItemQuantities) {
-            if (existing.getOrderRequest() == orderRequest && existing.getMenuItem() == menuItem) {
-                throw new IllegalStateException(
-                    "ItemQuantity already exists for this OrderRequest and MenuItem combination. " +
-                    "To modify quantity, update the existing ItemQuantity instead of creating a new one."
-                );
-            }
+        if (itemQuantitiesByPair.containsKey(new PairKey(orderRequest, menuItem))) {
+            throw new IllegalStateException(
+                "ItemQuantity already exists for this OrderRequest and MenuItem combination. " +
+                "To modify quantity, update the existing ItemQuantity instead of creating a new one."
+            );
         }
 
         ItemQuantity itemQuantity = new ItemQuantity(orderRequest, menuItem, quantity, specialRequests);
@@ -72,6 +86,15 @@ public class ItemQuantity implements Serializable {
         orderRequest.addItemQuantity(itemQuantity);
         menuItem.addItemQuantity(itemQuantity);
 
+        Journal.recordItemQuantityCreated(itemQuantity);
+        return itemQuantity;
+    }
+
+    // Package-private: journal replay recreates a line under its recorded id
+    static ItemQuantity createJournaled(String itemQuantityId, OrderRequest orderRequest, MenuItem menuItem,
+                                        int quantity, String specialRequests) {
+        ItemQuantity itemQuantity = create(orderRequest, menuItem, quantity, specialRequests);
+        itemQuantity.itemQuantityId = itemQuantityId;
         return itemQuantity;
     }
 
@@ -80,6 +103,13 @@ public class ItemQuantity implements Serializable {
         return create(orderRequest, menuItem, quantity, null);
     }
 
+    public static ItemQuantity find(OrderRequest orderRequest, MenuItem menuItem) {
+        if (orderRequest == null || menuItem == null) {
+            return null;
+        }
+        return itemQuantitiesByPair.get(new PairKey(orderRequest, menuItem));
+    }
+
     public void delete() {
         if (orderRequest != null) {
             orderRequest.removeItemQuantity(this);
@@ -94,6 +124,7 @@ public class ItemQuantity implements Serializable {
     }
 
 
+    public String getItemQuantityId() { return itemQuantityId; }
     public OrderRequest getOrderRequest() { return orderRequest; }
     public MenuItem getMenuItem() { return menuItem; }
     public int getQuantity() { return quantity; }
@@ -101,55 +132,166 @@ public class ItemQuantity implements Serializable {
     public LocalDateTime getServedTimestamp() { return servedTimestamp; }
 
     public double getRequestTotal() {
-        if (menuItem == null) return 0.0;
-        return menuItem.calculatePriceWithTax() * quantity;
+        return Money.toDouble(requestTotalGrosz());
+    }
+
+    public Money getRequestTotalAsMoney() {
+        return Money.ofGrosz(requestTotalGrosz());
+    }
+
+    // Package-private: line total used by the running totals in OrderRequest
+    long requestTotalGrosz() {
+        if (menuItem == null) return 0L;
+        return menuItem.priceWithTaxGrosz() * quantity;
     }
 
 
     public void setQuantity(int quantity) {
+        long previousTotal = requestTotalGrosz();
+        int previousQuantity = this.quantity;
+        this.quantity = validateQuantity(quantity);
+        Journal.recordItemQuantity(this);
+        changes.markChanged(this);
+        if (orderRequest != null) {
+            orderRequest.adjustRequestTotal(requestTotalGrosz() - previousTotal);
+            orderRequest.adjustItemCount(this.quantity - previousQuantity);
+        }
+    }
+
+    private static int validateQuantity(int quantity) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than zero");
         }
-        this.quantity = quantity;
+        return quantity;
+    }
+
+    // Package-private: true while the line's order can still change (ACTIVE, or not placed yet)
+    boolean isOpen() {
+        Order order = orderRequest != null ? orderRequest.getOrder() : null;
+        return order == null || order.getStatus() == OrderStatus.ACTIVE;
+    }
+
+    // Package-private: MenuItem.setPrice reports the old and new price with tax, in grosz
+    void unitPriceChanged(long oldUnitPrice, long newUnitPrice) {
+        if (orderRequest != null) {
+            orderRequest.adjustRequestTotal((newUnitPrice - oldUnitPrice) * quantity);
+        }
     }
 
 
     public void setSpecialRequests(String specialRequests) {
         if (specialRequests == null) {
             this.specialRequests = null;
+            changes.markChanged(this);
             return;
         }
         if (specialRequests.trim().isEmpty()) {
             throw new IllegalArgumentException("Special requests cannot be empty or whitespace-only");
         }
         this.specialRequests = specialRequests.trim();
+        changes.markChanged(this);
     }
 
     public void markAsServed() {
         this.servedTimestamp = LocalDateTime.now();
+        changes.markChanged(this);
     }
 
 
-    private void addItemQuantityToExtent() {
-        if (!allItemQuantities.contains(this)) {
-            allItemQuantities.add(this);
+    private boolean addItemQuantityToExtent() {
+        if (itemQuantitiesByPair.putIfAbsent(new PairKey(orderRequest, menuItem), this) != null) {
+            return false;
         }
+        allItemQuantities.add(this);
+        return true;
     }
 
     private void deleteItemQuantityFromExtent() {
-        if (!allItemQuantities.remove(this)) {
+        if (!itemQuantitiesByPair.remove(new PairKey(orderRequest, menuItem), this)) {
             throw new IllegalStateException("ItemQuantity not found in extent - cannot delete");
         }
+        allItemQuantities.remove(this);
+        changes.markDeleted(this);
     }
 
     public static List<ItemQuantity> getAllItemQuantitiesFromExtent() {
-        return Collections.unmodifiableList(allItemQuantities);
+        return allItemQuantities.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent and rebuild the pair index
+    static void restoreExtent(List<ItemQuantity> extent) {
+        reindex(extent);
+        changes.reset();
+    }
+
+    private static void reindex(List<ItemQuantity> extent) {
+        allItemQuantities.clear();
+        itemQuantitiesByPair.clear();
+        for (ItemQuantity itemQuantity : extent) {
+            itemQuantity.addItemQuantityToExtent();
+        }
     }
 
     public static void clearExtent() {
         allItemQuantities.clear();
+        itemQuantitiesByPair.clear();
+        changes.reset();
+    }
+
+    public static void saveExtent(String filename) throws IOException {
+        changes.saveFull(filename, allItemQuantities);
+    }
+
+    // Appends only the item quantities created, changed or deleted since the last save/load
+    public static void saveChanges(String filename) throws IOException {
+        changes.saveChanges(filename, allItemQuantities);
     }
 
+    public static int getPendingChangeCount() {
+        return changes.getPendingChangeCount();
+    }
+
+    public static boolean loadExtent(String filename) {
+        try {
+            // Not restoreExtent: the loaded objects are the ones the tracker knows from the file
+            reindex(changes.load(filename));
+            return true;
+        } catch (IOException | ClassNotFoundException e) {
+            clearExtent();
+            return false;
+        }
+    }
+
+    // Fields are written by hand in a compact form (see BinaryCodec) instead of the
+    // default field-by-field format
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {};
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        BinaryCodec.writeId(out, itemQuantityId);
+        out.writeObject(orderRequest);
+        out.writeObject(menuItem);
+        BinaryCodec.writeVarInt(out, quantity);
+        BinaryCodec.writeString(out, specialRequests);
+        BinaryCodec.writeDateTime(out, servedTimestamp);
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        itemQuantityId = BinaryCodec.readId(in);
+        orderRequest = (OrderRequest) in.readObject();
+        menuItem = (MenuItem) in.readObject();
+        quantity = BinaryCodec.readVarInt(in);
+        specialRequests = BinaryCodec.readString(in);
+        servedTimestamp = BinaryCodec.readDateTime(in);
+    }
+
+    // OrderRequest and MenuItem keep identity equality, so the pair is compared by reference
+    private record PairKey(OrderRequest orderRequest, MenuItem menuItem) {}
+
     @Override
     public String toString() {
         String itemName = menuItem != null ? menuItem.getName() : "Unknown";
@@ -0,0 +1,648 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of domain state changes.
+ *
+ * While open, the sales path is appended as compact binary records to a log under
+ * PersistenceConfig.DATA_DIRECTORY: new customers, orders, order requests, order lines
+ * (ItemQuantity), payments, ingredients and menu items, the request-to-order link, line
+ * quantities, and status and stock changes (Order.finalizeOrder, Payment.confirmPayment,
+ * Ingredient.reduceStock, ...). Records are buffered and fsynced in groups - when GROUP_COMMIT_SIZE records are
+ * pending, when GROUP_COMMIT_DELAY_MILLIS has passed, or on sync()/close(). On startup
+ * load the last snapshot and replay the journal on top; SnapshotManager.recover() and
+ * SnapshotManager.checkpoint() do both steps.
+ *
+ * Replay recreates journaled entities under their recorded ids and links them to the
+ * customers, orders, requests and menu items (matched by name) they were created with.
+ * Other edits - the tables and reservation of a dine-in order, a takeaway's collection
+ * time, deletions, menu item and ingredient edits and links (recipes, menus) apart from
+ * stock levels, and anything on tables or reservations - are not journaled and only
+ * survive once a checkpoint has written them.
+ * Records whose entity (or an entity they refer to) is missing are reported as unmatched.
+ *
+ * Record layout: int bodyLength | body | int crc32(body), where body is
+ * byte type | UTF key | payload. Records carry absolute values and creation records are
+ * skipped when their entity already exists, so replay is idempotent.
+ * A stock deduction batch is one record listing every ingredient it changed and, for
+ * OrderRequest.confirmRequest, the request it confirmed.
+ * A torn record at the end of the file (crash mid-write) ends the replay.
+ */
+public class Journal {
+
+    public static final String DEFAULT_JOURNAL_FILE = "journal.log";
+    public static final int GROUP_COMMIT_SIZE = 64;
+    public static final long GROUP_COMMIT_DELAY_MILLIS = 200;
+
+    private static final byte ORDER_STATUS = 1;
+    private static final byte PAYMENT_STATUS = 2;
+    private static final byte INGREDIENT_STOCK = 3;
+    private static final byte INGREDIENT_STOCK_BATCH = 4;
+    private static final byte CUSTOMER_CREATED = 5;
+    private static final byte ORDER_CREATED = 6;
+    private static final byte REQUEST_CREATED = 7;
+    private static final byte REQUEST_ID = 8;
+    private static final byte REQUEST_ORDER = 9;
+    private static final byte ITEM_QUANTITY_CREATED = 10;
+    private static final byte ITEM_QUANTITY = 11;
+    private static final byte PAYMENT_CREATED = 12;
+    private static final byte INGREDIENT_CREATED = 13;
+    private static final byte MENU_ITEM_CREATED = 14;
+
+    private static final byte CARD = 1;
+    private static final byte CASH = 2;
+
+    private static final byte MAIN_DISH = 1;
+    private static final byte BEVERAGE = 2;
+    private static final byte DESSERT = 3;
+
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private static volatile FileChannel channel;
+    private static String journalFile;
+    private static final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private static int pendingRecords;
+    private static ScheduledExecutorService flusher;
+
+    // Set while replay() recreates entities, whose constructors would journal them again
+    private static final ThreadLocal<Boolean> replaying = ThreadLocal.withInitial(() -> false);
+
+    private Journal() {}
+
+
+    public static void open() throws IOException {
+        open(DEFAULT_JOURNAL_FILE);
+    }
+
+    public static synchronized void open(String filename) throws IOException {
+        if (channel != null) {
+            throw new IllegalStateException("Journal is already open");
+        }
+        Path path = Path.of(PersistenceConfig.getDataFilePath(filename));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+        journalFile = filename;
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(Journal::flushQuietly,
+            GROUP_COMMIT_DELAY_MILLIS, GROUP_COMMIT_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public static boolean isOpen() {
+        return channel != null;
+    }
+
+    public static synchronized void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        flusher.shutdownNow();
+        flusher = null;
+        try {
+            sync();
+        } finally {
+            channel.close();
+            channel = null;
+            journalFile = null;
+        }
+    }
+
+    /**
+     * Writes all pending records and forces them to disk.
+     */
+    public static synchronized void sync() throws IOException {
+        if (channel == null || pendingRecords == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        pending.reset();
+        pendingRecords = 0;
+    }
+
+    /**
+     * Discards the journal contents. Call only after a snapshot covering every
+     * journaled change has been written.
+     */
+    public static synchronized void checkpoint() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        pending.reset();
+        pendingRecords = 0;
+        channel.truncate(0);
+        channel.force(true);
+    }
+
+
+    // ---------- Recording (called by the domain classes) ----------
+
+    // The status is passed in: by the time this runs another thread may have moved the order on
+    static void recordOrderStatus(Order order, OrderStatus status) {
+        if (channel == null) return;
+        append(ORDER_STATUS, order.getOrderId(), out -> out.writeByte(status.ordinal()));
+    }
+
+    static void recordPaymentStatus(Payment payment) {
+        if (channel == null) return;
+        append(PAYMENT_STATUS, payment.getPaymentId(), out -> out.writeByte(payment.getStatus().ordinal()));
+    }
+
+    static void recordStockLevel(Ingredient ingredient, double stock) {
+        if (channel == null) return;
+        append(INGREDIENT_STOCK, ingredient.getIngredientId(), out -> out.writeDouble(stock));
+    }
+
+    // New stock level per ingredient of one Ingredient.deductStock batch, keyed by the
+    // request the batch confirms (empty if none) so the confirmation is replayed with it
+    static void recordStockLevels(Map<Ingredient, Double> levels, OrderRequest confirming) {
+        if (channel == null) return;
+        append(INGREDIENT_STOCK_BATCH, confirming != null ? confirming.getRequestId() : "", out -> {
+            out.writeInt(levels.size());
+            for (Map.Entry<Ingredient, Double> entry : levels.entrySet()) {
+                out.writeUTF(entry.getKey().getIngredientId());
+                out.writeDouble(entry.getValue());
+            }
+        });
+    }
+
+    static void recordCustomerCreated(Customer customer) {
+        if (channel == null) return;
+        append(CUSTOMER_CREATED, customer.getCustomerId(), out -> {
+            out.writeUTF(customer.getName());
+            out.writeUTF(customer.getSurname());
+            out.writeUTF(customer.getEmail());
+            out.writeUTF(customer.getPhone());
+            BinaryCodec.writeDateTime(out, customer.getRegistrationDate());
+        });
+    }
+
+    static void recordOrderCreated(Order order) {
+        if (channel == null) return;
+        append(ORDER_CREATED, order.getOrderId(), out -> {
+            BinaryCodec.writeEnum(out, order.getKind());
+            out.writeUTF(order.getCustomer().getCustomerId());
+            BinaryCodec.writeDate(out, order.getDate());
+            BinaryCodec.writeTime(out, order.getTime());
+        });
+    }
+
+    static void recordRequestCreated(OrderRequest request) {
+        if (channel == null) return;
+        append(REQUEST_CREATED, request.getRequestId(), out -> {});
+    }
+
+    static void recordRequestId(String oldId, String newId) {
+        if (channel == null || oldId.equals(newId)) return;
+        append(REQUEST_ID, oldId, out -> out.writeUTF(newId));
+    }
+
+    // The order the request belongs to now, or none
+    static void recordRequestOrder(OrderRequest request) {
+        if (channel == null) return;
+        Order order = request.getOrder();
+        append(REQUEST_ORDER, request.getRequestId(),
+            out -> BinaryCodec.writeString(out, order != null ? order.getOrderId() : null));
+    }
+
+    static void recordItemQuantityCreated(ItemQuantity itemQuantity) {
+        if (channel == null) return;
+        append(ITEM_QUANTITY_CREATED, itemQuantity.getItemQuantityId(), out -> {
+            out.writeUTF(itemQuantity.getOrderRequest().getRequestId());
+            out.writeUTF(itemQuantity.getMenuItem().getName());
+            BinaryCodec.writeVarInt(out, itemQuantity.getQuantity());
+            BinaryCodec.writeString(out, itemQuantity.getSpecialRequests());
+        });
+    }
+
+    static void recordItemQuantity(ItemQuantity itemQuantity) {
+        if (channel == null) return;
+        append(ITEM_QUANTITY, itemQuantity.getItemQuantityId(),
+            out -> BinaryCodec.writeVarInt(out, itemQuantity.getQuantity()));
+    }
+
+    static void recordPaymentCreated(Payment payment) {
+        if (channel == null) return;
+        append(PAYMENT_CREATED, payment.getPaymentId(), out -> {
+            out.writeUTF(payment.getOrder().getOrderId());
+            BinaryCodec.writeVarLong(out, payment.amountPayedGrosz());
+            if (payment instanceof Card card) {
+                out.writeByte(CARD);
+                out.writeUTF(card.getLastFourDigits());
+                out.writeUTF(card.getCardType());
+            } else if (payment instanceof Cash cash) {
+                out.writeByte(CASH);
+                BinaryCodec.writeVarLong(out, cash.getAmountTenderedAsMoney().getGrosz());
+            } else {
+                throw new IllegalArgumentException("Unknown payment type: " + payment.getClass().getName());
+            }
+        });
+    }
+
+    static void recordIngredientCreated(Ingredient ingredient) {
+        if (channel == null) return;
+        append(INGREDIENT_CREATED, ingredient.getIngredientId(), out -> {
+            out.writeUTF(ingredient.getName());
+            out.writeUTF(ingredient.getUnit());
+            out.writeDouble(ingredient.getCurrentStock());
+            out.writeDouble(ingredient.getReorderPoint());
+            out.writeDouble(ingredient.getCostPerUnit());
+        });
+    }
+
+    // Keyed by name, like the menu item of an ITEM_QUANTITY_CREATED record
+    static void recordMenuItemCreated(MenuItem menuItem) {
+        if (channel == null) return;
+        append(MENU_ITEM_CREATED, menuItem.getName(), out -> {
+            out.writeUTF(menuItem.getDescription());
+            BinaryCodec.writeVarLong(out, menuItem.getPriceAsMoney().getGrosz());
+            out.writeUTF(menuItem.getImage());
+            out.writeUTF(menuItem.getNationalOrigin());
+            NutritionalInfo nutrition = menuItem.getNutritionalInfo();
+            out.writeDouble(nutrition.getCalories());
+            out.writeDouble(nutrition.getProtein());
+            out.writeDouble(nutrition.getCarbs());
+            out.writeDouble(nutrition.getFats());
+            out.writeDouble(nutrition.getFiber());
+            BinaryCodec.writeVarInt(out, menuItem.getAllergens().size());
+            for (String allergen : menuItem.getAllergens()) {
+                out.writeUTF(allergen);
+            }
+            if (menuItem instanceof MainDish mainDish) {
+                out.writeByte(MAIN_DISH);
+                BinaryCodec.writeVarInt(out, mainDish.getSpiceLevel());
+            } else if (menuItem instanceof Beverage beverage) {
+                out.writeByte(BEVERAGE);
+                out.writeBoolean(beverage.getAlcoholPercentage() != null);
+                if (beverage.getAlcoholPercentage() != null) {
+                    out.writeDouble(beverage.getAlcoholPercentage());
+                }
+            } else if (menuItem instanceof Dessert dessert) {
+                out.writeByte(DESSERT);
+                out.writeBoolean(dessert.getHasNuts());
+            } else {
+                throw new IllegalArgumentException("Unknown menu item type: " + menuItem.getClass().getName());
+            }
+        });
+    }
+
+    private interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static synchronized void append(byte type, String key, PayloadWriter payload) {
+        if (channel == null || replaying.get()) return;
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(32);
+            DataOutputStream bodyOut = new DataOutputStream(body);
+            bodyOut.writeByte(type);
+            bodyOut.writeUTF(key);
+            payload.write(bodyOut);
+
+            byte[] bytes = body.toByteArray();
+            if (bytes.length > MAX_RECORD_LENGTH) {
+                throw new IllegalArgumentException("Journal record too large: " + bytes.length + " bytes");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+
+            DataOutputStream out = new DataOutputStream(pending);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeInt((int) crc.getValue());
+            pendingRecords++;
+
+            if (pendingRecords >= GROUP_COMMIT_SIZE) {
+                sync();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write journal " + journalFile, e);
+        }
+    }
+
+    private static void flushQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            // Retried on the next tick or surfaced by the next explicit sync()/close()
+        }
+    }
+
+
+    // ---------- Replay ----------
+    /**
+     * Outcome of a replay: the number of records applied and the keys of the entities
+     * that records refer to but that are neither in the extents nor journaled (see above).
+     */
+    public record ReplayResult(int applied, List<String> unmatchedKeys) {
+        public boolean isComplete() {
+            return unmatchedKeys.isEmpty();
+        }
+    }
+
+    public static ReplayResult replay() throws IOException {
+        return replay(DEFAULT_JOURNAL_FILE);
+    }
+
+    /**
+     * Applies every intact record of the journal to the loaded extents, recreating the
+     * journaled entities that are not in them yet. Records that refer to an entity that
+     * cannot be found are not applied but listed in the result.
+     */
+    public static ReplayResult replay(String filename) throws IOException {
+        File file = new File(PersistenceConfig.getDataFilePath(filename));
+        if (!file.exists()) {
+            return new ReplayResult(0, List.of());
+        }
+
+        Replay replay = new Replay();
+        replaying.set(true);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] body;
+            while ((body = readRecord(in)) != null) {
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+                byte type = record.readByte();
+                String key = record.readUTF();
+                try {
+                    replay.apply(type, key, record);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    InvalidObjectException failure = new InvalidObjectException(
+                        "Journal record " + type + " for " + key + " cannot be applied");
+                    failure.initCause(e);
+                    throw failure;
+                }
+            }
+        } finally {
+            replaying.remove();
+        }
+        return new ReplayResult(replay.applied, List.copyOf(replay.unmatched));
+    }
+
+    // Entities by key: the loaded extents plus what the journal has recreated so far
+    private static final class Replay {
+        final Map<String, Customer> customers = new HashMap<>();
+        final Map<String, Order> orders = new HashMap<>();
+        final Map<String, OrderRequest> requests = new HashMap<>();
+        final Map<String, ItemQuantity> itemQuantities = new HashMap<>();
+        final Map<String, Payment> payments = new HashMap<>();
+        final Map<String, Ingredient> ingredients = new HashMap<>();
+        final Map<String, MenuItem> menuItems = new HashMap<>();
+        final Set<String> unmatched = new LinkedHashSet<>();
+        int applied;
+
+        Replay() {
+            for (Customer customer : Customer.getAllCustomersFromExtent()) {
+                customers.put(customer.getCustomerId(), customer);
+            }
+            for (Order order : Order.getAllOrdersFromExtent()) {
+                orders.put(order.getOrderId(), order);
+            }
+            for (OrderRequest request : OrderRequest.getAllOrderRequestsFromExtent()) {
+                requests.put(request.getRequestId(), request);
+            }
+            for (ItemQuantity itemQuantity : ItemQuantity.getAllItemQuantitiesFromExtent()) {
+                itemQuantities.put(itemQuantity.getItemQuantityId(), itemQuantity);
+            }
+            for (Payment payment : Payment.getAllPaymentsFromExtent()) {
+                payments.put(payment.getPaymentId(), payment);
+            }
+            for (Ingredient ingredient : Ingredient.getAllIngredients()) {
+                ingredients.put(ingredient.getIngredientId(), ingredient);
+            }
+            for (MenuItem menuItem : MenuItem.getAllMenuItems()) {
+                menuItems.putIfAbsent(menuItem.getName(), menuItem);
+            }
+        }
+
+        void apply(byte type, String key, DataInputStream record) throws IOException {
+            switch (type) {
+                case CUSTOMER_CREATED -> {
+                    String name = record.readUTF();
+                    String surname = record.readUTF();
+                    String email = record.readUTF();
+                    String phone = record.readUTF();
+                    LocalDateTime registrationDate = BinaryCodec.readDateTime(record);
+                    if (!customers.containsKey(key)) {
+                        customers.put(key, Customer.createJournaled(key, name, surname, email, phone, registrationDate));
+                        applied++;
+                    }
+                }
+                case ORDER_CREATED -> {
+                    OrderKind kind = BinaryCodec.readEnum(record, OrderKind.values());
+                    Customer customer = find(customers, record.readUTF());
+                    LocalDate date = BinaryCodec.readDate(record);
+                    LocalTime time = BinaryCodec.readTime(record);
+                    if (!orders.containsKey(key) && customer != null) {
+                        orders.put(key, Order.createJournaled(key, kind, customer, date, time));
+                        applied++;
+                    }
+                }
+                case REQUEST_CREATED -> {
+                    if (!requests.containsKey(key)) {
+                        OrderRequest request = new OrderRequest();
+                        request.setRequestId(key);
+                        requests.put(key, request);
+                        applied++;
+                    }
+                }
+                case REQUEST_ID -> {
+                    String newId = record.readUTF();
+                    if (!requests.containsKey(newId)) {
+                        OrderRequest request = find(requests, key);
+                        if (request != null) {
+                            request.setRequestId(newId);
+                            requests.remove(key);
+                            requests.put(newId, request);
+                            applied++;
+                        }
+                    }
+                }
+                case REQUEST_ORDER -> {
+                    String orderId = BinaryCodec.readString(record);
+                    OrderRequest request = find(requests, key);
+                    Order order = orderId != null ? find(orders, orderId) : null;
+                    if (request != null && (orderId == null || order != null)) {
+                        request.setOrder(order);
+                        applied++;
+                    }
+                }
+                case ITEM_QUANTITY_CREATED -> {
+                    OrderRequest request = find(requests, record.readUTF());
+                    MenuItem menuItem = find(menuItems, record.readUTF());
+                    int quantity = BinaryCodec.readVarInt(record);
+                    String specialRequests = BinaryCodec.readString(record);
+                    if (!itemQuantities.containsKey(key) && request != null && menuItem != null) {
+                        itemQuantities.put(key,
+                            ItemQuantity.createJournaled(key, request, menuItem, quantity, specialRequests));
+                        applied++;
+                    }
+                }
+                case ITEM_QUANTITY -> {
+                    int quantity = BinaryCodec.readVarInt(record);
+                    ItemQuantity itemQuantity = find(itemQuantities, key);
+                    if (itemQuantity != null) {
+                        itemQuantity.setQuantity(quantity);
+                        applied++;
+                    }
+                }
+                case PAYMENT_CREATED -> {
+                    Order order = find(orders, record.readUTF());
+                    double amount = Money.toDouble(BinaryCodec.readVarLong(record));
+                    byte kind = record.readByte();
+                    Payment payment;
+                    if (payments.containsKey(key) || order == null) {
+                        return;
+                    } else if (kind == CARD) {
+                        payment = new Card(amount, order, record.readUTF(), record.readUTF());
+                    } else if (kind == CASH) {
+                        payment = new Cash(amount, order, Money.toDouble(BinaryCodec.readVarLong(record)));
+                    } else {
+                        throw new StreamCorruptedException("Unknown journaled payment type: " + kind);
+                    }
+                    payment.applyJournaledId(key);
+                    payments.put(key, payment);
+                    applied++;
+                }
+                case INGREDIENT_CREATED -> {
+                    String name = record.readUTF();
+                    String unit = record.readUTF();
+                    double stock = record.readDouble();
+                    double reorderPoint = record.readDouble();
+                    double costPerUnit = record.readDouble();
+                    if (!ingredients.containsKey(key)) {
+                        ingredients.put(key,
+                            Ingredient.createJournaled(key, name, unit, stock, reorderPoint, costPerUnit));
+                        applied++;
+                    }
+                }
+                case MENU_ITEM_CREATED -> {
+                    String description = record.readUTF();
+                    double price = Money.toDouble(BinaryCodec.readVarLong(record));
+                    String image = record.readUTF();
+                    String origin = record.readUTF();
+                    NutritionalInfo nutrition = new NutritionalInfo(record.readDouble(), record.readDouble(),
+                        record.readDouble(), record.readDouble(), record.readDouble());
+                    int allergenCount = BinaryCodec.readVarInt(record);
+                    Set<String> allergens = new LinkedHashSet<>();
+                    for (int i = 0; i < allergenCount; i++) {
+                        allergens.add(record.readUTF());
+                    }
+                    byte kind = record.readByte();
+                    MenuItem menuItem;
+                    if (kind == MAIN_DISH) {
+                        int spiceLevel = BinaryCodec.readVarInt(record);
+                        menuItem = menuItems.containsKey(key) ? null
+                            : new MainDish(key, description, price, image, origin, nutrition, allergens, spiceLevel);
+                    } else if (kind == BEVERAGE) {
+                        Double alcohol = record.readBoolean() ? record.readDouble() : null;
+                        menuItem = menuItems.containsKey(key) ? null
+                            : new Beverage(key, description, price, image, origin, nutrition, allergens, alcohol);
+                    } else if (kind == DESSERT) {
+                        boolean hasNuts = record.readBoolean();
+                        menuItem = menuItems.containsKey(key) ? null
+                            : new Dessert(key, description, price, image, origin, nutrition, allergens, hasNuts);
+                    } else {
+                        throw new StreamCorruptedException("Unknown journaled menu item type: " + kind);
+                    }
+                    if (menuItem != null) {
+                        menuItems.put(key, menuItem);
+                        applied++;
+                    }
+                }
+                case ORDER_STATUS -> {
+                    OrderStatus status = OrderStatus.values()[record.readByte()];
+                    Order order = find(orders, key);
+                    if (order != null) {
+                        order.applyJournaledStatus(status);
+                        applied++;
+                    }
+                }
+                case PAYMENT_STATUS -> {
+                    PaymentStatus status = PaymentStatus.values()[record.readByte()];
+                    Payment payment = find(payments, key);
+                    if (payment != null) {
+                        payment.applyJournaledStatus(status);
+                        applied++;
+                    }
+                }
+                case INGREDIENT_STOCK -> {
+                    double stock = record.readDouble();
+                    Ingredient ingredient = find(ingredients, key);
+                    if (ingredient != null) {
+                        ingredient.applyJournaledStock(stock);
+                        applied++;
+                    }
+                }
+                case INGREDIENT_STOCK_BATCH -> {
+                    if (!key.isEmpty()) {
+                        OrderRequest request = find(requests, key);
+                        if (request != null) {
+                            request.applyJournaledConfirmation();
+                        }
+                    }
+                    int count = record.readInt();
+                    for (int i = 0; i < count; i++) {
+                        String ingredientId = record.readUTF();
+                        double stock = record.readDouble();
+                        Ingredient ingredient = find(ingredients, ingredientId);
+                        if (ingredient != null) {
+                            ingredient.applyJournaledStock(stock);
+                        }
+                    }
+                    applied++;
+                }
+                default -> throw new StreamCorruptedException("Unknown journal record type: " + type);
+            }
+        }
+
+        // Looks up an entity a record refers to; a missing one is reported as unmatched
+        private <T> T find(Map<String, T> entities, String key) {
+            T entity = entities.get(key);
+            if (entity == null) {
+                unmatched.add(key);
+            }
+            return entity;
+        }
+    }
+
+    // Returns null at end of file or at a torn/corrupt trailing record
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                return null;
+            }
+            byte[] body = new byte[length];
+            in.readFully(body);
+            int expected = in.readInt();
+
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            return (int) crc.getValue() == expected ? body : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
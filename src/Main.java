@@ -162,23 +162,17 @@ public class Main {
 
         // Load extents from .dat files
         System.out.println("[STEP 4] Loading extents from .dat files...\n");
-        boolean ingredientsLoaded = Ingredient.loadExtent("ingredients.dat");
-        System.out.println("   " + (ingredientsLoaded ? "[OK]" : "[FAIL]") + " Loaded ingredients.dat");
-
-        boolean menuItemsLoaded = MenuItem.loadExtent("menu_items.dat");
-        System.out.println("   " + (menuItemsLoaded ? "[OK]" : "[FAIL]") + " Loaded menu_items.dat");
-
-        boolean customersLoaded = Customer.loadExtent("customers.dat");
-        System.out.println("   " + (customersLoaded ? "[OK]" : "[FAIL]") + " Loaded customers.dat");
-
-        boolean employeesLoaded = Employee.loadExtent("employees.dat");
-        System.out.println("   " + (employeesLoaded ? "[OK]" : "[FAIL]") + " Loaded employees.dat");
-
-        boolean tablesLoaded = Table.loadExtent("tables.dat");
-        System.out.println("   " + (tablesLoaded ? "[OK]" : "[FAIL]") + " Loaded tables.dat");
-
-        System.out.println("\nLOAD RESULTS: " + (ingredientsLoaded && menuItemsLoaded && customersLoaded &&
-                                           employeesLoaded && tablesLoaded ? "ALL SUCCESS" : "SOME FAILED") + "\n");
+        // Each file is its own object graph, so all five are deserialized in parallel, each one timed
+        ExtentLoader.LoadReport report = new ExtentLoader()
+            .register("ingredients", "ingredients.dat", Ingredient::loadExtent)
+            .register("menuItems", "menu_items.dat", MenuItem::loadExtent)
+            .register("customers", "customers.dat", Customer::loadExtent)
+            .register("employees", "employees.dat", Employee::loadExtent)
+            .register("tables", "tables.dat", Table::loadExtent)
+            .loadAll();
+        System.out.println(report);
+
+        System.out.println("\nLOAD RESULTS: " + (report.allLoaded() ? "ALL SUCCESS" : "SOME FAILED") + "\n");
 
         // Verify data integrity after load
         System.out.println("EXTENT SIZES (after loading from .dat files):");
@@ -16,6 +16,7 @@ public class MainDish extends MenuItem {
                    String nationalOrigin, NutritionalInfo nutritionalInfo, int spiceLevel) {
         super(name, description, price, image, nationalOrigin, nutritionalInfo);
         setSpiceLevel(spiceLevel);
+        Journal.recordMenuItemCreated(this);
     }
 
     public MainDish(String name, String description, double price, String image,
@@ -23,6 +24,7 @@ public class MainDish extends MenuItem {
                    Set<String> allergens, int spiceLevel) {
         super(name, description, price, image, nationalOrigin, nutritionalInfo, allergens);
         setSpiceLevel(spiceLevel);
+        Journal.recordMenuItemCreated(this);
     }
 
 
@@ -8,7 +8,7 @@ public class Menu implements Serializable {
     private static final long serialVersionUID = 1L;
 
     
-    private static List<Menu> allMenus = new ArrayList<>();
+    private static final Extent<Menu> allMenus = new Extent<>();
 
     private String name;
     private String season;
@@ -88,7 +88,12 @@ public class Menu implements Serializable {
     }
 
     public static List<Menu> getAllMenusFromExtent() {
-        return Collections.unmodifiableList(allMenus);
+        return allMenus.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<Menu> extent) {
+        allMenus.replaceWith(extent);
     }
 
     public static void clearExtent() {
@@ -97,17 +102,13 @@ public class Menu implements Serializable {
 
     
     public static void saveExtent(String filename) throws IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
-            out.writeObject(allMenus);
-        }
+        AtomicFile.writeObject(filename, new ArrayList<>(allMenus));
     }
 
     @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filepath))) {
-            allMenus = (List<Menu>) in.readObject();
+        try {
+            allMenus.replaceWith((List<Menu>) AtomicFile.readObject(filename));
             return true;
         } catch (IOException | ClassNotFoundException e) {
             allMenus.clear();
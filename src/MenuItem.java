@@ -2,19 +2,21 @@ import java.io.*;
 import java.util.*;
 
 public abstract class MenuItem implements Serializable {
+    // 2: prices are stored in grosz and stock availability is tracked per item
     @Serial
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
 
-    public static final double TAX_RATE = 0.23;
+    public static final int TAX_PERCENT = 23;
+    public static final double TAX_RATE = TAX_PERCENT / 100.0;
 
 
-    private static List<MenuItem> allMenuItems = new ArrayList<>();
+    private static final Extent<MenuItem> allMenuItems = new Extent<>();
 
 
     private String name;
     private String description;
-    private double price;
+    private long priceGrosz;
     private String image;
     private MenuItemAvailability availability;
     private String nationalOrigin;
@@ -26,11 +28,22 @@ public abstract class MenuItem implements Serializable {
 
     private final List<ItemQuantity> itemQuantities = new ArrayList<>();
 
+    // The lines above whose order is still ACTIVE (or not placed yet); only these follow price
+    // changes. Not serialized - rebuilt from itemQuantities on first use after loading
+    private transient Set<ItemQuantity> openItemQuantities = new LinkedHashSet<>();
+
     private List<Menu> menus;
 
     // Basic Association: MenuItem -> Ingredient (1..*)
     private Set<Ingredient> ingredients;
 
+    // Association class: per-portion quantities for some of the ingredients above
+    private Map<Ingredient, Recipe> recipeLines = new HashMap<>();
+
+    // Ingredients whose stock cannot cover one portion; kept up to date by Ingredient
+    // stock changes so availability never needs a full recompute
+    private int ingredientsShort;
+
     protected MenuItem() {
         this.allergens = new HashSet<>();
         this.menus = new ArrayList<>();
@@ -74,7 +87,8 @@ public abstract class MenuItem implements Serializable {
     
     public String getName() { return name; }
     public String getDescription() { return description; }
-    public double getPrice() { return price; }
+    public double getPrice() { return Money.toDouble(priceGrosz); }
+    public Money getPriceAsMoney() { return Money.ofGrosz(priceGrosz); }
     public String getImage() { return image; }
     public MenuItemAvailability getAvailability() { return availability; }
     public String getNationalOrigin() { return nationalOrigin; }
@@ -99,7 +113,11 @@ public abstract class MenuItem implements Serializable {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Menu item name cannot be null or empty");
         }
+        String oldName = this.name;
         this.name = name.trim();
+        if (oldName != null && !oldName.equals(this.name) && allMenuItems.contains(this)) {
+            ItemLevelDiscount.menuItemRenamed(oldName, this.name);
+        }
     }
 
     public void setDescription(String description) {
@@ -110,10 +128,29 @@ public abstract class MenuItem implements Serializable {
     }
 
     public void setPrice(double price) {
-        if (price <= 0) {
+        setPriceGrosz(Money.toGrosz(price));
+    }
+
+    public void setPrice(Money price) {
+        if (price == null) {
+            throw new IllegalArgumentException("Price cannot be null");
+        }
+        setPriceGrosz(price.getGrosz());
+    }
+
+    private void setPriceGrosz(long priceGrosz) {
+        if (priceGrosz <= 0) {
             throw new IllegalArgumentException("Price must be greater than zero");
         }
-        this.price = price;
+        long oldPriceWithTax = priceWithTaxGrosz();
+        this.priceGrosz = priceGrosz;
+
+        // Keep the running totals of open requests that contain this item in step; closed
+        // and billed orders keep the price they were ordered at
+        long newPriceWithTax = priceWithTaxGrosz();
+        for (ItemQuantity itemQuantity : openItemQuantities()) {
+            itemQuantity.unitPriceChanged(oldPriceWithTax, newPriceWithTax);
+        }
     }
 
     public void setImage(String image) {
@@ -189,20 +226,38 @@ public abstract class MenuItem implements Serializable {
         return Collections.unmodifiableList(itemQuantities);
     }
 
+    // Only called from ItemQuantity.create, whose pair index already rules out duplicates;
+    // a contains() scan here would grow with every line ever ordered for this item
     void addItemQuantity(ItemQuantity itemQuantity) {
         if (itemQuantity == null) {
             throw new IllegalArgumentException("ItemQuantity cannot be null");
         }
-        if (itemQuantities.contains(itemQuantity)) {
-            return;
-        }
         itemQuantities.add(itemQuantity);
+        openItemQuantities().add(itemQuantity);
     }
 
     void removeItemQuantity(ItemQuantity itemQuantity) {
         if (itemQuantity != null) {
             itemQuantities.remove(itemQuantity);
+            openItemQuantities().remove(itemQuantity);
+        }
+    }
+
+    // Package-private: the line's order left ACTIVE, so later price changes no longer reach it
+    void itemQuantityClosed(ItemQuantity itemQuantity) {
+        openItemQuantities().remove(itemQuantity);
+    }
+
+    private Set<ItemQuantity> openItemQuantities() {
+        if (openItemQuantities == null) {
+            openItemQuantities = new LinkedHashSet<>();
+            for (ItemQuantity itemQuantity : itemQuantities) {
+                if (itemQuantity.isOpen()) {
+                    openItemQuantities.add(itemQuantity);
+                }
+            }
         }
+        return openItemQuantities;
     }
 
     void addMenu(Menu menu) {
@@ -248,15 +303,20 @@ public abstract class MenuItem implements Serializable {
             throw new IllegalArgumentException("Ingredient cannot be null");
         }
 
-        if (ingredients.contains(ingredient)) {
-            return;
-        }
+        synchronized (Ingredient.STOCK_LOCK) {
+            if (ingredients.contains(ingredient)) {
+                return;
+            }
 
-        ingredients.add(ingredient);
+            ingredients.add(ingredient);
+            if (!covers(ingredient.getCurrentStock(), portionOf(ingredient))) {
+                adjustIngredientsShort(1);
+            }
 
 
-        if (!ingredient.getMenuItems().contains(this)) {
-            ingredient.addMenuItem(this);
+            if (!ingredient.getMenuItems().contains(this)) {
+                ingredient.addMenuItem(this);
+            }
         }
     }
 
@@ -265,49 +325,145 @@ public abstract class MenuItem implements Serializable {
             throw new IllegalArgumentException("Ingredient cannot be null");
         }
 
+        synchronized (Ingredient.STOCK_LOCK) {
+            if (!ingredients.contains(ingredient)) {
+                throw new IllegalArgumentException("This ingredient is not part of this menu item");
+            }
+
+            // Enforce 1..* multiplicity: cannot remove last ingredient
+            if (ingredients.size() <= 1) {
+                throw new IllegalStateException("Cannot remove the last ingredient. MenuItem must have at least one ingredient (1..*)");
+            }
+
+            removeIngredientDirect(ingredient);
+
+
+            if (ingredient.getMenuItems().contains(this)) {
+                ingredient.removeMenuItemDirect(this);
+            }
+        }
+    }
+
+    // Package-private method to directly remove without constraint check
+    void removeIngredientDirect(Ingredient ingredient) {
+        synchronized (Ingredient.STOCK_LOCK) {
+            if (ingredients.remove(ingredient) && !covers(ingredient.getCurrentStock(), portionOf(ingredient))) {
+                adjustIngredientsShort(-1);
+            }
+            Recipe recipe = recipeLines.get(ingredient);
+            if (recipe != null) {
+                recipe.delete();
+            }
+        }
+    }
+
+    public Collection<Recipe> getRecipe() {
+        return Collections.unmodifiableCollection(recipeLines.values());
+    }
 
-        if (!ingredients.contains(ingredient)) {
-            throw new IllegalArgumentException("This ingredient is not part of this menu item");
+    // Package-private: Recipe.create registers the line and links the ingredient if needed
+    void addRecipeLine(Recipe recipe) {
+        synchronized (Ingredient.STOCK_LOCK) {
+            Ingredient ingredient = recipe.getIngredient();
+            recipeLines.put(ingredient, recipe);
+            if (ingredients.contains(ingredient)) {
+                portionChanged(ingredient, 0.0, recipe.getQuantityPerPortion());
+            } else {
+                addIngredient(ingredient);
+            }
         }
+    }
 
-        // Enforce 1..* multiplicity: cannot remove last ingredient
-        if (ingredients.size() <= 1) {
-            throw new IllegalStateException("Cannot remove the last ingredient. MenuItem must have at least one ingredient (1..*)");
+    void removeRecipeLine(Recipe recipe) {
+        synchronized (Ingredient.STOCK_LOCK) {
+            Ingredient ingredient = recipe.getIngredient();
+            if (recipeLines.remove(ingredient, recipe) && ingredients.contains(ingredient)) {
+                portionChanged(ingredient, recipe.getQuantityPerPortion(), 0.0);
+            }
         }
+    }
 
-        ingredients.remove(ingredient);
+    // Quantity of the ingredient one portion needs, in the ingredient's unit (0 = any stock will do)
+    double portionOf(Ingredient ingredient) {
+        Recipe recipe = recipeLines.get(ingredient);
+        return recipe == null ? 0.0 : recipe.getQuantityPerPortion();
+    }
 
+    // Package-private: a recipe quantity changed, so the ingredient may now be short
+    void portionChanged(Ingredient ingredient, double oldPortion, double newPortion) {
+        synchronized (Ingredient.STOCK_LOCK) {
+            double stock = ingredient.getCurrentStock();
+            boolean coveredBefore = covers(stock, oldPortion);
+            boolean coveredNow = covers(stock, newPortion);
+            if (coveredBefore != coveredNow) {
+                adjustIngredientsShort(coveredNow ? -1 : 1);
+            }
+        }
+    }
 
-        if (ingredient.getMenuItems().contains(this)) {
-            ingredient.removeMenuItemDirect(this);
+    private static boolean covers(double stock, double portion) {
+        return stock > 0 && stock >= portion;
+    }
+
+    // Package-private: Ingredient reports every stock change to the items that use it
+    void ingredientStockChanged(Ingredient ingredient, double oldStock, double newStock) {
+        double portion = portionOf(ingredient);
+        boolean coveredBefore = covers(oldStock, portion);
+        boolean coveredNow = covers(newStock, portion);
+        if (coveredBefore != coveredNow) {
+            adjustIngredientsShort(coveredNow ? -1 : 1);
         }
     }
 
-    // Package-private method to directly remove without constraint check
-    void removeIngredientDirect(Ingredient ingredient) {
-        ingredients.remove(ingredient);
+    // Flips between AVAILABLE and UNAVAILABLE as the item runs out or is restocked;
+    // items pending a manual update are left for the manager to approve. Called under
+    // Ingredient.STOCK_LOCK, like every other change of ingredientsShort
+    private void adjustIngredientsShort(int delta) {
+        ingredientsShort += delta;
+        if (ingredientsShort > 0 && availability == MenuItemAvailability.AVAILABLE) {
+            availability = MenuItemAvailability.UNAVAILABLE;
+        } else if (ingredientsShort == 0 && availability == MenuItemAvailability.UNAVAILABLE) {
+            availability = MenuItemAvailability.AVAILABLE;
+        }
     }
 
     public double calculatePriceWithTax() {
-        return price * (1 + TAX_RATE);
+        return Money.toDouble(priceWithTaxGrosz());
+    }
+
+    public Money calculatePriceWithTaxAsMoney() {
+        return Money.ofGrosz(priceWithTaxGrosz());
+    }
+
+    // Package-private: unit price used by ItemQuantity line totals
+    long priceWithTaxGrosz() {
+        return priceGrosz + Money.percentOf(priceGrosz, TAX_PERCENT);
     }
 
-    /**
-     * Check availability - placeholder for future implementation.
-     * TODO: Implement availability checking logic
-     */
     public boolean checkAvailability() {
         return this.availability == MenuItemAvailability.AVAILABLE;
     }
 
     /**
-     * Recalculate availability - placeholder for future implementation.
-     * TODO: Implement availability recalculation logic
+     * Recounts the ingredients that cannot cover a portion and sets the item AVAILABLE or
+     * UNAVAILABLE accordingly, also resolving PENDING_UPDATE. Stock changes keep the count
+     * current on their own; this is for manager approval and repairs.
      */
     public void recalculateAvailability() {
-        // Placeholder - no ingredient-based recalculation for now
+        synchronized (Ingredient.STOCK_LOCK) {
+            int shortNow = 0;
+            for (Ingredient ingredient : ingredients) {
+                if (!covers(ingredient.getCurrentStock(), portionOf(ingredient))) {
+                    shortNow++;
+                }
+            }
+            ingredientsShort = shortNow;
+            availability = shortNow == 0 ? MenuItemAvailability.AVAILABLE : MenuItemAvailability.UNAVAILABLE;
+        }
     }
 
+    public int getIngredientsShort() { return ingredientsShort; }
+
     public void transitionToPendingUpdate() {
         this.availability = MenuItemAvailability.PENDING_UPDATE;
     }
@@ -320,30 +476,44 @@ public abstract class MenuItem implements Serializable {
         allMenuItems.add(menuItem);
     }
 
+    // Package-private: whether a registered menu item is called name
+    static boolean isNameInUse(String name) {
+        for (MenuItem menuItem : allMenuItems) {
+            if (name.equals(menuItem.name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static List<MenuItem> getAllMenuItems() {
-        return Collections.unmodifiableList(allMenuItems);
+        return allMenuItems.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<MenuItem> extent) {
+        allMenuItems.replaceWith(extent);
+        Recipe.rebuildExtent(allMenuItems);
     }
 
     public static void clearExtent() {
         allMenuItems.clear();
+        Recipe.clearExtent();
     }
 
     
     public static void saveExtent(String filename) throws IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
-            out.writeObject(allMenuItems);
-        }
+        AtomicFile.writeObject(filename, new ArrayList<>(allMenuItems));
     }
 
     @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filepath))) {
-            allMenuItems = (List<MenuItem>) in.readObject();
+        try {
+            allMenuItems.replaceWith((List<MenuItem>) AtomicFile.readObject(filename));
+            Recipe.rebuildExtent(allMenuItems);
             return true;
         } catch (IOException | ClassNotFoundException e) {
-            allMenuItems.clear();
+            clearExtent();
             return false;
         }
     }
@@ -351,6 +521,6 @@ public abstract class MenuItem implements Serializable {
     @Override
     public String toString() {
         return String.format("MenuItem[%s, price=%.2f PLN (%.2f with tax), origin=%s, availability=%s, allergens=%d, menus=%d]",
-            name, price, calculatePriceWithTax(), nationalOrigin, availability, allergens.size(), menus.size());
+            name, getPrice(), calculatePriceWithTax(), nationalOrigin, availability, allergens.size(), menus.size());
     }
 }
@@ -0,0 +1,115 @@
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount of money in PLN, held as a whole number of grosz (1/100 PLN).
+ *
+ * Classes that store amounts keep them as primitive long grosz and use the static
+ * helpers (toGrosz, toDouble, percentOf) so running totals and sums never allocate;
+ * Money instances are only handed out at the API boundary. Conversion from double
+ * rounds half-up to the nearest grosz.
+ */
+public final class Money implements Comparable<Money>, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final Money ZERO = new Money(0L);
+
+    private final long grosz;
+
+    private Money(long grosz) {
+        this.grosz = grosz;
+    }
+
+    public static Money ofGrosz(long grosz) {
+        return grosz == 0L ? ZERO : new Money(grosz);
+    }
+
+    public static Money of(double amount) {
+        return ofGrosz(toGrosz(amount));
+    }
+
+    public long getGrosz() { return grosz; }
+
+    public double toDouble() {
+        return toDouble(grosz);
+    }
+
+    public Money plus(Money other) {
+        return ofGrosz(Math.addExact(grosz, requireNonNull(other).grosz));
+    }
+
+    public Money minus(Money other) {
+        return ofGrosz(Math.subtractExact(grosz, requireNonNull(other).grosz));
+    }
+
+    public Money times(int quantity) {
+        return ofGrosz(Math.multiplyExact(grosz, quantity));
+    }
+
+    public Money percent(double percentage) {
+        return ofGrosz(percentOf(grosz, percentage));
+    }
+
+    public boolean isNegative() { return grosz < 0; }
+    public boolean isZero() { return grosz == 0; }
+
+    public boolean isGreaterThan(Money other) {
+        return grosz > requireNonNull(other).grosz;
+    }
+
+    public boolean isLessThan(Money other) {
+        return grosz < requireNonNull(other).grosz;
+    }
+
+
+    // ---------- Primitive helpers ----------
+
+    public static long toGrosz(double amount) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            throw new IllegalArgumentException("Amount must be a finite number");
+        }
+        // BigDecimal.valueOf uses the shortest decimal form, so 1.005 rounds to 1.01
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static double toDouble(long grosz) {
+        return grosz / 100.0;
+    }
+
+    // percentage of the amount, rounded half-up to the grosz
+    public static long percentOf(long grosz, double percentage) {
+        double exact = grosz * percentage / 100.0;
+        return exact >= 0 ? (long) Math.floor(exact + 0.5) : -(long) Math.floor(-exact + 0.5);
+    }
+
+    private static Money requireNonNull(Money other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Money cannot be null");
+        }
+        return other;
+    }
+
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(grosz, other.grosz);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && grosz == other.grosz;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(grosz);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s%d.%02d PLN", grosz < 0 ? "-" : "", Math.abs(grosz / 100), Math.abs(grosz % 100));
+    }
+}
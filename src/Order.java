@@ -2,20 +2,58 @@ import java.io.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class Order implements Serializable {
+    // 2: fields are written by writeObject/readObject, not by default serialization
     @Serial
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
-    private static List<Order> allOrders = new ArrayList<>();
+    private static final Extent<Order> allOrders = new Extent<>();
 
-    private OrderStatus status;
+    // Order history ordering: newest first by (date, time), orderId breaks ties
+    static final Comparator<Order> HISTORY_ORDER = new HistoryComparator();
+
+    // DineIn/Takeaway belong to the order and report their changes through it; the customer
+    // and requests hold the reverse links
+    private static final ChangeTracker<Order> changes = new ChangeTracker<>(Order.class, Order::getOrderId,
+        order -> {
+            List<Object> related = new ArrayList<>(order.orderRequests);
+            related.addAll(Arrays.asList(order.dineIn, order.takeaway, order.customer));
+            return related;
+        });
+
+    // Status changes go through compare-and-set so that concurrent terminals cannot both
+    // pass the same transition check
+    private static final AtomicReferenceFieldUpdater<Order, OrderStatus> STATUS =
+        AtomicReferenceFieldUpdater.newUpdater(Order.class, OrderStatus.class, "status");
+
+    private static final List<OrderStatusListener> statusListeners = new CopyOnWriteArrayList<>();
+
+    private String orderId;
+    private volatile OrderStatus status;
     private LocalDate date;
     private LocalTime time;
 
-    private final Set<Payment> payments;
+    private Set<Payment> payments;
     private Customer customer;
     private Discount discount;
+    private List<OrderRequest> orderRequests;
+
+    // Running sum of the request totals in grosz, kept up to date by OrderRequest
+    private long subtotalGrosz;
+
+    // Running number of items across the request lines; not serialized, so it is
+    // recounted once on first use after loading
+    private transient int itemCount;
+    private transient boolean itemCountKnown;
+
+    // validateDiscount result for the current discount, valid until the order changes
+    // or the discount rules move past discountCheckedVersion
+    private transient boolean discountApplies;
+    private transient boolean discountChecked;
+    private transient long discountCheckedVersion;
 
     private DineIn dineIn;      // 0..1 - can be null
     private Takeaway takeaway;  // 0..1 - can be null
@@ -25,6 +63,7 @@ public class Order implements Serializable {
         Order order = new Order(customer);
         order.dineIn = new DineIn(order);
         order.takeaway = null;
+        Journal.recordOrderCreated(order);
         return order;
     }
 
@@ -32,6 +71,7 @@ public class Order implements Serializable {
         Order order = new Order(customer);
         order.dineIn = new DineIn(order, reservation);
         order.takeaway = null;
+        Journal.recordOrderCreated(order);
         return order;
     }
 
@@ -39,6 +79,7 @@ public class Order implements Serializable {
         Order order = new Order(customer);
         order.takeaway = new Takeaway(order);
         order.dineIn = null;
+        Journal.recordOrderCreated(order);
         return order;
     }
 
@@ -46,18 +87,37 @@ public class Order implements Serializable {
         Order order = new Order(customer);
         order.takeaway = new Takeaway(order, collectionTime);
         order.dineIn = null;
+        Journal.recordOrderCreated(order);
+        return order;
+    }
+
+    // Package-private: journal replay recreates an order under its recorded id, date and time
+    static Order createJournaled(String orderId, OrderKind kind, Customer customer, LocalDate date, LocalTime time) {
+        Order order = new Order(customer, orderId, date, time);
+        if (kind == OrderKind.DINE_IN) {
+            order.dineIn = new DineIn(order);
+        } else {
+            order.takeaway = new Takeaway(order);
+        }
         return order;
     }
 
     private Order(Customer customer) {
+        this(customer, UUID.randomUUID().toString(), LocalDate.now(), LocalTime.now());
+    }
+
+    private Order(Customer customer, String orderId, LocalDate date, LocalTime time) {
         if (customer == null) {
             throw new IllegalArgumentException("Customer cannot be null - Order must have a Customer");
         }
 
+        this.orderId = orderId;
         this.status = OrderStatus.ACTIVE;
-        this.date = LocalDate.now();
-        this.time = LocalTime.now();
+        this.date = date;
+        this.time = time;
         this.payments = new HashSet<>();
+        this.orderRequests = new ArrayList<>();
+        this.itemCountKnown = true;
 
         addOrderToExtent(this);
 
@@ -109,6 +169,7 @@ public class Order implements Serializable {
 
         // Create new 
         this.dineIn = new DineIn(this);
+        markChanged();
     }
 
     public void changeToDineIn(Reservation reservation) {
@@ -119,6 +180,7 @@ public class Order implements Serializable {
 
         // Create new 
         this.dineIn = new DineIn(this, reservation);
+        markChanged();
     }
 
     public void changeToTakeaway() {
@@ -132,6 +194,7 @@ public class Order implements Serializable {
 
         // Create new 
         this.takeaway = new Takeaway(this);
+        markChanged();
     }
 
     public void changeToTakeaway(LocalTime collectionTime) {
@@ -145,6 +208,7 @@ public class Order implements Serializable {
 
         // Create 
         this.takeaway = new Takeaway(this, collectionTime);
+        markChanged();
     }
 
     public void markAsPickedUp() {
@@ -166,6 +230,7 @@ public class Order implements Serializable {
             Customer oldCustomer = this.customer;
             this.customer = null;
             oldCustomer.removeOrder(this);
+            changes.markTouched(oldCustomer);
         }
 
         this.customer = newCustomer;
@@ -173,6 +238,7 @@ public class Order implements Serializable {
         if (newCustomer != null && !newCustomer.getOrders().contains(this)) {
             newCustomer.addOrder(this);
         }
+        markChanged();
     }
 
     public void removeCustomer() {
@@ -180,10 +246,15 @@ public class Order implements Serializable {
             Customer oldCustomer = this.customer;
             this.customer = null;
             oldCustomer.removeOrder(this);
+            changes.markTouched(oldCustomer);
+            markChanged();
         }
     }
 
     public void delete() {
+        // Before unlinking, so the customer and requests are written with the delete
+        changes.markDeleted(this);
+
         if (isDineIn()) {
             dineIn.releaseTables();
         }
@@ -194,6 +265,10 @@ public class Order implements Serializable {
         }
         payments.clear();
 
+        for (OrderRequest orderRequest : new ArrayList<>(orderRequests)) {
+            orderRequest.delete();
+        }
+
         if (this.customer != null) {
             Customer oldCustomer = this.customer;
             this.customer = null;
@@ -214,6 +289,7 @@ public class Order implements Serializable {
         if (payments.contains(payment)) return;
 
         payments.add(payment);
+        markChanged();
 
         if (payment.getOrder() != this) {
             payment.setOrder(this);
@@ -233,80 +309,268 @@ public class Order implements Serializable {
 
         payments.remove(payment);
         payment.delete();
+        markChanged();
     }
 
     void addPaymentDirect(Payment payment) {
         payments.add(payment);
+        markChanged();
+    }
+
+    public List<OrderRequest> getOrderRequests() {
+        return Collections.unmodifiableList(orderRequests);
+    }
+
+    public void addOrderRequest(OrderRequest orderRequest) {
+        if (orderRequest == null) {
+            throw new IllegalArgumentException("OrderRequest cannot be null");
+        }
+        if (orderRequests.contains(orderRequest)) return;
+        if (this.status != OrderStatus.ACTIVE) {
+            throw new IllegalStateException("Requests can only be added to active orders");
+        }
+
+        orderRequests.add(orderRequest);
+        adjustSubtotal(orderRequest.requestTotalGrosz());
+        adjustItemCount(orderRequest.itemCount());
+
+        if (orderRequest.getOrder() != this) {
+            orderRequest.setOrder(this);
+        }
     }
 
+    public void removeOrderRequest(OrderRequest orderRequest) {
+        if (orderRequest == null) throw new IllegalArgumentException("OrderRequest cannot be null");
+        if (!orderRequests.remove(orderRequest)) return;
+
+        adjustSubtotal(-orderRequest.requestTotalGrosz());
+        adjustItemCount(-orderRequest.itemCount());
+
+        if (orderRequest.getOrder() == this) {
+            orderRequest.setOrder(null);
+        }
+    }
+
+    // Package-private: OrderRequest reports changes of its running total
+    void adjustSubtotal(long delta) {
+        subtotalGrosz += delta;
+        discountChecked = false;
+        markChanged();
+    }
+
+    // Package-private: OrderRequest reports changes of its item count
+    void adjustItemCount(int delta) {
+        if (itemCountKnown) {
+            itemCount += delta;
+        }
+        discountChecked = false;
+    }
+
+    public String getOrderId() { return orderId; }
     public OrderStatus getStatus() { return status; }
     public LocalDate getDate() { return date; }
     public LocalTime getTime() { return time; }
 
     public Discount getDiscount() { return discount; }
-    public void setDiscount(Discount discount) { this.discount = discount; }
-    public void removeDiscount() { this.discount = null; }
+    public void setDiscount(Discount discount) { this.discount = discount; discountChecked = false; markChanged(); }
+    public void removeDiscount() { this.discount = null; discountChecked = false; markChanged(); }
     public boolean hasDiscount() { return discount != null; }
 
-    public double getSubtotal() { return 0.0; }
+    // Replaces the discount with the best order-level one that applies now, if any
+    public DiscountEngine.Selection applyBestDiscount() {
+        long version = Discount.getVersion();
+        DiscountEngine.Selection selection = DiscountEngine.bestFor(this);
+        if (selection.getOrderDiscount() != null) {
+            setDiscount(selection.getOrderDiscount());
+            // The engine has just matched it against this order, so the total need not check again
+            discountApplies = true;
+            discountCheckedVersion = version;
+            discountChecked = true;
+        }
+        return selection;
+    }
 
-    public double getTotalAmount() {
-        double subtotal = getSubtotal();
-        if (discount != null && discount.validateDiscount(this)) {
-            if (discount.isOrderLevel()) {
-                double percentage = discount.getDiscountPercentage();
-                return subtotal * (1 - percentage / 100.0);
+    // Number of items across all request lines
+    public int getItemCount() {
+        if (!itemCountKnown) {
+            int count = 0;
+            for (OrderRequest orderRequest : orderRequests) {
+                count += orderRequest.itemCount();
             }
+            itemCount = count;
+            itemCountKnown = true;
+        }
+        return itemCount;
+    }
+
+    public double getSubtotal() { return Money.toDouble(subtotalGrosz); }
+    public Money getSubtotalAsMoney() { return Money.ofGrosz(subtotalGrosz); }
+
+    public double getTotalAmount() {
+        return Money.toDouble(totalAmountGrosz());
+    }
+
+    public Money getTotalAmountAsMoney() {
+        return Money.ofGrosz(totalAmountGrosz());
+    }
+
+    long totalAmountGrosz() {
+        if (discount != null && discount.isOrderLevel() && discountApplies()) {
+            return subtotalGrosz - Money.percentOf(subtotalGrosz, discount.getDiscountPercentage());
         }
-        return subtotal;
+        return subtotalGrosz;
+    }
+
+    // Re-runs validateDiscount only after the order or the discount rules changed
+    private boolean discountApplies() {
+        long version = Discount.getVersion();
+        if (!discountChecked || discountCheckedVersion != version) {
+            discountApplies = discount.validateDiscount(this);
+            discountCheckedVersion = version;
+            discountChecked = true;
+        }
+        return discountApplies;
     }
 
     public void setDate(LocalDate date) {
         if (date == null) throw new IllegalArgumentException("Date cannot be null");
+
+        // date is part of the history key - take the order out of the index while it changes
+        Customer indexedCustomer = this.customer;
+        if (indexedCustomer != null) indexedCustomer.removeFromOrderHistory(this);
         this.date = date;
+        if (indexedCustomer != null) indexedCustomer.addToOrderHistory(this);
+        discountChecked = false;
+        markChanged();
     }
 
     public void setTime(LocalTime time) {
         if (time == null) throw new IllegalArgumentException("Time cannot be null");
+
+        Customer indexedCustomer = this.customer;
+        if (indexedCustomer != null) indexedCustomer.removeFromOrderHistory(this);
         this.time = time;
+        if (indexedCustomer != null) indexedCustomer.addToOrderHistory(this);
+        markChanged();
     }
 
     public void finalizeOrder() {
-        if (this.status != OrderStatus.ACTIVE) {
-            throw new IllegalStateException("Only active orders can be finalized");
-        }
-        this.status = OrderStatus.AWAITING_PAYMENT;
+        transition(OrderStatus.AWAITING_PAYMENT);
     }
 
     public void completeOrder() {
-        if (this.status != OrderStatus.AWAITING_PAYMENT) {
-            throw new IllegalStateException("Only orders awaiting payment can be completed");
-        }
-        this.status = OrderStatus.COMPLETED;
+        transition(OrderStatus.COMPLETED);
+    }
 
-        if (isDineIn()) {
+    public void cancelOrder() {
+        transition(OrderStatus.CANCELLED);
+    }
+
+    /**
+     * Moves the order to target if OrderStatus allows it from the current status.
+     * Only the caller whose compare-and-set succeeds runs the side effects, so they
+     * happen exactly once per transition; listeners are notified afterwards.
+     */
+    private void transition(OrderStatus target) {
+        OrderStatus current;
+        do {
+            current = this.status;
+            if (!current.canTransitionTo(target)) {
+                throw new IllegalStateException(transitionError(current, target));
+            }
+        } while (!STATUS.compareAndSet(this, current, target));
+
+        Journal.recordOrderStatus(this, target);
+        markChanged();
+        if (current == OrderStatus.ACTIVE) {
+            closeLines();
+        }
+        if (target.isFinal() && isDineIn()) {
             dineIn.releaseTables();
         }
+        notifyStatusListeners(current, target);
+    }
+
+    private static String transitionError(OrderStatus current, OrderStatus target) {
+        return switch (target) {
+            case AWAITING_PAYMENT -> "Only active orders can be finalized";
+            case COMPLETED -> "Only orders awaiting payment can be completed";
+            case CANCELLED -> current == OrderStatus.CANCELLED
+                ? "Cannot cancel order that is already cancelled"
+                : "Cannot cancel order that is awaiting payment or completed";
+            default -> "Cannot change order status from " + current + " to " + target;
+        };
+    }
+
+    // Every listener runs even if one fails; the first failure is rethrown afterwards
+    private void notifyStatusListeners(OrderStatus from, OrderStatus to) {
+        RuntimeException failure = null;
+        for (OrderStatusListener listener : statusListeners) {
+            try {
+                listener.statusChanged(this, from, to);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
     }
 
-    public void cancelOrder() {
-        if (this.status == OrderStatus.AWAITING_PAYMENT || this.status == OrderStatus.COMPLETED) {
-            throw new IllegalStateException("Cannot cancel order that is awaiting payment or completed");
+    public static void addStatusListener(OrderStatusListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
         }
-        this.status = OrderStatus.CANCELLED;
+        statusListeners.add(listener);
+    }
 
-        if (isDineIn()) {
-            dineIn.releaseTables();
+    public static void removeStatusListener(OrderStatusListener listener) {
+        statusListeners.remove(listener);
+    }
+
+    /**
+     * Package-private: journal replay sets the recorded status without re-running transitions.
+     * Concurrent transitions may reach the journal out of order, so a record only ever moves
+     * the order forward in its lifecycle; an older status is ignored.
+     */
+    void applyJournaledStatus(OrderStatus status) {
+        if (!this.status.canReach(status)) {
+            return;
+        }
+        OrderStatus previous = this.status;
+        this.status = status;
+        if (previous == OrderStatus.ACTIVE) {
+            closeLines();
+        }
+        markChanged();
+    }
+
+    // The order no longer takes changes, so its lines stop following menu price changes
+    private void closeLines() {
+        for (OrderRequest orderRequest : orderRequests) {
+            for (ItemQuantity line : orderRequest.getItemQuantities()) {
+                line.getMenuItem().itemQuantityClosed(line);
+            }
         }
     }
 
+    // Package-private: DineIn/Takeaway report their changes through the owning order
+    void markChanged() {
+        changes.markChanged(this);
+    }
+
     private static void addOrderToExtent(Order order) {
         if (order == null) throw new IllegalArgumentException("Order cannot be null");
         allOrders.add(order);
+        changes.markChanged(order);
     }
 
     public static List<Order> getAllOrdersFromExtent() {
-        return Collections.unmodifiableList(allOrders);
+        return allOrders.view();
     }
 
 
@@ -314,32 +578,61 @@ public class Order implements Serializable {
         if (customer == null) {
             throw new IllegalArgumentException("Customer cannot be null");
         }
-        return allOrders.stream()
-                .filter(o -> o.getCustomer().equals(customer))
-                .sorted((o1, o2) -> {
-                    int dateCompare = o2.getDate().compareTo(o1.getDate());
-                    if (dateCompare != 0) return dateCompare;
-                    return o2.getTime().compareTo(o1.getTime());
-                })
-                .toList();
+        return List.copyOf(customer.getOrderHistory());
+    }
+
+    /**
+     * One page of the customer's history, newest first, starting right after the last order
+     * of the previous page (null for the first page). The page is found by seeking in the
+     * sorted history, so deep pages cost no more than the first one.
+     */
+    public static List<Order> viewOrderHistory(Customer customer, Order after, int pageSize) {
+        if (customer == null) {
+            throw new IllegalArgumentException("Customer cannot be null");
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than zero");
+        }
+
+        NavigableSet<Order> history = customer.getOrderHistory();
+        NavigableSet<Order> remaining = after == null ? history : history.tailSet(after, false);
+        List<Order> result = new ArrayList<>(Math.min(pageSize, history.size()));
+        for (Order order : remaining) {
+            if (result.size() == pageSize) {
+                break;
+            }
+            result.add(order);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<Order> extent) {
+        allOrders.replaceWith(extent);
+        changes.reset();
     }
 
     public static void clearExtent() {
         allOrders.clear();
+        changes.reset();
     }
 
     public static void saveExtent(String filename) throws IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
-            out.writeObject(allOrders);
-        }
+        changes.saveFull(filename, allOrders);
+    }
+
+    // Appends only the orders created, changed or deleted since the last save/load
+    public static void saveChanges(String filename) throws IOException {
+        changes.saveChanges(filename, allOrders);
+    }
+
+    public static int getPendingChangeCount() {
+        return changes.getPendingChangeCount();
     }
 
-    @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filepath))) {
-            allOrders = (List<Order>) in.readObject();
+        try {
+            allOrders.replaceWith(changes.load(filename));
             return true;
         } catch (IOException | ClassNotFoundException e) {
             allOrders.clear();
@@ -347,6 +640,71 @@ public class Order implements Serializable {
         }
     }
 
+    // Fields are written by hand in a compact form (see BinaryCodec) instead of the
+    // default field-by-field format
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {};
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        BinaryCodec.writeId(out, orderId);
+        BinaryCodec.writeEnum(out, status);
+        BinaryCodec.writeDate(out, date);
+        BinaryCodec.writeTime(out, time);
+        out.writeObject(customer);
+        out.writeObject(discount);
+        out.writeObject(dineIn);
+        out.writeObject(takeaway);
+        BinaryCodec.writeVarInt(out, payments.size());
+        for (Payment payment : payments) {
+            out.writeObject(payment);
+        }
+        BinaryCodec.writeVarInt(out, orderRequests.size());
+        for (OrderRequest orderRequest : orderRequests) {
+            out.writeObject(orderRequest);
+        }
+        BinaryCodec.writeVarLong(out, subtotalGrosz);
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        orderId = BinaryCodec.readId(in);
+        status = BinaryCodec.readEnum(in, OrderStatus.values());
+        date = BinaryCodec.readDate(in);
+        time = BinaryCodec.readTime(in);
+        customer = (Customer) in.readObject();
+        discount = (Discount) in.readObject();
+        dineIn = (DineIn) in.readObject();
+        takeaway = (Takeaway) in.readObject();
+        int paymentCount = BinaryCodec.readVarInt(in);
+        payments = new HashSet<>();
+        for (int i = 0; i < paymentCount; i++) {
+            payments.add((Payment) in.readObject());
+        }
+        int requestCount = BinaryCodec.readVarInt(in);
+        orderRequests = new ArrayList<>(requestCount);
+        for (int i = 0; i < requestCount; i++) {
+            orderRequests.add((OrderRequest) in.readObject());
+        }
+        subtotalGrosz = BinaryCodec.readVarLong(in);
+    }
+
+    private static final class HistoryComparator implements Comparator<Order>, Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int compare(Order o1, Order o2) {
+            int dateCompare = o2.getDate().compareTo(o1.getDate());
+            if (dateCompare != 0) return dateCompare;
+            int timeCompare = o2.getTime().compareTo(o1.getTime());
+            if (timeCompare != 0) return timeCompare;
+            return o1.getOrderId().compareTo(o2.getOrderId());
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
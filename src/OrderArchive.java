@@ -0,0 +1,395 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Columnar, append-only archive of closed (COMPLETED / CANCELLED) orders.
+ *
+ * archiveClosedOrders() appends one row per closed order to a set of fixed-width
+ * column files under data/order_archive and then deletes the order (and its
+ * payments) from the heap, so memory stays bounded while history grows. Reports
+ * read the archive through openView(), a read-only memory-mapped snapshot of the
+ * rows present when it was opened.
+ *
+ * Columns: order id, date, time, kind, status, customer id, total (grosz), payment count.
+ * A crash between column writes leaves a partial row at the end of some columns;
+ * it is cut off the next time the archive is opened. An order whose id is already
+ * archived (e.g. the heap snapshot predates a crash after the columns were forced)
+ * is only removed from the heap, never appended twice. That check streams the order
+ * id column in fixed-size chunks, so the archive keeps no per-row state on the heap.
+ */
+public class OrderArchive implements AutoCloseable {
+
+    public static final String DEFAULT_DIRECTORY = "order_archive";
+
+    private enum Column {
+        ORDER_ID(16),
+        DATE(4),
+        TIME(8),
+        KIND(1),
+        STATUS(1),
+        CUSTOMER_ID(16),
+        TOTAL(8),
+        PAYMENT_COUNT(4);
+
+        private final int width;
+
+        Column(int width) {
+            this.width = width;
+        }
+
+        private String fileName() {
+            return name().toLowerCase() + ".col";
+        }
+    }
+
+    // Rows of the order id column read at a time when looking for already archived ids
+    private static final int ID_SCAN_ROWS = 4096;
+
+    private final Path directory;
+    private final Map<Column, FileChannel> channels = new EnumMap<>(Column.class);
+    private long rowCount;
+
+
+    private OrderArchive(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        try {
+            for (Column column : Column.values()) {
+                channels.put(column, FileChannel.open(directory.resolve(column.fileName()),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            }
+            recoverRowCount();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public static OrderArchive open() throws IOException {
+        return open(DEFAULT_DIRECTORY);
+    }
+
+    public static OrderArchive open(String directory) throws IOException {
+        if (directory == null || directory.trim().isEmpty()) {
+            throw new IllegalArgumentException("Directory cannot be null or empty");
+        }
+        return new OrderArchive(Path.of(PersistenceConfig.getDataFilePath(directory)));
+    }
+
+    // Trims a torn trailing row so that every column holds the same number of rows
+    private void recoverRowCount() throws IOException {
+        long rows = Long.MAX_VALUE;
+        for (Column column : Column.values()) {
+            rows = Math.min(rows, channels.get(column).size() / column.width);
+        }
+        for (Column column : Column.values()) {
+            FileChannel channel = channels.get(column);
+            if (channel.size() != rows * column.width) {
+                channel.truncate(rows * column.width);
+            }
+        }
+        rowCount = rows;
+    }
+
+    // The given ids that already have a row; stops reading once all of them are found
+    private Set<UUID> findArchived(Set<UUID> ids) throws IOException {
+        Set<UUID> found = new HashSet<>();
+        FileChannel channel = channels.get(Column.ORDER_ID);
+        ByteBuffer chunk = ByteBuffer.allocate(ID_SCAN_ROWS * Column.ORDER_ID.width);
+        long end = rowCount * Column.ORDER_ID.width;
+        long position = 0;
+        while (position < end && found.size() < ids.size()) {
+            chunk.clear().limit((int) Math.min(chunk.capacity(), end - position));
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk, position + chunk.position()) < 0) {
+                    throw new EOFException("Order id column is shorter than " + rowCount + " rows");
+                }
+            }
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                UUID id = new UUID(chunk.getLong(), chunk.getLong());
+                if (ids.contains(id)) {
+                    found.add(id);
+                }
+            }
+            position += chunk.limit();
+        }
+        return found;
+    }
+
+    public synchronized boolean contains(String orderId) throws IOException {
+        if (orderId == null) {
+            return false;
+        }
+        UUID id = UUID.fromString(orderId);
+        return findArchived(Set.of(id)).contains(id);
+    }
+
+    public synchronized long size() {
+        return rowCount;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+
+    // ---------- Archiving ----------
+
+    /**
+     * Archives every COMPLETED or CANCELLED order in the extent and removes it
+     * from the heap. Returns the number of orders archived.
+     */
+    public int archiveClosedOrders() throws IOException {
+        List<Order> closed = new ArrayList<>();
+        for (Order order : Order.getAllOrdersFromExtent()) {
+            if (isClosed(order)) {
+                closed.add(order);
+            }
+        }
+        archive(closed);
+        return closed.size();
+    }
+
+    public void archive(Order order) throws IOException {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        archive(List.of(order));
+    }
+
+    /**
+     * Appends the orders as rows, forces the columns to disk and only then
+     * deletes the orders from the heap. Orders already in the archive are not
+     * appended again.
+     */
+    public synchronized void archive(List<Order> orders) throws IOException {
+        for (Order order : orders) {
+            if (order == null) {
+                throw new IllegalArgumentException("Order cannot be null");
+            }
+            if (!isClosed(order)) {
+                throw new IllegalStateException("Only completed or cancelled orders can be archived");
+            }
+        }
+        Set<UUID> ids = new HashSet<>();
+        for (Order order : orders) {
+            ids.add(UUID.fromString(order.getOrderId()));
+        }
+        Set<UUID> archived = ids.isEmpty() ? Set.of() : findArchived(ids);
+        List<Order> toAppend = new ArrayList<>();
+        Set<UUID> appending = new HashSet<>();
+        for (Order order : orders) {
+            UUID id = UUID.fromString(order.getOrderId());
+            if (!archived.contains(id) && appending.add(id)) {
+                toAppend.add(order);
+            }
+        }
+        if (!toAppend.isEmpty()) {
+            append(toAppend);
+        }
+
+        for (Order order : new LinkedHashSet<>(orders)) {
+            order.delete();
+        }
+    }
+
+    private void append(List<Order> orders) throws IOException {
+        Map<Column, ByteBuffer> rows = new EnumMap<>(Column.class);
+        for (Column column : Column.values()) {
+            rows.put(column, ByteBuffer.allocate(column.width * orders.size()));
+        }
+        for (Order order : orders) {
+            putUuid(rows.get(Column.ORDER_ID), order.getOrderId());
+            rows.get(Column.DATE).putInt((int) order.getDate().toEpochDay());
+            rows.get(Column.TIME).putLong(order.getTime().toNanoOfDay());
+            rows.get(Column.KIND).put((byte) order.getKind().ordinal());
+            rows.get(Column.STATUS).put((byte) order.getStatus().ordinal());
+            putUuid(rows.get(Column.CUSTOMER_ID),
+                order.getCustomer() != null ? order.getCustomer().getCustomerId() : null);
+            rows.get(Column.TOTAL).putLong(order.totalAmountGrosz());
+            rows.get(Column.PAYMENT_COUNT).putInt(order.getPayments().size());
+        }
+
+        for (Column column : Column.values()) {
+            FileChannel channel = channels.get(column);
+            ByteBuffer buffer = rows.get(column).flip();
+            long position = rowCount * column.width;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(false);
+        }
+        rowCount += orders.size();
+    }
+
+    private static boolean isClosed(Order order) {
+        return order.getStatus() == OrderStatus.COMPLETED || order.getStatus() == OrderStatus.CANCELLED;
+    }
+
+    private static void putUuid(ByteBuffer buffer, String id) {
+        UUID uuid = id != null ? UUID.fromString(id) : null;
+        buffer.putLong(uuid != null ? uuid.getMostSignificantBits() : 0L);
+        buffer.putLong(uuid != null ? uuid.getLeastSignificantBits() : 0L);
+    }
+
+
+    // ---------- Reading ----------
+
+    /**
+     * Maps the rows archived so far read-only. Rows appended later are not visible
+     * through this view.
+     */
+    public synchronized View openView() throws IOException {
+        Map<Column, ByteBuffer> mapped = new EnumMap<>(Column.class);
+        for (Column column : Column.values()) {
+            MappedByteBuffer buffer = channels.get(column)
+                .map(FileChannel.MapMode.READ_ONLY, 0, rowCount * column.width);
+            mapped.put(column, buffer);
+        }
+        return new View(mapped, (int) rowCount);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (FileChannel channel : channels.values()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        channels.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+
+    /**
+     * Read-only, row-indexed access to archived orders. Values are decoded straight
+     * from the mapped column files; nothing is materialised as Order objects.
+     */
+    public static final class View {
+        private final Map<Column, ByteBuffer> columns;
+        private final int size;
+
+        private View(Map<Column, ByteBuffer> columns, int size) {
+            this.columns = columns;
+            this.size = size;
+        }
+
+        public int size() { return size; }
+
+        public String getOrderId(int row) {
+            return getUuid(Column.ORDER_ID, row);
+        }
+
+        public LocalDate getDate(int row) {
+            return LocalDate.ofEpochDay(column(Column.DATE).getInt(offset(Column.DATE, row)));
+        }
+
+        public LocalTime getTime(int row) {
+            return LocalTime.ofNanoOfDay(column(Column.TIME).getLong(offset(Column.TIME, row)));
+        }
+
+        public OrderKind getKind(int row) {
+            return OrderKind.values()[column(Column.KIND).get(offset(Column.KIND, row))];
+        }
+
+        public OrderStatus getStatus(int row) {
+            return OrderStatus.values()[column(Column.STATUS).get(offset(Column.STATUS, row))];
+        }
+
+        public String getCustomerId(int row) {
+            return getUuid(Column.CUSTOMER_ID, row);
+        }
+
+        public double getTotal(int row) {
+            return Money.toDouble(column(Column.TOTAL).getLong(offset(Column.TOTAL, row)));
+        }
+
+        public int getPaymentCount(int row) {
+            return column(Column.PAYMENT_COUNT).getInt(offset(Column.PAYMENT_COUNT, row));
+        }
+
+        /**
+         * Sum of totals of COMPLETED orders dated within [from, to]. Only the date,
+         * status and total columns are touched.
+         */
+        public double sumCompletedTotals(LocalDate from, LocalDate to) {
+            if (from == null || to == null) {
+                throw new IllegalArgumentException("Date range cannot be null");
+            }
+            int fromDay = (int) from.toEpochDay();
+            int toDay = (int) to.toEpochDay();
+            ByteBuffer dates = column(Column.DATE);
+            ByteBuffer statuses = column(Column.STATUS);
+            ByteBuffer totals = column(Column.TOTAL);
+            byte completed = (byte) OrderStatus.COMPLETED.ordinal();
+
+            long sum = 0L;
+            for (int row = 0; row < size; row++) {
+                int day = dates.getInt(row * Column.DATE.width);
+                if (day >= fromDay && day <= toDay && statuses.get(row) == completed) {
+                    sum += totals.getLong(row * Column.TOTAL.width);
+                }
+            }
+            return Money.toDouble(sum);
+        }
+
+        // Rows of one customer, in archive order
+        public List<Integer> findRowsByCustomer(String customerId) {
+            if (customerId == null) {
+                throw new IllegalArgumentException("Customer id cannot be null");
+            }
+            UUID uuid = UUID.fromString(customerId);
+            ByteBuffer ids = column(Column.CUSTOMER_ID);
+            List<Integer> rows = new ArrayList<>();
+            for (int row = 0; row < size; row++) {
+                int offset = row * Column.CUSTOMER_ID.width;
+                if (ids.getLong(offset) == uuid.getMostSignificantBits()
+                        && ids.getLong(offset + 8) == uuid.getLeastSignificantBits()) {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        }
+
+        private ByteBuffer column(Column column) {
+            return columns.get(column);
+        }
+
+        private int offset(Column column, int row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("Row " + row + " out of range [0, " + size + ")");
+            }
+            return row * column.width;
+        }
+
+        private String getUuid(Column column, int row) {
+            ByteBuffer buffer = column(column);
+            int offset = offset(column, row);
+            long most = buffer.getLong(offset);
+            long least = buffer.getLong(offset + 8);
+            return most == 0L && least == 0L ? null : new UUID(most, least).toString();
+        }
+    }
+}
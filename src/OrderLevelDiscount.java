@@ -7,7 +7,7 @@ public class OrderLevelDiscount extends Discount {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    private static List<OrderLevelDiscount> allOrderLevelDiscounts = new ArrayList<>();
+    private static final Extent<OrderLevelDiscount> allOrderLevelDiscounts = new Extent<>();
 
     private double discountPercentage;
 
@@ -65,6 +65,7 @@ public class OrderLevelDiscount extends Discount {
             throw new IllegalArgumentException("Discount percentage must be between 0 and 100");
         }
         this.discountPercentage = percentage;
+        changed();
     }
 
     @Override
@@ -82,14 +83,26 @@ public class OrderLevelDiscount extends Discount {
         throw new UnsupportedOperationException("Order-level discounts do not have applicable items");
     }
 
+    @Override
+    public void delete() {
+        super.delete();
+        allOrderLevelDiscounts.remove(this);
+    }
+
     private static void addToExtent(OrderLevelDiscount discount) {
         if (discount != null) {
+            Discount.addToExtent(discount);
             allOrderLevelDiscounts.add(discount);
         }
     }
 
     public static List<OrderLevelDiscount> getAllOrderLevelDiscounts() {
-        return Collections.unmodifiableList(allOrderLevelDiscounts);
+        return allOrderLevelDiscounts.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreOrderLevelExtent(List<OrderLevelDiscount> extent) {
+        allOrderLevelDiscounts.replaceWith(extent);
     }
 
     public static void clearExtent() {
@@ -97,19 +110,13 @@ public class OrderLevelDiscount extends Discount {
     }
 
     public static void saveExtent(String filename) throws java.io.IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(
-                new java.io.FileOutputStream(filepath))) {
-            out.writeObject(allOrderLevelDiscounts);
-        }
+        AtomicFile.writeObject(filename, new ArrayList<>(allOrderLevelDiscounts));
     }
 
     @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (java.io.ObjectInputStream in = new java.io.ObjectInputStream(
-                new java.io.FileInputStream(filepath))) {
-            allOrderLevelDiscounts = (List<OrderLevelDiscount>) in.readObject();
+        try {
+            allOrderLevelDiscounts.replaceWith((List<OrderLevelDiscount>) AtomicFile.readObject(filename));
             return true;
         } catch (java.io.IOException | ClassNotFoundException e) {
             allOrderLevelDiscounts.clear();
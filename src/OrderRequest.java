@@ -1,15 +1,18 @@
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class OrderRequest implements Serializable {
+    // 2: fields are written by writeObject/readObject, not by default serialization
     @Serial
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
     
-    private static List<OrderRequest> allOrderRequests = new ArrayList<>();
+    private static final Extent<OrderRequest> allOrderRequests = new Extent<>();
 
 
     private String requestId;
@@ -17,6 +20,10 @@ public class OrderRequest implements Serializable {
     private String requestDetails;
 
     private List<ItemQuantity> itemQuantities = new ArrayList<>();
+    private Order order;            // 0..1 - can be null
+
+    // Running sum of the line totals in grosz, kept up to date by ItemQuantity and MenuItem
+    private long requestTotalGrosz;
 
 
     public OrderRequest() {
@@ -24,6 +31,7 @@ public class OrderRequest implements Serializable {
         this.status = OrderRequestStatus.PENDING;
         this.requestDetails = "";
         addOrderRequestToExtent(this);
+        Journal.recordRequestCreated(this);
     }
 
     public List<ItemQuantity> getItemQuantities() {
@@ -38,12 +46,70 @@ public class OrderRequest implements Serializable {
             return;
         }
         itemQuantities.add(itemQuantity);
+        adjustRequestTotal(itemQuantity.requestTotalGrosz());
+        adjustItemCount(itemQuantity.getQuantity());
     }
 
     void removeItemQuantity(ItemQuantity itemQuantity) {
-        if (itemQuantity != null) {
-            itemQuantities.remove(itemQuantity);
+        if (itemQuantity != null && itemQuantities.remove(itemQuantity)) {
+            adjustRequestTotal(-itemQuantity.requestTotalGrosz());
+            adjustItemCount(-itemQuantity.getQuantity());
+        }
+    }
+
+    // Package-private: a line's quantity changed by delta items
+    void adjustItemCount(int delta) {
+        if (delta != 0 && order != null) {
+            order.adjustItemCount(delta);
+        }
+    }
+
+    // Number of items across this request's lines
+    int itemCount() {
+        int count = 0;
+        for (ItemQuantity itemQuantity : itemQuantities) {
+            count += itemQuantity.getQuantity();
         }
+        return count;
+    }
+
+    // Package-private: a line's quantity or unit price changed by delta grosz
+    void adjustRequestTotal(long delta) {
+        if (delta == 0L) {
+            return;
+        }
+        requestTotalGrosz += delta;
+        if (order != null) {
+            order.adjustSubtotal(delta);
+        }
+    }
+
+    public Order getOrder() { return order; }
+
+    public void setOrder(Order newOrder) {
+        if (this.order == newOrder) return;
+
+        if (this.order != null) {
+            Order oldOrder = this.order;
+            this.order = null;
+            oldOrder.removeOrderRequest(this);
+        }
+
+        this.order = newOrder;
+
+        if (newOrder != null) {
+            newOrder.addOrderRequest(this);
+        }
+        Journal.recordRequestOrder(this);
+    }
+
+    // Composition: a request does not outlive its order, and its lines go with it
+    public void delete() {
+        for (ItemQuantity itemQuantity : new ArrayList<>(itemQuantities)) {
+            itemQuantity.delete();
+        }
+        setOrder(null);
+        allOrderRequests.remove(this);
     }
 
     public String getRequestId() { return requestId; }
@@ -55,7 +121,9 @@ public class OrderRequest implements Serializable {
         if (requestId == null || requestId.trim().isEmpty()) {
             throw new IllegalArgumentException("Request ID cannot be null or empty");
         }
+        String oldId = this.requestId;
         this.requestId = requestId.trim();
+        Journal.recordRequestId(oldId, this.requestId);
     }
 
     public void setRequestDetails(String requestDetails) {
@@ -68,12 +136,43 @@ public class OrderRequest implements Serializable {
 
 
     public void confirmRequest() {
+        ensurePending();
+        // The kitchen commits to the whole request: stock for every line goes in one batch.
+        // The batch re-checks PENDING and switches to CONFIRMED under the stock lock, so two
+        // terminals confirming the same request cannot both deduct
+        Ingredient.deductStock(calculateIngredientDemand(), this);
+    }
+
+    // Package-private: also called by Ingredient.deductStock under STOCK_LOCK
+    void ensurePending() {
         if (this.status != OrderRequestStatus.PENDING) {
             throw new IllegalStateException("Only pending requests can be confirmed");
         }
+    }
+
+    // Package-private: called by Ingredient.deductStock under STOCK_LOCK once the batch is applied
+    void confirmed() {
         this.status = OrderRequestStatus.CONFIRMED;
     }
 
+    // Package-private: journal replay re-applies a confirmation recorded with its stock batch
+    void applyJournaledConfirmation() {
+        if (this.status == OrderRequestStatus.PENDING) {
+            this.status = OrderRequestStatus.CONFIRMED;
+        }
+    }
+
+    // Ingredient quantities needed for all lines, merged per ingredient
+    public Map<Ingredient, Double> calculateIngredientDemand() {
+        Map<Ingredient, Double> demand = new HashMap<>();
+        for (ItemQuantity line : itemQuantities) {
+            for (Recipe recipe : line.getMenuItem().getRecipe()) {
+                demand.merge(recipe.getIngredient(), recipe.getQuantityPerPortion() * line.getQuantity(), Double::sum);
+            }
+        }
+        return demand;
+    }
+
     /**
      * Start preparation of the order request.
      * TODO: Implement full kitchen workflow logic
@@ -116,9 +215,15 @@ public class OrderRequest implements Serializable {
 
 
     public double calculateRequestTotal() {
-        return itemQuantities.stream()
-            .mapToDouble(ItemQuantity::getRequestTotal)
-            .sum();
+        return Money.toDouble(requestTotalGrosz);
+    }
+
+    public Money calculateRequestTotalAsMoney() {
+        return Money.ofGrosz(requestTotalGrosz);
+    }
+
+    long requestTotalGrosz() {
+        return requestTotalGrosz;
     }
 
 
@@ -131,7 +236,12 @@ public class OrderRequest implements Serializable {
     }
 
     public static List<OrderRequest> getAllOrderRequestsFromExtent() {
-        return Collections.unmodifiableList(allOrderRequests);
+        return allOrderRequests.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<OrderRequest> extent) {
+        allOrderRequests.replaceWith(extent);
     }
 
     public static void clearExtent() {
@@ -140,17 +250,13 @@ public class OrderRequest implements Serializable {
 
     
     public static void saveExtent(String filename) throws IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
-            out.writeObject(allOrderRequests);
-        }
+        AtomicFile.writeObject(filename, new ArrayList<>(allOrderRequests));
     }
 
     @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filepath))) {
-            allOrderRequests = (List<OrderRequest>) in.readObject();
+        try {
+            allOrderRequests.replaceWith((List<OrderRequest>) AtomicFile.readObject(filename));
             return true;
         } catch (IOException | ClassNotFoundException e) {
             allOrderRequests.clear();
@@ -158,6 +264,40 @@ public class OrderRequest implements Serializable {
         }
     }
 
+    // Fields are written by hand in a compact form (see BinaryCodec) instead of the
+    // default field-by-field format
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {};
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        BinaryCodec.writeId(out, requestId);
+        BinaryCodec.writeEnum(out, status);
+        BinaryCodec.writeString(out, requestDetails);
+        BinaryCodec.writeVarInt(out, itemQuantities.size());
+        for (ItemQuantity itemQuantity : itemQuantities) {
+            out.writeObject(itemQuantity);
+        }
+        out.writeObject(order);
+        BinaryCodec.writeVarLong(out, requestTotalGrosz);
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        requestId = BinaryCodec.readId(in);
+        status = BinaryCodec.readEnum(in, OrderRequestStatus.values());
+        requestDetails = BinaryCodec.readString(in);
+        int count = BinaryCodec.readVarInt(in);
+        itemQuantities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            itemQuantities.add((ItemQuantity) in.readObject());
+        }
+        order = (Order) in.readObject();
+        requestTotalGrosz = BinaryCodec.readVarLong(in);
+    }
+
     @Override
     public String toString() {
         return String.format("OrderRequest[id=%s, status=%s, details=%s]",
@@ -1,6 +1,39 @@
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum OrderStatus {
     ACTIVE,
     COMPLETED,
     CANCELLED,
-    AWAITING_PAYMENT
+    AWAITING_PAYMENT;
+
+    // Lifecycle: ACTIVE -> AWAITING_PAYMENT -> COMPLETED, or ACTIVE -> CANCELLED
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        TRANSITIONS.put(ACTIVE, EnumSet.of(AWAITING_PAYMENT, CANCELLED));
+        TRANSITIONS.put(AWAITING_PAYMENT, EnumSet.of(COMPLETED));
+        TRANSITIONS.put(COMPLETED, EnumSet.noneOf(OrderStatus.class));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return target != null && TRANSITIONS.get(this).contains(target);
+    }
+
+    // True if target follows this status through one or more transitions
+    public boolean canReach(OrderStatus target) {
+        for (OrderStatus next : TRANSITIONS.get(this)) {
+            if (next == target || next.canReach(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isFinal() {
+        return TRANSITIONS.get(this).isEmpty();
+    }
 }
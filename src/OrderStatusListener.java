@@ -0,0 +1,8 @@
+/**
+ * Notified after an order's status transition has been committed. Called on the
+ * thread that made the transition, once per transition.
+ */
+@FunctionalInterface
+public interface OrderStatusListener {
+    void statusChanged(Order order, OrderStatus from, OrderStatus to);
+}
@@ -1,18 +1,23 @@
 import java.io.*;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 public abstract class Payment implements Serializable {
+    // 2: fields are written by writeObject/readObject, not by default serialization
     @Serial
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
     
-    private static List<Payment> allPayments = new ArrayList<>();
+    private static final Extent<Payment> allPayments = new Extent<>();
 
+    private static final ChangeTracker<Payment> changes = new ChangeTracker<>(Payment.class, Payment::getPaymentId,
+        payment -> Collections.singletonList(payment.order));
 
+
+    private String paymentId;
     private PaymentStatus status;
-    private double amountPayed;
+    private long amountPayedGrosz;
 
     // Composition
     private Order order;
@@ -21,6 +26,7 @@ public abstract class Payment implements Serializable {
         if (order == null) {
             throw new IllegalArgumentException("Order cannot be null - Payment cannot exist without an Order (composition)");
         }
+        this.paymentId = UUID.randomUUID().toString();
         setAmountPayed(amountPayed);
         this.status = PaymentStatus.UNPAID;
 
@@ -54,6 +60,7 @@ public abstract class Payment implements Serializable {
 
         // Set the order
         this.order = order;
+        markChanged();
 
         // Establish reverse connection if not already set
         if (!order.getPayments().contains(this)) {
@@ -62,6 +69,8 @@ public abstract class Payment implements Serializable {
     }
 
     void delete() {
+        changes.markDeleted(this);
+
         // Clear the order reference (without triggering reverse connection)
         this.order = null;
 
@@ -70,31 +79,71 @@ public abstract class Payment implements Serializable {
     }
 
     
+    public String getPaymentId() { return paymentId; }
     public PaymentStatus getStatus() { return status; }
-    public double getAmountPayed() { return amountPayed; }
+    public double getAmountPayed() { return Money.toDouble(amountPayedGrosz); }
+    public Money getAmountPayedAsMoney() { return Money.ofGrosz(amountPayedGrosz); }
+
+    // Package-private: lets Invoice and Cash compare amounts without allocating
+    long amountPayedGrosz() { return amountPayedGrosz; }
 
     
     public void setAmountPayed(double amountPayed) {
-        if (amountPayed <= 0) {
+        setAmountPayedGrosz(Money.toGrosz(amountPayed));
+    }
+
+    public void setAmountPayed(Money amountPayed) {
+        if (amountPayed == null) {
+            throw new IllegalArgumentException("Amount payed cannot be null");
+        }
+        setAmountPayedGrosz(amountPayed.getGrosz());
+    }
+
+    private void setAmountPayedGrosz(long amountPayedGrosz) {
+        if (amountPayedGrosz <= 0) {
             throw new IllegalArgumentException("Amount payed must be greater than zero");
         }
-        this.amountPayed = amountPayed;
+        this.amountPayedGrosz = amountPayedGrosz;
+        markChanged();
     }
 
 
     // Confirm payment
     public void confirmPayment() {
         this.status = PaymentStatus.PAID;
+        Journal.recordPaymentStatus(this);
+        markChanged();
     }
 
     // Fail payment
     public void failPayment() {
         this.status = PaymentStatus.UNPAID;
+        Journal.recordPaymentStatus(this);
+        markChanged();
     }
 
     // Set payment in transaction (for card payments >500)
     public void setInTransaction() {
         this.status = PaymentStatus.IN_TRANSACTION;
+        Journal.recordPaymentStatus(this);
+        markChanged();
+    }
+
+    // Package-private: journal replay gives a recreated payment its recorded id
+    void applyJournaledId(String paymentId) {
+        this.paymentId = paymentId;
+        markChanged();
+    }
+
+    // Package-private: journal replay sets the recorded status directly
+    void applyJournaledStatus(PaymentStatus status) {
+        this.status = status;
+        markChanged();
+    }
+
+    // Package-private: subclasses report changes to their own fields too
+    void markChanged() {
+        changes.markChanged(this);
     }
 
 
@@ -108,31 +157,43 @@ public abstract class Payment implements Serializable {
             throw new IllegalArgumentException("Payment cannot be null");
         }
         allPayments.add(payment);
+        changes.markChanged(payment);
     }
 
 
 
     public static List<Payment> getAllPaymentsFromExtent() {
-        return Collections.unmodifiableList(allPayments);
+        return allPayments.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<Payment> extent) {
+        allPayments.replaceWith(extent);
+        changes.reset();
     }
 
     public static void clearExtent() {
         allPayments.clear();
+        changes.reset();
     }
 
     
     public static void saveExtent(String filename) throws IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
-            out.writeObject(allPayments);
-        }
+        changes.saveFull(filename, allPayments);
+    }
+
+    // Appends only the payments created, changed or deleted since the last save/load
+    public static void saveChanges(String filename) throws IOException {
+        changes.saveChanges(filename, allPayments);
+    }
+
+    public static int getPendingChangeCount() {
+        return changes.getPendingChangeCount();
     }
 
-    @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filepath))) {
-            allPayments = (List<Payment>) in.readObject();
+        try {
+            allPayments.replaceWith(changes.load(filename));
             return true;
         } catch (IOException | ClassNotFoundException e) {
             allPayments.clear();
@@ -140,8 +201,31 @@ public abstract class Payment implements Serializable {
         }
     }
 
+    // Fields are written by hand in a compact form (see BinaryCodec); Card and Cash
+    // write their own fields the same way
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {};
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        BinaryCodec.writeId(out, paymentId);
+        BinaryCodec.writeEnum(out, status);
+        BinaryCodec.writeVarLong(out, amountPayedGrosz);
+        out.writeObject(order);
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        paymentId = BinaryCodec.readId(in);
+        status = BinaryCodec.readEnum(in, PaymentStatus.values());
+        amountPayedGrosz = BinaryCodec.readVarLong(in);
+        order = (Order) in.readObject();
+    }
+
     @Override
     public String toString() {
-        return String.format("Payment[status=%s, amount=%.2f]", status, amountPayed);
+        return String.format("Payment[status=%s, amount=%.2f]", status, getAmountPayed());
     }
 }
@@ -1,4 +1,7 @@
 import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
 
 
 public class PersistenceConfig {
@@ -8,6 +11,17 @@ public class PersistenceConfig {
      */
     public static final String DATA_DIRECTORY = "data";
 
+    /**
+     * Compression of saved data files. Level 0 (the default) stores the serialized
+     * stream as is; 1 (fastest) to 9 (smallest) deflate it. Set per data file, e.g.
+     * setCompressionLevel("orders.dat", 1). Loading detects the format by itself, so
+     * changing a level never breaks reading files written with another one.
+     */
+    public static final int NO_COMPRESSION = Deflater.NO_COMPRESSION;
+    public static final int COMPRESSION_BUFFER_SIZE = 64 * 1024;
+
+    private static final Map<String, Integer> compressionLevels = new ConcurrentHashMap<>();
+
 
     static {
         createDataDirectory();
@@ -30,11 +44,35 @@ public class PersistenceConfig {
 
 
 
+    public static void setCompressionLevel(String filename, int level) {
+        if (filename == null || filename.trim().isEmpty()) {
+            throw new IllegalArgumentException("Filename cannot be null or empty");
+        }
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9");
+        }
+        if (level == NO_COMPRESSION) {
+            compressionLevels.remove(filename);
+        } else {
+            compressionLevels.put(filename, level);
+        }
+    }
+
+    public static int getCompressionLevel(String filename) {
+        return compressionLevels.getOrDefault(filename, NO_COMPRESSION);
+    }
+
+
+    // Also removes the previous generation kept by AtomicFile
     public static void deleteDataFile(String filename) {
         File file = new File(getDataFilePath(filename));
         if (file.exists()) {
             file.delete();
         }
+        File backup = new File(getDataFilePath(filename + AtomicFile.BACKUP_SUFFIX));
+        if (backup.exists()) {
+            backup.delete();
+        }
     }
 
 
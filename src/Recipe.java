@@ -0,0 +1,135 @@
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Association Class: Recipe connects MenuItem to Ingredient
+ * Holds how much of the ingredient one portion of the item uses, in the ingredient's unit.
+ * Multiplicity: MenuItem (0..*) <-> (0..*) Ingredient, at most ONE Recipe per pair.
+ *
+ * Creating a Recipe also links the basic MenuItem - Ingredient association if needed;
+ * removing the ingredient from the item deletes its Recipe. MenuItem keeps its recipe
+ * lines, so the extent is rebuilt from the menu items when they are restored or loaded.
+ */
+public class Recipe implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final Extent<Recipe> allRecipes = new Extent<>();
+
+    // Index on the (MenuItem, Ingredient) pair - keeps the duplicate check O(1)
+    private static final Map<PairKey, Recipe> recipesByPair = new ConcurrentHashMap<>();
+
+    private MenuItem menuItem;
+    private Ingredient ingredient;
+    private double quantityPerPortion;
+
+    private Recipe(MenuItem menuItem, Ingredient ingredient, double quantityPerPortion) {
+        this.menuItem = menuItem;
+        this.ingredient = ingredient;
+        this.quantityPerPortion = validateQuantity(quantityPerPortion);
+
+        if (!addRecipeToExtent()) {
+            throw new IllegalStateException("Recipe already exists for this MenuItem and Ingredient combination");
+        }
+    }
+
+    public static Recipe create(MenuItem menuItem, Ingredient ingredient, double quantityPerPortion) {
+        if (menuItem == null) {
+            throw new IllegalArgumentException("MenuItem cannot be null");
+        }
+        if (ingredient == null) {
+            throw new IllegalArgumentException("Ingredient cannot be null");
+        }
+        if (recipesByPair.containsKey(new PairKey(menuItem, ingredient))) {
+            throw new IllegalStateException(
+                "Recipe already exists for this MenuItem and Ingredient combination. " +
+                "To change the quantity, update the existing Recipe instead of creating a new one.");
+        }
+
+        Recipe recipe = new Recipe(menuItem, ingredient, quantityPerPortion);
+        menuItem.addRecipeLine(recipe);
+        return recipe;
+    }
+
+    public static Recipe find(MenuItem menuItem, Ingredient ingredient) {
+        if (menuItem == null || ingredient == null) {
+            return null;
+        }
+        return recipesByPair.get(new PairKey(menuItem, ingredient));
+    }
+
+    // Removes the quantity; the basic MenuItem - Ingredient link stays
+    public void delete() {
+        if (menuItem == null) {
+            return;
+        }
+        menuItem.removeRecipeLine(this);
+        recipesByPair.remove(new PairKey(menuItem, ingredient), this);
+        allRecipes.remove(this);
+        this.menuItem = null;
+        this.ingredient = null;
+    }
+
+    public MenuItem getMenuItem() { return menuItem; }
+    public Ingredient getIngredient() { return ingredient; }
+    public double getQuantityPerPortion() { return quantityPerPortion; }
+
+    public void setQuantityPerPortion(double quantityPerPortion) {
+        double newQuantity = validateQuantity(quantityPerPortion);
+        // Stock changes read the portion under the same lock, so they see the old or the new one
+        synchronized (Ingredient.STOCK_LOCK) {
+            double oldQuantity = this.quantityPerPortion;
+            this.quantityPerPortion = newQuantity;
+            if (menuItem != null) {
+                menuItem.portionChanged(ingredient, oldQuantity, newQuantity);
+            }
+        }
+    }
+
+    private static double validateQuantity(double quantityPerPortion) {
+        if (!(quantityPerPortion > 0) || Double.isInfinite(quantityPerPortion)) {
+            throw new IllegalArgumentException("Quantity per portion must be greater than zero");
+        }
+        return quantityPerPortion;
+    }
+
+    private boolean addRecipeToExtent() {
+        if (recipesByPair.putIfAbsent(new PairKey(menuItem, ingredient), this) != null) {
+            return false;
+        }
+        allRecipes.add(this);
+        return true;
+    }
+
+    public static List<Recipe> getAllRecipesFromExtent() {
+        return allRecipes.view();
+    }
+
+    // Package-private: MenuItem re-registers the recipe lines of a restored or loaded extent
+    static void rebuildExtent(Iterable<MenuItem> menuItems) {
+        clearExtent();
+        for (MenuItem menuItem : menuItems) {
+            for (Recipe recipe : menuItem.getRecipe()) {
+                recipe.addRecipeToExtent();
+            }
+        }
+    }
+
+    public static void clearExtent() {
+        allRecipes.clear();
+        recipesByPair.clear();
+    }
+
+    // MenuItem and Ingredient keep identity equality, so the pair is compared by reference
+    private record PairKey(MenuItem menuItem, Ingredient ingredient) {}
+
+    @Override
+    public String toString() {
+        return String.format("Recipe[item=%s, ingredient=%s, %.3f %s per portion]",
+            menuItem != null ? menuItem.getName() : "Unknown",
+            ingredient != null ? ingredient.getName() : "Unknown",
+            quantityPerPortion, ingredient != null ? ingredient.getUnit() : "");
+    }
+}
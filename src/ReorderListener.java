@@ -0,0 +1,10 @@
+/**
+ * Notified when an ingredient drops below its reorder point or is restocked above it.
+ * Called on the thread that changed the stock level or reorder point, after the change
+ * (a whole Ingredient.deductStock batch) is complete and outside the stock lock. An
+ * exception thrown here goes to that thread's uncaught exception handler.
+ */
+@FunctionalInterface
+public interface ReorderListener {
+    void reorderStatusChanged(Ingredient ingredient, boolean needsReorder);
+}
@@ -1,4 +1,5 @@
 import java.io.*;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
@@ -10,12 +11,20 @@ public class Reservation implements Serializable {
     private static final long serialVersionUID = 1L;
 
     public static final int CANCELLATION_WINDOW_HOURS = 4;
+    public static final Duration DEFAULT_DURATION = Duration.ofHours(2);
+    public static final Duration MAX_DURATION = Duration.ofHours(12);
 
-    private static List<Reservation> allReservations = new ArrayList<>();
+    private static final Extent<Reservation> allReservations = new Extent<>();
 
+    private static final ChangeTracker<Reservation> changes =
+        new ChangeTracker<>(Reservation.class, Reservation::getReservationId,
+            reservation -> Arrays.asList(reservation.customer, reservation.assignedTable));
+
+    private String reservationId;
     private LocalDate date;
     private LocalTime time;
     private int size;
+    private Duration duration;
     private ReservationStatus status;
     private final Set<String> specialRequests;
     
@@ -27,10 +36,17 @@ public class Reservation implements Serializable {
 
     // Package-private no-arg constructor for serialization only
     Reservation() {
+        this.reservationId = UUID.randomUUID().toString();
         this.specialRequests = new HashSet<>();
+        this.duration = DEFAULT_DURATION;
     }
 
     public Reservation(LocalDate date, LocalTime time, int size, Customer customer, Table table) {
+        this(date, time, size, DEFAULT_DURATION, customer, table);
+    }
+
+    public Reservation(LocalDate date, LocalTime time, int size, Duration duration, Customer customer, Table table) {
+        this.reservationId = UUID.randomUUID().toString();
         this.specialRequests = new HashSet<>();
         if (customer == null) {
             throw new IllegalArgumentException("Customer cannot be null - Reservation must have a Customer (mandatory 1)");
@@ -41,15 +57,27 @@ public class Reservation implements Serializable {
         setDate(date);
         setTime(time);
         setSize(size);
+        setDuration(duration);
+
+        // Check the slot before registering anywhere; assignTable re-checks under the table's lock
+        table.ensureFree(getStartDateTime(), getEndDateTime(), null);
+
         this.customer = customer;
         this.status = ReservationStatus.PENDING;
-        addReservationToExtent(this);
 
         // Establish reverse connection in Customer's qualified map
         customer.addReservation(this);
 
-        // Assign table (this will establish reverse connection with Table)
-        assignTable(table);
+        // Assign table (this will establish reverse connection with Table); if the slot
+        // was taken in the meantime, undo the customer link so nothing refers to this object
+        try {
+            assignTable(table);
+        } catch (RuntimeException e) {
+            customer.removeReservation(this);
+            throw e;
+        }
+
+        addReservationToExtent(this);
     }
 
     public Customer getCustomer() { return customer; }
@@ -75,6 +103,7 @@ public class Reservation implements Serializable {
 
         if (oldCustomer != null) {
             oldCustomer.removeReservation(this);
+            changes.markTouched(oldCustomer);
         }
 
         // Set new customer
@@ -82,6 +111,7 @@ public class Reservation implements Serializable {
 
         // Add to new customer's map
         newCustomer.addReservation(this);
+        changes.markChanged(this);
     }
 
     public void assignTable(Table table) {
@@ -95,24 +125,34 @@ public class Reservation implements Serializable {
                             table.getCapacity(), this.size));
         }
 
-        if (this.assignedTable != null && this.assignedTable != table) {
-            Table oldTable = this.assignedTable;
-            this.assignedTable = null;
-            oldTable.removeReservation(this);
+        Table oldTable = this.assignedTable;
+
+        // Reverse connection: claim the slot on the new table first (checked under its
+        // lock), so a taken slot leaves the current assignment as it was
+        if (!table.getReservations().contains(this)) {
+            this.assignedTable = table;
+            try {
+                table.assignReservation(this);
+            } catch (RuntimeException e) {
+                this.assignedTable = oldTable;
+                throw e;
+            }
         }
 
         this.assignedTable = table;
-
-        // Reverse connection: add this reservation to the table
-        if (!table.getReservations().contains(this)) {
-            table.assignReservation(this);
+        if (oldTable != null && oldTable != table) {
+            oldTable.removeReservation(this);
+            changes.markTouched(oldTable);
         }
+        changes.markChanged(this);
     }
 
     public void removeTable() {
         if (this.assignedTable != null) {
             Table table = this.assignedTable;
             this.assignedTable = null;
+            changes.markChanged(this);
+            changes.markTouched(table);
 
             // Reverse connection: remove this reservation from the table
             if (table.getReservations().contains(this)) {
@@ -134,14 +174,26 @@ public class Reservation implements Serializable {
         }
 
         this.status = ReservationStatus.CANCELLED;
+        changes.markChanged(this);
     }
 
+    public String getReservationId() { return reservationId; }
     public LocalDate getDate() { return date; }
     public LocalTime getTime() { return time; }
     public int getSize() { return size; }
+    public Duration getDuration() { return duration; }
     public ReservationStatus getStatus() { return status; }
     public Table getAssignedTable() { return assignedTable; }
 
+    // The reservation holds its table for [start, start + duration)
+    public LocalDateTime getStartDateTime() {
+        return LocalDateTime.of(date, time);
+    }
+
+    public LocalDateTime getEndDateTime() {
+        return getStartDateTime().plus(duration);
+    }
+
     public Set<String> getSpecialRequests() {
         return Collections.unmodifiableSet(specialRequests);
     }
@@ -153,30 +205,63 @@ public class Reservation implements Serializable {
         if (date.isBefore(LocalDate.now())) {
             throw new IllegalArgumentException("Reservation date cannot be in the past");
         }
-
-        // Handle qualifier update in the Customer's map
-        if (this.customer != null && this.date != null && !date.equals(this.date)) {
-            LocalDateTime oldKey = LocalDateTime.of(this.date, this.time);
-            LocalDateTime newKey = LocalDateTime.of(date, this.time);
-            this.customer.updateReservationKey(this, oldKey, newKey);
+        if (this.date != null && this.time != null && !date.equals(this.date)) {
+            moveStart(date, this.time);
         }
 
         this.date = date;
+        changes.markChanged(this);
     }
 
     public void setTime(LocalTime time) {
         if (time == null) {
             throw new IllegalArgumentException("Time cannot be null");
         }
-
-        // Handle qualifier update in the Customer's map
-        if (this.customer != null && this.time != null && !time.equals(this.time)) {
-            LocalDateTime oldKey = LocalDateTime.of(this.date, this.time);
-            LocalDateTime newKey = LocalDateTime.of(this.date, time);
-            this.customer.updateReservationKey(this, oldKey, newKey);
+        if (this.date != null && this.time != null && !time.equals(this.time)) {
+            moveStart(this.date, time);
         }
 
         this.time = time;
+        changes.markChanged(this);
+    }
+
+    public void setDuration(Duration duration) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        if (duration.compareTo(MAX_DURATION) > 0) {
+            throw new IllegalArgumentException("Duration cannot exceed " + MAX_DURATION.toHours() + " hours");
+        }
+        if (this.date != null && this.time != null && !duration.equals(this.duration)) {
+            moveSlot(getStartDateTime(), duration);
+        }
+        this.duration = duration;
+        changes.markChanged(this);
+    }
+
+    // Re-keys the Customer's qualified map, then the table's schedule, before the start
+    // changes. Either check can throw; the customer re-key is undone if the table refuses.
+    private void moveStart(LocalDate newDate, LocalTime newTime) {
+        LocalDateTime oldKey = getStartDateTime();
+        LocalDateTime newKey = LocalDateTime.of(newDate, newTime);
+        if (customer != null) {
+            customer.updateReservationKey(this, oldKey, newKey);
+        }
+        try {
+            moveSlot(newKey, duration);
+        } catch (RuntimeException e) {
+            if (customer != null) {
+                customer.updateReservationKey(this, newKey, oldKey);
+            }
+            throw e;
+        }
+    }
+
+    // Re-indexes the assigned table's schedule before the slot changes; throws if the new slot is taken
+    private void moveSlot(LocalDateTime newStart, Duration newDuration) {
+        if (assignedTable != null) {
+            assignedTable.reschedule(this, newStart, newStart.plus(newDuration));
+        }
     }
 
     public void setSize(int size) {
@@ -184,6 +269,7 @@ public class Reservation implements Serializable {
             throw new IllegalArgumentException("Party size must be greater than zero");
         }
         this.size = size;
+        changes.markChanged(this);
     }
 
 
@@ -192,14 +278,17 @@ public class Reservation implements Serializable {
             throw new IllegalArgumentException("Special request cannot be null or empty");
         }
         specialRequests.add(request.trim());
+        changes.markChanged(this);
     }
 
     public void removeSpecialRequest(String request) {
         specialRequests.remove(request);
+        changes.markChanged(this);
     }
 
     public void clearSpecialRequests() {
         specialRequests.clear();
+        changes.markChanged(this);
     }
 
     public boolean canBeCancelled() {
@@ -217,6 +306,7 @@ public class Reservation implements Serializable {
             throw new IllegalStateException("Only pending reservations can be confirmed");
         }
         this.status = ReservationStatus.CONFIRMED;
+        changes.markChanged(this);
     }
 
     public void changeReservationStatus(ReservationStatus newStatus) {
@@ -224,6 +314,7 @@ public class Reservation implements Serializable {
             throw new IllegalArgumentException("Status cannot be null");
         }
         this.status = newStatus;
+        changes.markChanged(this);
     }
 
     private static void addReservationToExtent(Reservation reservation) {
@@ -231,35 +322,48 @@ public class Reservation implements Serializable {
             throw new IllegalArgumentException("Reservation cannot be null");
         }
         allReservations.add(reservation);
+        changes.markChanged(reservation);
     }
 
     public static List<Reservation> getAllReservationsFromExtent() {
-        return Collections.unmodifiableList(allReservations);
+        return allReservations.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<Reservation> extent) {
+        allReservations.replaceWith(extent);
+        changes.reset();
     }
 
     public static void clearExtent() {
         allReservations.clear();
+        changes.reset();
     }
 
 
     static void removeFromExtent(Reservation reservation) {
         if (reservation != null) {
             allReservations.remove(reservation);
+            changes.markDeleted(reservation);
         }
     }
 
     public static void saveExtent(String filename) throws IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
-            out.writeObject(allReservations);
-        }
+        changes.saveFull(filename, allReservations);
+    }
+
+    // Appends only the reservations created, changed or deleted since the last save/load
+    public static void saveChanges(String filename) throws IOException {
+        changes.saveChanges(filename, allReservations);
+    }
+
+    public static int getPendingChangeCount() {
+        return changes.getPendingChangeCount();
     }
 
-    @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filepath))) {
-            allReservations = (List<Reservation>) in.readObject();
+        try {
+            allReservations.replaceWith(changes.load(filename));
             return true;
         } catch (IOException | ClassNotFoundException e) {
             allReservations.clear();
@@ -267,10 +371,23 @@ public class Reservation implements Serializable {
         }
     }
 
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // Files written before reservations had an id
+        if (reservationId == null) {
+            reservationId = UUID.randomUUID().toString();
+        }
+        // Files written before reservations had a duration
+        if (duration == null) {
+            duration = DEFAULT_DURATION;
+        }
+    }
+
     @Override
     public String toString() {
-        return String.format("Reservation[date=%s, time=%s, size=%d, status=%s, table=%s, specialRequests=%d]",
-            date, time, size, status, 
+        return String.format("Reservation[date=%s, time=%s, duration=%s, size=%d, status=%s, table=%s, specialRequests=%d]",
+            date, time, duration, size, status, 
             assignedTable != null ? assignedTable.getNumber() : "none", 
             specialRequests.size());
     }
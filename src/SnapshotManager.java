@@ -0,0 +1,176 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves and loads every class extent as one consistent snapshot file.
+ *
+ * All extents go through a single ObjectOutputStream, so an object reachable
+ * from several extents (e.g. a Customer referenced by orders, reservations and
+ * feedback) is written once and comes back as the same instance after loading.
+ */
+public class SnapshotManager {
+
+    public static final String DEFAULT_SNAPSHOT_FILE = "snapshot.dat";
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private SnapshotManager() {}
+
+
+    public static void saveSnapshot() throws IOException {
+        saveSnapshot(DEFAULT_SNAPSHOT_FILE);
+    }
+
+    public static void saveSnapshot(String filename) throws IOException {
+        Map<String, List<?>> extents = collectExtents();
+
+        AtomicFile.write(filename, out -> {
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(extents.size());
+            for (Map.Entry<String, List<?>> entry : extents.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeObject(new ArrayList<>(entry.getValue()));
+            }
+        });
+    }
+
+    public static boolean loadSnapshot() {
+        return loadSnapshot(DEFAULT_SNAPSHOT_FILE);
+    }
+
+    /**
+     * Startup recovery: loads the default snapshot and replays the journal on top of it.
+     * Throws InvalidObjectException when journal records refer to entities that are
+     * neither in the snapshot nor journaled; every other record has been applied by then.
+     */
+    public static boolean recover() throws IOException {
+        if (!loadSnapshot(DEFAULT_SNAPSHOT_FILE)) {
+            return false;
+        }
+        Journal.ReplayResult result = Journal.replay(Journal.DEFAULT_JOURNAL_FILE);
+        if (!result.isComplete()) {
+            throw new InvalidObjectException("Journal records for entities missing from the snapshot: "
+                + result.unmatchedKeys());
+        }
+        return true;
+    }
+
+    /**
+     * Writes the default snapshot and then truncates the open journal, whose
+     * records are all covered by the new snapshot.
+     */
+    public static void checkpoint() throws IOException {
+        // Journal appends synchronize on Journal.class; holding it keeps changes from
+        // landing between the snapshot and the truncation
+        synchronized (Journal.class) {
+            Journal.sync();
+            saveSnapshot(DEFAULT_SNAPSHOT_FILE);
+            Journal.checkpoint();
+        }
+    }
+
+    /**
+     * Loads all extents from a snapshot (falling back to the previous snapshot if the
+     * current one fails its checksum). Extents are only replaced once the whole file
+     * has been read; on any failure every extent is cleared and false is returned,
+     * matching the per-class loadExtent behaviour.
+     */
+    public static boolean loadSnapshot(String filename) {
+        try {
+            Map<String, List<?>> extents = AtomicFile.read(filename, in -> {
+                int version = in.readInt();
+                if (version != SNAPSHOT_VERSION) {
+                    throw new InvalidObjectException("Unsupported snapshot version: " + version);
+                }
+                Map<String, List<?>> read = new LinkedHashMap<>();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String name = in.readUTF();
+                    read.put(name, (List<?>) in.readObject());
+                }
+                return read;
+            });
+            restoreExtents(extents);
+            return true;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            clearAllExtents();
+            return false;
+        }
+    }
+
+
+    private static Map<String, List<?>> collectExtents() {
+        Map<String, List<?>> extents = new LinkedHashMap<>();
+        extents.put("customers", Customer.getAllCustomersFromExtent());
+        extents.put("employees", Employee.getAllEmployeesFromExtent());
+        extents.put("tables", Table.getAllTablesFromExtent());
+        extents.put("reservations", Reservation.getAllReservationsFromExtent());
+        extents.put("ingredients", Ingredient.getAllIngredients());
+        extents.put("suppliers", Supplier.getAllSuppliersFromExtent());
+        extents.put("supplyLogs", SupplyLog.getAllSupplyLogsFromExtent());
+        extents.put("menus", Menu.getAllMenusFromExtent());
+        extents.put("menuItems", MenuItem.getAllMenuItems());
+        extents.put("feedback", Feedback.getAllFeedback());
+        extents.put("discounts", Discount.getAllDiscounts());
+        extents.put("orderLevelDiscounts", OrderLevelDiscount.getAllOrderLevelDiscounts());
+        extents.put("itemLevelDiscounts", ItemLevelDiscount.getAllItemLevelDiscounts());
+        extents.put("orders", Order.getAllOrdersFromExtent());
+        extents.put("orderRequests", OrderRequest.getAllOrderRequestsFromExtent());
+        extents.put("itemQuantities", ItemQuantity.getAllItemQuantitiesFromExtent());
+        extents.put("payments", Payment.getAllPaymentsFromExtent());
+        extents.put("invoices", Invoice.getAllInvoices());
+        return extents;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void restoreExtents(Map<String, List<?>> extents) throws InvalidObjectException {
+        for (String name : collectExtents().keySet()) {
+            if (!extents.containsKey(name)) {
+                throw new InvalidObjectException("Snapshot is missing extent: " + name);
+            }
+        }
+
+        Customer.restoreExtent((List<Customer>) extents.get("customers"));
+        Employee.restoreExtent((List<Employee>) extents.get("employees"));
+        Table.restoreExtent((List<Table>) extents.get("tables"));
+        Reservation.restoreExtent((List<Reservation>) extents.get("reservations"));
+        Ingredient.restoreExtent((List<Ingredient>) extents.get("ingredients"));
+        Supplier.restoreExtent((List<Supplier>) extents.get("suppliers"));
+        SupplyLog.restoreExtent((List<SupplyLog>) extents.get("supplyLogs"));
+        Menu.restoreExtent((List<Menu>) extents.get("menus"));
+        MenuItem.restoreExtent((List<MenuItem>) extents.get("menuItems"));
+        Feedback.restoreExtent((List<Feedback>) extents.get("feedback"));
+        Discount.restoreExtent((List<Discount>) extents.get("discounts"));
+        OrderLevelDiscount.restoreOrderLevelExtent((List<OrderLevelDiscount>) extents.get("orderLevelDiscounts"));
+        ItemLevelDiscount.restoreItemLevelExtent((List<ItemLevelDiscount>) extents.get("itemLevelDiscounts"));
+        Order.restoreExtent((List<Order>) extents.get("orders"));
+        OrderRequest.restoreExtent((List<OrderRequest>) extents.get("orderRequests"));
+        ItemQuantity.restoreExtent((List<ItemQuantity>) extents.get("itemQuantities"));
+        Payment.restoreExtent((List<Payment>) extents.get("payments"));
+        Invoice.restoreExtent((List<Invoice>) extents.get("invoices"));
+    }
+
+    private static void clearAllExtents() {
+        Customer.clearExtent();
+        Employee.clearExtent();
+        Table.clearExtent();
+        Reservation.clearExtent();
+        Ingredient.clearExtent();
+        Supplier.clearExtent();
+        SupplyLog.clearExtent();
+        Menu.clearExtent();
+        MenuItem.clearExtent();
+        Feedback.clearExtent();
+        Discount.clearExtent();
+        OrderLevelDiscount.clearExtent();
+        ItemLevelDiscount.clearExtent();
+        Order.clearExtent();
+        OrderRequest.clearExtent();
+        ItemQuantity.clearExtent();
+        Payment.clearExtent();
+        Invoice.clearExtent();
+    }
+}
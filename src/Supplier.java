@@ -7,7 +7,7 @@ public class Supplier implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    private static List<Supplier> allSuppliers = new ArrayList<>();
+    private static final Extent<Supplier> allSuppliers = new Extent<>();
 
     private String name;
     private ContactInfo contactInfo;
@@ -110,7 +110,12 @@ public class Supplier implements Serializable {
     }
 
     public static List<Supplier> getAllSuppliersFromExtent() {
-        return Collections.unmodifiableList(allSuppliers);
+        return allSuppliers.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<Supplier> extent) {
+        allSuppliers.replaceWith(extent);
     }
 
     public static void clearExtent() {
@@ -118,17 +123,13 @@ public class Supplier implements Serializable {
     }
 
     public static void saveExtent(String filename) throws IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
-            out.writeObject(allSuppliers);
-        }
+        AtomicFile.writeObject(filename, new ArrayList<>(allSuppliers));
     }
 
     @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filepath))) {
-            allSuppliers = (List<Supplier>) in.readObject();
+        try {
+            allSuppliers.replaceWith((List<Supplier>) AtomicFile.readObject(filename));
             return true;
         } catch (IOException | ClassNotFoundException e) {
             allSuppliers.clear();
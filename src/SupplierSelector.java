@@ -0,0 +1,232 @@
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ranks the suppliers of each ingredient from their SupplyLog history.
+ *
+ * Delivery statistics are kept per (supplier, ingredient) pair and updated as supply
+ * logs are created, edited or deleted, so ranking reads the statistics and never
+ * rescans the logs. costAtSupply is the total paid for a delivery; unit costs are
+ * cost divided by quantity.
+ *
+ * Suppliers are ranked by effective unit cost: the most recent unit cost, raised by
+ * up to RELIABILITY_PENALTY (as a fraction) for a supplier rated 0 and not at all for
+ * one rated 5. The rating is read at ranking time, so rating changes apply at once.
+ */
+public final class SupplierSelector {
+
+    public static final double MAX_RATING = 5.0;
+    public static final double RELIABILITY_PENALTY = 1.0;
+
+    private static final Comparator<SupplierStats> BY_EFFECTIVE_COST =
+        Comparator.comparingDouble(SupplierStats::getEffectiveUnitCost)
+            .thenComparing(SupplierStats::getAverageUnitCost)
+            .thenComparing(stats -> stats.getSupplier().getName());
+
+    private static final Map<Ingredient, Map<Supplier, History>> historyByIngredient = new ConcurrentHashMap<>();
+
+    private SupplierSelector() {}
+
+    /**
+     * Suppliers that have delivered the ingredient, cheapest effective unit cost first.
+     */
+    public static List<SupplierStats> rankSuppliers(Ingredient ingredient) {
+        if (ingredient == null) {
+            throw new IllegalArgumentException("Ingredient cannot be null");
+        }
+        Map<Supplier, History> suppliers = historyByIngredient.get(ingredient);
+        if (suppliers == null) {
+            return List.of();
+        }
+        List<SupplierStats> ranking = new ArrayList<>(suppliers.size());
+        for (History history : suppliers.values()) {
+            SupplierStats stats = history.snapshot();
+            if (stats != null) {
+                ranking.add(stats);
+            }
+        }
+        ranking.sort(BY_EFFECTIVE_COST);
+        return ranking;
+    }
+
+    // Best supplier for the ingredient, null when it has no supply history
+    public static Supplier bestSupplier(Ingredient ingredient) {
+        List<SupplierStats> ranking = rankSuppliers(ingredient);
+        return ranking.isEmpty() ? null : ranking.get(0).getSupplier();
+    }
+
+    public static SupplierStats statsFor(Supplier supplier, Ingredient ingredient) {
+        if (supplier == null || ingredient == null) {
+            return null;
+        }
+        Map<Supplier, History> suppliers = historyByIngredient.get(ingredient);
+        History history = suppliers == null ? null : suppliers.get(supplier);
+        return history == null ? null : history.snapshot();
+    }
+
+    /**
+     * Best supplier for every registered ingredient that has supply history, in
+     * ingredient extent order.
+     */
+    public static Map<Ingredient, SupplierStats> recommendAll() {
+        Map<Ingredient, SupplierStats> recommendations = new LinkedHashMap<>();
+        for (Ingredient ingredient : Ingredient.getAllIngredients()) {
+            List<SupplierStats> ranking = rankSuppliers(ingredient);
+            if (!ranking.isEmpty()) {
+                recommendations.put(ingredient, ranking.get(0));
+            }
+        }
+        return recommendations;
+    }
+
+    // Package-private: SupplyLog reports registered logs before and after each change
+    static void logAdded(SupplyLog log) {
+        historyByIngredient.compute(log.getIngredient(), (ingredient, suppliers) -> {
+            if (suppliers == null) {
+                suppliers = new ConcurrentHashMap<>();
+            }
+            suppliers.computeIfAbsent(log.getSupplier(), supplier -> new History(supplier, ingredient)).add(log);
+            return suppliers;
+        });
+    }
+
+    static void logRemoved(SupplyLog log) {
+        historyByIngredient.computeIfPresent(log.getIngredient(), (ingredient, suppliers) -> {
+            suppliers.computeIfPresent(log.getSupplier(), (supplier, history) -> history.remove(log) ? history : null);
+            return suppliers.isEmpty() ? null : suppliers;
+        });
+    }
+
+    static void rebuild(Iterable<SupplyLog> logs) {
+        historyByIngredient.clear();
+        for (SupplyLog log : logs) {
+            logAdded(log);
+        }
+    }
+
+    // Running totals for one pair, with deliveries summed per day for the recent cost and date range
+    private static final class History {
+        private final Supplier supplier;
+        private final Ingredient ingredient;
+        private final TreeMap<LocalDate, Day> days = new TreeMap<>();
+        private int deliveryCount;
+        private double totalQuantity;
+        private double totalCost;
+
+        private History(Supplier supplier, Ingredient ingredient) {
+            this.supplier = supplier;
+            this.ingredient = ingredient;
+        }
+
+        synchronized void add(SupplyLog log) {
+            days.computeIfAbsent(log.getSupplyDate(), date -> new Day()).add(log, 1);
+            deliveryCount++;
+            totalQuantity += log.getQuantitySupplied();
+            totalCost += log.getCostAtSupply();
+        }
+
+        // Returns false once the pair has no deliveries left
+        synchronized boolean remove(SupplyLog log) {
+            Day day = days.get(log.getSupplyDate());
+            if (day == null) {
+                return deliveryCount > 0;
+            }
+            if (day.add(log, -1) == 0) {
+                days.remove(log.getSupplyDate());
+            }
+            deliveryCount--;
+            totalQuantity -= log.getQuantitySupplied();
+            totalCost -= log.getCostAtSupply();
+            return deliveryCount > 0;
+        }
+
+        synchronized SupplierStats snapshot() {
+            if (deliveryCount == 0) {
+                return null;
+            }
+            Map.Entry<LocalDate, Day> latest = days.lastEntry();
+            return new SupplierStats(supplier, ingredient, deliveryCount, totalQuantity, totalCost,
+                latest.getValue().cost / latest.getValue().quantity, days.firstKey(), latest.getKey());
+        }
+    }
+
+    private static final class Day {
+        private int count;
+        private double quantity;
+        private double cost;
+
+        int add(SupplyLog log, int sign) {
+            count += sign;
+            quantity += sign * log.getQuantitySupplied();
+            cost += sign * log.getCostAtSupply();
+            return count;
+        }
+    }
+
+    /**
+     * Delivery statistics for one supplier and ingredient at the time they were read.
+     */
+    public static final class SupplierStats {
+        private final Supplier supplier;
+        private final Ingredient ingredient;
+        private final int deliveryCount;
+        private final double totalQuantity;
+        private final double totalCost;
+        private final double recentUnitCost;
+        private final LocalDate firstDelivery;
+        private final LocalDate lastDelivery;
+        private final double effectiveUnitCost;
+
+        private SupplierStats(Supplier supplier, Ingredient ingredient, int deliveryCount, double totalQuantity,
+                              double totalCost, double recentUnitCost, LocalDate firstDelivery, LocalDate lastDelivery) {
+            this.supplier = supplier;
+            this.ingredient = ingredient;
+            this.deliveryCount = deliveryCount;
+            this.totalQuantity = totalQuantity;
+            this.totalCost = totalCost;
+            this.recentUnitCost = recentUnitCost;
+            this.firstDelivery = firstDelivery;
+            this.lastDelivery = lastDelivery;
+            double unreliability = (MAX_RATING - supplier.getReliabilityRating()) / MAX_RATING;
+            this.effectiveUnitCost = recentUnitCost * (1 + RELIABILITY_PENALTY * unreliability);
+        }
+
+        public Supplier getSupplier() { return supplier; }
+        public Ingredient getIngredient() { return ingredient; }
+        public int getDeliveryCount() { return deliveryCount; }
+        public double getTotalQuantity() { return totalQuantity; }
+        public double getTotalCost() { return totalCost; }
+        public LocalDate getFirstDelivery() { return firstDelivery; }
+        public LocalDate getLastDelivery() { return lastDelivery; }
+
+        // Unit cost of the latest delivery day (all deliveries on that day combined)
+        public double getRecentUnitCost() { return recentUnitCost; }
+
+        // Volume-weighted over all deliveries
+        public double getAverageUnitCost() { return totalCost / totalQuantity; }
+
+        public double getEffectiveUnitCost() { return effectiveUnitCost; }
+
+        // 0 until there are deliveries on at least two different days
+        public double getAverageDaysBetweenDeliveries() {
+            if (deliveryCount < 2) {
+                return 0.0;
+            }
+            return (double) ChronoUnit.DAYS.between(firstDelivery, lastDelivery) / (deliveryCount - 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("SupplierStats[supplier=%s, ingredient=%s, deliveries=%d, recent=%.2f, average=%.2f, effective=%.2f]",
+                supplier.getName(), ingredient.getName(), deliveryCount, recentUnitCost,
+                getAverageUnitCost(), effectiveUnitCost);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 import java.io.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 // {Bag} Association Class - allows multiple logs
@@ -9,7 +8,7 @@ public class SupplyLog implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    private static List<SupplyLog> allSupplyLogs = new ArrayList<>();
+    private static final Extent<SupplyLog> allSupplyLogs = new Extent<>();
 
     private Supplier supplier;
     private Ingredient ingredient;
@@ -45,13 +44,15 @@ public class SupplyLog implements Serializable {
     }
 
     public void delete() {
+        if (allSupplyLogs.remove(this)) {
+            SupplierSelector.logRemoved(this);
+        }
         if (supplier != null) {
             supplier.removeSupplyLog(this);
         }
         if (ingredient != null) {
             ingredient.removeSupplyLog(this);
         }
-        allSupplyLogs.remove(this);
         this.supplier = null;
         this.ingredient = null;
     }
@@ -69,21 +70,42 @@ public class SupplyLog implements Serializable {
         if (supplyDate.isAfter(LocalDate.now())) {
             throw new IllegalArgumentException("Supply date cannot be in the future");
         }
+        boolean tracked = beforeStatsChange();
         this.supplyDate = supplyDate;
+        afterStatsChange(tracked);
     }
 
     public void setCostAtSupply(double costAtSupply) {
         if (costAtSupply < 0) {
             throw new IllegalArgumentException("Cost at supply cannot be negative");
         }
+        boolean tracked = beforeStatsChange();
         this.costAtSupply = costAtSupply;
+        afterStatsChange(tracked);
     }
 
     public void setQuantitySupplied(double quantitySupplied) {
         if (quantitySupplied <= 0) {
             throw new IllegalArgumentException("Quantity supplied must be greater than zero");
         }
+        boolean tracked = beforeStatsChange();
         this.quantitySupplied = quantitySupplied;
+        afterStatsChange(tracked);
+    }
+
+    // Registered logs are taken out of the supplier statistics while a field changes
+    private boolean beforeStatsChange() {
+        boolean tracked = allSupplyLogs.contains(this);
+        if (tracked) {
+            SupplierSelector.logRemoved(this);
+        }
+        return tracked;
+    }
+
+    private void afterStatsChange(boolean tracked) {
+        if (tracked) {
+            SupplierSelector.logAdded(this);
+        }
     }
 
     private static void addSupplyLogToExtent(SupplyLog supplyLog) {
@@ -91,32 +113,38 @@ public class SupplyLog implements Serializable {
             throw new IllegalArgumentException("Supply log cannot be null");
         }
         allSupplyLogs.add(supplyLog);
+        SupplierSelector.logAdded(supplyLog);
     }
 
     public static List<SupplyLog> getAllSupplyLogsFromExtent() {
-        return Collections.unmodifiableList(allSupplyLogs);
+        return allSupplyLogs.view();
+    }
+
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<SupplyLog> extent) {
+        allSupplyLogs.replaceWith(extent);
+        SupplierSelector.rebuild(allSupplyLogs);
     }
 
     public static void clearExtent() {
         allSupplyLogs.clear();
+        SupplierSelector.rebuild(allSupplyLogs);
     }
 
     
     public static void saveExtent(String filename) throws IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
-            out.writeObject(allSupplyLogs);
-        }
+        AtomicFile.writeObject(filename, new ArrayList<>(allSupplyLogs));
     }
 
     @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filepath))) {
-            allSupplyLogs = (List<SupplyLog>) in.readObject();
+        try {
+            allSupplyLogs.replaceWith((List<SupplyLog>) AtomicFile.readObject(filename));
+            SupplierSelector.rebuild(allSupplyLogs);
             return true;
         } catch (IOException | ClassNotFoundException e) {
             allSupplyLogs.clear();
+            SupplierSelector.rebuild(allSupplyLogs);
             return false;
         }
     }
@@ -1,21 +1,35 @@
 import java.io.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class Table implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
     
-    private static List<Table> allTables = new ArrayList<>();
+    private static final Extent<Table> allTables = new Extent<>();
     
-    private TableStatus status;
+    private volatile TableStatus status;
     private int number;
     private int capacity;
     private String section;
     
     // Aggregation: Table -> Reservation (0..*)
     private List<Reservation> reservations;
+
+    // Interval index over the reservations, keyed by start time. Reservations on one table
+    // never overlap, so ordering by start also orders the ends and a single lowerEntry()
+    // lookup answers an overlap query. Rebuilt lazily after deserialization.
+    private transient NavigableMap<LocalDateTime, Reservation> schedule;
+
+    // Status changes are lock-free; TableAllocator seats guests by claiming AVAILABLE -> OCCUPIED
+    private static final AtomicReferenceFieldUpdater<Table, TableStatus> STATUS =
+        AtomicReferenceFieldUpdater.newUpdater(Table.class, TableStatus.class, "status");
     
     public Table() {
         this.reservations = new ArrayList<>();
@@ -45,7 +59,11 @@ public class Table implements Serializable {
                             this.capacity, reservation.getSize()));
         }
 
-        reservations.add(reservation);
+        synchronized (this) {
+            ensureFree(reservation.getStartDateTime(), reservation.getEndDateTime(), reservation);
+            reservations.add(reservation);
+            schedule().put(reservation.getStartDateTime(), reservation);
+        }
 
         if (reservation.getAssignedTable() != this) {
             reservation.assignTable(this);
@@ -62,7 +80,10 @@ public class Table implements Serializable {
             throw new IllegalArgumentException("This reservation is not assigned to this table");
         }
 
-        reservations.remove(reservation);
+        synchronized (this) {
+            reservations.remove(reservation);
+            schedule().remove(reservation.getStartDateTime(), reservation);
+        }
 
         if (reservation.getAssignedTable() == this) {
             reservation.removeTable();
@@ -87,6 +108,62 @@ public class Table implements Serializable {
         return false;
     }
     
+    // ---------- Schedule ----------
+
+    private NavigableMap<LocalDateTime, Reservation> schedule() {
+        if (schedule == null) {
+            schedule = new TreeMap<>();
+            for (Reservation reservation : reservations) {
+                schedule.put(reservation.getStartDateTime(), reservation);
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * The reservation overlapping [start, end), ignoring the given one, or null if
+     * the table is free for that slot.
+     */
+    public synchronized Reservation findConflict(LocalDateTime start, LocalDateTime end, Reservation ignore) {
+        if (start == null || end == null || !end.isAfter(start)) {
+            throw new IllegalArgumentException("Slot must have a start before its end");
+        }
+        // Only the last reservation starting before end can reach past start
+        Map.Entry<LocalDateTime, Reservation> last = schedule().lowerEntry(end);
+        if (last != null && last.getValue() == ignore) {
+            last = schedule().lowerEntry(last.getKey());
+        }
+        if (last != null && last.getValue().getEndDateTime().isAfter(start)) {
+            return last.getValue();
+        }
+        return null;
+    }
+
+    public boolean isFreeDuring(LocalDateTime start, LocalDateTime end) {
+        return findConflict(start, end, null) == null;
+    }
+
+    void ensureFree(LocalDateTime start, LocalDateTime end, Reservation ignore) {
+        Reservation conflict = findConflict(start, end, ignore);
+        if (conflict != null) {
+            throw new IllegalStateException(String.format(
+                "Table %d is already booked from %s to %s", number,
+                conflict.getStartDateTime(), conflict.getEndDateTime()));
+        }
+    }
+
+    // Package-private: Reservation moves its slot; called before its date/time/duration change
+    synchronized void reschedule(Reservation reservation, LocalDateTime newStart, LocalDateTime newEnd) {
+        ensureFree(newStart, newEnd, reservation);
+        schedule().remove(reservation.getStartDateTime(), reservation);
+        schedule().put(newStart, reservation);
+    }
+
+    // Reservations starting in [from, to), in start order
+    public synchronized List<Reservation> getReservationsBetween(LocalDateTime from, LocalDateTime to) {
+        return List.copyOf(schedule().subMap(from, true, to, false).values());
+    }
+
     public TableStatus getStatus() { return status; }
     public int getNumber() { return number; }
     public int getCapacity() { return capacity; }
@@ -96,25 +173,32 @@ public class Table implements Serializable {
         return Collections.unmodifiableList(reservations);
     }
     
+    // Number, capacity and section key the allocator's index, so the table is re-indexed around a change
     public void setNumber(int number) {
         if (number <= 0) {
             throw new IllegalArgumentException("Table number must be greater than zero");
         }
+        boolean indexed = TableAllocator.unindex(this);
         this.number = number;
+        if (indexed) TableAllocator.index(this);
     }
     
     public void setCapacity(int capacity) {
         if (capacity <= 0) {
             throw new IllegalArgumentException("Table capacity must be greater than zero");
         }
+        boolean indexed = TableAllocator.unindex(this);
         this.capacity = capacity;
+        if (indexed) TableAllocator.index(this);
     }
     
     public void setSection(String section) {
         if (section == null || section.trim().isEmpty()) {
             throw new IllegalArgumentException("Section cannot be null or empty");
         }
+        boolean indexed = TableAllocator.unindex(this);
         this.section = section.trim();
+        if (indexed) TableAllocator.index(this);
     }
 
     
@@ -122,14 +206,26 @@ public class Table implements Serializable {
         if (newStatus == null) {
             throw new IllegalArgumentException("Status cannot be null");
         }
-        this.status = newStatus;
+        STATUS.set(this, newStatus);
+        TableAllocator.statusChanged(this);
+    }
+
+    // Atomically moves the table from expected to newStatus; false if another thread got there first
+    public boolean compareAndSetStatus(TableStatus expected, TableStatus newStatus) {
+        if (newStatus == null) {
+            throw new IllegalArgumentException("Status cannot be null");
+        }
+        if (!STATUS.compareAndSet(this, expected, newStatus)) {
+            return false;
+        }
+        TableAllocator.statusChanged(this);
+        return true;
     }
     
     public void reserve() {
-        if (this.status != TableStatus.AVAILABLE) {
+        if (!compareAndSetStatus(TableStatus.AVAILABLE, TableStatus.RESERVED)) {
             throw new IllegalStateException("Table is not available for reservation");
         }
-        this.status = TableStatus.RESERVED;
     }
     
     public boolean isAvailableAtTime() {
@@ -140,32 +236,38 @@ public class Table implements Serializable {
         if (table == null) {
             throw new IllegalArgumentException("Table cannot be null");
         }
-        allTables.add(table);
+        if (allTables.add(table)) {
+            TableAllocator.index(table);
+        }
     }
     
     public static List<Table> getAllTablesFromExtent() {
-        return Collections.unmodifiableList(allTables);
+        return allTables.view();
     }
     
+    // Package-private: used by SnapshotManager to install a loaded extent
+    static void restoreExtent(List<Table> extent) {
+        allTables.replaceWith(extent);
+        TableAllocator.rebuild(allTables);
+    }
+
     public static void clearExtent() {
         allTables.clear();
+        TableAllocator.rebuild(allTables);
     }
     
     public static void saveExtent(String filename) throws IOException {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
-            out.writeObject(allTables);
-        }
+        AtomicFile.writeObject(filename, new ArrayList<>(allTables));
     }
     
     @SuppressWarnings("unchecked")
     public static boolean loadExtent(String filename) {
-        String filepath = PersistenceConfig.getDataFilePath(filename);
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filepath))) {
-            allTables = (List<Table>) in.readObject();
+        try {
+            allTables.replaceWith((List<Table>) AtomicFile.readObject(filename));
+            TableAllocator.rebuild(allTables);
             return true;
         } catch (IOException | ClassNotFoundException e) {
-            allTables.clear();
+            clearExtent();
             return false;
         }
     }
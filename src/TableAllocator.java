@@ -0,0 +1,231 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Suggests and claims tables for walk-in parties.
+ *
+ * Tables are indexed per section: all tables by number (tables with consecutive
+ * numbers in a section stand next to each other and can be pushed together), and the
+ * AVAILABLE ones by (capacity, number), so the smallest adequate table is a single
+ * ceiling lookup per section. Table keeps the index current as its number, capacity,
+ * section and status change; every structure is a concurrent map, so status updates
+ * never take a lock.
+ *
+ * The index only proposes candidates. Seating claims each table with a
+ * compare-and-set from AVAILABLE to OCCUPIED and retries with a fresh suggestion if
+ * another host stand claimed one of them first.
+ */
+public final class TableAllocator {
+
+    private static final Map<String, SectionIndex> sections = new ConcurrentHashMap<>();
+
+    private TableAllocator() {}
+
+    private static final class SectionIndex {
+        final ConcurrentSkipListMap<Integer, Table> byNumber = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListMap<Long, Table> available = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Best fit for the party: the smallest free table that seats it, or when no single
+     * table is big enough, the run of adjacent free tables in one section with the
+     * fewest spare seats. Empty if the party cannot be seated now.
+     */
+    public static List<Table> suggest(int partySize) {
+        return suggest(partySize, null);
+    }
+
+    // Same as above, restricted to one section when section is not null
+    public static List<Table> suggest(int partySize, String section) {
+        if (partySize <= 0) {
+            throw new IllegalArgumentException("Party size must be greater than zero");
+        }
+        Table best = null;
+        for (SectionIndex index : candidates(section)) {
+            Table table = smallestAvailable(index, partySize);
+            if (table != null && (best == null || table.getCapacity() < best.getCapacity())) {
+                best = table;
+            }
+        }
+        if (best != null) {
+            return List.of(best);
+        }
+
+        List<Table> bestRun = Collections.emptyList();
+        int bestSeats = Integer.MAX_VALUE;
+        for (SectionIndex index : candidates(section)) {
+            List<Table> run = smallestAdjacentRun(index, partySize);
+            int seats = seats(run);
+            if (!run.isEmpty() && (seats < bestSeats || (seats == bestSeats && run.size() < bestRun.size()))) {
+                bestRun = run;
+                bestSeats = seats;
+            }
+        }
+        return bestRun;
+    }
+
+    /**
+     * Seats the party at the best-fit tables and adds them to the dine-in order.
+     * Throws IllegalStateException if no free table or run of tables seats the party.
+     */
+    public static List<Table> seat(DineIn dineIn, int partySize) {
+        return seat(dineIn, partySize, null);
+    }
+
+    public static List<Table> seat(DineIn dineIn, int partySize, String section) {
+        if (dineIn == null) {
+            throw new IllegalArgumentException("DineIn cannot be null");
+        }
+        while (true) {
+            List<Table> tables = suggest(partySize, section);
+            if (tables.isEmpty()) {
+                throw new IllegalStateException(String.format("No free table for %d guests%s",
+                    partySize, section == null ? "" : " in " + section));
+            }
+            if (claimAll(tables)) {
+                for (Table table : tables) {
+                    dineIn.addTable(table);
+                }
+                return tables;
+            }
+        }
+    }
+
+    // Claims every table or none of them
+    private static boolean claimAll(List<Table> tables) {
+        List<Table> claimed = new ArrayList<>(tables.size());
+        for (Table table : tables) {
+            if (!table.compareAndSetStatus(TableStatus.AVAILABLE, TableStatus.OCCUPIED)) {
+                for (Table undo : claimed) {
+                    undo.compareAndSetStatus(TableStatus.OCCUPIED, TableStatus.AVAILABLE);
+                }
+                return false;
+            }
+            claimed.add(table);
+        }
+        return true;
+    }
+
+    private static Iterable<SectionIndex> candidates(String section) {
+        if (section == null) {
+            return sections.values();
+        }
+        SectionIndex index = sections.get(section.trim());
+        return index == null ? Collections.emptyList() : List.of(index);
+    }
+
+    private static Table smallestAvailable(SectionIndex index, int partySize) {
+        Map.Entry<Long, Table> entry = index.available.ceilingEntry(key(partySize, 0));
+        // Skip entries whose status changed after the lookup
+        while (entry != null && entry.getValue().getStatus() != TableStatus.AVAILABLE) {
+            entry = index.available.higherEntry(entry.getKey());
+        }
+        return entry == null ? null : entry.getValue();
+    }
+
+    // Shortest-seat window over runs of consecutively numbered free tables
+    private static List<Table> smallestAdjacentRun(SectionIndex index, int partySize) {
+        List<Table> window = new ArrayList<>();
+        int windowSeats = 0;
+        int start = 0;
+        List<Table> best = Collections.emptyList();
+        int bestSeats = Integer.MAX_VALUE;
+
+        for (Table table : index.byNumber.values()) {
+            boolean free = table.getStatus() == TableStatus.AVAILABLE;
+            boolean adjacent = !window.isEmpty()
+                && window.get(window.size() - 1).getNumber() + 1 == table.getNumber();
+            if (!free || !adjacent) {
+                window.clear();
+                windowSeats = 0;
+                start = 0;
+            }
+            if (!free) continue;
+
+            window.add(table);
+            windowSeats += table.getCapacity();
+            while (windowSeats - window.get(start).getCapacity() >= partySize) {
+                windowSeats -= window.get(start).getCapacity();
+                start++;
+            }
+            if (windowSeats >= partySize) {
+                int count = window.size() - start;
+                if (windowSeats < bestSeats || (windowSeats == bestSeats && count < best.size())) {
+                    best = List.copyOf(window.subList(start, window.size()));
+                    bestSeats = windowSeats;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int seats(List<Table> tables) {
+        int seats = 0;
+        for (Table table : tables) {
+            seats += table.getCapacity();
+        }
+        return seats;
+    }
+
+    private static long key(int capacity, int number) {
+        return ((long) capacity << 32) | number;
+    }
+
+    private static long key(Table table) {
+        return key(table.getCapacity(), table.getNumber());
+    }
+
+
+    // ---------- Index maintenance (called by Table) ----------
+
+    static void index(Table table) {
+        if (table.getSection() == null) {
+            return;
+        }
+        SectionIndex index = sections.computeIfAbsent(table.getSection(), s -> new SectionIndex());
+        index.byNumber.put(table.getNumber(), table);
+        refresh(index, table);
+    }
+
+    // Returns whether the table was indexed
+    static boolean unindex(Table table) {
+        SectionIndex index = table.getSection() == null ? null : sections.get(table.getSection());
+        if (index == null) {
+            return false;
+        }
+        index.available.remove(key(table), table);
+        return index.byNumber.remove(table.getNumber(), table);
+    }
+
+    static void statusChanged(Table table) {
+        SectionIndex index = table.getSection() == null ? null : sections.get(table.getSection());
+        if (index != null && index.byNumber.get(table.getNumber()) == table) {
+            refresh(index, table);
+        }
+    }
+
+    static void rebuild(Iterable<Table> tables) {
+        sections.clear();
+        for (Table table : tables) {
+            index(table);
+        }
+    }
+
+    private static void refresh(SectionIndex index, Table table) {
+        long key = key(table);
+        TableStatus seen;
+        // Re-check after writing so a racing status change cannot leave a stale entry behind
+        do {
+            seen = table.getStatus();
+            if (seen == TableStatus.AVAILABLE) {
+                index.available.put(key, table);
+            } else {
+                index.available.remove(key, table);
+            }
+        } while (table.getStatus() != seen);
+    }
+}
@@ -40,14 +40,17 @@ public class Takeaway implements Serializable, ITakeaway {
             throw new IllegalArgumentException("Collection time cannot be null");
         }
         this.collectionTime = collectionTime;
+        order.markChanged();
     }
 
     public void setWasPickedUp(boolean wasPickedUp) {
         this.wasPickedUp = wasPickedUp;
+        order.markChanged();
     }
 
     public void markAsPickedUp() {
         this.wasPickedUp = true;
+        order.markChanged();
     }
 
     
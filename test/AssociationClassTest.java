@@ -143,6 +143,55 @@ public class AssociationClassTest {
         });
     }
 
+    // ---------- Uniqueness Tests ----------
+
+    @Test
+    @DisplayName("ItemQuantity: Duplicate pair throws exception")
+    void testItemQuantityDuplicatePair() {
+        OrderRequest request = new OrderRequest();
+        NutritionalInfo nutrition = new NutritionalInfo(100, 10, 10, 10, 5);
+        MenuItem item = new MainDish("Risotto", "Mushroom risotto", 32.0, "img", "Italy", nutrition, 0);
+
+        ItemQuantity.create(request, item, 1);
+
+        assertThrows(IllegalStateException.class, () -> {
+            ItemQuantity.create(request, item, 2);
+        });
+        assertEquals(1, ItemQuantity.getAllItemQuantitiesFromExtent().size());
+    }
+
+    @Test
+    @DisplayName("ItemQuantity: Same item allowed in different requests")
+    void testItemQuantitySameItemDifferentRequests() {
+        OrderRequest request1 = new OrderRequest();
+        OrderRequest request2 = new OrderRequest();
+        NutritionalInfo nutrition = new NutritionalInfo(100, 10, 10, 10, 5);
+        MenuItem item = new MainDish("Lasagne", "Beef lasagne", 34.0, "img", "Italy", nutrition, 1);
+
+        ItemQuantity iq1 = ItemQuantity.create(request1, item, 1);
+        ItemQuantity iq2 = ItemQuantity.create(request2, item, 2);
+
+        assertSame(iq1, ItemQuantity.find(request1, item));
+        assertSame(iq2, ItemQuantity.find(request2, item));
+        assertEquals(2, item.getItemQuantities().size());
+    }
+
+    @Test
+    @DisplayName("ItemQuantity: Delete frees the pair for a new ItemQuantity")
+    void testItemQuantityRecreateAfterDelete() {
+        OrderRequest request = new OrderRequest();
+        NutritionalInfo nutrition = new NutritionalInfo(100, 10, 10, 10, 5);
+        MenuItem item = new MainDish("Gnocchi", "Potato gnocchi", 27.0, "img", "Italy", nutrition, 0);
+
+        ItemQuantity iq = ItemQuantity.create(request, item, 1);
+        iq.delete();
+        assertNull(ItemQuantity.find(request, item));
+
+        ItemQuantity recreated = ItemQuantity.create(request, item, 4);
+        assertSame(recreated, ItemQuantity.find(request, item));
+        assertEquals(1, ItemQuantity.getAllItemQuantitiesFromExtent().size());
+    }
+
     // ============================================
     // SUPPLYLOG TESTS ({Bag} Association Class)
     // ============================================
@@ -0,0 +1,160 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for checksummed atomic data file writes and previous-generation fallback.
+ */
+public class AtomicFileTest {
+
+    private static final String TEST_FILE = "test_atomic.dat";
+
+    @BeforeEach
+    void setup() {
+        Table.clearExtent();
+        PersistenceConfig.deleteDataFile(TEST_FILE);
+    }
+
+    @AfterEach
+    void cleanup() {
+        PersistenceConfig.setCompressionLevel(TEST_FILE, PersistenceConfig.NO_COMPRESSION);
+        PersistenceConfig.deleteDataFile(TEST_FILE);
+        PersistenceConfig.deleteDataFile(TEST_FILE + AtomicFile.TEMP_SUFFIX);
+    }
+
+    private static File file(String name) {
+        return new File(PersistenceConfig.getDataFilePath(name));
+    }
+
+    private static void corruptByte(File file, long position) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(position);
+            int value = raf.read();
+            raf.seek(position);
+            raf.write(value ^ 0xFF);
+        }
+    }
+
+    @Test
+    @DisplayName("Written object reads back and no temp file is left")
+    void testRoundTrip() throws Exception {
+        AtomicFile.writeObject(TEST_FILE, new ArrayList<>(List.of("a", "b")));
+
+        assertEquals(List.of("a", "b"), AtomicFile.readObject(TEST_FILE));
+        assertFalse(file(TEST_FILE + AtomicFile.TEMP_SUFFIX).exists());
+    }
+
+    @Test
+    @DisplayName("Second write keeps the previous generation")
+    void testPreviousGenerationKept() throws Exception {
+        AtomicFile.writeObject(TEST_FILE, "first");
+        assertFalse(file(TEST_FILE + AtomicFile.BACKUP_SUFFIX).exists());
+
+        AtomicFile.writeObject(TEST_FILE, "second");
+        assertTrue(file(TEST_FILE + AtomicFile.BACKUP_SUFFIX).exists());
+        assertEquals("second", AtomicFile.readObject(TEST_FILE));
+    }
+
+    @Test
+    @DisplayName("Corrupt current file falls back to the previous generation")
+    void testChecksumFallback() throws Exception {
+        AtomicFile.writeObject(TEST_FILE, "first");
+        AtomicFile.writeObject(TEST_FILE, "second");
+        corruptByte(file(TEST_FILE), 10);
+
+        assertEquals("first", AtomicFile.readObject(TEST_FILE));
+    }
+
+    @Test
+    @DisplayName("Truncated current file falls back to the previous generation")
+    void testTruncatedFallback() throws Exception {
+        AtomicFile.writeObject(TEST_FILE, "first");
+        AtomicFile.writeObject(TEST_FILE, new ArrayList<>(List.of("second", "generation")));
+        try (RandomAccessFile raf = new RandomAccessFile(file(TEST_FILE), "rw")) {
+            raf.setLength(raf.length() - 24);
+        }
+
+        assertEquals("first", AtomicFile.readObject(TEST_FILE));
+    }
+
+    @Test
+    @DisplayName("Missing current file falls back to the previous generation")
+    void testMissingCurrentFallback() throws Exception {
+        AtomicFile.writeObject(TEST_FILE, "first");
+        AtomicFile.writeObject(TEST_FILE, "second");
+        assertTrue(file(TEST_FILE).delete());
+
+        assertEquals("first", AtomicFile.readObject(TEST_FILE));
+    }
+
+    @Test
+    @DisplayName("Corrupt file without previous generation throws exception")
+    void testCorruptWithoutBackup() throws Exception {
+        AtomicFile.writeObject(TEST_FILE, "only");
+        corruptByte(file(TEST_FILE), 10);
+
+        assertThrows(StreamCorruptedException.class, () -> AtomicFile.readObject(TEST_FILE));
+    }
+
+    @Test
+    @DisplayName("Files without a checksum trailer are still readable")
+    void testLegacyFileReadable() throws Exception {
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file(TEST_FILE)))) {
+            out.writeObject("legacy");
+        }
+        assertEquals("legacy", AtomicFile.readObject(TEST_FILE));
+    }
+
+    @Test
+    @DisplayName("Compressed file is smaller and reads back whatever the current level")
+    void testCompressedRoundTrip() throws Exception {
+        List<String> repetitive = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            repetitive.add("Order line " + (i % 10));
+        }
+        AtomicFile.writeObject(TEST_FILE, new ArrayList<>(repetitive));
+        long plainSize = file(TEST_FILE).length();
+
+        PersistenceConfig.setCompressionLevel(TEST_FILE, 6);
+        AtomicFile.writeObject(TEST_FILE, new ArrayList<>(repetitive));
+        assertTrue(file(TEST_FILE).length() < plainSize / 2);
+
+        PersistenceConfig.setCompressionLevel(TEST_FILE, PersistenceConfig.NO_COMPRESSION);
+        assertEquals(repetitive, AtomicFile.readObject(TEST_FILE));
+    }
+
+    @Test
+    @DisplayName("Corrupt compressed file falls back to the previous generation")
+    void testCompressedChecksumFallback() throws Exception {
+        PersistenceConfig.setCompressionLevel(TEST_FILE, 1);
+        AtomicFile.writeObject(TEST_FILE, "first");
+        AtomicFile.writeObject(TEST_FILE, "second");
+        corruptByte(file(TEST_FILE), 4);
+
+        assertEquals("first", AtomicFile.readObject(TEST_FILE));
+    }
+
+    @Test
+    @DisplayName("Invalid compression level throws exception")
+    void testInvalidCompressionLevel() {
+        assertThrows(IllegalArgumentException.class, () -> PersistenceConfig.setCompressionLevel(TEST_FILE, 10));
+        assertThrows(IllegalArgumentException.class, () -> PersistenceConfig.setCompressionLevel(TEST_FILE, -1));
+    }
+
+    @Test
+    @DisplayName("loadExtent recovers the previous generation of a corrupt extent file")
+    void testExtentFallback() throws Exception {
+        new Table(1, 4, "Main Hall");
+        Table.saveExtent(TEST_FILE);
+        new Table(2, 2, "Terrace");
+        Table.saveExtent(TEST_FILE);
+        corruptByte(file(TEST_FILE), file(TEST_FILE).length() - 20);
+
+        Table.clearExtent();
+        assertTrue(Table.loadExtent(TEST_FILE));
+        assertEquals(1, Table.getAllTablesFromExtent().size());
+    }
+}
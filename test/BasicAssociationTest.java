@@ -1,9 +1,15 @@
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
+import java.lang.reflect.Field;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
 
 public class BasicAssociationTest {
 
+    private static final String LEGACY_FILE = "test_legacy_customers.dat";
+
     @BeforeEach
     void setup() {
         Customer.clearExtent();
@@ -72,6 +78,105 @@ public class BasicAssociationTest {
         assertNull(order.getCustomer());
     }
 
+    // ============================================
+    // ORDER HISTORY TESTS
+    // ============================================
+
+    @Test
+    @DisplayName("Order History: Sorted newest first")
+    void testOrderHistorySorted() {
+        Customer customer = new Customer("John", "Doe", "john@test.com", "123456", LocalDateTime.now());
+        Order oldest = Order.createDineIn(customer);
+        Order newest = Order.createTakeaway(customer);
+        Order middle = Order.createDineIn(customer);
+        oldest.setDate(LocalDate.of(2024, 1, 10));
+        newest.setDate(LocalDate.of(2024, 3, 5));
+        middle.setDate(LocalDate.of(2024, 3, 5));
+        middle.setTime(LocalTime.of(0, 0));
+
+        assertEquals(List.of(newest, middle, oldest), Order.viewOrderHistory(customer));
+    }
+
+    @Test
+    @DisplayName("Order History: Follows customer changes and deletes")
+    void testOrderHistoryFollowsAssociation() {
+        Customer c1 = new Customer("C1", "D1", "c1@test.com", "111", LocalDateTime.now());
+        Customer c2 = new Customer("C2", "D2", "c2@test.com", "222", LocalDateTime.now());
+        Order moved = Order.createDineIn(c1);
+        Order deleted = Order.createDineIn(c1);
+
+        moved.setCustomer(c2);
+        deleted.delete();
+
+        assertTrue(Order.viewOrderHistory(c1).isEmpty());
+        assertEquals(List.of(moved), Order.viewOrderHistory(c2));
+
+        moved.setTime(LocalTime.of(12, 30));
+        assertEquals(1, c2.getOrderHistory().size());
+        assertTrue(c2.getOrderHistory().contains(moved));
+    }
+
+    @Test
+    @DisplayName("Order History: Paginated view")
+    void testOrderHistoryPagination() {
+        Customer customer = new Customer("John", "Doe", "john@test.com", "123456", LocalDateTime.now());
+        for (int day = 1; day <= 5; day++) {
+            Order.createTakeaway(customer).setDate(LocalDate.of(2024, 5, day));
+        }
+
+        List<Order> firstPage = Order.viewOrderHistory(customer, null, 2);
+        List<Order> secondPage = Order.viewOrderHistory(customer, firstPage.get(1), 2);
+        List<Order> lastPage = Order.viewOrderHistory(customer, secondPage.get(1), 2);
+
+        assertEquals(2, firstPage.size());
+        assertEquals(LocalDate.of(2024, 5, 5), firstPage.get(0).getDate());
+        assertEquals(LocalDate.of(2024, 5, 3), secondPage.get(0).getDate());
+        assertEquals(1, lastPage.size());
+        assertEquals(LocalDate.of(2024, 5, 1), lastPage.get(0).getDate());
+        assertTrue(Order.viewOrderHistory(customer, lastPage.get(0), 2).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> Order.viewOrderHistory(customer, null, 0));
+
+        // A new order in between pages does not shift the next page
+        Order.createTakeaway(customer).setDate(LocalDate.of(2024, 6, 1));
+        assertEquals(secondPage, Order.viewOrderHistory(customer, firstPage.get(1), 2));
+    }
+
+    @Test
+    @DisplayName("Order History: Rebuilt for customers loaded from a legacy file")
+    void testOrderHistoryFromLegacyFile() throws Exception {
+        Customer customer = new Customer("John", "Doe", "john@test.com", "123456", LocalDateTime.now());
+        Order older = Order.createDineIn(customer);
+        Order newer = Order.createTakeaway(customer);
+        older.setDate(LocalDate.of(2024, 1, 10));
+        newer.setDate(LocalDate.of(2024, 2, 10));
+
+        // Files written before customers had an id or a sorted history
+        Field idField = Customer.class.getDeclaredField("customerId");
+        Field historyField = Customer.class.getDeclaredField("orderHistory");
+        idField.setAccessible(true);
+        historyField.setAccessible(true);
+        idField.set(customer, null);
+        historyField.set(customer, null);
+        try {
+            AtomicFile.writeObject(LEGACY_FILE, List.of(customer));
+
+            Customer.clearExtent();
+            assertTrue(Customer.loadExtent(LEGACY_FILE));
+            Customer loaded = Customer.getAllCustomersFromExtent().get(0);
+
+            assertNotNull(loaded.getCustomerId());
+            List<Order> history = Order.viewOrderHistory(loaded);
+            assertEquals(2, history.size());
+            assertEquals(LocalDate.of(2024, 2, 10), history.get(0).getDate());
+
+            Order added = Order.createTakeaway(loaded);
+            assertEquals(3, loaded.getOrderHistory().size());
+            assertTrue(loaded.getOrderHistory().contains(added));
+        } finally {
+            PersistenceConfig.deleteDataFile(LEGACY_FILE);
+        }
+    }
+
     // ============================================
     // EXCEPTION/ERROR HANDLING TESTS
     // ============================================
@@ -0,0 +1,146 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * Tests for the compact encodings and the hand-written serialization of the
+ * high-volume classes.
+ */
+public class BinaryCodecTest {
+
+    @BeforeEach
+    void clearExtents() {
+        Customer.clearExtent();
+        Order.clearExtent();
+        Payment.clearExtent();
+        OrderRequest.clearExtent();
+        ItemQuantity.clearExtent();
+        MenuItem.clearExtent();
+    }
+
+    @Test
+    @DisplayName("Varints, ids, enums and dates round trip")
+    void testPrimitiveRoundTrip() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        BinaryCodec.writeVarInt(out, 300);
+        BinaryCodec.writeSignedVarLong(out, -123456789L);
+        BinaryCodec.writeId(out, "0f8fad5b-d9cb-469f-a165-70867728950e");
+        BinaryCodec.writeId(out, "REQ-1");
+        BinaryCodec.writeEnum(out, OrderStatus.COMPLETED);
+        BinaryCodec.writeEnum(out, null);
+        BinaryCodec.writeDate(out, LocalDate.of(2024, 2, 29));
+        BinaryCodec.writeTime(out, LocalTime.of(23, 59, 59, 999));
+        BinaryCodec.writeDateTime(out, null);
+        BinaryCodec.writeString(out, null);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(300, BinaryCodec.readVarInt(in));
+        assertEquals(-123456789L, BinaryCodec.readSignedVarLong(in));
+        assertEquals("0f8fad5b-d9cb-469f-a165-70867728950e", BinaryCodec.readId(in));
+        assertEquals("REQ-1", BinaryCodec.readId(in));
+        assertEquals(OrderStatus.COMPLETED, BinaryCodec.readEnum(in, OrderStatus.values()));
+        assertNull(BinaryCodec.readEnum(in, OrderStatus.values()));
+        assertEquals(LocalDate.of(2024, 2, 29), BinaryCodec.readDate(in));
+        assertEquals(LocalTime.of(23, 59, 59, 999), BinaryCodec.readTime(in));
+        assertNull(BinaryCodec.readDateTime(in));
+        assertNull(BinaryCodec.readString(in));
+    }
+
+    @Test
+    @DisplayName("Small values use one byte")
+    void testVarIntIsCompact() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryCodec.writeVarInt(new DataOutputStream(bytes), 127);
+        assertEquals(1, bytes.size());
+    }
+
+    @Test
+    @DisplayName("Order graph keeps fields and shared references")
+    void testOrderGraphRoundTrip() throws Exception {
+        Customer customer = new Customer("John", "Doe", "john@test.com", "123456", LocalDateTime.now());
+        Order order = Order.createTakeaway(customer);
+        order.setDate(LocalDate.of(2024, 5, 1));
+        new Card(120.0, order, "1234", "Visa");
+        new Cash(30.0, order, 50.0);
+        order.finalizeOrder();
+
+        OrderRequest request = new OrderRequest();
+        request.setRequestId("REQ-42");
+        MenuItem pizza = new MainDish("Pizza", "Italian pizza", 30.0, "img", "Italy",
+            new NutritionalInfo(100, 10, 10, 10, 5), 2);
+        ItemQuantity line = ItemQuantity.create(request, pizza, 3, "No onions");
+        line.markAsServed();
+
+        Object[] copy = roundTrip(new Object[] {order, request});
+        Order loadedOrder = (Order) copy[0];
+        OrderRequest loadedRequest = (OrderRequest) copy[1];
+
+        assertEquals(order.getOrderId(), loadedOrder.getOrderId());
+        assertEquals(OrderStatus.AWAITING_PAYMENT, loadedOrder.getStatus());
+        assertEquals(LocalDate.of(2024, 5, 1), loadedOrder.getDate());
+        assertEquals(order.getTime(), loadedOrder.getTime());
+        assertTrue(loadedOrder.isTakeaway());
+        assertEquals(2, loadedOrder.getPayments().size());
+        for (Payment payment : loadedOrder.getPayments()) {
+            assertSame(loadedOrder, payment.getOrder());
+            if (payment instanceof Card card) {
+                assertEquals("1234", card.getLastFourDigits());
+                assertEquals(120.0, card.getAmountPayed(), 0.001);
+            } else {
+                assertEquals(20.0, ((Cash) payment).getChangeGiven(), 0.001);
+            }
+        }
+        assertTrue(loadedOrder.getCustomer().getOrders().contains(loadedOrder));
+
+        assertEquals("REQ-42", loadedRequest.getRequestId());
+        ItemQuantity loadedLine = loadedRequest.getItemQuantities().get(0);
+        assertSame(loadedRequest, loadedLine.getOrderRequest());
+        assertEquals(3, loadedLine.getQuantity());
+        assertEquals("No onions", loadedLine.getSpecialRequests());
+        assertEquals(line.getServedTimestamp(), loadedLine.getServedTimestamp());
+        assertEquals(line.getItemQuantityId(), loadedLine.getItemQuantityId());
+    }
+
+    @Test
+    @DisplayName("Streams written with the old default serialized form are rejected")
+    void testOldFormatRejected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new OrderRequest());
+        }
+        // The class descriptor is the UTF class name followed by its serialVersionUID
+        byte[] stream = bytes.toByteArray();
+        byte[] name = "OrderRequest".getBytes(StandardCharsets.UTF_8);
+        int uidOffset = -1;
+        for (int i = 0; i + name.length <= stream.length && uidOffset < 0; i++) {
+            if (Arrays.equals(stream, i, i + name.length, name, 0, name.length)) {
+                uidOffset = i + name.length;
+            }
+        }
+        assertTrue(uidOffset > 0);
+        for (int i = 0; i < 8; i++) {
+            stream[uidOffset + i] = (byte) (i == 7 ? 1 : 0);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(stream))) {
+            assertThrows(InvalidClassException.class, in::readObject);
+        }
+    }
+
+    private static Object[] roundTrip(Object[] objects) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(objects);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (Object[]) in.readObject();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for slot booking and the per-table reservation schedule.
+ */
+public class BookingEngineTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(7);
+    private static final Duration TWO_HOURS = Duration.ofHours(2);
+
+    private Customer customer;
+
+    @BeforeEach
+    void setup() {
+        Customer.clearExtent();
+        Reservation.clearExtent();
+        Table.clearExtent();
+        customer = new Customer("John", "Doe", "john@test.com", "123456", LocalDateTime.now());
+    }
+
+    private Customer newCustomer(int i) {
+        return new Customer("Guest", "G" + i, "g" + i + "@test.com", "200" + i, LocalDateTime.now());
+    }
+
+    @Test
+    @DisplayName("Overlapping reservation on the same table is rejected")
+    void testOverlapRejected() {
+        Table table = new Table(1, 4, "Main Hall");
+        new Reservation(DAY, LocalTime.of(18, 0), 2, TWO_HOURS, customer, table);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> new Reservation(DAY, LocalTime.of(19, 0), 2, TWO_HOURS, newCustomer(1), table));
+        assertTrue(e.getMessage().contains("already booked"));
+        assertThrows(IllegalStateException.class,
+            () -> new Reservation(DAY, LocalTime.of(17, 0), 2, Duration.ofHours(4), newCustomer(2), table));
+        assertEquals(1, table.getReservations().size());
+        assertEquals(1, Reservation.getAllReservationsFromExtent().size());
+    }
+
+    @Test
+    @DisplayName("Back-to-back slots do not overlap")
+    void testAdjacentSlots() {
+        Table table = new Table(1, 4, "Main Hall");
+        new Reservation(DAY, LocalTime.of(18, 0), 2, TWO_HOURS, customer, table);
+        new Reservation(DAY, LocalTime.of(16, 0), 2, TWO_HOURS, newCustomer(1), table);
+        new Reservation(DAY, LocalTime.of(20, 0), 2, TWO_HOURS, newCustomer(2), table);
+
+        assertEquals(3, table.getReservations().size());
+        assertFalse(table.isFreeDuring(DAY.atTime(19, 59), DAY.atTime(20, 1)));
+        assertTrue(table.isFreeDuring(DAY.atTime(22, 0), DAY.atTime(23, 0)));
+        assertEquals(2, table.getReservationsBetween(DAY.atTime(16, 0), DAY.atTime(20, 0)).size());
+    }
+
+    @Test
+    @DisplayName("Free tables are filtered by capacity, section and slot, smallest first")
+    void testFindFreeTables() {
+        Table small = new Table(1, 2, "Main Hall");
+        Table medium = new Table(2, 4, "Main Hall");
+        Table large = new Table(3, 8, "Main Hall");
+        Table terrace = new Table(4, 4, "Terrace");
+        new Reservation(DAY, LocalTime.of(18, 0), 3, TWO_HOURS, customer, medium);
+
+        LocalDateTime start = DAY.atTime(19, 0);
+        assertEquals(List.of(terrace, large), BookingEngine.findFreeTables(3, start, TWO_HOURS));
+        assertEquals(List.of(large), BookingEngine.findFreeTables(3, start, TWO_HOURS, "Main Hall"));
+        assertEquals(List.of(small, medium, terrace, large),
+            BookingEngine.findFreeTables(2, DAY.atTime(20, 0), TWO_HOURS));
+    }
+
+    @Test
+    @DisplayName("Book picks the smallest free table and fails when none is left")
+    void testBook() {
+        Table medium = new Table(2, 4, "Main Hall");
+        Table large = new Table(3, 8, "Main Hall");
+
+        Reservation first = BookingEngine.book(customer, DAY, LocalTime.of(18, 0), 3, TWO_HOURS);
+        assertSame(medium, first.getAssignedTable());
+        Reservation second = BookingEngine.book(newCustomer(1), DAY, LocalTime.of(18, 30), 3, TWO_HOURS);
+        assertSame(large, second.getAssignedTable());
+        assertThrows(IllegalStateException.class,
+            () -> BookingEngine.book(newCustomer(2), DAY, LocalTime.of(19, 0), 2, TWO_HOURS));
+
+        BookingEngine.cancel(first);
+        assertEquals(ReservationStatus.CANCELLED, first.getStatus());
+        assertTrue(BookingEngine.isFree(medium, DAY.atTime(18, 0), TWO_HOURS));
+        assertSame(medium, BookingEngine.book(newCustomer(3), DAY, LocalTime.of(19, 0), 2, TWO_HOURS)
+            .getAssignedTable());
+    }
+
+    @Test
+    @DisplayName("Moving a reservation into a taken slot is rejected and leaves it in place")
+    void testRescheduleConflict() {
+        Table table = new Table(1, 4, "Main Hall");
+        Reservation early = new Reservation(DAY, LocalTime.of(12, 0), 2, TWO_HOURS, customer, table);
+        new Reservation(DAY, LocalTime.of(18, 0), 2, TWO_HOURS, newCustomer(1), table);
+
+        assertThrows(IllegalStateException.class, () -> early.setTime(LocalTime.of(17, 0)));
+        assertThrows(IllegalStateException.class, () -> early.setDuration(Duration.ofHours(7)));
+        assertEquals(LocalTime.of(12, 0), early.getTime());
+        assertEquals(TWO_HOURS, early.getDuration());
+
+        early.setTime(LocalTime.of(14, 0));
+        early.setDuration(Duration.ofHours(4));
+        assertFalse(table.isFreeDuring(DAY.atTime(17, 0), DAY.atTime(17, 30)));
+        assertTrue(table.isFreeDuring(DAY.atTime(12, 0), DAY.atTime(14, 0)));
+    }
+
+    @Test
+    @DisplayName("Moving a reservation to a busy table is rejected")
+    void testAssignBusyTable() {
+        Table first = new Table(1, 4, "Main Hall");
+        Table second = new Table(2, 4, "Main Hall");
+        Reservation reservation = new Reservation(DAY, LocalTime.of(18, 0), 2, TWO_HOURS, customer, first);
+        new Reservation(DAY, LocalTime.of(19, 0), 2, TWO_HOURS, newCustomer(1), second);
+
+        assertThrows(IllegalStateException.class, () -> reservation.assignTable(second));
+        assertSame(first, reservation.getAssignedTable());
+    }
+
+    @Test
+    @DisplayName("Customer clash on a move leaves the table schedule untouched")
+    void testRescheduleCustomerClash() {
+        Table first = new Table(1, 4, "Main Hall");
+        Table second = new Table(2, 4, "Main Hall");
+        Reservation lunch = new Reservation(DAY, LocalTime.of(12, 0), 2, TWO_HOURS, customer, first);
+        new Reservation(DAY, LocalTime.of(18, 0), 2, TWO_HOURS, customer, second);
+
+        assertThrows(IllegalStateException.class, () -> lunch.setTime(LocalTime.of(18, 0)));
+
+        assertEquals(LocalTime.of(12, 0), lunch.getTime());
+        assertFalse(first.isFreeDuring(DAY.atTime(12, 0), DAY.atTime(13, 0)));
+        assertTrue(first.isFreeDuring(DAY.atTime(18, 0), DAY.atTime(20, 0)));
+        assertSame(lunch, customer.getReservation(DAY.atTime(12, 0)));
+    }
+
+    @Test
+    @DisplayName("Table refusing a move leaves the customer's key in place")
+    void testRescheduleTableClashKeepsCustomerKey() {
+        Table table = new Table(1, 4, "Main Hall");
+        Reservation early = new Reservation(DAY, LocalTime.of(12, 0), 2, TWO_HOURS, customer, table);
+        new Reservation(DAY, LocalTime.of(18, 0), 2, TWO_HOURS, newCustomer(1), table);
+
+        assertThrows(IllegalStateException.class, () -> early.setTime(LocalTime.of(17, 0)));
+
+        assertSame(early, customer.getReservation(DAY.atTime(12, 0)));
+        assertNull(customer.getReservation(DAY.atTime(17, 0)));
+    }
+
+    @Test
+    @DisplayName("Failed construction registers the reservation nowhere")
+    void testFailedConstructionLeavesNothing() {
+        Table small = new Table(1, 2, "Main Hall");
+        Table other = new Table(2, 4, "Main Hall");
+        new Reservation(DAY, LocalTime.of(18, 0), 2, TWO_HOURS, customer, other);
+
+        // Party too large for the table: fails after the customer link is made
+        assertThrows(IllegalArgumentException.class,
+            () -> new Reservation(DAY, LocalTime.of(12, 0), 4, TWO_HOURS, customer, small));
+        // Customer already booked at that time: fails before the table is touched
+        assertThrows(IllegalStateException.class,
+            () -> new Reservation(DAY, LocalTime.of(18, 0), 2, TWO_HOURS, customer, small));
+
+        assertNull(customer.getReservation(DAY.atTime(12, 0)));
+        assertTrue(small.getReservations().isEmpty());
+        assertTrue(small.isFreeDuring(DAY.atTime(12, 0), DAY.atTime(20, 0)));
+        assertEquals(1, Reservation.getAllReservationsFromExtent().size());
+    }
+
+    @Test
+    @DisplayName("Concurrent bookings of the last table succeed exactly once")
+    void testConcurrentBookLastTable() throws Exception {
+        new Table(1, 4, "Main Hall");
+        int terminals = 8;
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < terminals; i++) {
+            customers.add(newCustomer(i));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(terminals);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (Customer guest : customers) {
+                attempts.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        BookingEngine.book(guest, DAY, LocalTime.of(19, 0), 2, TWO_HOURS);
+                        return true;
+                    } catch (IllegalStateException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int booked = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get()) booked++;
+            }
+            assertEquals(1, booked);
+        } finally {
+            pool.shutdownNow();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, Reservation.getAllReservationsFromExtent().size());
+    }
+}
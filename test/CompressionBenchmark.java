@@ -0,0 +1,119 @@
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compression ratio versus save/load time of the Order and ItemQuantity extents
+ * for several extent sizes and deflate levels, to pick per-file levels with
+ * PersistenceConfig.setCompressionLevel.
+ *
+ * <p>Not a JUnit test (surefire only picks up *Test classes). Run it from the
+ * test classpath, e.g. {@code java -cp target/classes:target/test-classes CompressionBenchmark}.
+ */
+public class CompressionBenchmark {
+
+    private static final String ORDERS_FILE = "bench_orders.dat";
+    private static final String ITEM_QUANTITIES_FILE = "bench_item_quantities.dat";
+
+    private static final int[] SIZES = {10_000, 50_000, 200_000};
+    private static final int[] LEVELS = {0, 1, 3, 6, 9};
+    private static final int CUSTOMERS = 2_000;
+    private static final int MENU_SIZE = 100;
+    private static final int LINES_PER_REQUEST = 3;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-20s %8s %6s %14s %7s %10s %10s%n",
+            "file", "orders", "level", "bytes", "ratio", "save ms", "load ms");
+        for (int size : SIZES) {
+            buildExtents(size);
+            List<Order> orders = new ArrayList<>(Order.getAllOrdersFromExtent());
+            List<ItemQuantity> lines = new ArrayList<>(ItemQuantity.getAllItemQuantitiesFromExtent());
+
+            long plainOrders = 0;
+            long plainLines = 0;
+            for (int level : LEVELS) {
+                long ordersBytes = measure(ORDERS_FILE, size, level, plainOrders,
+                    () -> Order.saveExtent(ORDERS_FILE), () -> Order.loadExtent(ORDERS_FILE));
+                long linesBytes = measure(ITEM_QUANTITIES_FILE, size, level, plainLines,
+                    () -> ItemQuantity.saveExtent(ITEM_QUANTITIES_FILE),
+                    () -> ItemQuantity.loadExtent(ITEM_QUANTITIES_FILE));
+                if (level == 0) {
+                    plainOrders = ordersBytes;
+                    plainLines = linesBytes;
+                }
+                // Loading replaced the extents with fresh copies; keep measuring the same data
+                Order.restoreExtent(orders);
+                ItemQuantity.restoreExtent(lines);
+            }
+        }
+
+        for (String file : List.of(ORDERS_FILE, ITEM_QUANTITIES_FILE)) {
+            PersistenceConfig.setCompressionLevel(file, PersistenceConfig.NO_COMPRESSION);
+            PersistenceConfig.deleteDataFile(file);
+        }
+    }
+
+    private interface Save {
+        void run() throws Exception;
+    }
+
+    private interface Load {
+        boolean run();
+    }
+
+    private static long measure(String file, int size, int level, long plainBytes, Save save, Load load)
+            throws Exception {
+        PersistenceConfig.setCompressionLevel(file, level);
+        save.run();
+        load.run(); // warm-up
+
+        long saveNanos = 0;
+        long loadNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            save.run();
+            saveNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            if (!load.run()) {
+                throw new IllegalStateException("Load failed for " + file);
+            }
+            loadNanos += System.nanoTime() - start;
+        }
+
+        long bytes = new File(PersistenceConfig.getDataFilePath(file)).length();
+        double ratio = plainBytes == 0 ? 1.0 : (double) plainBytes / bytes;
+        System.out.printf("%-20s %,8d %6d %,14d %6.1fx %10.0f %10.0f%n", file.replace("bench_", ""), size, level,
+            bytes, ratio, saveNanos / 1e6 / ROUNDS, loadNanos / 1e6 / ROUNDS);
+        return bytes;
+    }
+
+    private static void buildExtents(int orders) {
+        Customer.clearExtent();
+        Order.clearExtent();
+        Payment.clearExtent();
+        OrderRequest.clearExtent();
+        ItemQuantity.clearExtent();
+        MenuItem.clearExtent();
+
+        NutritionalInfo nutrition = new NutritionalInfo(100, 10, 10, 10, 5);
+        List<MenuItem> menu = new ArrayList<>();
+        for (int i = 0; i < MENU_SIZE; i++) {
+            menu.add(new MainDish("Dish " + i, "Benchmark dish", 20.0 + i, "img", "Poland", nutrition, 1));
+        }
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers.add(new Customer("Name" + i, "Surname", "c" + i + "@test.com", "500" + i, LocalDateTime.now()));
+        }
+        for (int i = 0; i < orders; i++) {
+            Order order = Order.createTakeaway(customers.get(i % CUSTOMERS));
+            new Card(50.0 + i % 100, order, "1234", "Visa");
+            OrderRequest request = new OrderRequest();
+            for (int line = 0; line < LINES_PER_REQUEST; line++) {
+                ItemQuantity.create(request, menu.get((i + line) % MENU_SIZE), 1 + line);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Tests for the unique email and phone indexes on Customer.
+ */
+public class CustomerLookupTest {
+
+    @BeforeEach
+    void setup() {
+        Customer.clearExtent();
+    }
+
+    private Customer register(String email, String phone) {
+        return new Customer("John", "Doe", email, phone, LocalDateTime.now());
+    }
+
+    @Test
+    @DisplayName("Lookup by normalized email and phone")
+    void testFind() {
+        Customer customer = register("John.Doe@Test.com", "+48 123-456-789");
+
+        assertSame(customer, Customer.findByEmail("john.doe@test.com"));
+        assertSame(customer, Customer.findByEmail("  JOHN.DOE@TEST.COM "));
+        assertSame(customer, Customer.findByPhone("+48123456789"));
+        assertSame(customer, Customer.findByPhone("+48 (123) 456 789"));
+        assertNull(Customer.findByPhone("48123456789"));
+        assertNull(Customer.findByEmail("jane@test.com"));
+        assertNull(Customer.findByEmail(null));
+    }
+
+    @Test
+    @DisplayName("Registration rejects a taken email or phone")
+    void testUniqueAtRegistration() {
+        register("john@test.com", "123456");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> register("JOHN@test.com", "999999"));
+        assertTrue(e.getMessage().contains("email"));
+        assertThrows(IllegalStateException.class, () -> register("jane@test.com", "123 456"));
+
+        // The failed registration did not keep its email claimed
+        Customer jane = register("jane@test.com", "654321");
+        assertSame(jane, Customer.findByEmail("jane@test.com"));
+        assertEquals(2, Customer.getAllCustomersFromExtent().size());
+    }
+
+    @Test
+    @DisplayName("Setters move the index entries and keep them unique")
+    void testSettersReindex() {
+        Customer john = register("john@test.com", "123456");
+        Customer jane = register("jane@test.com", "654321");
+
+        john.setEmail("johnny@test.com");
+        john.setPhone("111-222");
+        assertNull(Customer.findByEmail("john@test.com"));
+        assertNull(Customer.findByPhone("123456"));
+        assertSame(john, Customer.findByEmail("johnny@test.com"));
+        assertSame(john, Customer.findByPhone("111222"));
+
+        assertThrows(IllegalStateException.class, () -> jane.setEmail("Johnny@test.com"));
+        assertThrows(IllegalStateException.class, () -> jane.setPhone("111 222"));
+        assertEquals("jane@test.com", jane.getEmail());
+        assertSame(jane, Customer.findByPhone("654321"));
+
+        // Changing only the formatting keeps the entry
+        john.setPhone("111 222");
+        assertSame(john, Customer.findByPhone("111222"));
+    }
+
+    @Test
+    @DisplayName("Indexes follow clear and restore of the extent")
+    void testRestore() {
+        Customer customer = register("john@test.com", "123456");
+        Customer.clearExtent();
+        assertNull(Customer.findByEmail("john@test.com"));
+
+        Customer.restoreExtent(List.of(customer));
+        assertSame(customer, Customer.findByEmail("john@test.com"));
+        assertSame(customer, Customer.findByPhone("123456"));
+    }
+}
@@ -0,0 +1,174 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests for picking the best applicable discounts for an order.
+ */
+public class DiscountEngineTest {
+
+    private Customer customer;
+    private MenuItem pizza;
+    private MenuItem pasta;
+
+    @BeforeEach
+    void setup() {
+        Customer.clearExtent();
+        Order.clearExtent();
+        OrderRequest.clearExtent();
+        MenuItem.clearExtent();
+        ItemQuantity.clearExtent();
+        Discount.clearExtent();
+        OrderLevelDiscount.clearExtent();
+        ItemLevelDiscount.clearExtent();
+
+        customer = new Customer("John", "Doe", "john@test.com", "123456", LocalDateTime.now());
+        NutritionalInfo nutrition = new NutritionalInfo(100, 10, 10, 10, 5);
+        pizza = new MainDish("Pizza", "Italian pizza", 30.0, "img", "Italy", nutrition, 2);
+        pasta = new MainDish("Pasta", "Italian pasta", 20.0, "img", "Italy", nutrition, 1);
+    }
+
+    // Pizza costs 36.90 with tax, pasta 24.60
+    private Order orderWith(MenuItem item, int quantity) {
+        Order order = Order.createDineIn(customer);
+        OrderRequest request = new OrderRequest();
+        order.addOrderRequest(request);
+        ItemQuantity.create(request, item, quantity);
+        return order;
+    }
+
+    @Test
+    @DisplayName("Highest applicable order-level percentage wins")
+    void testBestOrderLevel() {
+        new OrderLevelDiscount("ALWAYS5", 5.0);
+        OrderLevelDiscount today = new OrderLevelDiscount("TODAY10", LocalDate.now(), LocalTime.NOON, 10.0);
+        new OrderLevelDiscount("TOMORROW50", LocalDate.now().plusDays(1), LocalTime.NOON, 50.0);
+        OrderLevelDiscount big = new OrderLevelDiscount("BIG20", 70.0, 2, 20.0);
+        new OrderLevelDiscount("MANY30", 0.0, 5, 30.0);
+
+        Order small = orderWith(pizza, 1);
+        DiscountEngine.Selection selection = DiscountEngine.bestFor(small);
+        assertSame(today, selection.getOrderDiscount());
+        assertEquals(Money.of(3.69), selection.getSavingAsMoney());
+
+        Order large = orderWith(pizza, 2);
+        assertSame(big, DiscountEngine.bestFor(large).getOrderDiscount());
+        assertEquals(Money.of(14.76), DiscountEngine.bestFor(large).getSavingAsMoney());
+    }
+
+    @Test
+    @DisplayName("Engine agrees with validateDiscount for every registered discount")
+    void testAgreesWithValidate() {
+        for (int i = 0; i < 200; i++) {
+            LocalDate date = LocalDate.now().plusDays(i % 4 - 1);
+            double minAmount = (i * 7) % 120;
+            int minQuantity = i % 6;
+            double percentage = (i * 13) % 60 + 1;
+            switch (i % 4) {
+                case 0 -> new OrderLevelDiscount("P" + i, percentage);
+                case 1 -> new OrderLevelDiscount("P" + i, date, LocalTime.NOON, percentage);
+                case 2 -> new OrderLevelDiscount("P" + i, minAmount, minQuantity, percentage);
+                default -> new OrderLevelDiscount("P" + i, date, LocalTime.NOON, minAmount, minQuantity, percentage);
+            }
+        }
+
+        for (int quantity = 1; quantity <= 6; quantity++) {
+            Order order = orderWith(quantity % 2 == 0 ? pizza : pasta, quantity);
+            double best = 0;
+            for (OrderLevelDiscount discount : OrderLevelDiscount.getAllOrderLevelDiscounts()) {
+                if (discount.validateDiscount(order)) {
+                    best = Math.max(best, discount.getDiscountPercentage());
+                }
+            }
+            assertEquals(best, DiscountEngine.bestFor(order).getOrderDiscount().getDiscountPercentage());
+        }
+    }
+
+    @Test
+    @DisplayName("Item-level discounts match order lines by item name")
+    void testItemLevel() {
+        ItemLevelDiscount pizzaDeal = new ItemLevelDiscount("PIZZA", Set.of("Pizza"));
+        new ItemLevelDiscount("PASTA", Set.of("Pasta"));
+        ItemLevelDiscount pizzaParty = new ItemLevelDiscount("PARTY", 0.0, 3, Set.of("Pizza", "Pasta"));
+
+        Order order = orderWith(pizza, 1);
+        DiscountEngine.Selection selection = DiscountEngine.bestFor(order);
+        assertEquals(List.of(pizzaDeal), selection.getItemDiscounts());
+        assertNull(selection.getOrderDiscount());
+
+        assertEquals(List.of(pizzaDeal, pizzaParty), DiscountEngine.bestFor(orderWith(pizza, 3)).getItemDiscounts());
+        assertTrue(DiscountEngine.bestFor(Order.createTakeaway(customer)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Rule changes are picked up without a manual rebuild")
+    void testRecompileOnChange() {
+        OrderLevelDiscount discount = new OrderLevelDiscount("VOL", 100.0, 1, 10.0);
+        Order order = orderWith(pizza, 1);
+        assertNull(DiscountEngine.bestFor(order).getOrderDiscount());
+
+        discount.setMinAmount(30.0);
+        assertSame(discount, DiscountEngine.bestFor(order).getOrderDiscount());
+
+        OrderLevelDiscount better = new OrderLevelDiscount("BETTER", 15.0);
+        assertSame(better, DiscountEngine.bestFor(order).getOrderDiscount());
+        better.setDiscountPercentage(5.0);
+        assertSame(discount, DiscountEngine.bestFor(order).getOrderDiscount());
+
+        discount.delete();
+        assertSame(better, DiscountEngine.bestFor(order).getOrderDiscount());
+    }
+
+    @Test
+    @DisplayName("Order applies the best discount to its total")
+    void testApplyBestDiscount() {
+        new OrderLevelDiscount("SMALL", 5.0);
+        OrderLevelDiscount large = new OrderLevelDiscount("LARGE", 10.0);
+        Order order = orderWith(pizza, 1);
+
+        order.applyBestDiscount();
+        assertSame(large, order.getDiscount());
+        assertEquals(Money.of(33.21), order.getTotalAmountAsMoney());
+    }
+
+    @Test
+    @DisplayName("Volume discount requires the minimum item count")
+    void testMinQuantityValidated() {
+        Discount discount = new OrderLevelDiscount("THREE", 0.0, 3, 10.0);
+        assertFalse(discount.validateDiscount(orderWith(pasta, 2)));
+        assertTrue(discount.validateDiscount(orderWith(pasta, 3)));
+    }
+
+    @Test
+    @DisplayName("Discounted total follows line, request and rule changes")
+    void testTotalFollowsChanges() {
+        OrderLevelDiscount volume = new OrderLevelDiscount("THREE", 0.0, 3, 10.0);
+        Order order = orderWith(pasta, 2);
+        order.setDiscount(volume);
+        assertEquals(2, order.getItemCount());
+        assertEquals(Money.of(49.20), order.getTotalAmountAsMoney());
+
+        ItemQuantity line = order.getOrderRequests().get(0).getItemQuantities().get(0);
+        line.setQuantity(3);
+        assertEquals(3, order.getItemCount());
+        assertEquals(Money.of(66.42), order.getTotalAmountAsMoney());
+
+        volume.setMinQuantity(4);
+        assertEquals(Money.of(73.80), order.getTotalAmountAsMoney());
+
+        OrderRequest more = new OrderRequest();
+        ItemQuantity.create(more, pizza, 1);
+        order.addOrderRequest(more);
+        assertEquals(4, order.getItemCount());
+        assertEquals(Money.of(99.63), order.getTotalAmountAsMoney());
+
+        order.removeOrderRequest(more);
+        assertEquals(3, order.getItemCount());
+        assertEquals(Money.of(73.80), order.getTotalAmountAsMoney());
+    }
+}
@@ -279,5 +279,68 @@ public class DiscountTest {
         });
     }
 
-  
+    @Test
+    @DisplayName("Category views follow added and deleted discounts")
+    public void testCategoryViewsMaintained() {
+        List<Discount> timeBased = Discount.getTimeBasedDiscounts();
+        Discount d1 = new OrderLevelDiscount("T1", LocalDate.now(), LocalTime.now(), 10.0);
+        Discount d2 = new ItemLevelDiscount("TV1", LocalDate.now(), LocalTime.now(), 50.0, 3, Set.of("Pizza"));
+
+        assertSame(timeBased, Discount.getTimeBasedDiscounts());
+        assertEquals(List.of(d1, d2), timeBased);
+        assertEquals(List.of(d2), Discount.getTimeAndVolumeDiscounts());
+        assertThrows(UnsupportedOperationException.class, () -> timeBased.add(d1));
+
+        d2.delete();
+        assertEquals(List.of(d1), timeBased);
+        assertTrue(Discount.getItemLevelDiscounts().isEmpty());
+        assertTrue(Discount.getTimeAndVolumeDiscounts().isEmpty());
+        assertFalse(ItemLevelDiscount.getAllItemLevelDiscounts().contains(d2));
+        assertEquals(1, Discount.getAllDiscounts().size());
+    }
+
+    @Test
+    @DisplayName("Find discount by code")
+    public void testFindByCode() {
+        Discount discount = new OrderLevelDiscount("SUMMER", 15.0);
+
+        assertSame(discount, Discount.findByCode("SUMMER"));
+        assertSame(discount, Discount.findByCode(" SUMMER "));
+        assertNull(Discount.findByCode("WINTER"));
+
+        discount.setCode("WINTER");
+        assertNull(Discount.findByCode("SUMMER"));
+        assertSame(discount, Discount.findByCode("WINTER"));
+
+        discount.delete();
+        assertNull(Discount.findByCode("WINTER"));
+    }
+
+    @Test
+    @DisplayName("Discount codes are unique")
+    public void testDuplicateCodeRejected() {
+        Discount discount = new OrderLevelDiscount("SUMMER", 15.0);
+        Discount other = new OrderLevelDiscount("WINTER", 10.0);
+
+        assertThrows(IllegalStateException.class,
+            () -> new ItemLevelDiscount("SUMMER", Set.of("Pizza")));
+        assertThrows(IllegalStateException.class, () -> other.setCode("SUMMER"));
+        assertSame(discount, Discount.findByCode("SUMMER"));
+        assertEquals(2, Discount.getAllDiscounts().size());
+    }
+
+    @Test
+    @DisplayName("Invalid discount is not registered and leaves its code free")
+    public void testInvalidDiscountNotRegistered() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderLevelDiscount("SPRING", 150.0));
+        assertNull(Discount.findByCode("SPRING"));
+        assertTrue(Discount.getOrderLevelDiscounts().isEmpty());
+        assertTrue(OrderLevelDiscount.getAllOrderLevelDiscounts().isEmpty());
+
+        Discount valid = new OrderLevelDiscount("SPRING", 10.0);
+        assertSame(valid, Discount.findByCode("SPRING"));
+
+        assertThrows(IllegalStateException.class, () -> new ItemLevelDiscount("SPRING", Set.of("Pizza")));
+        assertTrue(ItemLevelDiscount.findByItem("Pizza").isEmpty());
+    }
 }
@@ -0,0 +1,133 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the parallel startup loader.
+ */
+public class ExtentLoaderTest {
+
+    private static final String TEST_TABLES_FILE = "test_loader_tables.dat";
+    private static final String TEST_INGREDIENTS_FILE = "test_loader_ingredients.dat";
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setup() {
+        Table.clearExtent();
+        Ingredient.clearExtent();
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void cleanup() {
+        pool.shutdown();
+        PersistenceConfig.deleteDataFile(TEST_TABLES_FILE);
+        PersistenceConfig.deleteDataFile(TEST_INGREDIENTS_FILE);
+    }
+
+    @Test
+    @DisplayName("Loads registered extents and reports each one")
+    void testLoadsExtents() throws Exception {
+        new Table(1, 4, "Main Hall");
+        new Table(2, 2, "Terrace");
+        new Ingredient("Flour", "kg", 50.0, 10.0, 3.0);
+        Table.saveExtent(TEST_TABLES_FILE);
+        Ingredient.saveExtent(TEST_INGREDIENTS_FILE);
+        Table.clearExtent();
+        Ingredient.clearExtent();
+
+        ExtentLoader.LoadReport report = new ExtentLoader()
+            .register("tables", TEST_TABLES_FILE, Table::loadExtent)
+            .register("ingredients", TEST_INGREDIENTS_FILE, Ingredient::loadExtent)
+            .loadAll(pool);
+
+        assertTrue(report.allLoaded());
+        assertEquals(2, report.getResults().size());
+        assertEquals(2, Table.getAllTablesFromExtent().size());
+        assertEquals(1, Ingredient.getAllIngredients().size());
+        assertNotNull(report.get("tables").elapsed());
+    }
+
+    @Test
+    @DisplayName("Independent extents load concurrently")
+    void testIndependentExtentsRunInParallel() {
+        // Each loader waits for the other; a sequential load would time out
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        ExtentLoader loader = new ExtentLoader()
+            .register("a", "a.dat", file -> awaitTogether(bothStarted))
+            .register("b", "b.dat", file -> awaitTogether(bothStarted));
+
+        assertTrue(loader.loadAll(pool).allLoaded());
+    }
+
+    @Test
+    @DisplayName("Dependencies finish before their dependents start")
+    void testDependencyOrder() {
+        List<String> order = new CopyOnWriteArrayList<>();
+        new ExtentLoader()
+            .register("payments", "p.dat", file -> order.add("payments"), "orders")
+            .register("orders", "o.dat", file -> order.add("orders"), "customers")
+            .register("customers", "c.dat", file -> order.add("customers"))
+            .loadAll(pool);
+
+        assertEquals(List.of("customers", "orders", "payments"), order);
+    }
+
+    @Test
+    @DisplayName("Missing file is reported as not loaded")
+    void testMissingFileReported() {
+        ExtentLoader.LoadReport report = new ExtentLoader()
+            .register("tables", "nonexistent_loader_xyz.dat", Table::loadExtent)
+            .loadAll(pool);
+
+        assertFalse(report.allLoaded());
+        assertFalse(report.get("tables").loaded());
+    }
+
+    @Test
+    @DisplayName("Cyclic dependency throws exception")
+    void testCycleRejected() {
+        ExtentLoader loader = new ExtentLoader()
+            .register("a", "a.dat", file -> true, "b")
+            .register("b", "b.dat", file -> true, "a");
+
+        assertThrows(IllegalStateException.class, () -> loader.loadAll(pool));
+    }
+
+    @Test
+    @DisplayName("Unregistered dependency throws exception")
+    void testUnknownDependencyRejected() {
+        ExtentLoader loader = new ExtentLoader().register("a", "a.dat", file -> true, "missing");
+        assertThrows(IllegalStateException.class, () -> loader.loadAll(pool));
+    }
+
+    @Test
+    @DisplayName("Duplicate registration throws exception")
+    void testDuplicateRegistration() {
+        ExtentLoader loader = new ExtentLoader().register("a", "a.dat", file -> true);
+        assertThrows(IllegalStateException.class, () -> loader.register("a", "b.dat", file -> true));
+    }
+
+    @Test
+    @DisplayName("Standard graph covers every extent")
+    void testStandardGraph() {
+        ExtentLoader.LoadReport report = ExtentLoader.standard().loadAll(pool);
+        assertEquals(18, report.getResults().size());
+    }
+
+    private static boolean awaitTogether(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the concurrent class extent.
+ */
+public class ExtentTest {
+
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 2_000;
+
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setup() {
+        Customer.clearExtent();
+        Order.clearExtent();
+        Payment.clearExtent();
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void shutdown() throws Exception {
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Members keep insertion order and are compared by identity")
+    void testOrderAndIdentity() {
+        Extent<String> extent = new Extent<>();
+        String first = new String("same");
+        String second = new String("same");
+
+        assertTrue(extent.add(first));
+        assertTrue(extent.add(second));
+        assertFalse(extent.add(first));
+        assertEquals(2, extent.size());
+        assertSame(first, extent.view().get(0));
+        assertSame(second, extent.view().get(1));
+
+        assertTrue(extent.remove(second));
+        assertFalse(extent.contains(second));
+        assertTrue(extent.contains(first));
+        assertThrows(IllegalArgumentException.class, () -> extent.add(null));
+    }
+
+    @Test
+    @DisplayName("View is unmodifiable and follows the extent without copying")
+    void testView() {
+        Extent<Integer> extent = new Extent<>();
+        extent.add(1);
+        List<Integer> view = extent.view();
+        assertSame(view, extent.view());
+        extent.add(2);
+
+        assertEquals(List.of(1, 2), view);
+        assertTrue(view.contains(2));
+
+        // Indexed reads follow adds and removes made after an earlier get
+        assertEquals(2, view.get(1));
+        extent.add(3);
+        assertEquals(3, view.get(2));
+        extent.remove(1);
+        assertEquals(2, view.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.get(2));
+        extent.add(1);
+        assertThrows(UnsupportedOperationException.class, () -> view.add(3));
+        assertThrows(UnsupportedOperationException.class, () -> view.iterator().remove());
+
+        // Iterating while members are removed neither throws nor stalls
+        for (Integer member : view) {
+            extent.remove(member);
+        }
+        assertTrue(view.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> view.get(0));
+    }
+
+    @Test
+    @DisplayName("View serializes as a plain list of the current members")
+    void testViewSerializes() throws Exception {
+        Extent<String> extent = new Extent<>();
+        extent.add("a");
+        extent.add("b");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(extent.view());
+        }
+        Object copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = in.readObject();
+        }
+
+        assertEquals(ArrayList.class, copy.getClass());
+        assertEquals(List.of("a", "b"), copy);
+    }
+
+    @Test
+    @DisplayName("Concurrent adds and removes lose nothing")
+    void testConcurrentAddRemove() throws Exception {
+        Extent<Object> extent = new Extent<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                List<Object> mine = new ArrayList<>();
+                for (int i = 0; i < PER_THREAD; i++) {
+                    Object member = new Object();
+                    extent.add(member);
+                    mine.add(member);
+                }
+                // Remove every other member again
+                for (int i = 0; i < mine.size(); i += 2) {
+                    assertTrue(extent.remove(mine.get(i)));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertEquals(THREADS * PER_THREAD / 2, extent.size());
+        assertEquals(THREADS * PER_THREAD / 2, extent.view().size());
+    }
+
+    @Test
+    @DisplayName("Iteration during concurrent modification does not throw")
+    void testWeaklyConsistentIteration() throws Exception {
+        Object[] members = new Object[20_000];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = new Object();
+        }
+        Extent<Object> extent = new Extent<>();
+        for (int i = 0; i < 1_000; i++) {
+            extent.add(members[i]);
+        }
+        Future<?> writer = pool.submit(() -> {
+            for (int i = 1_000; i < members.length; i++) {
+                extent.add(members[i]);
+                extent.remove(members[i - 1_000]);
+            }
+        });
+
+        while (!writer.isDone()) {
+            Iterator<Object> it = extent.iterator();
+            while (it.hasNext()) {
+                assertNotNull(it.next());
+            }
+        }
+        writer.get();
+        assertEquals(1_000, extent.size());
+    }
+
+    @Test
+    @DisplayName("Orders taken on several terminals at once all reach the extent")
+    void testConcurrentOrderIntake() throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int terminal = t;
+            futures.add(pool.submit(() -> {
+                Customer customer = new Customer("Guest", "T" + terminal, "t" + terminal + "@test.com",
+                    "100" + terminal, LocalDateTime.now());
+                for (int i = 0; i < 200; i++) {
+                    Order.createTakeaway(customer);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertEquals(THREADS, Customer.getAllCustomersFromExtent().size());
+        assertEquals(THREADS * 200, Order.getAllOrdersFromExtent().size());
+        assertEquals(THREADS * 200, Order.getPendingChangeCount());
+    }
+}
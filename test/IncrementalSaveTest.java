@@ -0,0 +1,377 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests for dirty tracking and incremental (delta) extent saves.
+ */
+public class IncrementalSaveTest {
+
+    private static final String TEST_ORDERS_FILE = "test_incremental_orders.dat";
+    private static final String TEST_RESERVATIONS_FILE = "test_incremental_reservations.dat";
+    private static final String TEST_ITEM_QUANTITIES_FILE = "test_incremental_item_quantities.dat";
+    private static final String TEST_TABLES_FILE = "test_incremental_tables.dat";
+    private static final String TEST_PAYMENTS_FILE = "test_incremental_payments.dat";
+    private static final String TEST_INGREDIENTS_FILE = "test_incremental_ingredients.dat";
+
+    private Customer customer;
+
+    @BeforeEach
+    void setup() {
+        Customer.clearExtent();
+        Order.clearExtent();
+        Payment.clearExtent();
+        Reservation.clearExtent();
+        Table.clearExtent();
+        OrderRequest.clearExtent();
+        MenuItem.clearExtent();
+        ItemQuantity.clearExtent();
+        Ingredient.clearExtent();
+
+        customer = new Customer("John", "Doe", "john@test.com", "123456", LocalDateTime.now());
+    }
+
+    @AfterEach
+    void cleanupFiles() {
+        for (String file : List.of(TEST_ORDERS_FILE, TEST_RESERVATIONS_FILE,
+                TEST_ITEM_QUANTITIES_FILE, TEST_TABLES_FILE, TEST_PAYMENTS_FILE, TEST_INGREDIENTS_FILE)) {
+            PersistenceConfig.deleteDataFile(file);
+            PersistenceConfig.deleteDataFile(file + ChangeTracker.DELTA_SUFFIX);
+        }
+    }
+
+    private static File deltaFile(String filename) {
+        return new File(PersistenceConfig.getDataFilePath(filename + ChangeTracker.DELTA_SUFFIX));
+    }
+
+    @Test
+    @DisplayName("Changes since the last save are appended and applied on load")
+    void testChangesAppliedOnLoad() throws Exception {
+        Order first = Order.createDineIn(customer);
+        Order.createTakeaway(customer);
+        Order.saveExtent(TEST_ORDERS_FILE);
+        assertEquals(0, Order.getPendingChangeCount());
+
+        first.finalizeOrder();
+        Order third = Order.createTakeaway(customer);
+        assertEquals(2, Order.getPendingChangeCount());
+        Order.saveChanges(TEST_ORDERS_FILE);
+        assertTrue(deltaFile(TEST_ORDERS_FILE).exists());
+
+        Order.clearExtent();
+        assertTrue(Order.loadExtent(TEST_ORDERS_FILE));
+        assertEquals(3, Order.getAllOrdersFromExtent().size());
+
+        Order loadedFirst = findOrder(first.getOrderId());
+        assertEquals(OrderStatus.AWAITING_PAYMENT, loadedFirst.getStatus());
+        assertNotNull(findOrder(third.getOrderId()));
+    }
+
+    @Test
+    @DisplayName("Deleted entities are removed on load")
+    void testDeletedEntitiesRemoved() throws Exception {
+        Order kept = Order.createDineIn(customer);
+        Order removed = Order.createTakeaway(customer);
+        Order.saveExtent(TEST_ORDERS_FILE);
+
+        removed.delete();
+        Order.saveChanges(TEST_ORDERS_FILE);
+
+        Order.clearExtent();
+        assertTrue(Order.loadExtent(TEST_ORDERS_FILE));
+        assertEquals(1, Order.getAllOrdersFromExtent().size());
+        assertEquals(kept.getOrderId(), Order.getAllOrdersFromExtent().get(0).getOrderId());
+    }
+
+    @Test
+    @DisplayName("Same-class references in a delta resolve to the loaded entities")
+    void testSameClassReferencesResolved() throws Exception {
+        Order.createDineIn(customer);
+        Order.saveExtent(TEST_ORDERS_FILE);
+
+        Order second = Order.createTakeaway(customer);
+        Order.saveChanges(TEST_ORDERS_FILE);
+
+        Order.clearExtent();
+        assertTrue(Order.loadExtent(TEST_ORDERS_FILE));
+        Order loadedSecond = findOrder(second.getOrderId());
+        for (Order order : loadedSecond.getCustomer().getOrders()) {
+            assertTrue(Order.getAllOrdersFromExtent().contains(order));
+        }
+        assertEquals(2, loadedSecond.getCustomer().getOrders().size());
+    }
+
+    @Test
+    @DisplayName("Changed entity keeps sharing the loaded graph with unchanged ones")
+    void testLoadedGraphStaysShared() throws Exception {
+        Order first = Order.createDineIn(customer);
+        Order second = Order.createTakeaway(customer);
+        Order.saveExtent(TEST_ORDERS_FILE);
+
+        first.finalizeOrder();
+        Order.saveChanges(TEST_ORDERS_FILE);
+
+        Order.clearExtent();
+        assertTrue(Order.loadExtent(TEST_ORDERS_FILE));
+        Order loadedFirst = findOrder(first.getOrderId());
+        Order loadedSecond = findOrder(second.getOrderId());
+        assertSame(loadedFirst.getCustomer(), loadedSecond.getCustomer());
+        assertTrue(loadedSecond.getCustomer().getOrders().contains(loadedFirst));
+        assertSame(loadedFirst, loadedFirst.getDineIn().getOrder());
+        for (Order order : loadedFirst.getCustomer().getOrders()) {
+            assertSame(order, findOrder(order.getOrderId()));
+        }
+        assertEquals(OrderStatus.AWAITING_PAYMENT, loadedFirst.getStatus());
+
+        // Later deltas keep referring to the loaded objects
+        loadedSecond.finalizeOrder();
+        Order.saveChanges(TEST_ORDERS_FILE);
+        Order.clearExtent();
+        assertTrue(Order.loadExtent(TEST_ORDERS_FILE));
+        assertSame(findOrder(first.getOrderId()).getCustomer(), findOrder(second.getOrderId()).getCustomer());
+        assertEquals(OrderStatus.AWAITING_PAYMENT, findOrder(second.getOrderId()).getStatus());
+    }
+
+    @Test
+    @DisplayName("Deleting an entity updates the reverse links of its related objects")
+    void testDeleteUpdatesRelatedObjects() throws Exception {
+        Order kept = Order.createDineIn(customer);
+        Order removed = Order.createTakeaway(customer);
+        Order.saveExtent(TEST_ORDERS_FILE);
+
+        removed.delete();
+        Order.saveChanges(TEST_ORDERS_FILE);
+
+        Order.clearExtent();
+        assertTrue(Order.loadExtent(TEST_ORDERS_FILE));
+        Order loadedKept = findOrder(kept.getOrderId());
+        assertEquals(1, loadedKept.getCustomer().getOrders().size());
+        assertTrue(loadedKept.getCustomer().getOrders().contains(loadedKept));
+    }
+
+    @Test
+    @DisplayName("Delta of a payment does not pull in the order graph")
+    void testPaymentDeltaStaysSmall() throws Exception {
+        Payment changed = null;
+        for (int i = 0; i < 200; i++) {
+            changed = new Cash(10.0, Order.createTakeaway(customer), 10.0);
+        }
+        Payment.saveExtent(TEST_PAYMENTS_FILE);
+        long baseSize = new File(PersistenceConfig.getDataFilePath(TEST_PAYMENTS_FILE)).length();
+
+        changed.confirmPayment();
+        Payment.saveChanges(TEST_PAYMENTS_FILE);
+        assertTrue(deltaFile(TEST_PAYMENTS_FILE).length() * 50 < baseSize);
+
+        Payment.clearExtent();
+        assertTrue(Payment.loadExtent(TEST_PAYMENTS_FILE));
+        assertEquals(200, Payment.getAllPaymentsFromExtent().size());
+    }
+
+    @Test
+    @DisplayName("Segments left over from before the current base are skipped")
+    void testStaleSegmentsSkipped() throws Exception {
+        Order order = Order.createDineIn(customer);
+        Order.saveExtent(TEST_ORDERS_FILE);
+        order.finalizeOrder();
+        Order.saveChanges(TEST_ORDERS_FILE);
+        byte[] staleDelta = Files.readAllBytes(deltaFile(TEST_ORDERS_FILE).toPath());
+
+        // Crash after the new base was written but before the old delta was deleted
+        order.completeOrder();
+        Order.saveExtent(TEST_ORDERS_FILE);
+        Files.write(deltaFile(TEST_ORDERS_FILE).toPath(), staleDelta);
+
+        assertTrue(Order.loadExtent(TEST_ORDERS_FILE));
+        assertEquals(OrderStatus.COMPLETED, Order.getAllOrdersFromExtent().get(0).getStatus());
+    }
+
+    @Test
+    @DisplayName("Restoring an extent drops changes pending for the replaced objects")
+    void testRestoreResetsTracker() throws Exception {
+        Order order = Order.createDineIn(customer);
+        Order.saveExtent(TEST_ORDERS_FILE);
+        order.finalizeOrder();
+        assertEquals(1, Order.getPendingChangeCount());
+
+        Order.restoreExtent(List.of());
+        assertEquals(0, Order.getPendingChangeCount());
+        Payment.restoreExtent(List.of());
+        assertEquals(0, Payment.getPendingChangeCount());
+    }
+
+    @Test
+    @DisplayName("Delta size follows the number of changes, not the extent size")
+    void testDeltaSmallerThanBase() throws Exception {
+        Order changed = null;
+        for (int i = 0; i < 200; i++) {
+            Customer c = new Customer("Name" + i, "Surname", "c" + i + "@test.com", "100" + i, LocalDateTime.now());
+            changed = Order.createTakeaway(c);
+        }
+        Order.saveExtent(TEST_ORDERS_FILE);
+        long baseSize = new File(PersistenceConfig.getDataFilePath(TEST_ORDERS_FILE)).length();
+
+        changed.finalizeOrder();
+        Order.saveChanges(TEST_ORDERS_FILE);
+
+        assertTrue(deltaFile(TEST_ORDERS_FILE).length() * 10 < baseSize);
+    }
+
+    @Test
+    @DisplayName("Saving with no pending changes writes nothing")
+    void testNoChangesNoDelta() throws Exception {
+        Order.createDineIn(customer);
+        Order.saveExtent(TEST_ORDERS_FILE);
+
+        Order.saveChanges(TEST_ORDERS_FILE);
+        assertFalse(deltaFile(TEST_ORDERS_FILE).exists());
+    }
+
+    @Test
+    @DisplayName("Full save drops existing delta segments")
+    void testFullSaveDropsDelta() throws Exception {
+        Order order = Order.createDineIn(customer);
+        Order.saveExtent(TEST_ORDERS_FILE);
+        order.finalizeOrder();
+        Order.saveChanges(TEST_ORDERS_FILE);
+        assertTrue(deltaFile(TEST_ORDERS_FILE).exists());
+
+        Order.saveExtent(TEST_ORDERS_FILE);
+        assertFalse(deltaFile(TEST_ORDERS_FILE).exists());
+    }
+
+    @Test
+    @DisplayName("Reservation that failed validation is not saved")
+    void testFailedConstructionNotSaved() throws Exception {
+        Table table = new Table(1, 4, "Main Hall");
+        new Reservation(LocalDate.now().plusDays(2), LocalTime.of(19, 0), 2, customer, table);
+        Reservation.saveExtent(TEST_RESERVATIONS_FILE);
+
+        assertThrows(IllegalArgumentException.class, () ->
+            new Reservation(LocalDate.now().plusDays(3), LocalTime.of(20, 0), 0, customer, table));
+        Reservation.saveChanges(TEST_RESERVATIONS_FILE);
+
+        Reservation.clearExtent();
+        assertTrue(Reservation.loadExtent(TEST_RESERVATIONS_FILE));
+        assertEquals(1, Reservation.getAllReservationsFromExtent().size());
+    }
+
+    @Test
+    @DisplayName("ItemQuantity pair index is rebuilt after incremental load")
+    void testItemQuantityIndexRebuilt() throws Exception {
+        OrderRequest request = new OrderRequest();
+        MenuItem pizza = new MainDish("Pizza", "Italian pizza", 30.0, "img", "Italy",
+            new NutritionalInfo(100, 10, 10, 10, 5), 2);
+        MenuItem pasta = new MainDish("Pasta", "Italian pasta", 25.0, "img", "Italy",
+            new NutritionalInfo(100, 10, 10, 10, 5), 1);
+        ItemQuantity.create(request, pizza, 1);
+        ItemQuantity.saveExtent(TEST_ITEM_QUANTITIES_FILE);
+
+        ItemQuantity.create(request, pasta, 3);
+        ItemQuantity.saveChanges(TEST_ITEM_QUANTITIES_FILE);
+
+        ItemQuantity.clearExtent();
+        assertTrue(ItemQuantity.loadExtent(TEST_ITEM_QUANTITIES_FILE));
+        assertEquals(2, ItemQuantity.getAllItemQuantitiesFromExtent().size());
+        for (ItemQuantity itemQuantity : ItemQuantity.getAllItemQuantitiesFromExtent()) {
+            assertSame(itemQuantity, ItemQuantity.find(itemQuantity.getOrderRequest(), itemQuantity.getMenuItem()));
+        }
+        assertEquals(0, ItemQuantity.getPendingChangeCount());
+    }
+
+    @Test
+    @DisplayName("Compaction merges delta segments into the base file")
+    void testCompaction() throws Exception {
+        ChangeTracker<Table> tracker = new ChangeTracker<>(Table.class, t -> String.valueOf(t.getNumber()));
+        Table t1 = new Table(1, 4, "Main Hall");
+        tracker.saveFull(TEST_TABLES_FILE, Table.getAllTablesFromExtent());
+
+        Table t2 = new Table(2, 2, "Terrace");
+        tracker.markChanged(t2);
+        tracker.saveChanges(TEST_TABLES_FILE, Table.getAllTablesFromExtent());
+        tracker.markDeleted(t1);
+        tracker.saveChanges(TEST_TABLES_FILE, Table.getAllTablesFromExtent());
+
+        tracker.compactAsync(TEST_TABLES_FILE).get();
+        assertFalse(deltaFile(TEST_TABLES_FILE).exists());
+
+        List<Table> loaded = tracker.load(TEST_TABLES_FILE);
+        assertEquals(1, loaded.size());
+        assertEquals(2, loaded.get(0).getNumber());
+    }
+
+    @Test
+    @DisplayName("Torn delta segment is dropped and later appends stay readable")
+    void testTornSegmentDropped() throws Exception {
+        Order order = Order.createDineIn(customer);
+        Order.saveExtent(TEST_ORDERS_FILE);
+        order.finalizeOrder();
+        Order.saveChanges(TEST_ORDERS_FILE);
+        try (FileOutputStream out = new FileOutputStream(deltaFile(TEST_ORDERS_FILE), true)) {
+            out.write(new byte[] {0, 0, 0, 50, 1, 2, 3});
+        }
+
+        assertTrue(Order.loadExtent(TEST_ORDERS_FILE));
+        Order loaded = Order.getAllOrdersFromExtent().get(0);
+        assertEquals(OrderStatus.AWAITING_PAYMENT, loaded.getStatus());
+
+        loaded.completeOrder();
+        Order.saveChanges(TEST_ORDERS_FILE);
+        assertTrue(Order.loadExtent(TEST_ORDERS_FILE));
+        assertEquals(OrderStatus.COMPLETED, Order.getAllOrdersFromExtent().get(0).getStatus());
+    }
+
+    @Test
+    @DisplayName("Legacy ingredient file without ids loads every ingredient")
+    void testLegacyFileWithoutIds() throws Exception {
+        new Ingredient("Salt", "kg", 5, 20, 1.5);
+        new Ingredient("Pepper", "kg", 50, 20, 2.0);
+        new Ingredient("Flour", "kg", 30, 10, 3.25);
+
+        // Files written before ids existed were a bare list whose entities carry no id
+        Field idField = Ingredient.class.getDeclaredField("ingredientId");
+        idField.setAccessible(true);
+        for (Ingredient ingredient : Ingredient.getAllIngredients()) {
+            idField.set(ingredient, null);
+        }
+        AtomicFile.writeObject(TEST_INGREDIENTS_FILE, List.copyOf(Ingredient.getAllIngredients()));
+
+        Ingredient.clearExtent();
+        assertTrue(Ingredient.loadExtent(TEST_INGREDIENTS_FILE));
+        assertEquals(3, Ingredient.getAllIngredients().size());
+
+        Set<String> ids = new HashSet<>();
+        for (Ingredient ingredient : Ingredient.getAllIngredients()) {
+            assertNotNull(ingredient.getIngredientId());
+            ids.add(ingredient.getIngredientId());
+        }
+        assertEquals(3, ids.size());
+    }
+
+    @Test
+    @DisplayName("Loading a missing file returns false and clears extent")
+    void testLoadMissingFile() {
+        Order.createDineIn(customer);
+        assertFalse(Order.loadExtent("nonexistent_incremental_xyz.dat"));
+        assertEquals(0, Order.getAllOrdersFromExtent().size());
+    }
+
+    private static Order findOrder(String orderId) {
+        for (Order order : Order.getAllOrdersFromExtent()) {
+            if (order.getOrderId().equals(orderId)) {
+                return order;
+            }
+        }
+        return null;
+    }
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class InvoiceAttributesTest {
@@ -193,4 +194,66 @@ public class InvoiceAttributesTest {
 
         PersistenceConfig.deleteDataFile("test_invoices.dat");
     }
+
+    @Test
+    @DisplayName("Running paid total and outstanding balance follow add and remove")
+    void testRunningPaidTotal() {
+        Address validAddress = new Address("St. Test", "City", "00-001", "PL");
+        Invoice invoice = new Invoice(completedOrder, validAddress, 100.0, 2.0);
+        assertEquals(102.0, invoice.getOutstandingBalance(), 0.001);
+
+        Payment first = new Cash(60.0, completedOrder, 60.0);
+        invoice.addPayment(first);
+        invoice.addPayment(new Cash(42.0, completedOrder, 42.0));
+        assertEquals(102.0, invoice.getPaidTotal(), 0.001);
+        assertEquals(Money.ZERO, invoice.getOutstandingBalanceAsMoney());
+        assertTrue(invoice.isPaid());
+
+        invoice.removePayment(first);
+        assertEquals(42.0, invoice.getPaidTotal(), 0.001);
+        assertEquals(60.0, invoice.getOutstandingBalance(), 0.001);
+        assertFalse(invoice.isPaid());
+        assertThrows(IllegalArgumentException.class, () -> invoice.removePayment(first));
+    }
+
+    @Test
+    @DisplayName("Removing a payment takes off the amount it was added with")
+    void testRemoveAfterAmountChange() {
+        Address validAddress = new Address("St. Test", "City", "00-001", "PL");
+        Invoice invoice = new Invoice(completedOrder, validAddress, 100.0, null);
+
+        Payment card = new Card(30.0, completedOrder, "1234", "Visa");
+        invoice.addPayments(List.of(card, new Cash(20.0, completedOrder, 20.0)));
+        card.setAmountPayed(45.0);
+        invoice.removePayment(card);
+
+        assertEquals(20.0, invoice.getPaidTotal(), 0.001);
+        assertEquals(80.0, invoice.getOutstandingBalance(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Bulk addPayments settles a split bill or rejects the whole batch")
+    void testAddPayments() {
+        Address validAddress = new Address("St. Test", "City", "00-001", "PL");
+        Invoice invoice = new Invoice(completedOrder, validAddress, 120.0, null);
+
+        List<Payment> tooMuch = List.of(new Cash(100.0, completedOrder, 100.0), new Cash(30.0, completedOrder, 30.0));
+        assertThrows(IllegalStateException.class, () -> invoice.addPayments(tooMuch));
+        assertEquals(0, invoice.getPayments().size());
+
+        ArrayList<Payment> withNull = new ArrayList<>();
+        withNull.add(new Cash(10.0, completedOrder, 10.0));
+        withNull.add(null);
+        assertThrows(IllegalArgumentException.class, () -> invoice.addPayments(withNull));
+        assertEquals(0, invoice.getPayments().size());
+
+        List<Payment> split = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            split.add(new Cash(10.0, completedOrder, 10.0));
+        }
+        invoice.addPayments(split);
+        assertEquals(12, invoice.getPayments().size());
+        assertTrue(invoice.isPaid());
+        assertEquals(0.0, invoice.getOutstandingBalance(), 0.001);
+    }
 }
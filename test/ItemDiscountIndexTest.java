@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests for the item name index over item-level discounts.
+ */
+public class ItemDiscountIndexTest {
+
+    private MenuItem pizza;
+
+    @BeforeEach
+    void setup() {
+        MenuItem.clearExtent();
+        Discount.clearExtent();
+        ItemLevelDiscount.clearExtent();
+        pizza = new MainDish("Pizza", "Italian pizza", 30.0, "img", "Italy",
+            new NutritionalInfo(100, 10, 10, 10, 5), 2);
+    }
+
+    @Test
+    @DisplayName("Index follows applicable items added and removed")
+    void testAddRemoveItems() {
+        ItemLevelDiscount lunch = new ItemLevelDiscount("LUNCH", Set.of("Pizza", "Soup"));
+        ItemLevelDiscount dinner = new ItemLevelDiscount("DINNER", Set.of("Soup"));
+
+        assertEquals(Set.of(lunch), ItemLevelDiscount.findByItem(pizza));
+        assertEquals(Set.of(lunch, dinner), ItemLevelDiscount.findByItem(" Soup "));
+
+        dinner.addApplicableItem("Pizza");
+        lunch.removeApplicableItem("Pizza");
+        assertEquals(Set.of(dinner), ItemLevelDiscount.findByItem("Pizza"));
+
+        dinner.delete();
+        assertTrue(ItemLevelDiscount.findByItem("Pizza").isEmpty());
+        assertEquals(Set.of(lunch), ItemLevelDiscount.findByItem("Soup"));
+    }
+
+    @Test
+    @DisplayName("Discounts follow a renamed menu item")
+    void testRename() {
+        ItemLevelDiscount deal = new ItemLevelDiscount("DEAL", Set.of("Pizza"));
+
+        pizza.setName("Margherita");
+        assertTrue(ItemLevelDiscount.findByItem("Pizza").isEmpty());
+        assertEquals(Set.of(deal), ItemLevelDiscount.findByItem(pizza));
+        assertEquals(Set.of("Margherita"), deal.getApplicableItems());
+    }
+
+    @Test
+    @DisplayName("Rename keeps discounts on the old name while another item still uses it")
+    void testRenameWithSharedName() {
+        MenuItem otherPizza = new MainDish("Pizza", "Another pizza", 32.0, "img", "Italy",
+            new NutritionalInfo(100, 10, 10, 10, 5), 2);
+        ItemLevelDiscount deal = new ItemLevelDiscount("DEAL", Set.of("Pizza"));
+
+        pizza.setName("Margherita");
+        assertEquals(Set.of(deal), ItemLevelDiscount.findByItem(otherPizza));
+        assertTrue(ItemLevelDiscount.findByItem(pizza).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Index is rebuilt with the discount extent")
+    void testRebuild() {
+        ItemLevelDiscount deal = new ItemLevelDiscount("DEAL", Set.of("Pizza"));
+        Discount.clearExtent();
+        assertTrue(ItemLevelDiscount.findByItem("Pizza").isEmpty());
+
+        Discount.restoreExtent(List.of(deal));
+        assertEquals(Set.of(deal), ItemLevelDiscount.findByItem("Pizza"));
+    }
+}
@@ -0,0 +1,61 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Line-insert throughput of ItemQuantity.create as the extent grows.
+ *
+ * <p>Not a JUnit test (surefire only picks up *Test classes). Run it from the
+ * test classpath, e.g. {@code java -cp target/classes:target/test-classes ItemQuantityBenchmark}.
+ * Each checkpoint reports the throughput of the last batch of inserts, which
+ * should stay flat from 1k to 1M entries now that the duplicate check is indexed.
+ */
+public class ItemQuantityBenchmark {
+
+    private static final int MENU_SIZE = 200;
+    private static final int LINES_PER_REQUEST = 5;
+    private static final int BATCH = 1_000;
+    private static final int[] CHECKPOINTS = {1_000, 10_000, 100_000, 1_000_000};
+
+    public static void main(String[] args) {
+        // Warm up the JIT before measuring, then start from fresh fixtures: the menu items
+        // would otherwise still hold the warm-up lines in their own line lists
+        insertLines(freshMenu(), 50_000);
+        List<MenuItem> menu = freshMenu();
+
+        System.out.printf("%12s %18s%n", "extent size", "inserts/sec");
+        int inserted = 0;
+        for (int checkpoint : CHECKPOINTS) {
+            insertLines(menu, checkpoint - BATCH - inserted);
+            long start = System.nanoTime();
+            insertLines(menu, BATCH);
+            long elapsed = System.nanoTime() - start;
+            inserted = checkpoint;
+            System.out.printf("%12d %18.0f%n", ItemQuantity.getAllItemQuantitiesFromExtent().size(),
+                BATCH / (elapsed / 1_000_000_000.0));
+        }
+    }
+
+    // Clears the extents involved and builds a new menu with no lines
+    private static List<MenuItem> freshMenu() {
+        ItemQuantity.clearExtent();
+        OrderRequest.clearExtent();
+        MenuItem.clearExtent();
+
+        List<MenuItem> menu = new ArrayList<>();
+        NutritionalInfo nutrition = new NutritionalInfo(100, 10, 10, 10, 5);
+        for (int i = 0; i < MENU_SIZE; i++) {
+            menu.add(new MainDish("Dish " + i, "Benchmark dish", 20.0 + i, "img", "Poland", nutrition, 1));
+        }
+        return menu;
+    }
+
+    private static void insertLines(List<MenuItem> menu, int count) {
+        OrderRequest request = null;
+        for (int i = 0; i < count; i++) {
+            if (i % LINES_PER_REQUEST == 0) {
+                request = new OrderRequest();
+            }
+            ItemQuantity.create(request, menu.get(i % MENU_SIZE), 1 + i % 3);
+        }
+    }
+}
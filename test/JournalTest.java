@@ -0,0 +1,302 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests for the write-ahead journal (record, group sync, replay on top of a snapshot).
+ */
+public class JournalTest {
+
+    private static final String TEST_JOURNAL_FILE = "test_journal.log";
+    private static final String TEST_SNAPSHOT_FILE = "test_journal_snapshot.dat";
+
+    private Order order;
+    private Payment payment;
+    private Ingredient ingredient;
+
+    @BeforeEach
+    void setup() throws Exception {
+        Customer.clearExtent();
+        Order.clearExtent();
+        Payment.clearExtent();
+        Ingredient.clearExtent();
+        OrderRequest.clearExtent();
+        ItemQuantity.clearExtent();
+        MenuItem.clearExtent();
+        PersistenceConfig.deleteDataFile(TEST_JOURNAL_FILE);
+
+        Customer customer = new Customer("John", "Doe", "john@test.com", "123456", LocalDateTime.now());
+        order = Order.createDineIn(customer);
+        payment = new Card(80.0, order, "1234", "Visa");
+        ingredient = new Ingredient("Flour", "kg", 50.0, 10.0, 3.0);
+
+        Journal.open(TEST_JOURNAL_FILE);
+        SnapshotManager.saveSnapshot(TEST_SNAPSHOT_FILE);
+        Journal.checkpoint();
+    }
+
+    @AfterEach
+    void cleanup() throws Exception {
+        Journal.close();
+        PersistenceConfig.deleteDataFile(TEST_JOURNAL_FILE);
+        PersistenceConfig.deleteDataFile(TEST_SNAPSHOT_FILE);
+    }
+
+    @Test
+    @DisplayName("Replay applies journaled changes on top of the snapshot")
+    void testReplayAfterSnapshot() throws Exception {
+        order.finalizeOrder();
+        payment.confirmPayment();
+        ingredient.reduceStock(12.5);
+        Journal.sync();
+
+        assertTrue(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+        Order loadedOrder = Order.getAllOrdersFromExtent().get(0);
+        assertEquals(OrderStatus.ACTIVE, loadedOrder.getStatus());
+
+        assertEquals(3, Journal.replay(TEST_JOURNAL_FILE).applied());
+        assertEquals(OrderStatus.AWAITING_PAYMENT, loadedOrder.getStatus());
+        assertEquals(PaymentStatus.PAID, Payment.getAllPaymentsFromExtent().get(0).getStatus());
+        assertEquals(37.5, Ingredient.getAllIngredients().get(0).getCurrentStock(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Torn trailing record is ignored on replay")
+    void testTornTailIgnored() throws Exception {
+        order.finalizeOrder();
+        Journal.sync();
+        try (FileOutputStream out = new FileOutputStream(
+                PersistenceConfig.getDataFilePath(TEST_JOURNAL_FILE), true)) {
+            out.write(new byte[] {0, 0, 0, 20, 1, 0});
+        }
+
+        assertTrue(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+        assertEquals(1, Journal.replay(TEST_JOURNAL_FILE).applied());
+        assertEquals(OrderStatus.AWAITING_PAYMENT, Order.getAllOrdersFromExtent().get(0).getStatus());
+    }
+
+    @Test
+    @DisplayName("Orders, requests, lines and payments created after the snapshot are recreated")
+    void testCreatedEntitiesReplayed() throws Exception {
+        NutritionalInfo nutrition = new NutritionalInfo(100, 10, 10, 10, 5);
+        new MainDish("Pizza", "Italian pizza", 30.0, "img", "Italy", nutrition, 2);
+        SnapshotManager.saveSnapshot(TEST_SNAPSHOT_FILE);
+        Journal.checkpoint();
+
+        Customer walkIn = new Customer("Anna", "Nowak", "anna@test.com", "654321", LocalDateTime.now());
+        Order newOrder = Order.createTakeaway(walkIn);
+        OrderRequest request = new OrderRequest();
+        request.setOrder(newOrder);
+        ItemQuantity line = ItemQuantity.create(request, MenuItem.getAllMenuItems().get(0), 2);
+        line.setQuantity(3);
+        newOrder.finalizeOrder();
+        Payment newPayment = new Cash(100.0, newOrder, 120.0);
+        newPayment.confirmPayment();
+        Journal.sync();
+
+        assertTrue(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+        Journal.ReplayResult result = Journal.replay(TEST_JOURNAL_FILE);
+        assertTrue(result.isComplete(), () -> "Unmatched: " + result.unmatchedKeys());
+
+        Customer loadedCustomer = Customer.findByEmail("anna@test.com");
+        assertEquals(walkIn.getCustomerId(), loadedCustomer.getCustomerId());
+        Order loadedOrder = loadedCustomer.getOrderHistory().first();
+        assertEquals(newOrder.getOrderId(), loadedOrder.getOrderId());
+        assertEquals(OrderKind.TAKEAWAY, loadedOrder.getKind());
+        assertEquals(OrderStatus.AWAITING_PAYMENT, loadedOrder.getStatus());
+
+        OrderRequest loadedRequest = loadedOrder.getOrderRequests().get(0);
+        assertEquals(request.getRequestId(), loadedRequest.getRequestId());
+        ItemQuantity loadedLine = loadedRequest.getItemQuantities().get(0);
+        assertEquals(line.getItemQuantityId(), loadedLine.getItemQuantityId());
+        assertEquals(3, loadedLine.getQuantity());
+        assertEquals(request.calculateRequestTotal(), loadedRequest.calculateRequestTotal(), 0.001);
+
+        Payment loadedPayment = loadedOrder.getPayments().iterator().next();
+        assertEquals(newPayment.getPaymentId(), loadedPayment.getPaymentId());
+        assertEquals(PaymentStatus.PAID, loadedPayment.getStatus());
+        assertEquals(120.0, ((Cash) loadedPayment).getAmountTendered(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Ingredients and menu items created after the snapshot are recreated")
+    void testCreatedMenuEntitiesReplayed() throws Exception {
+        Ingredient salt = new Ingredient("Salt", "kg", 10.0, 2.0, 1.0);
+        salt.reduceStock(1.0);
+        NutritionalInfo nutrition = new NutritionalInfo(100, 10, 10, 10, 5);
+        new MainDish("Pizza", "Italian pizza", 30.0, "img", "Italy", nutrition, Set.of("gluten"), 2);
+        new Beverage("Lemonade", "Fresh lemonade", 8.0, "img", "Poland", nutrition, null);
+        new Dessert("Tiramisu", "Coffee dessert", 15.0, "img", "Italy", nutrition, true);
+        OrderRequest request = new OrderRequest();
+        request.setOrder(order);
+        ItemQuantity.create(request, MenuItem.getAllMenuItems().get(1), 2);
+        Journal.sync();
+
+        assertTrue(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+        Journal.ReplayResult result = Journal.replay(TEST_JOURNAL_FILE);
+        assertTrue(result.isComplete(), () -> "Unmatched: " + result.unmatchedKeys());
+
+        Ingredient loadedSalt = Ingredient.getAllIngredients().stream()
+            .filter(loaded -> loaded.getIngredientId().equals(salt.getIngredientId()))
+            .findFirst().orElseThrow();
+        assertEquals("Salt", loadedSalt.getName());
+        assertEquals(9.0, loadedSalt.getCurrentStock(), 0.001);
+        assertEquals(2.0, loadedSalt.getReorderPoint(), 0.001);
+
+        assertEquals(3, MenuItem.getAllMenuItems().size());
+        MainDish pizza = (MainDish) MenuItem.getAllMenuItems().get(0);
+        assertEquals(30.0, pizza.getPrice(), 0.001);
+        assertEquals(2, pizza.getSpiceLevel());
+        assertEquals(Set.of("gluten"), pizza.getAllergens());
+        Beverage lemonade = (Beverage) MenuItem.getAllMenuItems().get(1);
+        assertNull(lemonade.getAlcoholPercentage());
+        assertTrue(((Dessert) MenuItem.getAllMenuItems().get(2)).getHasNuts());
+
+        ItemQuantity loadedLine = Order.getAllOrdersFromExtent().get(0).getOrderRequests().get(0)
+            .getItemQuantities().get(0);
+        assertSame(lemonade, loadedLine.getMenuItem());
+
+        // Replaying again recreates nothing
+        Journal.replay(TEST_JOURNAL_FILE);
+        assertEquals(2, Ingredient.getAllIngredients().size());
+        assertEquals(3, MenuItem.getAllMenuItems().size());
+    }
+
+    @Test
+    @DisplayName("Replaying the same journal twice does not duplicate created entities")
+    void testCreationReplayIdempotent() throws Exception {
+        Order newOrder = Order.createTakeaway(order.getCustomer());
+        new Card(40.0, newOrder, "1234", "Visa");
+        Journal.sync();
+
+        assertTrue(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+        Journal.replay(TEST_JOURNAL_FILE);
+        Journal.replay(TEST_JOURNAL_FILE);
+        assertEquals(2, Order.getAllOrdersFromExtent().size());
+        assertEquals(2, Payment.getAllPaymentsFromExtent().size());
+    }
+
+    @Test
+    @DisplayName("Records for entities that are neither in the snapshot nor journaled are reported")
+    void testUnmatchedRecordsReported() throws Exception {
+        // Created while the journal was closed, so only its stock change is journaled
+        Journal.close();
+        Ingredient newIngredient = new Ingredient("Salt", "kg", 10.0, 2.0, 1.0);
+        Journal.open(TEST_JOURNAL_FILE);
+        newIngredient.reduceStock(1.0);
+        order.finalizeOrder();
+        Journal.sync();
+
+        assertTrue(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+        Journal.ReplayResult result = Journal.replay(TEST_JOURNAL_FILE);
+        assertEquals(1, result.applied());
+        assertFalse(result.isComplete());
+        assertEquals(List.of(newIngredient.getIngredientId()), result.unmatchedKeys());
+    }
+
+    @Test
+    @DisplayName("Stock records are matched by ingredient id, not by name")
+    void testStockReplayedByIngredientId() throws Exception {
+        Ingredient sameName = new Ingredient("Flour", "kg", 20.0, 5.0, 2.0);
+        SnapshotManager.saveSnapshot(TEST_SNAPSHOT_FILE);
+        Journal.checkpoint();
+
+        sameName.reduceStock(5.0);
+        Journal.sync();
+
+        assertTrue(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+        assertEquals(1, Journal.replay(TEST_JOURNAL_FILE).applied());
+        for (Ingredient loaded : Ingredient.getAllIngredients()) {
+            double expected = loaded.getIngredientId().equals(sameName.getIngredientId()) ? 15.0 : 50.0;
+            assertEquals(expected, loaded.getCurrentStock(), 0.001);
+        }
+    }
+
+    @Test
+    @DisplayName("A stock deduction batch is journaled as one record")
+    void testDeductionBatchIsOneRecord() throws Exception {
+        Ingredient salt = new Ingredient("Salt", "kg", 10.0, 2.0, 1.0);
+        SnapshotManager.saveSnapshot(TEST_SNAPSHOT_FILE);
+        Journal.checkpoint();
+
+        Ingredient.deductStock(Map.of(ingredient, 20.0, salt, 4.0));
+        Journal.sync();
+
+        assertTrue(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+        assertEquals(1, Journal.replay(TEST_JOURNAL_FILE).applied());
+        for (Ingredient loaded : Ingredient.getAllIngredients()) {
+            assertEquals(loaded.getName().equals("Salt") ? 6.0 : 30.0, loaded.getCurrentStock(), 0.001);
+        }
+    }
+
+    @Test
+    @DisplayName("A request confirmation is replayed with its stock batch")
+    void testConfirmationReplayed() throws Exception {
+        NutritionalInfo nutrition = new NutritionalInfo(100, 10, 10, 10, 5);
+        MenuItem bread = new MainDish("Bread", "Fresh bread", 5.0, "img", "Poland", nutrition, 0);
+        Recipe.create(bread, ingredient, 0.5);
+        OrderRequest request = new OrderRequest();
+        ItemQuantity.create(request, bread, 4);
+        SnapshotManager.saveSnapshot(TEST_SNAPSHOT_FILE);
+        Journal.checkpoint();
+
+        request.confirmRequest();
+        Journal.sync();
+
+        assertTrue(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+        assertTrue(Journal.replay(TEST_JOURNAL_FILE).isComplete());
+        OrderRequest loaded = OrderRequest.getAllOrderRequestsFromExtent().get(0);
+        assertEquals(OrderRequestStatus.CONFIRMED, loaded.getStatus());
+        assertEquals(48.0, Ingredient.getAllIngredients().get(0).getCurrentStock(), 0.001);
+        assertThrows(IllegalStateException.class, loaded::confirmRequest);
+        assertEquals(48.0, Ingredient.getAllIngredients().get(0).getCurrentStock(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Order status records appended out of order never move the order back")
+    void testOutOfOrderStatusRecords() throws Exception {
+        // Two racing transitions may append their records in reverse order
+        Journal.recordOrderStatus(order, OrderStatus.COMPLETED);
+        Journal.recordOrderStatus(order, OrderStatus.AWAITING_PAYMENT);
+        Journal.sync();
+
+        assertTrue(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+        Journal.replay(TEST_JOURNAL_FILE);
+        assertEquals(OrderStatus.COMPLETED, Order.getAllOrdersFromExtent().get(0).getStatus());
+    }
+
+    @Test
+    @DisplayName("Checkpoint truncates the journal")
+    void testCheckpointTruncates() throws Exception {
+        order.finalizeOrder();
+        Journal.sync();
+        File file = new File(PersistenceConfig.getDataFilePath(TEST_JOURNAL_FILE));
+        assertTrue(file.length() > 0);
+
+        Journal.checkpoint();
+        assertEquals(0, file.length());
+        assertEquals(0, Journal.replay(TEST_JOURNAL_FILE).applied());
+    }
+
+    @Test
+    @DisplayName("Closed journal records nothing")
+    void testClosedJournalIsNoOp() throws Exception {
+        Journal.close();
+        assertFalse(Journal.isOpen());
+
+        order.finalizeOrder();
+        assertEquals(0, Journal.replay(TEST_JOURNAL_FILE).applied());
+    }
+
+    @Test
+    @DisplayName("Opening an open journal throws exception")
+    void testDoubleOpen() {
+        assertThrows(IllegalStateException.class, () -> Journal.open(TEST_JOURNAL_FILE));
+    }
+}
@@ -0,0 +1,135 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for menu item availability following ingredient stock.
+ */
+public class MenuAvailabilityTest {
+
+    private NutritionalInfo nutrition;
+
+    @BeforeEach
+    void setup() {
+        MenuItem.clearExtent();
+        Ingredient.clearExtent();
+        nutrition = new NutritionalInfo(500, 20, 50, 15, 5);
+    }
+
+    private MenuItem dish(String name) {
+        return new MainDish(name, "Dish", 25.0, "img", "Italy", nutrition, 1);
+    }
+
+    @Test
+    @DisplayName("Item goes unavailable when an ingredient runs out and back when restocked")
+    void testStockDrivesAvailability() {
+        MenuItem pasta = dish("Pasta");
+        Ingredient tomato = new Ingredient("Tomato", "kg", 1.0, 0.5, 5.0);
+        Ingredient basil = new Ingredient("Basil", "kg", 1.0, 0.5, 5.0);
+        pasta.addIngredient(tomato);
+        pasta.addIngredient(basil);
+        assertEquals(MenuItemAvailability.AVAILABLE, pasta.getAvailability());
+
+        tomato.reduceStock(1.0);
+        assertEquals(MenuItemAvailability.UNAVAILABLE, pasta.getAvailability());
+        basil.reduceStock(1.0);
+        tomato.increaseStock(2.0);
+        assertEquals(MenuItemAvailability.UNAVAILABLE, pasta.getAvailability());
+        assertEquals(1, pasta.getIngredientsShort());
+
+        basil.increaseStock(0.2);
+        assertEquals(MenuItemAvailability.AVAILABLE, pasta.getAvailability());
+        assertTrue(pasta.checkAvailability());
+    }
+
+    @Test
+    @DisplayName("Only items using the ingredient are affected")
+    void testOnlyAffectedItems() {
+        MenuItem pasta = dish("Pasta");
+        MenuItem salad = dish("Salad");
+        Ingredient tomato = new Ingredient("Tomato", "kg", 1.0, 0.5, 5.0);
+        Ingredient lettuce = new Ingredient("Lettuce", "kg", 1.0, 0.5, 5.0);
+        pasta.addIngredient(tomato);
+        salad.addIngredient(lettuce);
+
+        tomato.setCurrentStock(0.0);
+        assertEquals(MenuItemAvailability.UNAVAILABLE, pasta.getAvailability());
+        assertEquals(MenuItemAvailability.AVAILABLE, salad.getAvailability());
+    }
+
+    @Test
+    @DisplayName("Linking and unlinking an empty ingredient updates availability")
+    void testAssociationChanges() {
+        MenuItem pasta = dish("Pasta");
+        Ingredient tomato = new Ingredient("Tomato", "kg", 1.0, 0.5, 5.0);
+        Ingredient saffron = new Ingredient("Saffron", "g", 0.0, 1.0, 50.0);
+        pasta.addIngredient(tomato);
+
+        saffron.addMenuItem(pasta);
+        assertEquals(MenuItemAvailability.UNAVAILABLE, pasta.getAvailability());
+        pasta.removeIngredient(saffron);
+        assertEquals(MenuItemAvailability.AVAILABLE, pasta.getAvailability());
+    }
+
+    @Test
+    @DisplayName("Pending update is left for the manager, who recalculates from stock")
+    void testPendingUpdate() {
+        MenuItem pasta = dish("Pasta");
+        Ingredient tomato = new Ingredient("Tomato", "kg", 1.0, 0.5, 5.0);
+        pasta.addIngredient(tomato);
+        pasta.transitionToPendingUpdate();
+
+        tomato.setCurrentStock(0.0);
+        assertEquals(MenuItemAvailability.PENDING_UPDATE, pasta.getAvailability());
+
+        pasta.recalculateAvailability();
+        assertEquals(MenuItemAvailability.UNAVAILABLE, pasta.getAvailability());
+        tomato.setCurrentStock(3.0);
+        assertEquals(MenuItemAvailability.AVAILABLE, pasta.getAvailability());
+    }
+
+    @Test
+    @DisplayName("Concurrent stock changes and recipe edits keep the short count exact")
+    void testConcurrentStockAndRecipeEdits() throws Exception {
+        MenuItem pasta = dish("Pasta");
+        Ingredient flour = new Ingredient("Flour", "kg", 1.0, 0.5, 5.0);
+        Ingredient egg = new Ingredient("Egg", "pcs", 1.0, 0.5, 5.0);
+        pasta.addIngredient(flour);
+        Recipe recipe = Recipe.create(pasta, egg, 1.0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?> sales = pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500_000; i++) {
+                    egg.setCurrentStock(i % 2 == 0 ? 0.5 : 1.5);
+                    flour.setCurrentStock(i % 3 == 0 ? 0.0 : 1.0);
+                }
+                return null;
+            });
+            Future<?> edits = pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500_000; i++) {
+                    recipe.setQuantityPerPortion(i % 2 == 0 ? 1.0 : 0.25);
+                }
+                return null;
+            });
+            start.countDown();
+            sales.get();
+            edits.get();
+        } finally {
+            pool.shutdownNow();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        int incremental = pasta.getIngredientsShort();
+        pasta.recalculateAvailability();
+        assertEquals(pasta.getIngredientsShort(), incremental);
+    }
+}
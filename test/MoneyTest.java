@@ -0,0 +1,85 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the fixed-point Money type and exact amounts in pricing and payments.
+ */
+public class MoneyTest {
+
+    @BeforeEach
+    void setup() {
+        Invoice.clearExtent();
+        Order.clearExtent();
+        Payment.clearExtent();
+        MenuItem.clearExtent();
+    }
+
+    @Test
+    @DisplayName("Doubles round half-up to the nearest grosz")
+    void testConversion() {
+        assertEquals(1999, Money.toGrosz(19.99));
+        assertEquals(101, Money.toGrosz(1.005));
+        assertEquals(-101, Money.toGrosz(-1.005));
+        assertEquals(0.3, Money.toDouble(Money.toGrosz(0.1) + Money.toGrosz(0.2)));
+        assertThrows(IllegalArgumentException.class, () -> Money.toGrosz(Double.NaN));
+    }
+
+    @Test
+    @DisplayName("Percentages round half-up to the nearest grosz")
+    void testPercentOf() {
+        assertEquals(12, Money.percentOf(50, 23));
+        assertEquals(-12, Money.percentOf(-50, 23));
+        assertEquals(250, Money.percentOf(10_000, 2.5));
+    }
+
+    @Test
+    @DisplayName("Arithmetic, comparison and formatting")
+    void testValueOperations() {
+        Money price = Money.of(12.50);
+        assertEquals(Money.of(37.50), price.times(3));
+        assertEquals(Money.of(2.50), price.minus(Money.of(10)));
+        assertEquals(Money.of(15.38), price.plus(price.percent(23)));
+        assertTrue(price.isGreaterThan(Money.ZERO));
+        assertTrue(Money.of(-0.05).isNegative());
+        assertEquals("12.50 PLN", price.toString());
+        assertEquals("-0.05 PLN", Money.of(-0.05).toString());
+        assertThrows(IllegalArgumentException.class, () -> price.plus(null));
+    }
+
+    @Test
+    @DisplayName("Price with tax is rounded to the grosz")
+    void testPriceWithTax() {
+        MenuItem dish = new MainDish("Soup", "Tomato soup", 10.99, "img", "Poland",
+            new NutritionalInfo(100, 10, 10, 10, 5), 1);
+        // 10.99 * 1.23 = 13.5177
+        assertEquals(Money.of(13.52), dish.calculatePriceWithTaxAsMoney());
+        assertEquals(13.52, dish.calculatePriceWithTax());
+        assertThrows(IllegalArgumentException.class, () -> dish.setPrice(0.004));
+    }
+
+    @Test
+    @DisplayName("Invoice settles exactly without epsilon")
+    void testInvoiceSettlesExactly() {
+        Order order = Order.createDineIn(new Customer());
+        order.finalizeOrder();
+        order.completeOrder();
+        Invoice invoice = new Invoice(order, new Address("St. Test", "City", "00-001", "PL"), 0.3, null);
+
+        invoice.addPayment(new Cash(0.1, order, 0.1));
+        invoice.addPayment(new Cash(0.1, order, 0.1));
+        assertFalse(invoice.isPaid());
+        invoice.addPayment(new Cash(0.1, order, 0.1));
+        assertTrue(invoice.isPaid());
+
+        assertThrows(IllegalStateException.class, () -> invoice.addPayment(new Cash(0.01, order, 0.01)));
+    }
+
+    @Test
+    @DisplayName("Cash change is exact")
+    void testCashChange() {
+        Order order = Order.createTakeaway(new Customer());
+        Cash cash = new Cash(17.30, order, 20.00);
+        assertEquals(Money.of(2.70), cash.getChangeGivenAsMoney());
+        assertEquals(2.70, cash.getChangeGiven());
+    }
+}
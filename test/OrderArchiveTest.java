@@ -0,0 +1,203 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Tests for the columnar archive of closed orders.
+ */
+public class OrderArchiveTest {
+
+    private static final String TEST_ARCHIVE_DIRECTORY = "test_order_archive";
+
+    private Customer customer;
+    private OrderArchive archive;
+
+    @BeforeEach
+    void setup() throws Exception {
+        Customer.clearExtent();
+        Order.clearExtent();
+        Payment.clearExtent();
+        OrderRequest.clearExtent();
+        ItemQuantity.clearExtent();
+        MenuItem.clearExtent();
+        deleteArchiveFiles();
+
+        customer = new Customer("John", "Doe", "john@test.com", "123456", LocalDateTime.now());
+        archive = OrderArchive.open(TEST_ARCHIVE_DIRECTORY);
+    }
+
+    @AfterEach
+    void cleanup() throws Exception {
+        archive.close();
+        deleteArchiveFiles();
+    }
+
+    private static void deleteArchiveFiles() {
+        File directory = new File(PersistenceConfig.getDataFilePath(TEST_ARCHIVE_DIRECTORY));
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private Order completedOrder(LocalDate date) {
+        Order order = Order.createTakeaway(customer);
+        order.setDate(date);
+        new Card(80.0, order, "1234", "Visa");
+        order.finalizeOrder();
+        order.completeOrder();
+        return order;
+    }
+
+    @Test
+    @DisplayName("Closed orders move from the heap into the archive")
+    void testArchiveClosedOrders() throws Exception {
+        Order completed = completedOrder(LocalDate.of(2024, 3, 10));
+        Order cancelled = Order.createDineIn(customer);
+        cancelled.cancelOrder();
+        Order active = Order.createTakeaway(customer);
+
+        assertEquals(2, archive.archiveClosedOrders());
+
+        assertEquals(1, Order.getAllOrdersFromExtent().size());
+        assertSame(active, Order.getAllOrdersFromExtent().get(0));
+        assertEquals(1, customer.getOrders().size());
+        assertEquals(0, Payment.getAllPaymentsFromExtent().size());
+        assertEquals(2, archive.size());
+
+        OrderArchive.View view = archive.openView();
+        assertEquals(2, view.size());
+        assertEquals(completed.getOrderId(), view.getOrderId(0));
+        assertEquals(LocalDate.of(2024, 3, 10), view.getDate(0));
+        assertEquals(completed.getTime(), view.getTime(0));
+        assertEquals(OrderKind.TAKEAWAY, view.getKind(0));
+        assertEquals(OrderStatus.COMPLETED, view.getStatus(0));
+        assertEquals(customer.getCustomerId(), view.getCustomerId(0));
+        assertEquals(1, view.getPaymentCount(0));
+        assertEquals(OrderKind.DINE_IN, view.getKind(1));
+        assertEquals(OrderStatus.CANCELLED, view.getStatus(1));
+        assertEquals(0, view.getPaymentCount(1));
+    }
+
+    @Test
+    @DisplayName("Archiving deletes the order's requests and lines")
+    void testArchiveCascadesToRequests() throws Exception {
+        NutritionalInfo nutrition = new NutritionalInfo(100, 10, 10, 10, 5);
+        MenuItem pizza = new MainDish("Pizza", "Italian pizza", 30.0, "img", "Italy", nutrition, 2);
+        Order cancelled = Order.createDineIn(customer);
+        OrderRequest request = new OrderRequest();
+        cancelled.addOrderRequest(request);
+        ItemQuantity.create(request, pizza, 2);
+        cancelled.cancelOrder();
+
+        archive.archive(cancelled);
+
+        assertFalse(OrderRequest.getAllOrderRequestsFromExtent().contains(request));
+        assertTrue(ItemQuantity.getAllItemQuantitiesFromExtent().isEmpty());
+        assertTrue(pizza.getItemQuantities().isEmpty());
+        assertNull(ItemQuantity.find(request, pizza));
+    }
+
+    @Test
+    @DisplayName("An order already in the archive is not appended again")
+    void testArchiveIsIdempotent() throws Exception {
+        Order completed = completedOrder(LocalDate.of(2024, 3, 10));
+        archive.archive(List.of(completed, completed));
+        assertEquals(1, archive.size());
+        assertTrue(archive.contains(completed.getOrderId()));
+
+        // E.g. a heap restored from a snapshot taken before the order was archived
+        archive.close();
+        archive = OrderArchive.open(TEST_ARCHIVE_DIRECTORY);
+        archive.archive(completed);
+
+        assertEquals(1, archive.size());
+        assertEquals(completed.getTotalAmount(),
+            archive.openView().sumCompletedTotals(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31)), 0.001);
+    }
+
+    @Test
+    @DisplayName("Archiving an open order throws exception")
+    void testArchiveActiveOrder() {
+        Order active = Order.createTakeaway(customer);
+        assertThrows(IllegalStateException.class, () -> archive.archive(active));
+        assertEquals(1, Order.getAllOrdersFromExtent().size());
+        assertEquals(0, archive.size());
+    }
+
+    @Test
+    @DisplayName("Archive survives reopening")
+    void testReopen() throws Exception {
+        completedOrder(LocalDate.of(2024, 1, 5));
+        archive.archiveClosedOrders();
+        archive.close();
+
+        archive = OrderArchive.open(TEST_ARCHIVE_DIRECTORY);
+        assertEquals(1, archive.size());
+        completedOrder(LocalDate.of(2024, 1, 6));
+        archive.archiveClosedOrders();
+
+        OrderArchive.View view = archive.openView();
+        assertEquals(2, view.size());
+        assertEquals(LocalDate.of(2024, 1, 5), view.getDate(0));
+        assertEquals(LocalDate.of(2024, 1, 6), view.getDate(1));
+    }
+
+    @Test
+    @DisplayName("Torn trailing row is dropped on open")
+    void testTornRowTrimmed() throws Exception {
+        completedOrder(LocalDate.of(2024, 1, 5));
+        archive.archiveClosedOrders();
+        archive.close();
+
+        File dateColumn = new File(PersistenceConfig.getDataFilePath(TEST_ARCHIVE_DIRECTORY), "date.col");
+        try (FileOutputStream out = new FileOutputStream(dateColumn, true)) {
+            out.write(new byte[] {1, 2, 3, 4});
+        }
+
+        archive = OrderArchive.open(TEST_ARCHIVE_DIRECTORY);
+        assertEquals(1, archive.size());
+        assertEquals(4, dateColumn.length());
+    }
+
+    @Test
+    @DisplayName("View is a snapshot of the rows present when opened")
+    void testViewSnapshot() throws Exception {
+        completedOrder(LocalDate.of(2024, 1, 5));
+        archive.archiveClosedOrders();
+        OrderArchive.View view = archive.openView();
+
+        completedOrder(LocalDate.of(2024, 1, 6));
+        archive.archiveClosedOrders();
+
+        assertEquals(1, view.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> view.getDate(1));
+        assertEquals(2, archive.openView().size());
+    }
+
+    @Test
+    @DisplayName("Report scans filter by customer and date range")
+    void testReportScans() throws Exception {
+        completedOrder(LocalDate.of(2024, 1, 5));
+        completedOrder(LocalDate.of(2024, 2, 5));
+        Customer other = new Customer("Jane", "Smith", "jane@test.com", "654321", LocalDateTime.now());
+        Order otherOrder = Order.createTakeaway(other);
+        otherOrder.cancelOrder();
+        archive.archiveClosedOrders();
+
+        OrderArchive.View view = archive.openView();
+        assertEquals(2, view.findRowsByCustomer(customer.getCustomerId()).size());
+        assertEquals(1, view.findRowsByCustomer(other.getCustomerId()).size());
+
+        double expected = view.getTotal(0);
+        assertEquals(expected, view.sumCompletedTotals(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)), 0.001);
+    }
+}
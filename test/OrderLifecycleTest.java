@@ -0,0 +1,138 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the order status transition table and compare-and-set transitions.
+ */
+public class OrderLifecycleTest {
+
+    private Customer customer;
+    private final List<OrderStatusListener> registered = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        Customer.clearExtent();
+        Order.clearExtent();
+        Payment.clearExtent();
+        Table.clearExtent();
+        customer = new Customer("John", "Doe", "john@test.com", "123456", LocalDateTime.now());
+    }
+
+    @AfterEach
+    void removeListeners() {
+        registered.forEach(Order::removeStatusListener);
+        registered.clear();
+    }
+
+    private void listen(OrderStatusListener listener) {
+        Order.addStatusListener(listener);
+        registered.add(listener);
+    }
+
+    @Test
+    @DisplayName("Transition table allows only the order lifecycle")
+    void testTransitionTable() {
+        assertTrue(OrderStatus.ACTIVE.canTransitionTo(OrderStatus.AWAITING_PAYMENT));
+        assertTrue(OrderStatus.ACTIVE.canTransitionTo(OrderStatus.CANCELLED));
+        assertTrue(OrderStatus.AWAITING_PAYMENT.canTransitionTo(OrderStatus.COMPLETED));
+        assertFalse(OrderStatus.ACTIVE.canTransitionTo(OrderStatus.COMPLETED));
+        assertFalse(OrderStatus.AWAITING_PAYMENT.canTransitionTo(OrderStatus.CANCELLED));
+        assertFalse(OrderStatus.CANCELLED.canTransitionTo(OrderStatus.CANCELLED));
+        assertTrue(OrderStatus.COMPLETED.isFinal());
+        assertTrue(OrderStatus.CANCELLED.isFinal());
+        assertFalse(OrderStatus.ACTIVE.isFinal());
+    }
+
+    @Test
+    @DisplayName("Listeners see each committed transition once")
+    void testListenersNotified() {
+        List<String> events = new ArrayList<>();
+        listen((order, from, to) -> events.add(from + "->" + to));
+
+        Order order = Order.createTakeaway(customer);
+        order.finalizeOrder();
+        order.completeOrder();
+        assertThrows(IllegalStateException.class, order::completeOrder);
+
+        assertEquals(List.of("ACTIVE->AWAITING_PAYMENT", "AWAITING_PAYMENT->COMPLETED"), events);
+    }
+
+    @Test
+    @DisplayName("Cancelling twice throws exception")
+    void testCancelTwice() {
+        Order order = Order.createDineIn(customer);
+        order.cancelOrder();
+        IllegalStateException e = assertThrows(IllegalStateException.class, order::cancelOrder);
+        assertTrue(e.getMessage().contains("already cancelled"));
+    }
+
+    @Test
+    @DisplayName("Failing listener does not undo the transition")
+    void testFailingListener() {
+        AtomicInteger notified = new AtomicInteger();
+        listen((order, from, to) -> { throw new IllegalStateException("listener failed"); });
+        listen((order, from, to) -> notified.incrementAndGet());
+
+        Order order = Order.createTakeaway(customer);
+        assertThrows(IllegalStateException.class, order::finalizeOrder);
+        assertEquals(OrderStatus.AWAITING_PAYMENT, order.getStatus());
+        assertEquals(1, notified.get());
+    }
+
+    @Test
+    @DisplayName("Contended check-out completes once and releases tables once")
+    void testContendedCompletion() throws Exception {
+        Table table = new Table(7, 4, "Main Hall");
+        Order order = Order.createDineIn(customer);
+        order.getDineIn().addTable(table);
+        assertEquals(TableStatus.OCCUPIED, table.getStatus());
+        order.finalizeOrder();
+
+        AtomicInteger completions = new AtomicInteger();
+        listen((o, from, to) -> {
+            if (to == OrderStatus.COMPLETED) completions.incrementAndGet();
+        });
+
+        int terminals = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(terminals);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < terminals; i++) {
+                attempts.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        order.completeOrder();
+                        return true;
+                    } catch (IllegalStateException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get()) succeeded++;
+            }
+            assertEquals(1, succeeded);
+        } finally {
+            pool.shutdownNow();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, completions.get());
+        assertEquals(OrderStatus.COMPLETED, order.getStatus());
+        assertEquals(TableStatus.AVAILABLE, table.getStatus());
+    }
+}
@@ -0,0 +1,147 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tests for the Order - OrderRequest link and the running order subtotal.
+ */
+public class OrderSubtotalTest {
+
+    private static final double TAX = 1 + MenuItem.TAX_RATE;
+
+    private Customer customer;
+    private MenuItem pizza;
+    private MenuItem pasta;
+
+    @BeforeEach
+    void setup() {
+        Customer.clearExtent();
+        Order.clearExtent();
+        Payment.clearExtent();
+        OrderRequest.clearExtent();
+        MenuItem.clearExtent();
+        ItemQuantity.clearExtent();
+        Discount.clearExtent();
+
+        customer = new Customer("John", "Doe", "john@test.com", "123456", LocalDateTime.now());
+        NutritionalInfo nutrition = new NutritionalInfo(100, 10, 10, 10, 5);
+        pizza = new MainDish("Pizza", "Italian pizza", 30.0, "img", "Italy", nutrition, 2);
+        pasta = new MainDish("Pasta", "Italian pasta", 20.0, "img", "Italy", nutrition, 1);
+    }
+
+    @Test
+    @DisplayName("Subtotal follows lines created, changed and deleted")
+    void testSubtotalFollowsLines() {
+        Order order = Order.createDineIn(customer);
+        OrderRequest request = new OrderRequest();
+        order.addOrderRequest(request);
+        assertEquals(0.0, order.getSubtotal(), 0.001);
+
+        ItemQuantity pizzaLine = ItemQuantity.create(request, pizza, 2);
+        ItemQuantity pastaLine = ItemQuantity.create(request, pasta, 1);
+        assertEquals((60.0 + 20.0) * TAX, order.getSubtotal(), 0.001);
+
+        pizzaLine.setQuantity(3);
+        assertEquals((90.0 + 20.0) * TAX, order.getSubtotal(), 0.001);
+
+        pastaLine.delete();
+        assertEquals(90.0 * TAX, order.getSubtotal(), 0.001);
+        assertEquals(order.getSubtotal(), request.calculateRequestTotal(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Menu item price change updates every order containing it")
+    void testPriceChangePropagates() {
+        Order first = Order.createDineIn(customer);
+        Order second = Order.createTakeaway(customer);
+        OrderRequest firstRequest = new OrderRequest();
+        OrderRequest secondRequest = new OrderRequest();
+        first.addOrderRequest(firstRequest);
+        second.addOrderRequest(secondRequest);
+        ItemQuantity.create(firstRequest, pizza, 1);
+        ItemQuantity.create(secondRequest, pizza, 2);
+        ItemQuantity.create(secondRequest, pasta, 1);
+
+        pizza.setPrice(40.0);
+
+        assertEquals(40.0 * TAX, first.getSubtotal(), 0.001);
+        assertEquals((80.0 + 20.0) * TAX, second.getSubtotal(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Menu item price change leaves finalized orders alone")
+    void testPriceChangeSkipsClosedOrders() {
+        Order open = Order.createDineIn(customer);
+        Order closed = Order.createTakeaway(customer);
+        OrderRequest openRequest = new OrderRequest();
+        OrderRequest closedRequest = new OrderRequest();
+        open.addOrderRequest(openRequest);
+        closed.addOrderRequest(closedRequest);
+        ItemQuantity.create(openRequest, pizza, 1);
+        ItemQuantity.create(closedRequest, pizza, 1);
+        closed.finalizeOrder();
+
+        pizza.setPrice(40.0);
+
+        assertEquals(40.0 * TAX, open.getSubtotal(), 0.001);
+        assertEquals(30.0 * TAX, closed.getSubtotal(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Moving a request between orders moves its total")
+    void testRequestMovesBetweenOrders() {
+        Order first = Order.createDineIn(customer);
+        Order second = Order.createDineIn(customer);
+        OrderRequest request = new OrderRequest();
+        ItemQuantity.create(request, pasta, 2);
+
+        first.addOrderRequest(request);
+        assertEquals(40.0 * TAX, first.getSubtotal(), 0.001);
+
+        request.setOrder(second);
+        assertSame(second, request.getOrder());
+        assertEquals(0, first.getOrderRequests().size());
+        assertEquals(0.0, first.getSubtotal(), 0.001);
+        assertEquals(40.0 * TAX, second.getSubtotal(), 0.001);
+
+        second.removeOrderRequest(request);
+        assertNull(request.getOrder());
+        assertEquals(0.0, second.getSubtotal(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Volume discount is checked against the real subtotal")
+    void testVolumeDiscountUsesSubtotal() {
+        Order order = Order.createDineIn(customer);
+        OrderRequest request = new OrderRequest();
+        order.addOrderRequest(request);
+        ItemQuantity line = ItemQuantity.create(request, pizza, 1);
+        order.setDiscount(new OrderLevelDiscount("SUBTOTAL50", 50.0, 1, 10.0));
+
+        assertEquals(30.0 * TAX, order.getTotalAmount(), 0.001);
+
+        line.setQuantity(2);
+        assertEquals(60.0 * TAX * 0.9, order.getTotalAmount(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Requests cannot be added once the order is finalized")
+    void testAddRequestToFinalizedOrder() {
+        Order order = Order.createDineIn(customer);
+        order.finalizeOrder();
+        assertThrows(IllegalStateException.class, () -> order.addOrderRequest(new OrderRequest()));
+        assertThrows(IllegalArgumentException.class, () -> order.addOrderRequest(null));
+    }
+
+    @Test
+    @DisplayName("Deleting an order detaches its requests")
+    void testDeleteDetachesRequests() {
+        Order order = Order.createDineIn(customer);
+        OrderRequest request = new OrderRequest();
+        order.addOrderRequest(request);
+
+        order.delete();
+        assertNull(request.getOrder());
+    }
+}
@@ -0,0 +1,169 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests for the Recipe association class and batched stock deduction.
+ */
+public class RecipeTest {
+
+    private MenuItem pasta;
+    private MenuItem pizza;
+    private Ingredient flour;
+    private Ingredient tomato;
+
+    @BeforeEach
+    void setup() {
+        MenuItem.clearExtent();
+        Ingredient.clearExtent();
+        OrderRequest.clearExtent();
+        ItemQuantity.clearExtent();
+
+        NutritionalInfo nutrition = new NutritionalInfo(500, 20, 50, 15, 5);
+        pasta = new MainDish("Pasta", "Pasta", 25.0, "img", "Italy", nutrition, 1);
+        pizza = new MainDish("Pizza", "Pizza", 30.0, "img", "Italy", nutrition, 1);
+        flour = new Ingredient("Flour", "kg", 10.0, 2.0, 3.0);
+        tomato = new Ingredient("Tomato", "kg", 5.0, 1.0, 5.0);
+    }
+
+    @Test
+    @DisplayName("Recipe links the ingredient and rejects a duplicate pair")
+    void testCreateAndFind() {
+        Recipe line = Recipe.create(pasta, flour, 0.2);
+
+        assertTrue(pasta.getIngredients().contains(flour));
+        assertTrue(flour.getMenuItems().contains(pasta));
+        assertSame(line, Recipe.find(pasta, flour));
+        assertNull(Recipe.find(pizza, flour));
+        assertThrows(IllegalStateException.class, () -> Recipe.create(pasta, flour, 0.3));
+        assertThrows(IllegalArgumentException.class, () -> Recipe.create(pizza, flour, 0.0));
+        assertEquals(List.of(line), Recipe.getAllRecipesFromExtent());
+    }
+
+    @Test
+    @DisplayName("Removing the ingredient from the item deletes its recipe line")
+    void testRemoveIngredientDeletesRecipe() {
+        Recipe.create(pasta, flour, 0.2);
+        Recipe.create(pasta, tomato, 0.1);
+
+        pasta.removeIngredient(flour);
+        assertNull(Recipe.find(pasta, flour));
+        assertEquals(1, pasta.getRecipe().size());
+        assertEquals(1, Recipe.getAllRecipesFromExtent().size());
+    }
+
+    @Test
+    @DisplayName("Item is unavailable when stock cannot cover one portion")
+    void testPortionDrivesAvailability() {
+        Recipe line = Recipe.create(pasta, flour, 0.5);
+        assertEquals(MenuItemAvailability.AVAILABLE, pasta.getAvailability());
+
+        flour.setCurrentStock(0.4);
+        assertEquals(MenuItemAvailability.UNAVAILABLE, pasta.getAvailability());
+
+        line.setQuantityPerPortion(0.3);
+        assertEquals(MenuItemAvailability.AVAILABLE, pasta.getAvailability());
+        line.setQuantityPerPortion(1.0);
+        assertEquals(MenuItemAvailability.UNAVAILABLE, pasta.getAvailability());
+        line.delete();
+        assertEquals(MenuItemAvailability.AVAILABLE, pasta.getAvailability());
+    }
+
+    @Test
+    @DisplayName("Confirming a request deducts the merged demand of all lines")
+    void testConfirmDeductsStock() {
+        Recipe.create(pasta, flour, 0.2);
+        Recipe.create(pasta, tomato, 0.1);
+        Recipe.create(pizza, flour, 0.3);
+        Recipe.create(pizza, tomato, 0.15);
+
+        OrderRequest request = new OrderRequest();
+        ItemQuantity.create(request, pasta, 3);
+        ItemQuantity.create(request, pizza, 2);
+
+        Map<Ingredient, Double> demand = request.calculateIngredientDemand();
+        assertEquals(1.2, demand.get(flour), 1e-9);
+        assertEquals(0.6, demand.get(tomato), 1e-9);
+
+        request.confirmRequest();
+        assertEquals(OrderRequestStatus.CONFIRMED, request.getStatus());
+        assertEquals(8.8, flour.getCurrentStock(), 1e-9);
+        assertEquals(4.4, tomato.getCurrentStock(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Short stock rejects the whole batch and changes nothing")
+    void testBatchIsAtomic() {
+        Recipe.create(pasta, flour, 0.2);
+        Recipe.create(pizza, tomato, 1.0);
+
+        OrderRequest request = new OrderRequest();
+        ItemQuantity.create(request, pasta, 3);
+        ItemQuantity.create(request, pizza, 6);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, request::confirmRequest);
+        assertTrue(e.getMessage().contains("Tomato"));
+        assertEquals(OrderRequestStatus.PENDING, request.getStatus());
+        assertEquals(10.0, flour.getCurrentStock());
+        assertEquals(5.0, tomato.getCurrentStock());
+    }
+
+    @Test
+    @DisplayName("Concurrent confirmations of one request deduct its stock once")
+    void testConcurrentConfirmDeductsOnce() throws Exception {
+        Recipe.create(pasta, flour, 0.5);
+        flour.setCurrentStock(1000.0);
+
+        int threads = 8;
+        int rounds = 300;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            int confirmed = 0;
+            for (int round = 0; round < rounds; round++) {
+                OrderRequest request = new OrderRequest();
+                ItemQuantity.create(request, pasta, 2);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        try {
+                            request.confirmRequest();
+                            return true;
+                        } catch (IllegalStateException e) {
+                            return false;
+                        }
+                    }));
+                }
+                start.countDown();
+                for (Future<Boolean> result : results) {
+                    if (result.get()) confirmed++;
+                }
+                assertEquals(OrderRequestStatus.CONFIRMED, request.getStatus());
+            }
+
+            assertEquals(rounds, confirmed);
+            assertEquals(1000.0 - rounds, flour.getCurrentStock(), 1e-9);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Recipe extent is rebuilt from restored menu items")
+    void testRestore() {
+        Recipe line = Recipe.create(pasta, flour, 0.2);
+        MenuItem.clearExtent();
+        assertTrue(Recipe.getAllRecipesFromExtent().isEmpty());
+
+        MenuItem.restoreExtent(List.of(pasta));
+        assertSame(line, Recipe.find(pasta, flour));
+    }
+}
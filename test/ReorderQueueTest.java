@@ -0,0 +1,128 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the queue of ingredients below their reorder point.
+ */
+public class ReorderQueueTest {
+
+    private final List<String> events = new ArrayList<>();
+    private final ReorderListener recorder =
+        (ingredient, needsReorder) -> events.add(ingredient.getName() + (needsReorder ? "+" : "-"));
+
+    @BeforeEach
+    void setup() {
+        Ingredient.clearExtent();
+        Ingredient.addReorderListener(recorder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Ingredient.removeReorderListener(recorder);
+    }
+
+    @Test
+    @DisplayName("Candidates are ordered by how far stock is below the reorder point")
+    void testOrdering() {
+        Ingredient flour = new Ingredient("Flour", "kg", 8.0, 10.0, 3.0);
+        Ingredient salt = new Ingredient("Salt", "kg", 1.0, 4.0, 1.0);
+        Ingredient oil = new Ingredient("Oil", "l", 5.0, 2.0, 9.0);
+        Ingredient basil = new Ingredient("Basil", "kg", 0.0, 0.5, 20.0);
+
+        assertEquals(List.of(basil, salt, flour), Ingredient.topReorderCandidates(5));
+        assertEquals(List.of(basil, salt), Ingredient.topReorderCandidates(2));
+        assertTrue(Ingredient.topReorderCandidates(0).isEmpty());
+        assertFalse(Ingredient.topReorderCandidates(5).contains(oil));
+        assertEquals(0.75, salt.getDeficitRatio(), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> Ingredient.topReorderCandidates(-1));
+    }
+
+    @Test
+    @DisplayName("Queue follows stock and reorder point changes")
+    void testUpdates() {
+        Ingredient flour = new Ingredient("Flour", "kg", 8.0, 10.0, 3.0);
+        Ingredient salt = new Ingredient("Salt", "kg", 3.0, 4.0, 1.0);
+        assertEquals(List.of(salt, flour), Ingredient.topReorderCandidates(5));
+
+        flour.updateCurrentStock(-7.0);
+        assertEquals(List.of(flour, salt), Ingredient.topReorderCandidates(5));
+
+        salt.increaseStock(2.0);
+        assertEquals(List.of(flour), Ingredient.topReorderCandidates(5));
+
+        flour.setReorderPoint(0.5);
+        assertTrue(Ingredient.topReorderCandidates(5).isEmpty());
+        assertEquals(0, Ingredient.getReorderCount());
+    }
+
+    @Test
+    @DisplayName("Listeners hear only when an ingredient enters or leaves the queue")
+    void testListener() {
+        Ingredient flour = new Ingredient("Flour", "kg", 12.0, 10.0, 3.0);
+        flour.setCurrentStock(9.0);
+        flour.setCurrentStock(4.0);
+        flour.setCurrentStock(11.0);
+        flour.setCurrentStock(10.5);
+        assertEquals(List.of("Flour+", "Flour-"), events);
+    }
+
+    @Test
+    @DisplayName("A failing listener does not stop the others or the stock change")
+    void testFailingListener() {
+        ReorderListener failing = (ingredient, needsReorder) -> {
+            throw new IllegalStateException("listener failed");
+        };
+        List<Throwable> reported = new ArrayList<>();
+        Thread thread = Thread.currentThread();
+        Thread.UncaughtExceptionHandler previous = thread.getUncaughtExceptionHandler();
+        thread.setUncaughtExceptionHandler((t, e) -> reported.add(e));
+        Ingredient.addReorderListener(failing);
+        try {
+            Ingredient flour = new Ingredient("Flour", "kg", 12.0, 10.0, 3.0);
+            flour.setCurrentStock(1.0);
+            assertEquals(1.0, flour.getCurrentStock());
+            assertEquals(List.of(flour), Ingredient.topReorderCandidates(1));
+            assertEquals(List.of("Flour+"), events);
+            assertEquals(1, reported.size());
+            assertEquals("listener failed", reported.get(0).getMessage());
+        } finally {
+            Ingredient.removeReorderListener(failing);
+            thread.setUncaughtExceptionHandler(previous);
+        }
+    }
+
+    @Test
+    @DisplayName("Listeners run after the whole deduction batch has been applied")
+    void testListenersAfterBatch() {
+        Ingredient flour = new Ingredient("Flour", "kg", 12.0, 10.0, 3.0);
+        Ingredient salt = new Ingredient("Salt", "kg", 5.0, 4.0, 1.0);
+        List<Double> seen = new ArrayList<>();
+        ReorderListener observer = (ingredient, needsReorder) -> {
+            seen.add(flour.getCurrentStock());
+            seen.add(salt.getCurrentStock());
+        };
+        Ingredient.addReorderListener(observer);
+        try {
+            Ingredient.deductStock(Map.of(flour, 4.0, salt, 2.0));
+            assertEquals(List.of(8.0, 3.0, 8.0, 3.0), seen);
+            assertEquals(2, events.size());
+        } finally {
+            Ingredient.removeReorderListener(observer);
+        }
+    }
+
+    @Test
+    @DisplayName("Queue is rebuilt with the extent")
+    void testRestore() {
+        Ingredient salt = new Ingredient("Salt", "kg", 1.0, 4.0, 1.0);
+        Ingredient.clearExtent();
+        assertTrue(Ingredient.topReorderCandidates(5).isEmpty());
+
+        Ingredient.restoreExtent(List.of(salt));
+        assertEquals(List.of(salt), Ingredient.topReorderCandidates(5));
+    }
+}
@@ -0,0 +1,109 @@
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Size and encode/decode throughput of the Order, Payment, OrderRequest and
+ * ItemQuantity extents written through one ObjectOutputStream (the snapshot path).
+ *
+ * <p>Not a JUnit test (surefire only picks up *Test classes). Run it from the
+ * test classpath, e.g. {@code java -cp target/classes:target/test-classes SerializationBenchmark}.
+ */
+public class SerializationBenchmark {
+
+    private static final int ORDERS = 20_000;
+    private static final int CUSTOMERS = 2_000;
+    private static final int MENU_SIZE = 100;
+    private static final int LINES_PER_REQUEST = 3;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws Exception {
+        List<List<?>> extents = buildExtents();
+
+        byte[] encoded = encode(extents);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            decode(encode(extents));
+        }
+
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            encoded = encode(extents);
+            encodeNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            decode(encoded);
+            decodeNanos += System.nanoTime() - start;
+        }
+
+        int entities = 0;
+        for (List<?> extent : extents) {
+            entities += extent.size();
+        }
+        System.out.printf("entities      %,12d%n", entities);
+        System.out.printf("bytes         %,12d (%.1f per entity)%n", encoded.length, (double) encoded.length / entities);
+        System.out.printf("encode        %,12.0f entities/sec%n", entities * ROUNDS / (encodeNanos / 1e9));
+        System.out.printf("decode        %,12.0f entities/sec%n", entities * ROUNDS / (decodeNanos / 1e9));
+    }
+
+    private static List<List<?>> buildExtents() {
+        Customer.clearExtent();
+        Order.clearExtent();
+        Payment.clearExtent();
+        OrderRequest.clearExtent();
+        ItemQuantity.clearExtent();
+        MenuItem.clearExtent();
+
+        NutritionalInfo nutrition = new NutritionalInfo(100, 10, 10, 10, 5);
+        List<MenuItem> menu = new ArrayList<>();
+        for (int i = 0; i < MENU_SIZE; i++) {
+            menu.add(new MainDish("Dish " + i, "Benchmark dish", 20.0 + i, "img", "Poland", nutrition, 1));
+        }
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers.add(new Customer("Name" + i, "Surname", "c" + i + "@test.com", "500" + i, LocalDateTime.now()));
+        }
+
+        for (int i = 0; i < ORDERS; i++) {
+            Customer customer = customers.get(i % CUSTOMERS);
+            Order order = i % 2 == 0 ? Order.createDineIn(customer) : Order.createTakeaway(customer);
+            if (i % 3 == 0) {
+                new Cash(50.0 + i % 100, order, 200.0);
+            } else {
+                new Card(50.0 + i % 100, order, "1234", "Visa");
+            }
+            OrderRequest request = new OrderRequest();
+            for (int line = 0; line < LINES_PER_REQUEST; line++) {
+                ItemQuantity.create(request, menu.get((i + line) % MENU_SIZE), 1 + line);
+            }
+        }
+
+        return List.of(
+            new ArrayList<>(Order.getAllOrdersFromExtent()),
+            new ArrayList<>(Payment.getAllPaymentsFromExtent()),
+            new ArrayList<>(OrderRequest.getAllOrderRequestsFromExtent()),
+            new ArrayList<>(ItemQuantity.getAllItemQuantitiesFromExtent()));
+    }
+
+    private static byte[] encode(List<List<?>> extents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(bytes))) {
+            for (List<?> extent : extents) {
+                out.writeObject(extent);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void decode(byte[] encoded) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(new ByteArrayInputStream(encoded)))) {
+            for (int i = 0; i < 4; i++) {
+                in.readObject();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Tests for single-file snapshots of all extents.
+ */
+public class SnapshotManagerTest {
+
+    private static final String TEST_SNAPSHOT_FILE = "test_snapshot.dat";
+
+    @BeforeEach
+    void clearExtents() {
+        Customer.clearExtent();
+        Order.clearExtent();
+        Payment.clearExtent();
+        Reservation.clearExtent();
+        Table.clearExtent();
+        Feedback.clearExtent();
+        MenuItem.clearExtent();
+        OrderRequest.clearExtent();
+        ItemQuantity.clearExtent();
+    }
+
+    @AfterEach
+    void cleanupFiles() {
+        PersistenceConfig.deleteDataFile(TEST_SNAPSHOT_FILE);
+    }
+
+    @Test
+    @DisplayName("Snapshot round trip restores all extents")
+    void testSnapshotRoundTrip() throws Exception {
+        Customer customer = new Customer("John", "Doe", "john@test.com", "123456", LocalDateTime.now());
+        Order order = Order.createDineIn(customer);
+        new Card(120.0, order, "1234", "Visa");
+        new Table(1, 4, "Main Hall");
+
+        SnapshotManager.saveSnapshot(TEST_SNAPSHOT_FILE);
+        Customer.clearExtent();
+        Order.clearExtent();
+        Payment.clearExtent();
+        Table.clearExtent();
+
+        assertTrue(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+        assertEquals(1, Customer.getAllCustomersFromExtent().size());
+        assertEquals(1, Order.getAllOrdersFromExtent().size());
+        assertEquals(1, Payment.getAllPaymentsFromExtent().size());
+        assertEquals(1, Table.getAllTablesFromExtent().size());
+    }
+
+    @Test
+    @DisplayName("Shared objects keep their identity across extents")
+    void testSharedIdentityPreserved() throws Exception {
+        Customer customer = new Customer("Jane", "Smith", "jane@test.com", "654321", LocalDateTime.now());
+        Table table = new Table(2, 4, "Terrace");
+        Order.createTakeaway(customer);
+        new Reservation(LocalDate.now().plusDays(3), LocalTime.of(19, 0), 2, customer, table);
+        MenuItem item = new MainDish("Pasta", "Italian pasta", 25.0, "img", "Italy",
+            new NutritionalInfo(100, 10, 10, 10, 5), 1);
+        new Feedback(item, customer, "Great", "Really good", 5, null, null, null);
+
+        SnapshotManager.saveSnapshot(TEST_SNAPSHOT_FILE);
+        assertTrue(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+
+        Customer loaded = Customer.getAllCustomersFromExtent().get(0);
+        assertSame(loaded, Order.getAllOrdersFromExtent().get(0).getCustomer());
+        assertSame(loaded, Reservation.getAllReservationsFromExtent().get(0).getCustomer());
+        assertSame(loaded, Feedback.getAllFeedback().get(0).getAuthor());
+        assertSame(Table.getAllTablesFromExtent().get(0),
+            Reservation.getAllReservationsFromExtent().get(0).getAssignedTable());
+        assertSame(MenuItem.getAllMenuItems().get(0), Feedback.getAllFeedback().get(0).getMenuItem());
+    }
+
+    @Test
+    @DisplayName("ItemQuantity pair index is rebuilt after load")
+    void testItemQuantityIndexRebuilt() throws Exception {
+        OrderRequest request = new OrderRequest();
+        MenuItem item = new MainDish("Pizza", "Italian pizza", 30.0, "img", "Italy",
+            new NutritionalInfo(100, 10, 10, 10, 5), 2);
+        ItemQuantity.create(request, item, 2);
+
+        SnapshotManager.saveSnapshot(TEST_SNAPSHOT_FILE);
+        assertTrue(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+
+        OrderRequest loadedRequest = OrderRequest.getAllOrderRequestsFromExtent().get(0);
+        MenuItem loadedItem = MenuItem.getAllMenuItems().get(0);
+        assertSame(ItemQuantity.getAllItemQuantitiesFromExtent().get(0),
+            ItemQuantity.find(loadedRequest, loadedItem));
+        assertThrows(IllegalStateException.class, () -> ItemQuantity.create(loadedRequest, loadedItem, 1));
+    }
+
+    @Test
+    @DisplayName("Corrupt snapshot returns false and clears extents")
+    void testCorruptSnapshot() throws Exception {
+        new Table(1, 4, "Main Hall");
+        File file = new File(PersistenceConfig.getDataFilePath(TEST_SNAPSHOT_FILE));
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] {1, 2, 3, 4});
+        }
+
+        assertFalse(SnapshotManager.loadSnapshot(TEST_SNAPSHOT_FILE));
+        assertEquals(0, Table.getAllTablesFromExtent().size());
+    }
+
+    @Test
+    @DisplayName("Missing snapshot file returns false")
+    void testMissingSnapshot() {
+        assertFalse(SnapshotManager.loadSnapshot("nonexistent_snapshot_xyz.dat"));
+    }
+}
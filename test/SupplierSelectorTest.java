@@ -0,0 +1,95 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for supplier statistics and ranking kept from the supply log history.
+ */
+public class SupplierSelectorTest {
+
+    private Supplier farm;
+    private Supplier market;
+    private Ingredient tomato;
+
+    @BeforeEach
+    void setup() {
+        Supplier.clearExtent();
+        Ingredient.clearExtent();
+        SupplyLog.clearExtent();
+        farm = new Supplier("Farm Fresh", "123", "farm@test.com", "Farm Road", 5.0, "John");
+        market = new Supplier("City Market", "456", "market@test.com", "Main St", 2.5, "Anna");
+        tomato = new Ingredient("Tomato", "kg", 100, 50, 5.0);
+    }
+
+    @Test
+    @DisplayName("Statistics track recent, volume-weighted cost and delivery frequency")
+    void testStats() {
+        SupplyLog.create(farm, tomato, LocalDate.of(2024, 1, 1), 30.0, 10.0);
+        SupplyLog.create(farm, tomato, LocalDate.of(2024, 1, 11), 120.0, 30.0);
+        SupplyLog.create(farm, tomato, LocalDate.of(2024, 1, 21), 25.0, 10.0);
+
+        SupplierSelector.SupplierStats stats = SupplierSelector.statsFor(farm, tomato);
+        assertEquals(3, stats.getDeliveryCount());
+        assertEquals(2.5, stats.getRecentUnitCost(), 1e-9);
+        assertEquals(175.0 / 50.0, stats.getAverageUnitCost(), 1e-9);
+        assertEquals(10.0, stats.getAverageDaysBetweenDeliveries(), 1e-9);
+        assertEquals(LocalDate.of(2024, 1, 1), stats.getFirstDelivery());
+        assertEquals(LocalDate.of(2024, 1, 21), stats.getLastDelivery());
+        assertNull(SupplierSelector.statsFor(market, tomato));
+    }
+
+    @Test
+    @DisplayName("Ranking weighs cost with reliability rating")
+    void testRanking() {
+        SupplyLog.create(farm, tomato, LocalDate.of(2024, 3, 1), 40.0, 10.0);
+        SupplyLog.create(market, tomato, LocalDate.of(2024, 3, 1), 30.0, 10.0);
+
+        // Market is cheaper, but rated 2.5 its 3.00 counts as 4.50 against the farm's 4.00
+        List<SupplierSelector.SupplierStats> ranking = SupplierSelector.rankSuppliers(tomato);
+        assertEquals(farm, ranking.get(0).getSupplier());
+        assertEquals(4.5, ranking.get(1).getEffectiveUnitCost(), 1e-9);
+
+        market.setReliabilityRating(4.5);
+        assertEquals(market, SupplierSelector.bestSupplier(tomato));
+    }
+
+    @Test
+    @DisplayName("Edited and deleted logs update the statistics")
+    void testEditAndDelete() {
+        SupplyLog old = SupplyLog.create(farm, tomato, LocalDate.of(2024, 1, 1), 20.0, 10.0);
+        SupplyLog recent = SupplyLog.create(farm, tomato, LocalDate.of(2024, 2, 1), 40.0, 10.0);
+
+        recent.setCostAtSupply(30.0);
+        assertEquals(3.0, SupplierSelector.statsFor(farm, tomato).getRecentUnitCost(), 1e-9);
+
+        recent.delete();
+        SupplierSelector.SupplierStats stats = SupplierSelector.statsFor(farm, tomato);
+        assertEquals(1, stats.getDeliveryCount());
+        assertEquals(2.0, stats.getRecentUnitCost(), 1e-9);
+
+        old.delete();
+        assertNull(SupplierSelector.statsFor(farm, tomato));
+        assertTrue(SupplierSelector.rankSuppliers(tomato).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Recommendations cover every ingredient with history and survive a restore")
+    void testRecommendAllAndRestore() {
+        Ingredient basil = new Ingredient("Basil", "kg", 1, 2, 20.0);
+        new Ingredient("Saffron", "g", 10, 5, 50.0);
+        SupplyLog tomatoLog = SupplyLog.create(market, tomato, LocalDate.of(2024, 3, 1), 30.0, 10.0);
+        SupplyLog basilLog = SupplyLog.create(farm, basil, LocalDate.of(2024, 3, 1), 100.0, 5.0);
+
+        Map<Ingredient, SupplierSelector.SupplierStats> recommendations = SupplierSelector.recommendAll();
+        assertEquals(List.of(tomato, basil), List.copyOf(recommendations.keySet()));
+        assertEquals(farm, recommendations.get(basil).getSupplier());
+
+        SupplyLog.clearExtent();
+        assertTrue(SupplierSelector.recommendAll().isEmpty());
+        SupplyLog.restoreExtent(List.of(tomatoLog, basilLog));
+        assertEquals(2, SupplierSelector.recommendAll().size());
+    }
+}
@@ -0,0 +1,161 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for best-fit table suggestions and seating walk-ins.
+ */
+public class TableAllocatorTest {
+
+    private Customer customer;
+
+    @BeforeEach
+    void setup() {
+        Customer.clearExtent();
+        Order.clearExtent();
+        Table.clearExtent();
+        customer = new Customer("John", "Doe", "john@test.com", "123456", LocalDateTime.now());
+    }
+
+    @Test
+    @DisplayName("Smallest adequate free table is suggested")
+    void testSmallestAdequateTable() {
+        Table two = new Table(1, 2, "Main Hall");
+        Table four = new Table(2, 4, "Main Hall");
+        Table six = new Table(3, 6, "Terrace");
+        Table otherFour = new Table(4, 4, "Terrace");
+
+        assertEquals(List.of(two), TableAllocator.suggest(2));
+        assertEquals(List.of(six), TableAllocator.suggest(5));
+        assertEquals(List.of(otherFour), TableAllocator.suggest(3, "Terrace"));
+
+        four.changeStatus(TableStatus.OCCUPIED);
+        otherFour.reserve();
+        assertEquals(List.of(six), TableAllocator.suggest(3));
+        four.changeStatus(TableStatus.AVAILABLE);
+        assertEquals(List.of(four), TableAllocator.suggest(3));
+    }
+
+    @Test
+    @DisplayName("Large party gets the adjacent run with the fewest spare seats")
+    void testAdjacentTables() {
+        Table t1 = new Table(1, 4, "Main Hall");
+        Table t2 = new Table(2, 2, "Main Hall");
+        Table t3 = new Table(3, 4, "Main Hall");
+        Table t4 = new Table(4, 4, "Main Hall");
+        new Table(6, 4, "Main Hall");
+        new Table(7, 2, "Terrace");
+
+        // 4+2 and 2+4 both leave no spare seats; the lower-numbered run wins
+        assertEquals(List.of(t1, t2), TableAllocator.suggest(6));
+        // 2+4 = 6 is too small; 4+4 leaves one spare seat, 4+2+4 leaves three
+        assertEquals(List.of(t3, t4), TableAllocator.suggest(7));
+        t1.changeStatus(TableStatus.OCCUPIED);
+        assertEquals(List.of(t2, t3), TableAllocator.suggest(6));
+        t1.changeStatus(TableStatus.AVAILABLE);
+
+        t3.changeStatus(TableStatus.OCCUPIED);
+        // Tables 4 and 6 are not adjacent, and 1+2 only seats 6
+        assertTrue(TableAllocator.suggest(7).isEmpty());
+        assertTrue(TableAllocator.suggest(3, "Terrace").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Index follows capacity, section and extent changes")
+    void testReindexing() {
+        Table table = new Table(1, 2, "Main Hall");
+        assertTrue(TableAllocator.suggest(4).isEmpty());
+
+        table.setCapacity(4);
+        assertEquals(List.of(table), TableAllocator.suggest(4));
+        table.setSection("Terrace");
+        assertTrue(TableAllocator.suggest(4, "Main Hall").isEmpty());
+        assertEquals(List.of(table), TableAllocator.suggest(4, "Terrace"));
+
+        Table.clearExtent();
+        assertTrue(TableAllocator.suggest(1).isEmpty());
+        Table.restoreExtent(List.of(table));
+        assertEquals(List.of(table), TableAllocator.suggest(4));
+    }
+
+    @Test
+    @DisplayName("Seating claims the tables for the order and releases them on completion")
+    void testSeat() {
+        Table table = new Table(1, 4, "Main Hall");
+        Order order = Order.createDineIn(customer);
+
+        assertEquals(List.of(table), TableAllocator.seat(order.getDineIn(), 3));
+        assertEquals(TableStatus.OCCUPIED, table.getStatus());
+        assertEquals(List.of(table), order.getDineIn().getTables());
+        assertThrows(IllegalStateException.class,
+            () -> TableAllocator.seat(Order.createDineIn(customer).getDineIn(), 2));
+
+        order.cancelOrder();
+        assertEquals(TableStatus.AVAILABLE, table.getStatus());
+        assertEquals(List.of(table), TableAllocator.suggest(2));
+    }
+
+    @Test
+    @DisplayName("Concurrent host stands never seat two parties at one table")
+    void testConcurrentSeating() throws Exception {
+        int tables = 20;
+        for (int i = 1; i <= tables; i++) {
+            new Table(i, 2 + i % 3 * 2, i <= 10 ? "Main Hall" : "Terrace");
+        }
+        int stands = 8;
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < stands * 5; i++) {
+            orders.add(Order.createDineIn(customer));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(stands);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int s = 0; s < stands; s++) {
+                List<Order> mine = orders.subList(s * 5, s * 5 + 5);
+                results.add(pool.submit(() -> {
+                    start.await();
+                    int seated = 0;
+                    for (Order order : mine) {
+                        try {
+                            TableAllocator.seat(order.getDineIn(), 2);
+                            seated++;
+                        } catch (IllegalStateException e) {
+                            // restaurant full
+                        }
+                    }
+                    return seated;
+                }));
+            }
+            start.countDown();
+
+            int seated = 0;
+            for (Future<Integer> result : results) {
+                seated += result.get();
+            }
+            assertEquals(tables, seated);
+        } finally {
+            pool.shutdownNow();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        List<Table> used = new ArrayList<>();
+        for (Order order : orders) {
+            for (Table table : order.getDineIn().getTables()) {
+                assertFalse(used.contains(table));
+                used.add(table);
+            }
+        }
+        assertEquals(tables, used.size());
+        assertTrue(TableAllocator.suggest(1).isEmpty());
+    }
+}